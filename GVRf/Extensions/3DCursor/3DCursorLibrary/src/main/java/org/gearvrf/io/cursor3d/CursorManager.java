@@ -22,6 +22,7 @@ import org.gearvrf.GVRBoundsPicker;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVREventReceiver;
 import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRPickBatch;
 import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
@@ -37,6 +38,7 @@ import org.gearvrf.io.cursor3d.settings.SettingsView;
 import org.gearvrf.io.cursor3d.settings.SettingsView.SettingsChangeListener;
 import org.gearvrf.scene_objects.GVRViewSceneObject;
 import org.gearvrf.utility.Log;
+import org.joml.Vector3f;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
@@ -81,6 +83,9 @@ public final class CursorManager implements IEventReceiver
     private List<SelectableBehavior> selectableBehaviors;
     private GVRBoundsPicker objectCursorPicker;
     private GVREventReceiver listeners;
+    private final GVRPickBatch cursorRays = new GVRPickBatch(4);
+    private final Vector3f rayOrigin = new Vector3f();
+    private final Vector3f rayDirection = new Vector3f();
 
     /**
      * Create a {@link CursorManager}.
@@ -676,6 +681,46 @@ public final class CursorManager implements IEventReceiver
         return true;
     }
 
+    /**
+     * Find the closest object hit by the pick ray of each active {@link Cursor}.
+     * <p/>
+     * The rays from all the cursors are picked together in one pass over the
+     * colliders in the scene instead of once per cursor. This is useful for
+     * line of sight checks against all cursors each frame. The result has a ray
+     * for each cursor in the order returned by {@link #getActiveCursors()}.
+     * The batch is reused by the next call, so read the results before
+     * calling again.
+     *
+     * @param mask only colliders in these layers are considered, -1 for all
+     * @return batch with the closest hit for each active cursor,
+     * null if no scene has been set.
+     */
+    public GVRPickBatch pickCursorRays(int mask) {
+        if (scene == null) {
+            return null;
+        }
+        synchronized (mCursors) {
+            cursorRays.clear();
+            for (Cursor cursor : mCursors) {
+                if (!cursor.isActive()) {
+                    continue;
+                }
+                IoDevice device = cursor.getIoDevice();
+                GVRCursorController controller = (device != null) ? device.getGvrCursorController() : null;
+                if ((controller != null) && (controller.getPicker() != null)) {
+                    controller.getPicker().getWorldPickRay(rayOrigin, rayDirection);
+                    cursorRays.addRay(rayOrigin.x, rayOrigin.y, rayOrigin.z,
+                            rayDirection.x, rayDirection.y, rayDirection.z, mask);
+                } else {
+                    // keep the rays in step with the cursors, a zero mask never hits
+                    cursorRays.addRay(0, 0, 0, 0, 0, -1, 0);
+                }
+            }
+        }
+        cursorRays.pick(scene);
+        return cursorRays;
+    }
+
     private void addSelectableBehavior(GVRSceneObject object) {
         SelectableBehavior selectableBehavior = (SelectableBehavior) object.getComponent(
                 SelectableBehavior.getComponentType());
@@ -10,6 +10,7 @@ import com.koushikdutta.async.http.server.AsyncHttpServerResponse;
 import com.koushikdutta.async.http.server.HttpServerRequestCallback;
 
 import org.gearvrf.GVRContext;
+import org.gearvrf.debug.GVRMetrics;
 import org.gearvrf.utility.Log;
 
 import java.io.IOException;
@@ -20,8 +21,11 @@ import java.io.PipedOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class creates a web server that serves webpage with a debug console for GVRf. It uses
@@ -29,13 +33,20 @@ import java.util.concurrent.Executors;
  * GVRf. After creating the instance, call {@link DebugWebServer#listen(int)} to start the webserver.
  * You can enter http://\<hostname for device running the GVRf app\>:\<port\> in your browser to
  * access the console.
- *
+ * <p>
+ * The server also publishes {@link GVRMetrics}. A GET request for /metrics returns a JSON
+ * snapshot, which automated performance tests can poll without a browser, and a websocket
+ * connected to /metrics receives a snapshot every {@link #METRICS_INTERVAL_MS} milliseconds.
+ * Creating the server turns on metrics recording and {@link #stop()} turns it off again,
+ * unless the application had already turned it on.
  */
 public class DebugWebServer {
     private static final String TAG = DebugWebServer.class.getSimpleName();
     private static final String NOT_READY_RESPONSE = "Server Not Ready";
     private static final String DEFAULT_PATH = "/";
     private static final String WEBSOCKET_PATH = "/commands";
+    private static final String METRICS_PATH = "/metrics";
+    public static final int METRICS_INTERVAL_MS = 500;
     private static final int MAX_CLIENTS = 3;
     private static final byte[] LINE_ENDING = new byte[]{0x0d, 0x0a};
 
@@ -44,6 +55,9 @@ public class DebugWebServer {
     private List<WebSocketConnection> webSocketConnections;
     private int fileSize = 0;
     private final Object lock = new Object();
+    private final List<WebSocket> metricsSockets = new CopyOnWriteArrayList<WebSocket>();
+    private final ScheduledExecutorService metricsTimer = Executors.newSingleThreadScheduledExecutor();
+    private final boolean metricsWereEnabled = GVRMetrics.isEnabled();
 
     /**
      * Creates an instance of the {@link DebugWebServer}. After creating the instance, a call to
@@ -96,6 +110,44 @@ public class DebugWebServer {
                 }
             }
         });
+
+        GVRMetrics.setEnabled(true);
+        server.get(METRICS_PATH, new HttpServerRequestCallback() {
+            @Override
+            public void onRequest(AsyncHttpServerRequest request, AsyncHttpServerResponse
+                    response) {
+                response.setContentType("application/json");
+                response.send(GVRMetrics.get().toJson());
+            }
+        });
+
+        server.websocket(METRICS_PATH, new WebSocketRequestCallback() {
+            @Override
+            public void onConnected(final WebSocket webSocket, AsyncHttpServerRequest request) {
+                metricsSockets.add(webSocket);
+                webSocket.setClosedCallback(new CompletedCallback() {
+                    @Override
+                    public void onCompleted(Exception ex) {
+                        metricsSockets.remove(webSocket);
+                    }
+                });
+            }
+        });
+
+        metricsTimer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (metricsSockets.isEmpty()) {
+                    return;
+                }
+                String snapshot = GVRMetrics.get().toJson();
+                for (WebSocket socket : metricsSockets) {
+                    if (socket.isOpen()) {
+                        socket.send(snapshot);
+                    }
+                }
+            }
+        }, METRICS_INTERVAL_MS, METRICS_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
 
@@ -113,9 +165,17 @@ public class DebugWebServer {
      */
     public void stop() {
         server.stop();
+        metricsTimer.shutdown();
         for (WebSocketConnection connection : webSocketConnections) {
             connection.close();
         }
+        for (WebSocket socket : metricsSockets) {
+            socket.close();
+        }
+        metricsSockets.clear();
+        if (!metricsWereEnabled) {
+            GVRMetrics.setEnabled(false);
+        }
     }
 
     public void logError(String message)
@@ -25,6 +25,8 @@ import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.SystemPropertyUtil;
 import org.gearvrf.mixedreality.arcore.ARCoreSession;
+import org.gearvrf.mixedreality.replay.ReplayRecorder;
+import org.gearvrf.mixedreality.replay.ReplaySession;
 
 import org.joml.Vector3f;
 
@@ -35,6 +37,7 @@ import java.util.ArrayList;
  */
 public class GVRMixedReality implements IMixedReality
 {
+    private static final String REPLAY_PLATFORM = "replay:";
     private IMixedReality mSession;
     private SessionState mState;
     private Vector3f mTempVec1 = new Vector3f();
@@ -92,12 +95,21 @@ public class GVRMixedReality implements IMixedReality
      * @param arPlatform    string with name of underlying AR platform to use:
      *                      "arcore" will use Google AR Core.
      *                      "ar-drop-in2" will use the SRA experimental headset
+     *                      "replay:<i>filename</i>" will replay a session
+     *                      recorded with {@link ReplayRecorder}
      */
     public GVRMixedReality(GVRScene scene, boolean enableCloudAnchor, String arPlatform)
     {
         String prop = SystemPropertyUtil.getSystemPropertyString("debug.samsungxr.hmt");
 
-        mSession = new ARCoreSession(scene, enableCloudAnchor);
+        if ((arPlatform != null) && arPlatform.startsWith(REPLAY_PLATFORM))
+        {
+            mSession = new ReplaySession(scene, arPlatform.substring(REPLAY_PLATFORM.length()), true);
+        }
+        else
+        {
+            mSession = new ARCoreSession(scene, enableCloudAnchor);
+        }
         mState = SessionState.ON_PAUSE;
     }
 
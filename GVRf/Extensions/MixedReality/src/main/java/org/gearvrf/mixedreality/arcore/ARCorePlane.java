@@ -32,6 +32,7 @@ import java.nio.FloatBuffer;
 class ARCorePlane extends GVRPlane {
     private Plane mARPlane;
     private ARCorePose mPose;
+    private final Matrix4f mTempMtx = new Matrix4f();
 
     protected ARCorePlane(GVRContext gvrContext, Plane plane) {
         super(gvrContext);
@@ -127,10 +128,9 @@ class ARCorePlane extends GVRPlane {
             float w = getWidth();
             float h = getHeight();
             mPose.update(mARPlane.getCenterPose(), scale);
-            Matrix4f m = new Matrix4f();
-            m.set(mPose.getPoseMatrix());
-            m.scaleLocal(w * 0.95f, h * 0.95f, 1.0f);
-            owner.getTransform().setModelMatrix(m);
+            mTempMtx.set(mPose.getPoseMatrix());
+            mTempMtx.scaleLocal(w * 0.95f, h * 0.95f, 1.0f);
+            owner.getTransform().setModelMatrix(mTempMtx);
         }
     }
     
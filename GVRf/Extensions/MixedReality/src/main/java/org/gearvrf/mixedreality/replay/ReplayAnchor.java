@@ -0,0 +1,90 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.replay;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.mixedreality.GVRAnchor;
+import org.gearvrf.mixedreality.GVRTrackingState;
+
+/**
+ * Anchor driven by a recorded AR session.
+ * <p>
+ * Anchors are identified by the order in which they were created,
+ * the same order they were created in when the session was recorded.
+ */
+class ReplayAnchor extends GVRAnchor {
+    private final int mId;
+    private final float[] mARPose = new float[16];
+    private final float[] mPoseMatrix = new float[16];
+
+    ReplayAnchor(GVRContext gvrContext, int id, float[] pose) {
+        super(gvrContext);
+        mId = id;
+        mTrackingState = GVRTrackingState.TRACKING;
+        System.arraycopy(pose, 0, mPoseMatrix, 0, 16);
+    }
+
+    int getId() {
+        return mId;
+    }
+
+    void setTrackingState(GVRTrackingState state) { mTrackingState = state; }
+
+    @Override
+    public GVRTrackingState getTrackingState() {
+        return mTrackingState;
+    }
+
+    @Override
+    public String getCloudAnchorId() {
+        return null;
+    }
+
+    @Override
+    public float[] getPose() {
+        return mPoseMatrix;
+    }
+
+    /**
+     * Set the pose of the anchor in GVRf space.
+     *
+     * @param pose new pose matrix
+     */
+    void setPose(float[] pose) {
+        System.arraycopy(pose, 0, mPoseMatrix, 0, 16);
+        GVRSceneObject owner = getOwnerObject();
+        if (owner != null) {
+            owner.getTransform().setModelMatrix(mPoseMatrix);
+        }
+    }
+
+    /**
+     * Update the anchor from a recorded frame.
+     *
+     * @param rec   recorded anchor state
+     * @param scale scale from AR to GVRf world
+     */
+    void update(ReplayFrame.AnchorRecord rec, float scale) {
+        System.arraycopy(rec.pose, 0, mARPose, 0, 16);
+        ReplaySession.ar2gvr(mARPose, mPoseMatrix, scale);
+
+        GVRSceneObject owner = getOwnerObject();
+        if ((owner != null) && isEnabled() && owner.isEnabled()) {
+            owner.getTransform().setModelMatrix(mPoseMatrix);
+        }
+    }
+}
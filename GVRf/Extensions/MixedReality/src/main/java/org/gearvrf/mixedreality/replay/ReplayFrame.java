@@ -0,0 +1,303 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.replay;
+
+import org.gearvrf.mixedreality.GVRPlane;
+import org.gearvrf.mixedreality.GVRTrackingState;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * One frame of recorded AR tracking data.
+ * <p>
+ * A recording starts with a header followed by a sequence of frames.
+ * Each frame contains the camera pose, the light estimate and the
+ * state of every plane, anchor and hit result at that time.
+ * All poses are column major matrices in AR world space (meters).
+ * <p>
+ * The records in a frame are reused when the next frame is read,
+ * so replaying a stream does not allocate once the largest frame
+ * has been seen.
+ * @see ReplaySession
+ * @see ReplayRecorder
+ */
+public class ReplayFrame {
+    static final int MAGIC = 0x47565252;     // "GVRR"
+    static final int VERSION = 1;
+    private static final int NUM_TRACKING_STATES = GVRTrackingState.values().length;
+    private static final int NUM_PLANE_TYPES = GVRPlane.Type.values().length;
+
+    /**
+     * Recorded state of a single plane.
+     */
+    public static class PlaneRecord {
+        public int id;
+        public int trackingState;           // ordinal of GVRTrackingState
+        public int type;                    // ordinal of GVRPlane.Type
+        public int subsumedBy = -1;         // id of parent plane or -1
+        public final float[] centerPose = new float[16];
+        public float extentX;
+        public float extentZ;
+        public float[] polygon = new float[0];
+        public int polygonSize;             // number of floats used in polygon
+    }
+
+    /**
+     * Recorded state of a single anchor.
+     */
+    public static class AnchorRecord {
+        public int id;
+        public int trackingState;           // ordinal of GVRTrackingState
+        public final float[] pose = new float[16];
+    }
+
+    /**
+     * Recorded result of a hit test in screen coordinates.
+     */
+    public static class HitRecord {
+        public float x;
+        public float y;
+        public int planeId;
+        public float distance;
+        public final float[] pose = new float[16];
+    }
+
+    public long timestamp;
+    public final float[] cameraPose = new float[16];
+    public boolean lightValid;
+    public float pixelIntensity;
+
+    private final ArrayList<PlaneRecord> mPlanes = new ArrayList<>();
+    private final ArrayList<AnchorRecord> mAnchors = new ArrayList<>();
+    private final ArrayList<HitRecord> mHits = new ArrayList<>();
+    private int mNumPlanes = 0;
+    private int mNumAnchors = 0;
+    private int mNumHits = 0;
+
+    public int getNumPlanes() { return mNumPlanes; }
+
+    public PlaneRecord getPlane(int index) { return mPlanes.get(index); }
+
+    public int getNumAnchors() { return mNumAnchors; }
+
+    public AnchorRecord getAnchor(int index) { return mAnchors.get(index); }
+
+    public int getNumHits() { return mNumHits; }
+
+    public HitRecord getHit(int index) { return mHits.get(index); }
+
+    /**
+     * Remove all planes, anchors and hits from the frame.
+     * The records are kept for reuse.
+     */
+    public void clear() {
+        mNumPlanes = 0;
+        mNumAnchors = 0;
+        mNumHits = 0;
+    }
+
+    /**
+     * Add a plane record to the frame, reusing a previous one if possible.
+     * @return plane record to fill in
+     */
+    public PlaneRecord addPlane() {
+        if (mNumPlanes >= mPlanes.size()) {
+            mPlanes.add(new PlaneRecord());
+        }
+        PlaneRecord rec = mPlanes.get(mNumPlanes++);
+        rec.subsumedBy = -1;
+        rec.polygonSize = 0;
+        return rec;
+    }
+
+    /**
+     * Add an anchor record to the frame, reusing a previous one if possible.
+     * @return anchor record to fill in
+     */
+    public AnchorRecord addAnchor() {
+        if (mNumAnchors >= mAnchors.size()) {
+            mAnchors.add(new AnchorRecord());
+        }
+        return mAnchors.get(mNumAnchors++);
+    }
+
+    /**
+     * Add a hit record to the frame, reusing a previous one if possible.
+     * @return hit record to fill in
+     */
+    public HitRecord addHit() {
+        if (mNumHits >= mHits.size()) {
+            mHits.add(new HitRecord());
+        }
+        return mHits.get(mNumHits++);
+    }
+
+    /**
+     * Read the recording header and check it is a supported version.
+     * @param in stream positioned at the start of a recording
+     * @throws IOException if the stream is not a recording
+     */
+    static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an AR recording");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported AR recording version " + version);
+        }
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Read the next frame from the stream into this frame.
+     * @param in input stream positioned after the header or a previous frame
+     * @return true if a frame was read, false at the end of the recording
+     * @throws IOException if the recording is truncated or corrupt
+     */
+    public boolean read(DataInputStream in) throws IOException {
+        try {
+            timestamp = in.readLong();
+        } catch (EOFException ex) {
+            return false;
+        }
+        clear();
+        readMatrix(in, cameraPose);
+        lightValid = in.readBoolean();
+        pixelIntensity = in.readFloat();
+
+        int n = in.readInt();
+        for (int i = 0; i < n; ++i) {
+            PlaneRecord rec = addPlane();
+
+            rec.id = in.readInt();
+            rec.trackingState = readOrdinal(in, NUM_TRACKING_STATES, "tracking state");
+            rec.type = readOrdinal(in, NUM_PLANE_TYPES, "plane type");
+            rec.subsumedBy = in.readInt();
+            readMatrix(in, rec.centerPose);
+            rec.extentX = in.readFloat();
+            rec.extentZ = in.readFloat();
+            rec.polygonSize = in.readInt();
+            if (rec.polygonSize < 0) {
+                throw new IOException("Invalid polygon size " + rec.polygonSize + " in AR recording");
+            }
+            if (rec.polygon.length < rec.polygonSize) {
+                rec.polygon = new float[rec.polygonSize];
+            }
+            for (int j = 0; j < rec.polygonSize; ++j) {
+                rec.polygon[j] = in.readFloat();
+            }
+        }
+        n = in.readInt();
+        for (int i = 0; i < n; ++i) {
+            AnchorRecord rec = addAnchor();
+
+            rec.id = in.readInt();
+            rec.trackingState = readOrdinal(in, NUM_TRACKING_STATES, "tracking state");
+            readMatrix(in, rec.pose);
+        }
+        n = in.readInt();
+        for (int i = 0; i < n; ++i) {
+            HitRecord rec = addHit();
+
+            rec.x = in.readFloat();
+            rec.y = in.readFloat();
+            rec.planeId = in.readInt();
+            rec.distance = in.readFloat();
+            readMatrix(in, rec.pose);
+        }
+        return true;
+    }
+
+    /**
+     * Append this frame to a recording.
+     * @param out output stream positioned after the header or a previous frame
+     * @throws IOException if the frame cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(timestamp);
+        writeMatrix(out, cameraPose);
+        out.writeBoolean(lightValid);
+        out.writeFloat(pixelIntensity);
+
+        out.writeInt(mNumPlanes);
+        for (int i = 0; i < mNumPlanes; ++i) {
+            PlaneRecord rec = mPlanes.get(i);
+
+            out.writeInt(rec.id);
+            out.writeByte(rec.trackingState);
+            out.writeByte(rec.type);
+            out.writeInt(rec.subsumedBy);
+            writeMatrix(out, rec.centerPose);
+            out.writeFloat(rec.extentX);
+            out.writeFloat(rec.extentZ);
+            out.writeInt(rec.polygonSize);
+            for (int j = 0; j < rec.polygonSize; ++j) {
+                out.writeFloat(rec.polygon[j]);
+            }
+        }
+        out.writeInt(mNumAnchors);
+        for (int i = 0; i < mNumAnchors; ++i) {
+            AnchorRecord rec = mAnchors.get(i);
+
+            out.writeInt(rec.id);
+            out.writeByte(rec.trackingState);
+            writeMatrix(out, rec.pose);
+        }
+        out.writeInt(mNumHits);
+        for (int i = 0; i < mNumHits; ++i) {
+            HitRecord rec = mHits.get(i);
+
+            out.writeFloat(rec.x);
+            out.writeFloat(rec.y);
+            out.writeInt(rec.planeId);
+            out.writeFloat(rec.distance);
+            writeMatrix(out, rec.pose);
+        }
+    }
+
+    /*
+     * Enum values are recorded as ordinals, reject any that would
+     * index past the values of the enum.
+     */
+    private static int readOrdinal(DataInputStream in, int count, String what) throws IOException {
+        int ordinal = in.readByte();
+
+        if ((ordinal < 0) || (ordinal >= count)) {
+            throw new IOException("Invalid " + what + " " + ordinal + " in AR recording");
+        }
+        return ordinal;
+    }
+
+    private static void readMatrix(DataInputStream in, float[] m) throws IOException {
+        for (int i = 0; i < 16; ++i) {
+            m[i] = in.readFloat();
+        }
+    }
+
+    private static void writeMatrix(DataOutputStream out, float[] m) throws IOException {
+        for (int i = 0; i < 16; ++i) {
+            out.writeFloat(m[i]);
+        }
+    }
+}
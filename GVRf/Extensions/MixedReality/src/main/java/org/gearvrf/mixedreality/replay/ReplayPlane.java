@@ -0,0 +1,182 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.replay;
+
+import android.support.annotation.NonNull;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.mixedreality.GVRPlane;
+import org.gearvrf.mixedreality.GVRTrackingState;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Plane driven by a recorded AR session.
+ * <p>
+ * The plane keeps its own copy of the recorded polygon.
+ * When a new frame arrives only the parts of the polygon
+ * that changed are copied and the polygon buffer is only
+ * reallocated when it grows, so updating a plane does
+ * not allocate.
+ */
+class ReplayPlane extends GVRPlane {
+    private final float[] mCenterPose = new float[16];
+    private final float[] mPoseMatrix = new float[16];
+    private final Matrix4f mTempMtx = new Matrix4f();
+    private final Vector3f mTempVec = new Vector3f();
+    private float mWidth;
+    private float mHeight;
+    private float mScale = 1.0f;
+    private float[] mPolygonData = new float[0];
+    private int mPolygonSize = 0;
+    private FloatBuffer mPolygon = FloatBuffer.allocate(0);
+    private boolean mPolygonChanged = false;
+
+    ReplayPlane(GVRContext gvrContext, Type type) {
+        super(gvrContext);
+        mPlaneType = type;
+    }
+
+    void setTrackingState(GVRTrackingState state) {
+        mTrackingState = state;
+    }
+
+    void setParentPlane(GVRPlane plane) {
+        mParentPlane = plane;
+    }
+
+    @Override
+    public GVRTrackingState getTrackingState() {
+        return mTrackingState;
+    }
+
+    @Override
+    public void getCenterPose(@NonNull float[] poseOut) {
+        if (poseOut.length != 16) {
+            throw new IllegalArgumentException("Array must be 16");
+        }
+        System.arraycopy(mCenterPose, 0, poseOut, 0, 16);
+    }
+
+    @Override
+    public float getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public float getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public FloatBuffer getPolygon() {
+        mPolygon.rewind();
+        return mPolygon;
+    }
+
+    /**
+     * Determine whether the polygon changed in the last update.
+     * @return true if the polygon was modified
+     */
+    public boolean isPolygonChanged() {
+        return mPolygonChanged;
+    }
+
+    @Override
+    public boolean isPoseInPolygon(float[] pose) {
+        /*
+         * Transform the pose position from GVRf space into
+         * the local space of the plane (meters, polygon in XZ)
+         */
+        mTempVec.set(pose[12] / mScale, pose[13] / mScale, pose[14] / mScale);
+        mTempMtx.set(mCenterPose);
+        mTempMtx.invert();
+        mTempMtx.transformPosition(mTempVec);
+
+        float x = mTempVec.x;
+        float z = mTempVec.z;
+        int numPoints = mPolygonSize / 2;
+        boolean inside = false;
+
+        for (int i = 0, j = numPoints - 1; i < numPoints; j = i++) {
+            float xi = mPolygonData[i * 2];
+            float zi = mPolygonData[i * 2 + 1];
+            float xj = mPolygonData[j * 2];
+            float zj = mPolygonData[j * 2 + 1];
+
+            if (((zi > z) != (zj > z)) &&
+                (x < (xj - xi) * (z - zi) / (zj - zi) + xi)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Update the plane from a recorded frame.
+     *
+     * @param rec   recorded plane state
+     * @param scale scale from AR to GVRf world
+     */
+    void update(ReplayFrame.PlaneRecord rec, float scale) {
+        mScale = scale;
+        mWidth = rec.extentX;
+        mHeight = rec.extentZ;
+        System.arraycopy(rec.centerPose, 0, mCenterPose, 0, 16);
+        updatePolygon(rec.polygon, rec.polygonSize);
+
+        GVRSceneObject owner = getOwnerObject();
+        if (isEnabled() && (owner != null) && owner.isEnabled()) {
+            ReplaySession.ar2gvr(mCenterPose, mPoseMatrix, scale);
+            mTempMtx.set(mPoseMatrix);
+            mTempMtx.scaleLocal(mWidth * 0.95f, mHeight * 0.95f, 1.0f);
+            owner.getTransform().setModelMatrix(mTempMtx);
+        }
+    }
+
+    /*
+     * Copy only the polygon values which differ from the
+     * previous frame into the existing polygon storage.
+     */
+    private void updatePolygon(float[] polygon, int size) {
+        mPolygonChanged = false;
+        if (size > mPolygonData.length) {
+            mPolygonData = new float[size];
+            ByteBuffer bb = ByteBuffer.allocateDirect(size * 4);
+            bb.order(ByteOrder.nativeOrder());
+            mPolygon = bb.asFloatBuffer();
+            mPolygonSize = 0;
+        }
+        if (size != mPolygonSize) {
+            mPolygonChanged = true;
+            mPolygonSize = size;
+        }
+        mPolygon.limit(size);
+        for (int i = 0; i < size; ++i) {
+            float v = polygon[i];
+            if (mPolygonData[i] != v) {
+                mPolygonData[i] = v;
+                mPolygon.put(i, v);
+                mPolygonChanged = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.replay;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRScene;
+import org.gearvrf.mixedreality.GVRAnchor;
+import org.gearvrf.mixedreality.GVRHitResult;
+import org.gearvrf.mixedreality.GVRLightEstimate;
+import org.gearvrf.mixedreality.GVRPlane;
+import org.gearvrf.mixedreality.IMixedReality;
+import org.gearvrf.utility.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Records the state of a live mixed reality session so it
+ * can be replayed later by {@link ReplaySession}.
+ * <p>
+ * Once started, one frame is written every time a frame is rendered.
+ * Planes are captured automatically. Anchors must be registered with
+ * {@link #addAnchor(GVRAnchor)} in the order they are created and
+ * hit results with {@link #recordHit(float, float, GVRHitResult)}.
+ */
+public class ReplayRecorder implements GVRDrawFrameListener {
+    private static final String TAG = ReplayRecorder.class.getSimpleName();
+
+    private final GVRContext mContext;
+    private final GVRScene mScene;
+    private final IMixedReality mSession;
+    private final ReplayFrame mFrame = new ReplayFrame();
+    private final IdentityHashMap<GVRPlane, Integer> mPlaneIds = new IdentityHashMap<>();
+    private final List<GVRAnchor> mAnchors = new ArrayList<>();
+    private final float[] mTempPose = new float[16];
+    private DataOutputStream mStream;
+
+    /**
+     * Construct a recorder for a mixed reality session.
+     *
+     * @param scene   scene the session is attached to
+     * @param session session to record
+     */
+    public ReplayRecorder(GVRScene scene, IMixedReality session) {
+        mContext = scene.getGVRContext();
+        mScene = scene;
+        mSession = session;
+    }
+
+    /**
+     * Start recording to the given file.
+     *
+     * @param fileName path of the recording to write
+     * @throws IOException if the file cannot be created
+     */
+    public void start(String fileName) throws IOException {
+        stop();
+        mStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+        ReplayFrame.writeHeader(mStream);
+        mFrame.clear();
+        mContext.registerDrawFrameListener(this);
+    }
+
+    /**
+     * Stop recording and close the file.
+     */
+    public void stop() {
+        if (mStream == null) {
+            return;
+        }
+        mContext.unregisterDrawFrameListener(this);
+        try {
+            mStream.close();
+        } catch (IOException ex) {
+            Log.e(TAG, "Error closing AR recording: %s", ex.getMessage());
+        }
+        mStream = null;
+    }
+
+    /**
+     * Include an anchor in the recording.
+     * Anchors are replayed in the order they are added.
+     *
+     * @param anchor anchor to record
+     */
+    public void addAnchor(GVRAnchor anchor) {
+        mAnchors.add(anchor);
+    }
+
+    /**
+     * Include the result of a hit test in the next frame.
+     *
+     * @param x     screen X coordinate of the hit test
+     * @param y     screen Y coordinate of the hit test
+     * @param hit   result of the hit test
+     */
+    public void recordHit(float x, float y, GVRHitResult hit) {
+        if (hit == null) {
+            return;
+        }
+        ReplayFrame.HitRecord rec = mFrame.addHit();
+        Integer planeId = mPlaneIds.get(hit.getPlane());
+
+        rec.x = x;
+        rec.y = y;
+        rec.distance = hit.getDistance();
+        rec.planeId = (planeId != null) ? planeId : -1;
+        ReplaySession.gvr2ar(hit.getPose(), rec.pose, mSession.getARToVRScale());
+    }
+
+    @Override
+    public void onDrawFrame(float frameTime) {
+        float scale = mSession.getARToVRScale();
+
+        mFrame.timestamp = System.nanoTime();
+        System.arraycopy(mScene.getMainCameraRig().getTransform().getModelMatrix(), 0,
+                         mFrame.cameraPose, 0, 16);
+        mFrame.cameraPose[12] /= scale;
+        mFrame.cameraPose[13] /= scale;
+        mFrame.cameraPose[14] /= scale;
+
+        GVRLightEstimate light = mSession.getLightEstimate();
+        mFrame.lightValid = (light != null) &&
+                (light.getLightEstimateState() == GVRLightEstimate.GVRLightEstimateState.VALID);
+        mFrame.pixelIntensity = (light != null) ? light.getPixelIntensity() : 0;
+
+        for (GVRPlane plane : mSession.getAllPlanes()) {
+            recordPlane(plane);
+        }
+        for (int i = 0; i < mAnchors.size(); ++i) {
+            GVRAnchor anchor = mAnchors.get(i);
+            ReplayFrame.AnchorRecord rec = mFrame.addAnchor();
+
+            rec.id = i;
+            rec.trackingState = anchor.getTrackingState().ordinal();
+            ReplaySession.gvr2ar(anchor.getPose(), rec.pose, scale);
+        }
+        try {
+            mFrame.write(mStream);
+        } catch (IOException ex) {
+            Log.e(TAG, "Error writing AR recording: %s", ex.getMessage());
+            stop();
+        }
+        mFrame.clear();
+    }
+
+    private int getPlaneId(GVRPlane plane) {
+        Integer id = mPlaneIds.get(plane);
+
+        if (id == null) {
+            id = mPlaneIds.size();
+            mPlaneIds.put(plane, id);
+        }
+        return id;
+    }
+
+    private void recordPlane(GVRPlane plane) {
+        ReplayFrame.PlaneRecord rec = mFrame.addPlane();
+        GVRPlane parent = plane.getParentPlane();
+        FloatBuffer polygon = plane.getPolygon();
+
+        rec.id = getPlaneId(plane);
+        rec.trackingState = plane.getTrackingState().ordinal();
+        rec.type = plane.getPlaneType().ordinal();
+        rec.subsumedBy = (parent != null) ? getPlaneId(parent) : -1;
+        plane.getCenterPose(mTempPose);
+        System.arraycopy(mTempPose, 0, rec.centerPose, 0, 16);
+        rec.extentX = plane.getWidth();
+        rec.extentZ = plane.getHeight();
+        rec.polygonSize = polygon.remaining();
+        if (rec.polygon.length < rec.polygonSize) {
+            rec.polygon = new float[rec.polygonSize];
+        }
+        for (int i = 0; i < rec.polygonSize; ++i) {
+            rec.polygon[i] = polygon.get(polygon.position() + i);
+        }
+    }
+}
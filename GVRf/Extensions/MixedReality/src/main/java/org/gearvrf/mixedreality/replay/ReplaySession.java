@@ -0,0 +1,471 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.mixedreality.replay;
+
+import android.graphics.Bitmap;
+import android.util.SparseArray;
+
+import org.gearvrf.GVRCameraRig;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRMeshCollider;
+import org.gearvrf.GVRPerspectiveCamera;
+import org.gearvrf.GVRPicker;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.mixedreality.GVRAnchor;
+import org.gearvrf.mixedreality.GVRHitResult;
+import org.gearvrf.mixedreality.GVRLightEstimate;
+import org.gearvrf.mixedreality.GVRMarker;
+import org.gearvrf.mixedreality.GVRPlane;
+import org.gearvrf.mixedreality.GVRTrackingState;
+import org.gearvrf.mixedreality.IAnchorEvents;
+import org.gearvrf.mixedreality.IPlaneEvents;
+import org.gearvrf.mixedreality.MRCommon;
+import org.gearvrf.utility.Log;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Mixed reality session which replays a recorded AR session.
+ * <p>
+ * Each rendered frame the next recorded frame is read and the
+ * planes, anchors, camera pose and light estimate are updated
+ * from it, sending the same events as a live session would.
+ * This allows the AR update path to be profiled and tested
+ * without a device or camera. Frames can also be stepped
+ * explicitly with {@link #step()} to run the update path as
+ * fast as possible.
+ * <p>
+ * Recordings are made with {@link ReplayRecorder}.
+ * Anchors created by the application are matched to recorded
+ * anchors in creation order. Hit tests return the recorded hit
+ * closest to the requested screen position.
+ * Cloud anchors and markers are not supported.
+ * @see ReplayFrame
+ */
+public class ReplaySession extends MRCommon {
+    private static float AR2VR_SCALE = 100.0f;
+    private static final GVRTrackingState[] sTrackingStates = GVRTrackingState.values();
+    private static final GVRPlane.Type[] sPlaneTypes = GVRPlane.Type.values();
+
+    private final GVRScene mVRScene;
+    private final String mFileName;
+    private final boolean mLoop;
+    private DataInputStream mStream;
+    private final ReplayFrame mFrame = new ReplayFrame();
+    private final SparseArray<ReplayPlane> mPlanes = new SparseArray<>();
+    private final SparseArray<ReplayAnchor> mAnchors = new SparseArray<>();
+    private final ReplayLightEstimate mLightEstimate = new ReplayLightEstimate();
+    private final float[] mCamMatrix = new float[16];
+    private GVRSceneObject mPassThroughObject;
+    private ReplayHandler mHandler;
+    private int mNextAnchorId = 0;
+    private float mScreenDepth;
+
+    /**
+     * Create a session which replays the given recording.
+     *
+     * @param scene    scene containing the virtual objects
+     * @param fileName path of the recording to replay
+     * @param loop     true to restart the recording when it ends,
+     *                 false to stop plane detection at the end
+     */
+    public ReplaySession(GVRScene scene, String fileName, boolean loop) {
+        super(scene.getGVRContext());
+        mVRScene = scene;
+        mFileName = fileName;
+        mLoop = loop;
+    }
+
+    @Override
+    public float getARToVRScale() { return AR2VR_SCALE; }
+
+    @Override
+    public float getScreenDepth() {
+        return mScreenDepth;
+    }
+
+    @Override
+    protected void onResume() {
+        Log.d(TAG, "onResumeReplay");
+
+        if ((mStream == null) && !openRecording()) {
+            return;
+        }
+        mGVRContext.runOnGlThread(new Runnable() {
+            @Override
+            public void run() {
+                onInitReplaySession();
+            }
+        });
+    }
+
+    @Override
+    protected void onPause() {
+        Log.d(TAG, "onPause");
+
+        if (mHandler != null) {
+            mGVRContext.unregisterDrawFrameListener(mHandler);
+            mHandler = null;
+        }
+    }
+
+    private boolean openRecording() {
+        closeRecording();
+        try {
+            mStream = new DataInputStream(new BufferedInputStream(new FileInputStream(mFileName)));
+            ReplayFrame.readHeader(mStream);
+            return true;
+        } catch (IOException ex) {
+            Log.e(TAG, "Cannot open AR recording %s: %s", mFileName, ex.getMessage());
+            closeRecording();
+            return false;
+        }
+    }
+
+    private void closeRecording() {
+        if (mStream != null) {
+            try {
+                mStream.close();
+            } catch (IOException ex) {
+                Log.e(TAG, "Error closing AR recording: %s", ex.getMessage());
+            }
+            mStream = null;
+        }
+    }
+
+    private void onInitReplaySession() {
+        if (mPassThroughObject == null) {
+            mPassThroughObject = makePassThroughObject(mVRScene.getMainCameraRig());
+            mVRScene.getMainCameraRig().addChildObject(mPassThroughObject);
+        }
+        if (mHandler == null) {
+            mHandler = new ReplayHandler();
+            mGVRContext.registerDrawFrameListener(mHandler);
+            mGVRContext.getEventManager().sendEvent(this,
+                    IPlaneEvents.class,
+                    "onStartPlaneDetection",
+                    this);
+        }
+    }
+
+    /*
+     * There is no camera image during replay but hit testing
+     * still needs the pass through quad in front of the camera.
+     */
+    private GVRSceneObject makePassThroughObject(GVRCameraRig cameraRig) {
+        GVRPerspectiveCamera centerCamera = cameraRig.getCenterCamera();
+        float quadDistance = centerCamera.getFarClippingDistance() - 1;
+        float tanfov = (float) Math.tan(Math.toRadians(centerCamera.getFovY()) * 0.5);
+        float quadHeight = quadDistance * tanfov * 2;
+        float quadWidth = quadHeight * centerCamera.getAspectRatio();
+        GVRMesh mesh = GVRMesh.createQuad(mGVRContext, "float3 a_position float2 a_texcoord",
+                                          quadWidth, quadHeight);
+        GVRSceneObject passThrough = new GVRSceneObject(mGVRContext);
+
+        mScreenDepth = quadHeight / tanfov;
+        passThrough.getTransform().setPosition(0, 0, -quadDistance);
+        passThrough.attachComponent(new GVRMeshCollider(mGVRContext, mesh, true));
+        passThrough.setName("ARPassThrough");
+        return passThrough;
+    }
+
+    public class ReplayHandler implements GVRDrawFrameListener {
+        @Override
+        public void onDrawFrame(float v) {
+            if (!step()) {
+                mGVRContext.unregisterDrawFrameListener(this);
+                mHandler = null;
+                mGVRContext.getEventManager().sendEvent(ReplaySession.this,
+                        IPlaneEvents.class,
+                        "onStopPlaneDetection",
+                        ReplaySession.this);
+            }
+        }
+    }
+
+    /**
+     * Read the next recorded frame and update the camera,
+     * planes and anchors from it.
+     * <p>
+     * This is called every frame while the session is resumed.
+     * It may be called directly to replay frames as fast as possible.
+     *
+     * @return true if a frame was replayed, false at the end of the recording
+     */
+    public boolean step() {
+        if (!nextFrame()) {
+            return false;
+        }
+        System.arraycopy(mFrame.cameraPose, 0, mCamMatrix, 0, 16);
+        mCamMatrix[12] *= AR2VR_SCALE;
+        mCamMatrix[13] *= AR2VR_SCALE;
+        mCamMatrix[14] *= AR2VR_SCALE;
+        mVRScene.getMainCameraRig().getTransform().setModelMatrix(mCamMatrix);
+        mLightEstimate.set(mFrame);
+        updatePlanes();
+        updateAnchors();
+        return true;
+    }
+
+    private boolean nextFrame() {
+        if (mStream == null) {
+            return false;
+        }
+        try {
+            if (mFrame.read(mStream)) {
+                return true;
+            }
+            if (mLoop && openRecording()) {
+                return mFrame.read(mStream);
+            }
+        } catch (IOException ex) {
+            Log.e(TAG, "Error reading AR recording: %s", ex.getMessage());
+        }
+        closeRecording();
+        return false;
+    }
+
+    private void updatePlanes() {
+        for (int i = 0; i < mFrame.getNumPlanes(); ++i) {
+            ReplayFrame.PlaneRecord rec = mFrame.getPlane(i);
+            GVRTrackingState state = sTrackingStates[rec.trackingState];
+            ReplayPlane plane = mPlanes.get(rec.id);
+
+            if (plane == null) {
+                if (state != GVRTrackingState.TRACKING) {
+                    continue;
+                }
+                plane = new ReplayPlane(mGVRContext, sPlaneTypes[rec.type]);
+                plane.setTrackingState(state);
+                mPlanes.put(rec.id, plane);
+                plane.update(rec, AR2VR_SCALE);
+                mGVRContext.getEventManager().sendEvent(this,
+                        IPlaneEvents.class,
+                        "onPlaneDetected",
+                        plane);
+                continue;
+            }
+            if (plane.getTrackingState() != state) {
+                plane.setTrackingState(state);
+                mGVRContext.getEventManager().sendEvent(this,
+                        IPlaneEvents.class,
+                        "onPlaneStateChange",
+                        plane,
+                        state);
+            }
+            if ((rec.subsumedBy >= 0) && (plane.getParentPlane() == null)) {
+                ReplayPlane parent = mPlanes.get(rec.subsumedBy);
+
+                if (parent != null) {
+                    plane.setParentPlane(parent);
+                    mGVRContext.getEventManager().sendEvent(this,
+                            IPlaneEvents.class,
+                            "onPlaneMerging",
+                            plane,
+                            parent);
+                }
+            }
+            plane.update(rec, AR2VR_SCALE);
+        }
+    }
+
+    private void updateAnchors() {
+        for (int i = 0; i < mFrame.getNumAnchors(); ++i) {
+            ReplayFrame.AnchorRecord rec = mFrame.getAnchor(i);
+            ReplayAnchor anchor = mAnchors.get(rec.id);
+
+            if (anchor == null) {
+                continue;
+            }
+            GVRTrackingState state = sTrackingStates[rec.trackingState];
+
+            if (anchor.getTrackingState() != state) {
+                anchor.setTrackingState(state);
+                mGVRContext.getEventManager().sendEvent(this,
+                        IAnchorEvents.class,
+                        "onAnchorStateChange",
+                        anchor,
+                        state);
+            }
+            anchor.update(rec, AR2VR_SCALE);
+        }
+    }
+
+    @Override
+    protected GVRSceneObject onGetPassThroughObject() {
+        return mPassThroughObject;
+    }
+
+    @Override
+    protected ArrayList<GVRPlane> onGetAllPlanes() {
+        ArrayList<GVRPlane> allPlanes = new ArrayList<>(mPlanes.size());
+
+        for (int i = 0; i < mPlanes.size(); ++i) {
+            allPlanes.add(mPlanes.valueAt(i));
+        }
+        return allPlanes;
+    }
+
+    @Override
+    protected GVRAnchor onCreateAnchor(float[] pose) {
+        ReplayAnchor anchor = new ReplayAnchor(mGVRContext, mNextAnchorId++, pose);
+
+        mAnchors.put(anchor.getId(), anchor);
+        return anchor;
+    }
+
+    @Override
+    protected void onUpdateAnchorPose(GVRAnchor anchor, float[] pose) {
+        ((ReplayAnchor) anchor).setPose(pose);
+    }
+
+    @Override
+    protected void onRemoveAnchor(GVRAnchor anchor) {
+        mAnchors.remove(((ReplayAnchor) anchor).getId());
+        GVRSceneObject anchorNode = anchor.getOwnerObject();
+        if (anchorNode != null) {
+            GVRSceneObject anchorParent = anchorNode.getParent();
+            if (anchorParent != null) {
+                anchorParent.removeChildObject(anchorNode);
+            }
+        }
+    }
+
+    @Override
+    protected void onHostAnchor(GVRAnchor anchor, CloudAnchorCallback cb) {
+        Log.w(TAG, "Cloud anchors are not supported when replaying");
+    }
+
+    @Override
+    protected void onResolveCloudAnchor(String anchorId, CloudAnchorCallback cb) {
+        Log.w(TAG, "Cloud anchors are not supported when replaying");
+    }
+
+    @Override
+    protected void onSetEnableCloudAnchor(boolean enableCloudAnchor) { }
+
+    @Override
+    protected GVRHitResult onHitTest(GVRPicker.GVRPickedObject collision) {
+        return onHitTest(collision.hitLocation[0], collision.hitLocation[1]);
+    }
+
+    /**
+     * Returns the recorded hit in the current frame which
+     * is closest to the given screen position.
+     */
+    @Override
+    protected GVRHitResult onHitTest(float x, float y) {
+        ReplayFrame.HitRecord closest = null;
+        float minDist = Float.MAX_VALUE;
+
+        for (int i = 0; i < mFrame.getNumHits(); ++i) {
+            ReplayFrame.HitRecord rec = mFrame.getHit(i);
+            float dx = rec.x - x;
+            float dy = rec.y - y;
+            float d = dx * dx + dy * dy;
+
+            if (d < minDist) {
+                minDist = d;
+                closest = rec;
+            }
+        }
+        if (closest == null) {
+            return null;
+        }
+        GVRHitResult hit = new GVRHitResult();
+        float[] hitPose = new float[16];
+
+        ar2gvr(closest.pose, hitPose, AR2VR_SCALE);
+        hit.setPose(hitPose);
+        hit.setDistance(closest.distance);
+        hit.setPlane(mPlanes.get(closest.planeId));
+        return hit;
+    }
+
+    @Override
+    protected GVRLightEstimate onGetLightEstimate() {
+        return mLightEstimate;
+    }
+
+    @Override
+    protected void onSetMarker(Bitmap image) {
+        Log.w(TAG, "Markers are not supported when replaying");
+    }
+
+    @Override
+    protected void onSetMarkers(ArrayList<Bitmap> imagesList) {
+        Log.w(TAG, "Markers are not supported when replaying");
+    }
+
+    @Override
+    protected ArrayList<GVRMarker> onGetAllMarkers() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    protected float[] onMakeInterpolated(float[] poseA, float[] poseB, float t) {
+        Matrix4f a = new Matrix4f().set(poseA);
+        Matrix4f b = new Matrix4f().set(poseB);
+        Vector3f posA = a.getTranslation(new Vector3f());
+        Vector3f posB = b.getTranslation(new Vector3f());
+        Quaternionf rotA = a.getNormalizedRotation(new Quaternionf());
+        Quaternionf rotB = b.getNormalizedRotation(new Quaternionf());
+        float[] newMatrixPose = new float[16];
+
+        posA.lerp(posB, t);
+        rotA.slerp(rotB, t);
+        a.translationRotate(posA.x, posA.y, posA.z, rotA).get(newMatrixPose);
+        return newMatrixPose;
+    }
+
+    /**
+     * Converts a pose from AR world space to GVRf world space.
+     *
+     * @param arPose  pose matrix in AR space
+     * @param gvrPose where to store the pose in GVRf space
+     * @param scale   scale from AR to GVRf world
+     */
+    static void ar2gvr(float[] arPose, float[] gvrPose, float scale) {
+        for (int i = 0; i < 12; ++i) {
+            gvrPose[i] = arPose[i] * scale;
+        }
+        gvrPose[12] = arPose[12] * scale;
+        gvrPose[13] = arPose[13] * scale;
+        gvrPose[14] = arPose[14] * scale;
+        gvrPose[15] = arPose[15];
+    }
+
+    /**
+     * Converts a pose from GVRf world space to AR world space.
+     *
+     * @param gvrPose pose matrix in GVRf space
+     * @param arPose  where to store the pose in AR space
+     * @param scale   scale from AR to GVRf world
+     */
+    static void gvr2ar(float[] gvrPose, float[] arPose, float scale) {
+        ar2gvr(gvrPose, arPose, 1.0f / scale);
+    }
+}
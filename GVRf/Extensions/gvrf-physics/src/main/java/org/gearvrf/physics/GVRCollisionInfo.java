@@ -7,13 +7,22 @@ class GVRCollisionInfo {
     public final float[] normal;
     public final float distance;
     public final boolean isHit;
+    public final int numPoints;
+    public final float impulse;
 
     public GVRCollisionInfo(long bodyA, long bodyB, float normal[], float distance, boolean isHit) {
+        this(bodyA, bodyB, normal, distance, isHit, 0, 0.0f);
+    }
+
+    public GVRCollisionInfo(long bodyA, long bodyB, float normal[], float distance, boolean isHit,
+                            int numPoints, float impulse) {
         this.bodyA = bodyA;
         this.bodyB = bodyB;
         this.normal = normal;
         this.distance = distance;
         this.isHit = isHit;
+        this.numPoints = numPoints;
+        this.impulse = impulse;
     }
 
     @Override
@@ -6,6 +6,13 @@ package org.gearvrf.physics;
  * A {@link GVRRigidBody} that does not belong to a collision group collides with everyone
  * rigid body of the {@link GVRWorld}. By default a {@link GVRRigidBody} that belongs to a group
  * collides only with other rigid body of the same collision group.
+ * <p>
+ * Collision groups 0 to 15 are the same as the first 16
+ * {@linkplain org.gearvrf.GVRCollider#setLayerMask(int) collider layers} used for picking.
+ * A rigid body whose collision group is set puts its collider in the matching layer,
+ * and a rigid body without a collision group takes it from a collider which is
+ * in exactly one of those layers. Use {@link #getQueryMask(int)} to pick only
+ * the objects a group collides with.
  */
 public class GVRCollisionMatrix {
     // By default a rigid body that belongs to a group collides only with other rigid
@@ -43,6 +50,42 @@ public class GVRCollisionMatrix {
         return (short) mCollisionFilterMasks[groupId];
     }
 
+    /**
+     * @param groupId A value between 0 and 15 that is a index in the collision matrix.
+     * @return collider layer mask for the group, suitable for
+     *         {@link org.gearvrf.GVRCollider#setLayerMask(int)}.
+     */
+    public static int getLayerMask(int groupId) {
+        if (groupId < 0 || groupId > 15) {
+            throw new IllegalArgumentException("Group id must be a value between 0 and 15");
+        }
+
+        return 1 << groupId;
+    }
+
+    /**
+     * @param layerMask A collider layer mask.
+     * @return The collision group of a collider in exactly one of the layers 0 to 15,
+     *         -1 for any other layer mask.
+     */
+    public static int getCollisionGroup(int layerMask) {
+        if (layerMask == 0 || (layerMask & ~0xFFFF) != 0 || (layerMask & (layerMask - 1)) != 0) {
+            return -1;
+        }
+
+        return Integer.numberOfTrailingZeros(layerMask);
+    }
+
+    /**
+     * @param groupId A value between 0 and 15 that is a index in the collision matrix.
+     * @return A picking query mask which selects the collider layers of all groups
+     *         that {#groupId} collides with, suitable for
+     *         {@link org.gearvrf.GVRPicker#setQueryMask(int)}.
+     */
+    public int getQueryMask(int groupId) {
+        return getCollisionFilterMask(groupId) & 0xFFFF;
+    }
+
     /**
      * @param groupId A value between 0 and 15 that is a index in the collision matrix.
      * @param mask Mask to filter all groups that {#groupId} collides with.
@@ -26,6 +26,7 @@ public class GVRPhysicsContext {
     private static GVRPhysicsContext mInstance;
     private final HandlerThread mHandlerThread;
     private final Handler mHandler;
+    private final PhysicsCommandBuffer mCommands;
 
     public static GVRPhysicsContext getInstance() {
         if (mInstance == null) {
@@ -39,9 +40,27 @@ public class GVRPhysicsContext {
         mHandlerThread = new HandlerThread("gvrf-physics");
         mHandlerThread.start();
         mHandler = new Handler(mHandlerThread.getLooper());
+        mCommands = new PhysicsCommandBuffer(this);
     }
 
+    PhysicsCommandBuffer getCommandBuffer() {
+        return mCommands;
+    }
+
+    /**
+     * Run a task on the physics thread after the forces, impulses
+     * and torques applied to rigid bodies before this call.
+     * @param r task to run
+     * @return true if the task was posted
+     */
     public boolean runOnPhysicsThread(Runnable r) {
+        return mCommands.post(r);
+    }
+
+    /*
+     * Post a task without ordering it against the queued commands.
+     */
+    boolean post(Runnable r) {
         return mHandler.post(r);
     }
 
@@ -15,6 +15,7 @@
 
 package org.gearvrf.physics;
 
+import org.gearvrf.GVRCollider;
 import org.gearvrf.GVRComponent;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRRenderData;
@@ -43,7 +44,10 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
     }
 
     private final int mCollisionGroup;
-    private final GVRPhysicsContext mPhysicsContext;
+    private final PhysicsCommandBuffer mCommands;
+
+    // Index of the body state in its world, set on the physics thread
+    int mWorldIndex = -1;
 
     private final boolean mLoaded;
 
@@ -78,7 +82,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
     public GVRRigidBody(GVRContext gvrContext, float mass, int collisionGroup) {
         super(gvrContext, Native3DRigidBody.ctor(mass));
         mCollisionGroup = collisionGroup;
-        mPhysicsContext = GVRPhysicsContext.getInstance();
+        mCommands = GVRPhysicsContext.getInstance().getCommandBuffer();
         mLoaded = false;
     }
 
@@ -86,7 +90,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
     GVRRigidBody(GVRContext gvrContext, long nativeRigidBody) {
         super(gvrContext, nativeRigidBody);
         mCollisionGroup = -1;
-        mPhysicsContext = GVRPhysicsContext.getInstance();
+        mCommands = GVRPhysicsContext.getInstance().getCommandBuffer();
         mLoaded = true;
     }
 
@@ -177,12 +181,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      * @param z factor on the 'Z' axis.
      */
     public void applyCentralForce(final float x, final float y, final float z) {
-                mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-           public void run() {
-                                Native3DRigidBody.applyCentralForce(getNative(), x, y, z);
-                           }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_CENTRAL_FORCE, x, y, z);
     }
 
     /**
@@ -198,13 +197,8 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      */
     public void applyForce(final float forceX, final float forceY, final float forceZ,
                            final float relX, final float relY, final float relZ) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyForce(getNative(), forceX, forceY, forceZ,
-                        relX, relY, relZ);
-            }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_FORCE, forceX, forceY, forceZ,
+                relX, relY, relZ);
     }
 
     /**
@@ -215,12 +209,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      * @param z impulse factor on the 'Z' axis.
      */
     public void applyCentralImpulse(final float x, final float y, final float z) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyCentralImpulse(getNative(), x, y, z);
-            }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_CENTRAL_IMPULSE, x, y, z);
     }
 
     /**
@@ -236,13 +225,8 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      */
     public void applyImpulse(final float impulseX, final float impulseY, final float impulseZ,
                            final float relX, final float relY, final float relZ) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyImpulse(getNative(), impulseX, impulseY, impulseZ,
-                        relX, relY, relZ);
-            }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_IMPULSE, impulseX, impulseY, impulseZ,
+                relX, relY, relZ);
     }
 
     /**
@@ -253,12 +237,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      * @param z factor on the 'Z' axis.
      */
     public void applyTorque(final float x, final float y, final float z) {
-                mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                                Native3DRigidBody.applyTorque(getNative(), x, y, z);
-                            }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_TORQUE, x, y, z);
     }
 
     /**
@@ -269,12 +248,7 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
      * @param z impulse factor on the 'Z' axis.
      */
     public void applyTorqueImpulse(final float x, final float y, final float z) {
-        mPhysicsContext.runOnPhysicsThread(new Runnable() {
-            @Override
-            public void run() {
-                Native3DRigidBody.applyTorqueImpulse(getNative(), x, y, z);
-            }
-        });
+        mCommands.add(this, PhysicsCommandBuffer.APPLY_TORQUE_IMPULSE, x, y, z);
     }
 
     /**
@@ -497,6 +471,24 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
         return mCollisionGroup;
     }
 
+    /**
+     * Returns the collision group used when this body is added to a world.
+     * If no collision group was given it comes from the layer of
+     * the owner's collider.
+     *
+     * @return The collision group id, -1 if the body collides with everyone.
+     * @see GVRCollisionMatrix#getCollisionGroup(int)
+     */
+    int getEffectiveCollisionGroup() {
+        if (mCollisionGroup >= 0 && mCollisionGroup <= 15) {
+            return mCollisionGroup;
+        }
+        GVRSceneObject owner = getOwnerObject();
+        GVRCollider collider = (owner != null) ? owner.getCollider() : null;
+
+        return (collider != null) ? GVRCollisionMatrix.getCollisionGroup(collider.getLayerMask()) : -1;
+    }
+
     @Override
     public void onAttach(GVRSceneObject newOwner) {
         if (!mLoaded && newOwner.getCollider() == null) {
@@ -506,6 +498,12 @@ public class GVRRigidBody extends GVRPhysicsWorldObject {
         if (renderData != null && renderData.getMesh() == null) {
             throw new UnsupportedOperationException("You must have a mesh attached to the scene object before attaching the rigid body");
         }
+        GVRCollider collider = newOwner.getCollider();
+        if (collider != null && mCollisionGroup >= 0 && mCollisionGroup <= 15
+                && !collider.isLayerMaskSet()) {
+            // Use the same layer for picking as for collision unless the app chose one
+            collider.setLayerMask(GVRCollisionMatrix.getLayerMask(mCollisionGroup));
+        }
         super.onAttach(newOwner);
     }
 
@@ -545,6 +543,8 @@ class Native3DRigidBody {
 
     static native void applyTorqueImpulse(long jrigid_body, float x, float y, float z);
 
+    static native void applyCommands(int count, int[] opcodes, long[] jrigid_bodies, float[] args);
+
     static native void setGravity(long jrigid_body, float x, float y, float z);
 
     static native void setDamping(long jrigid_body, float linear, float angular);
@@ -31,6 +31,12 @@ import org.gearvrf.ISceneObjectEvents;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 /**
  * Represents a physics world where all {@link GVRSceneObject} with {@link GVRRigidBody} component
  * attached to are simulated.
@@ -52,6 +58,61 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
     }
 
     private final LongSparseArray<GVRPhysicsWorldObject> mPhysicsObject = new LongSparseArray<GVRPhysicsWorldObject>();
+
+    /**
+     * Number of floats for each pair of bodies returned by
+     * {@link #getContacts(GVRRigidBody[], float[])}: the contact normal
+     * (X, Y, Z), the distance (negative when penetrating), the total
+     * impulse applied in the last step, the number of contact points
+     * and 1 if the bodies are touching.
+     */
+    public static final int CONTACT_STRIDE = 7;
+    private long[] mCollisionBodies = new long[32];
+    private float[] mCollisionData = new float[16 * CONTACT_STRIDE];
+    private long[] mContactBodies = new long[0];
+    private float[] mContactData = new float[0];
+
+    /**
+     * Number of floats for each hit returned by the scene queries:
+     * the distance from the start of the ray or sweep, the hit point
+     * (X, Y, Z) and the surface normal (X, Y, Z) in world coordinates.
+     */
+    public static final int HIT_STRIDE = 7;
+    private static final int SHAPE_SPHERE = 0;
+    private static final int SHAPE_BOX = 1;
+    private final float[] mQueryParams = new float[9];
+    private final long[] mQueryBody = new long[1];
+    private long[] mQueryBodies = new long[16];
+
+    /**
+     * Number of floats for each rigid body in {@link #getBodyStates()}.
+     * The state starts at the body index times this.
+     */
+    public static final int BODY_STRIDE = 16;
+    /** Offset of the world position (X, Y, Z) in a body state. */
+    public static final int BODY_POSITION = 0;
+    /** Offset of the world rotation quaternion (X, Y, Z, W) in a body state. */
+    public static final int BODY_ROTATION = 3;
+    /** Offset of the linear velocity (X, Y, Z) in a body state. */
+    public static final int BODY_LINEAR_VELOCITY = 7;
+    /** Offset of the angular velocity (X, Y, Z) in a body state. */
+    public static final int BODY_ANGULAR_VELOCITY = 10;
+    /**
+     * Offset of the flags in a body state. They are an int,
+     * use {@link Float#floatToRawIntBits(float)} to read them.
+     */
+    public static final int BODY_FLAGS = 13;
+    /** Flag set if there is a body at this index. */
+    public static final int BODY_IN_WORLD = 1;
+    /** Flag set if the body moved in the last step. */
+    public static final int BODY_ACTIVE = 2;
+    private static final int INITIAL_BODY_CAPACITY = 64;
+    private int mBodyCapacity = 0;
+    private FloatBuffer mBodyStates;
+    private FloatBuffer mBodyStatesView;
+    private IntBuffer mBodyFlags;
+    private IntBuffer mActiveBodies;
+    private GVRRigidBody[] mBodies = new GVRRigidBody[0];
     private final GVRCollisionMatrix mCollisionMatrix;
 
     private final PhysicsDragger mPhysicsDragger;
@@ -129,6 +190,7 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         mCollisionMatrix = collisionMatrix;
         mWorldTask = new GVRWorldTask(interval);
         mPhysicsContext = GVRPhysicsContext.getInstance();
+        ensureBodyCapacity(INITIAL_BODY_CAPACITY);
     }
 
     static public long getComponentType() {
@@ -256,15 +318,21 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
                     return;
                 }
 
-                if (gvrBody.getCollisionGroup() < 0 || gvrBody.getCollisionGroup() > 15
-                        || mCollisionMatrix == null) {
+                int group = gvrBody.getEffectiveCollisionGroup();
+
+                if (group < 0 || mCollisionMatrix == null) {
                     NativePhysics3DWorld.addRigidBody(getNative(), gvrBody.getNative());
                 } else {
                     NativePhysics3DWorld.addRigidBodyWithMask(getNative(), gvrBody.getNative(),
-                            mCollisionMatrix.getCollisionFilterGroup(gvrBody.getCollisionGroup()),
-                            mCollisionMatrix.getCollisionFilterMask(gvrBody.getCollisionGroup()));
+                            mCollisionMatrix.getCollisionFilterGroup(group),
+                            mCollisionMatrix.getCollisionFilterMask(group));
                 }
 
+                int index = NativePhysics3DWorld.getBodyIndex(getNative(), gvrBody.getNative());
+
+                ensureBodyCapacity(index + 1);
+                mBodies[index] = gvrBody;
+                gvrBody.mWorldIndex = index;
                 mPhysicsObject.put(gvrBody.getNative(), gvrBody);
                 getGVRContext().getEventManager().sendEvent(GVRWorld.this, IPhysicsEvents.class, "onAddRigidBody", GVRWorld.this, gvrBody);
             }
@@ -282,6 +350,10 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
             public void run() {
                 if (contains(gvrBody)) {
                     NativePhysics3DWorld.removeRigidBody(getNative(), gvrBody.getNative());
+                    if (gvrBody.mWorldIndex >= 0) {
+                        mBodies[gvrBody.mWorldIndex] = null;
+                        gvrBody.mWorldIndex = -1;
+                    }
                     mPhysicsObject.remove(gvrBody.getNative());
                     getGVRContext().getEventManager().sendEvent(GVRWorld.this, IPhysicsEvents.class, "onRemoveRigidBody", GVRWorld.this, gvrBody);
                 }
@@ -297,13 +369,479 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
         mWorldTask.stop();
     }
 
+    /**
+     * Get all the pairs of rigid bodies touching after the last simulation step.
+     * <p>
+     * Call this from the physics thread, for example from
+     * {@link IPhysicsEvents#onStepPhysics(GVRWorld)}.
+     * The arrays are filled in as far as they go. If the result is
+     * larger than what fits, call again with larger arrays.
+     *
+     * @param bodies gets the two bodies of each pair.
+     * @param data   gets {@link #CONTACT_STRIDE} floats for each pair.
+     * @return the number of pairs in contact.
+     */
+    public int getContacts(GVRRigidBody[] bodies, float[] data) {
+        int n;
+
+        while (true) {
+            n = NativePhysics3DWorld.listContacts(getNative(), mContactBodies, mContactData);
+            if (n * 2 <= mContactBodies.length) {
+                break;
+            }
+            mContactBodies = new long[n * 2];
+            mContactData = new float[n * CONTACT_STRIDE];
+        }
+
+        int count = Math.min(n, Math.min(bodies.length / 2, data.length / CONTACT_STRIDE));
+
+        for (int i = 0; i < count; ++i) {
+            bodies[i * 2] = (GVRRigidBody) mPhysicsObject.get(mContactBodies[i * 2]);
+            bodies[i * 2 + 1] = (GVRRigidBody) mPhysicsObject.get(mContactBodies[i * 2 + 1]);
+        }
+        System.arraycopy(mContactData, 0, data, 0, count * CONTACT_STRIDE);
+        return n;
+    }
+
+    /**
+     * Cast a ray and get the closest rigid body it hits.
+     * <p>
+     * Only bodies in the collision groups selected by the mask are hit.
+     * Bit N of the mask selects group N of the {@link GVRCollisionMatrix},
+     * use -1 to consider all bodies. Bodies added without a collision
+     * matrix are hit by any mask.
+     * <p>
+     * The scene queries use the simulation state so they must be called
+     * from the physics thread, for example from
+     * {@link IPhysicsEvents#onStepPhysics(GVRWorld)} or from a task
+     * posted with {@link GVRPhysicsContext#runOnPhysicsThread(Runnable)}.
+     * The GL thread does not wait for them.
+     *
+     * @param fromX X coordinate of the start of the ray
+     * @param fromY Y coordinate of the start of the ray
+     * @param fromZ Z coordinate of the start of the ray
+     * @param toX   X coordinate of the end of the ray
+     * @param toY   Y coordinate of the end of the ray
+     * @param toZ   Z coordinate of the end of the ray
+     * @param mask  collision groups to consider, -1 for all
+     * @param hit   gets {@link #HIT_STRIDE} floats describing the hit
+     * @return the closest rigid body hit or null if nothing was hit.
+     */
+    public GVRRigidBody rayTest(float fromX, float fromY, float fromZ,
+                                float toX, float toY, float toZ, int mask, float[] hit) {
+        checkHitArray(hit, 1);
+        setQueryParams(fromX, fromY, fromZ, toX, toY, toZ);
+        if (NativePhysics3DWorld.rayTest(getNative(), mQueryParams, mask, true,
+                                         mQueryBody, hit) == 0) {
+            return null;
+        }
+        return findBody(mQueryBody[0]);
+    }
+
+    /**
+     * Cast a ray and get all the rigid bodies it hits, nearest first.
+     * <p>
+     * The arrays are filled in as far as they go. If the result is
+     * larger than what fits, the farthest hits are left out.
+     * This must be called from the physics thread.
+     *
+     * @param fromX  X coordinate of the start of the ray
+     * @param fromY  Y coordinate of the start of the ray
+     * @param fromZ  Z coordinate of the start of the ray
+     * @param toX    X coordinate of the end of the ray
+     * @param toY    Y coordinate of the end of the ray
+     * @param toZ    Z coordinate of the end of the ray
+     * @param mask   collision groups to consider, -1 for all
+     * @param bodies gets the bodies hit
+     * @param hits   gets {@link #HIT_STRIDE} floats for each hit
+     * @return the number of bodies hit.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public int rayTestAll(float fromX, float fromY, float fromZ,
+                          float toX, float toY, float toZ, int mask,
+                          GVRRigidBody[] bodies, float[] hits) {
+        int capacity = Math.min(bodies.length, hits.length / HIT_STRIDE);
+
+        growQueryBodies(capacity);
+        setQueryParams(fromX, fromY, fromZ, toX, toY, toZ);
+        int n = NativePhysics3DWorld.rayTest(getNative(), mQueryParams, mask, false,
+                                             mQueryBodies, hits);
+        int count = Math.min(n, capacity);
+
+        for (int i = 0; i < count; ++i) {
+            bodies[i] = findBody(mQueryBodies[i]);
+        }
+        return n;
+    }
+
+    /**
+     * Cast a batch of rays and get the closest rigid body hit by each.
+     * <p>
+     * All the rays are tested in one call, which is much cheaper than
+     * testing them one at a time when there are hundreds or thousands.
+     * The entry in bodies is null for rays which miss and their
+     * distance is {@link Float#POSITIVE_INFINITY}.
+     * This must be called from the physics thread.
+     *
+     * @param rays     6 floats for each ray, the start (X, Y, Z)
+     *                 followed by the end (X, Y, Z)
+     * @param rayCount number of rays to cast
+     * @param mask     collision groups to consider, -1 for all
+     * @param bodies   gets the closest body hit by each ray
+     * @param hits     gets {@link #HIT_STRIDE} floats for each ray
+     * @return the number of rays which hit something.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public int rayTest(float[] rays, int rayCount, int mask, GVRRigidBody[] bodies, float[] hits) {
+        if (rays.length < rayCount * 6 || bodies.length < rayCount) {
+            throw new IllegalArgumentException("Arrays are too small for " + rayCount + " rays");
+        }
+        checkHitArray(hits, rayCount);
+        growQueryBodies(rayCount);
+
+        int n = NativePhysics3DWorld.rayTestBatch(getNative(), rayCount, rays, mask,
+                                                  mQueryBodies, hits);
+
+        for (int i = 0; i < rayCount; ++i) {
+            bodies[i] = (mQueryBodies[i] != 0) ? findBody(mQueryBodies[i]) : null;
+        }
+        return n;
+    }
+
+    /**
+     * Sweep a sphere along a line and get the first rigid body it touches.
+     * This must be called from the physics thread.
+     *
+     * @param radius radius of the sphere
+     * @param fromX  X coordinate of the start of the sweep
+     * @param fromY  Y coordinate of the start of the sweep
+     * @param fromZ  Z coordinate of the start of the sweep
+     * @param toX    X coordinate of the end of the sweep
+     * @param toY    Y coordinate of the end of the sweep
+     * @param toZ    Z coordinate of the end of the sweep
+     * @param mask   collision groups to consider, -1 for all
+     * @param hit    gets {@link #HIT_STRIDE} floats describing the hit
+     * @return the first rigid body touched or null if there is none.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public GVRRigidBody sweepSphere(float radius, float fromX, float fromY, float fromZ,
+                                    float toX, float toY, float toZ, int mask, float[] hit) {
+        return sweep(SHAPE_SPHERE, radius, radius, radius, fromX, fromY, fromZ, toX, toY, toZ, mask, hit);
+    }
+
+    /**
+     * Sweep an axis aligned box along a line and get the first rigid body it touches.
+     * This must be called from the physics thread.
+     *
+     * @param halfX  half the size of the box along X
+     * @param halfY  half the size of the box along Y
+     * @param halfZ  half the size of the box along Z
+     * @param fromX  X coordinate of the start of the sweep
+     * @param fromY  Y coordinate of the start of the sweep
+     * @param fromZ  Z coordinate of the start of the sweep
+     * @param toX    X coordinate of the end of the sweep
+     * @param toY    Y coordinate of the end of the sweep
+     * @param toZ    Z coordinate of the end of the sweep
+     * @param mask   collision groups to consider, -1 for all
+     * @param hit    gets {@link #HIT_STRIDE} floats describing the hit
+     * @return the first rigid body touched or null if there is none.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public GVRRigidBody sweepBox(float halfX, float halfY, float halfZ,
+                                 float fromX, float fromY, float fromZ,
+                                 float toX, float toY, float toZ, int mask, float[] hit) {
+        return sweep(SHAPE_BOX, halfX, halfY, halfZ, fromX, fromY, fromZ, toX, toY, toZ, mask, hit);
+    }
+
+    /**
+     * Find the rigid bodies which touch a sphere.
+     * <p>
+     * The array is filled in as far as it goes. If the result is
+     * larger than what fits, call again with a larger array.
+     * This must be called from the physics thread.
+     *
+     * @param x      X coordinate of the center of the sphere
+     * @param y      Y coordinate of the center of the sphere
+     * @param z      Z coordinate of the center of the sphere
+     * @param radius radius of the sphere
+     * @param mask   collision groups to consider, -1 for all
+     * @param bodies gets the bodies touching the sphere
+     * @return the number of bodies touching the sphere.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public int overlapSphere(float x, float y, float z, float radius, int mask, GVRRigidBody[] bodies) {
+        return overlap(SHAPE_SPHERE, radius, radius, radius, x, y, z, mask, bodies);
+    }
+
+    /**
+     * Find the rigid bodies which touch an axis aligned box.
+     * <p>
+     * The array is filled in as far as it goes. If the result is
+     * larger than what fits, call again with a larger array.
+     * This must be called from the physics thread.
+     *
+     * @param x      X coordinate of the center of the box
+     * @param y      Y coordinate of the center of the box
+     * @param z      Z coordinate of the center of the box
+     * @param halfX  half the size of the box along X
+     * @param halfY  half the size of the box along Y
+     * @param halfZ  half the size of the box along Z
+     * @param mask   collision groups to consider, -1 for all
+     * @param bodies gets the bodies touching the box
+     * @return the number of bodies touching the box.
+     * @see #rayTest(float, float, float, float, float, float, int, float[])
+     */
+    public int overlapBox(float x, float y, float z, float halfX, float halfY, float halfZ,
+                          int mask, GVRRigidBody[] bodies) {
+        return overlap(SHAPE_BOX, halfX, halfY, halfZ, x, y, z, mask, bodies);
+    }
+
+    private GVRRigidBody sweep(int shape, float sizeX, float sizeY, float sizeZ,
+                               float fromX, float fromY, float fromZ,
+                               float toX, float toY, float toZ, int mask, float[] hit) {
+        checkHitArray(hit, 1);
+        mQueryParams[0] = sizeX;
+        mQueryParams[1] = sizeY;
+        mQueryParams[2] = sizeZ;
+        mQueryParams[3] = fromX;
+        mQueryParams[4] = fromY;
+        mQueryParams[5] = fromZ;
+        mQueryParams[6] = toX;
+        mQueryParams[7] = toY;
+        mQueryParams[8] = toZ;
+        if (!NativePhysics3DWorld.sweepTest(getNative(), shape, mQueryParams, mask, mQueryBody, hit)) {
+            return null;
+        }
+        return findBody(mQueryBody[0]);
+    }
+
+    private int overlap(int shape, float sizeX, float sizeY, float sizeZ,
+                        float x, float y, float z, int mask, GVRRigidBody[] bodies) {
+        growQueryBodies(bodies.length);
+        setQueryParams(sizeX, sizeY, sizeZ, x, y, z);
+
+        int n = NativePhysics3DWorld.overlapTest(getNative(), shape, mQueryParams, mask, mQueryBodies);
+        int count = Math.min(n, bodies.length);
+
+        for (int i = 0; i < count; ++i) {
+            bodies[i] = findBody(mQueryBodies[i]);
+        }
+        return n;
+    }
+
+    private void setQueryParams(float a, float b, float c, float d, float e, float f) {
+        mQueryParams[0] = a;
+        mQueryParams[1] = b;
+        mQueryParams[2] = c;
+        mQueryParams[3] = d;
+        mQueryParams[4] = e;
+        mQueryParams[5] = f;
+    }
+
+    /*
+     * The native query writes one pointer for each body so the
+     * scratch array must be at least as large as the caller's.
+     */
+    private void growQueryBodies(int size) {
+        if (mQueryBodies.length < size) {
+            mQueryBodies = new long[size];
+        }
+    }
+
+    private static void checkHitArray(float[] hits, int count) {
+        if (hits.length < count * HIT_STRIDE) {
+            throw new IllegalArgumentException("Hit array must hold " + count * HIT_STRIDE + " floats");
+        }
+    }
+
+    private GVRRigidBody findBody(long nativeBody) {
+        return (GVRRigidBody) mPhysicsObject.get(nativeBody);
+    }
+
+    /**
+     * Get the index of the state of a rigid body.
+     * <p>
+     * After each step the position, rotation and velocities of all the
+     * bodies are written to one buffer shared with native code, so
+     * reading them does not cross into native code or allocate.
+     * A body keeps its index while it stays in the world. Indices of
+     * removed bodies are reused.
+     * <p>
+     * The states are written on the physics thread. Read them from
+     * {@link IPhysicsEvents#onStepPhysics(GVRWorld)} to see all bodies
+     * at the same step. From other threads a read may mix two steps.
+     *
+     * @param body rigid body to find.
+     * @return index of the body or -1 if it is not in this world.
+     * @see #getBodyStates()
+     */
+    public int getBodyIndex(GVRRigidBody body) {
+        int index = body.mWorldIndex;
+        GVRRigidBody[] bodies = mBodies;
+
+        return (index >= 0 && index < bodies.length && bodies[index] == body) ? index : -1;
+    }
+
+    /**
+     * Get the rigid body with a given index.
+     *
+     * @param index index of the body.
+     * @return rigid body or null if there is none at the index.
+     * @see #getBodyIndex(GVRRigidBody)
+     */
+    public GVRRigidBody getBody(int index) {
+        GVRRigidBody[] bodies = mBodies;
+
+        return (index >= 0 && index < bodies.length) ? bodies[index] : null;
+    }
+
+    /**
+     * Get the number of body states in {@link #getBodyStates()}.
+     * All body indices are smaller than this.
+     */
+    public int getBodyCapacity() {
+        return mBodyCapacity;
+    }
+
+    /**
+     * Get the states of all the bodies, {@link #BODY_STRIDE} floats for each.
+     * <p>
+     * The buffer is replaced when the world grows, get it again
+     * after adding bodies.
+     *
+     * @return read only buffer with the body states.
+     * @see #getBodyIndex(GVRRigidBody)
+     */
+    public FloatBuffer getBodyStates() {
+        return mBodyStatesView;
+    }
+
+    /**
+     * Get the indices of the bodies which moved in the last step.
+     * <p>
+     * Sleeping and static bodies are left out, so only these need
+     * to be copied to the scene or sent anywhere else.
+     * The array is filled in as far as it goes.
+     *
+     * @param indices gets the indices of the bodies which moved.
+     * @return the number of bodies which moved.
+     */
+    public int getActiveBodies(int[] indices) {
+        IntBuffer active = mActiveBodies;
+        int n = Math.min(active.get(0), active.capacity() - 1);
+        int count = Math.min(n, indices.length);
+
+        for (int i = 0; i < count; ++i) {
+            indices[i] = active.get(i + 1);
+        }
+        return n;
+    }
+
+    /**
+     * Determine whether a body moved in the last step.
+     *
+     * @param index index of the body.
+     * @return true if the body is awake and not static.
+     */
+    public boolean isBodyActive(int index) {
+        return (mBodyFlags.get(index * BODY_STRIDE + BODY_FLAGS) & BODY_ACTIVE) != 0;
+    }
+
+    /**
+     * Get the world position of a body after the last step.
+     *
+     * @param index index of the body.
+     * @param dest  gets the position.
+     * @return dest
+     */
+    public Vector3f getBodyPosition(int index, Vector3f dest) {
+        return getBodyVector(index, BODY_POSITION, dest);
+    }
+
+    /**
+     * Get the world rotation of a body after the last step.
+     *
+     * @param index index of the body.
+     * @param dest  gets the rotation.
+     * @return dest
+     */
+    public Quaternionf getBodyRotation(int index, Quaternionf dest) {
+        FloatBuffer states = mBodyStates;
+        int i = index * BODY_STRIDE + BODY_ROTATION;
+
+        return dest.set(states.get(i), states.get(i + 1), states.get(i + 2), states.get(i + 3));
+    }
+
+    /**
+     * Get the linear velocity of a body after the last step.
+     *
+     * @param index index of the body.
+     * @param dest  gets the velocity.
+     * @return dest
+     */
+    public Vector3f getBodyLinearVelocity(int index, Vector3f dest) {
+        return getBodyVector(index, BODY_LINEAR_VELOCITY, dest);
+    }
+
+    /**
+     * Get the angular velocity of a body after the last step.
+     *
+     * @param index index of the body.
+     * @param dest  gets the velocity.
+     * @return dest
+     */
+    public Vector3f getBodyAngularVelocity(int index, Vector3f dest) {
+        return getBodyVector(index, BODY_ANGULAR_VELOCITY, dest);
+    }
+
+    private Vector3f getBodyVector(int index, int offset, Vector3f dest) {
+        FloatBuffer states = mBodyStates;
+        int i = index * BODY_STRIDE + offset;
+
+        return dest.set(states.get(i), states.get(i + 1), states.get(i + 2));
+    }
+
+    /*
+     * Called from the constructor and then only on the physics thread,
+     * which is the only thread native code writes the states from.
+     */
+    private void ensureBodyCapacity(int size) {
+        if (size <= mBodyCapacity) {
+            return;
+        }
+        int capacity = Math.max(size, mBodyCapacity * 2);
+        ByteBuffer states = ByteBuffer.allocateDirect(capacity * BODY_STRIDE * 4)
+                .order(ByteOrder.nativeOrder());
+        ByteBuffer active = ByteBuffer.allocateDirect((capacity + 1) * 4)
+                .order(ByteOrder.nativeOrder());
+
+        NativePhysics3DWorld.setBodyStateBuffer(getNative(), states, active, capacity);
+        mBodyStates = states.asFloatBuffer();
+        mBodyStatesView = mBodyStates.asReadOnlyBuffer();
+        mBodyFlags = states.asIntBuffer();
+        mActiveBodies = active.asIntBuffer();
+        mBodies = Arrays.copyOf(mBodies, capacity);
+        mBodyCapacity = capacity;
+    }
+
     private void generateCollisionEvents() {
-        GVRCollisionInfo collisionInfos[] = NativePhysics3DWorld.listCollisions(getNative());
+        int n;
+
+        while (true) {
+            n = NativePhysics3DWorld.listCollisions(getNative(), mCollisionBodies, mCollisionData);
+            if (n * 2 <= mCollisionBodies.length) {
+                break;
+            }
+            mCollisionBodies = new long[n * 2];
+            mCollisionData = new float[n * CONTACT_STRIDE];
+        }
 
         String onEnter = "onEnter";
         String onExit = "onExit";
 
-        for (GVRCollisionInfo info : collisionInfos) {
+        for (int i = 0; i < n; ++i) {
+            GVRCollisionInfo info = makeCollisionInfo(i);
+
             if (info.isHit) {
                 sendCollisionEvent(info, onEnter);
             } else if (mPhysicsObject.get(info.bodyA) != null
@@ -315,6 +853,15 @@ public class GVRWorld extends GVRComponent implements IEventReceiver
 
     }
 
+    private GVRCollisionInfo makeCollisionInfo(int index) {
+        int i = index * CONTACT_STRIDE;
+        float[] normal = { mCollisionData[i], mCollisionData[i + 1], mCollisionData[i + 2] };
+
+        return new GVRCollisionInfo(mCollisionBodies[index * 2], mCollisionBodies[index * 2 + 1],
+                normal, mCollisionData[i + 3], mCollisionData[i + 6] != 0.0f,
+                (int) mCollisionData[i + 5], mCollisionData[i + 4]);
+    }
+
     private void sendCollisionEvent(GVRCollisionInfo info, String eventName) {
         GVRSceneObject bodyA = mPhysicsObject.get(info.bodyA).getOwnerObject();
         GVRSceneObject bodyB = mPhysicsObject.get(info.bodyB).getOwnerObject();
@@ -568,9 +1115,28 @@ class NativePhysics3DWorld {
 
     static native void step(long jphysics_world, float jtime_step, int maxSubSteps);
 
+    static native int getBodyIndex(long jphysics_world, long jrigid_body);
+
+    static native void setBodyStateBuffer(long jphysics_world, ByteBuffer states,
+                                          ByteBuffer active, int capacity);
+
     static native void getGravity(long jworld, float[] array);
 
     static native void setGravity(long jworld, float x, float y, float z);
 
-    static native GVRCollisionInfo[] listCollisions(long jphysics_world);
+    static native int listCollisions(long jphysics_world, long[] bodies, float[] data);
+
+    static native int listContacts(long jphysics_world, long[] bodies, float[] data);
+
+    static native int rayTest(long jphysics_world, float[] ray, int mask, boolean closest,
+                              long[] bodies, float[] hits);
+
+    static native int rayTestBatch(long jphysics_world, int rayCount, float[] rays, int mask,
+                                   long[] bodies, float[] hits);
+
+    static native boolean sweepTest(long jphysics_world, int shape, float[] params, int mask,
+                                    long[] body, float[] hit);
+
+    static native int overlapTest(long jphysics_world, int shape, float[] params, int mask,
+                                  long[] bodies);
 }
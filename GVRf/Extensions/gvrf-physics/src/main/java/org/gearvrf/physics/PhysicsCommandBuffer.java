@@ -0,0 +1,154 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.physics;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Queues forces, impulses and torques for rigid bodies until the
+ * physics thread applies them.
+ * <p>
+ * Each command is an opcode, the target body and up to six floats
+ * stored in primitive arrays, so queueing one does not allocate.
+ * Any thread may add commands. The commands are kept in batches and
+ * each batch is applied in one native call by a task posted when its
+ * first command arrives.
+ * <p>
+ * Adding or removing bodies and the other world tasks are posted with
+ * {@link #post(Runnable)}, which closes the current batch first.
+ * Commands queued after such a task go into a new batch whose task is
+ * posted behind it, so the physics thread sees commands and tasks
+ * in the order they were queued. A force applied right after the body
+ * is added to the world is not applied before the body is there.
+ */
+class PhysicsCommandBuffer {
+    static final int APPLY_CENTRAL_FORCE = 0;
+    static final int APPLY_FORCE = 1;
+    static final int APPLY_CENTRAL_IMPULSE = 2;
+    static final int APPLY_IMPULSE = 3;
+    static final int APPLY_TORQUE = 4;
+    static final int APPLY_TORQUE_IMPULSE = 5;
+
+    static final int ARG_STRIDE = 6;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final GVRPhysicsContext mPhysicsContext;
+    private final ArrayDeque<Commands> mFree = new ArrayDeque<Commands>();
+    private Commands mPending = new Commands();
+
+    PhysicsCommandBuffer(GVRPhysicsContext physicsContext) {
+        mPhysicsContext = physicsContext;
+    }
+
+    void add(GVRRigidBody body, int opcode, float x, float y, float z) {
+        add(body, opcode, x, y, z, 0.0f, 0.0f, 0.0f);
+    }
+
+    void add(GVRRigidBody body, int opcode, float x, float y, float z,
+             float relX, float relY, float relZ) {
+        synchronized (this) {
+            Commands c = mPending;
+            int i = c.count;
+
+            c.ensureCapacity(i + 1);
+            c.opcodes[i] = opcode;
+            c.bodies[i] = body;
+            i *= ARG_STRIDE;
+            c.args[i] = x;
+            c.args[i + 1] = y;
+            c.args[i + 2] = z;
+            c.args[i + 3] = relX;
+            c.args[i + 4] = relY;
+            c.args[i + 5] = relZ;
+            if (++c.count == 1) {
+                mPhysicsContext.post(c);
+            }
+        }
+    }
+
+    /**
+     * Post a task to the physics thread behind the commands queued so far.
+     * Commands queued after this call are applied after the task runs.
+     * @param r task to run on the physics thread
+     * @return true if the task was posted
+     */
+    boolean post(Runnable r) {
+        synchronized (this) {
+            close();
+            return mPhysicsContext.post(r);
+        }
+    }
+
+    /*
+     * Start a new batch if the current one has commands.
+     * Its task is already posted and applies it later.
+     * Must be called with the lock held.
+     */
+    private void close() {
+        if (mPending.count > 0) {
+            Commands next = mFree.poll();
+            mPending = (next != null) ? next : new Commands();
+        }
+    }
+
+    /*
+     * Apply a batch of commands on the physics thread.
+     */
+    private void apply(Commands c) {
+        synchronized (this) {
+            if (c == mPending) {
+                close();
+            }
+        }
+        for (int i = 0; i < c.count; ++i) {
+            c.natives[i] = c.bodies[i].getNative();
+        }
+        Native3DRigidBody.applyCommands(c.count, c.opcodes, c.natives, c.args);
+
+        // Let go of the bodies so they can be collected
+        Arrays.fill(c.bodies, 0, c.count, null);
+        c.count = 0;
+        synchronized (this) {
+            mFree.add(c);
+        }
+    }
+
+    private class Commands implements Runnable {
+        int count = 0;
+        int[] opcodes = new int[INITIAL_CAPACITY];
+        GVRRigidBody[] bodies = new GVRRigidBody[INITIAL_CAPACITY];
+        long[] natives = new long[INITIAL_CAPACITY];
+        float[] args = new float[INITIAL_CAPACITY * ARG_STRIDE];
+
+        @Override
+        public void run() {
+            apply(this);
+        }
+
+        void ensureCapacity(int size) {
+            if (size <= opcodes.length) {
+                return;
+            }
+            int capacity = Math.max(size, opcodes.length * 2);
+
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            bodies = Arrays.copyOf(bodies, capacity);
+            natives = new long[capacity];
+            args = Arrays.copyOf(args, capacity * ARG_STRIDE);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Collision group filtering for the Bullet scene queries
+ ***************************************************************************/
+
+#ifndef BULLET_QUERY_FILTER_H_
+#define BULLET_QUERY_FILTER_H_
+
+#include <utility>
+#include <BulletCollision/BroadphaseCollision/btBroadphaseProxy.h>
+
+namespace gvr {
+
+/*
+ * Scene queries select bodies by their Bullet collision filter group.
+ * Bodies added with a collision matrix are in one of the groups 0 to 15.
+ * Bodies added without one get Bullet's default group and mask plus the
+ * QUERY_UNGROUPED bit, so every query mask matches them.
+ */
+enum {
+    QUERY_GROUPS = 0xFFFF,
+    QUERY_UNGROUPED = 1 << 16
+};
+
+/*
+ * Same group and mask Bullet gives a body added without them,
+ * marked as ungrouped. Static bodies leave the marker out of their
+ * mask so that they still do not collide with each other.
+ */
+inline void getUngroupedFilter(bool isDynamic, int& group, int& mask) {
+    if (isDynamic) {
+        group = btBroadphaseProxy::DefaultFilter | QUERY_UNGROUPED;
+        mask = btBroadphaseProxy::AllFilter;
+    } else {
+        group = btBroadphaseProxy::StaticFilter | QUERY_UNGROUPED;
+        mask = btBroadphaseProxy::AllFilter ^ (btBroadphaseProxy::StaticFilter | QUERY_UNGROUPED);
+    }
+}
+
+inline bool queryMatches(int group, int queryMask) {
+    return ((group & QUERY_UNGROUPED) != 0) || ((group & queryMask & QUERY_GROUPS) != 0);
+}
+
+template <class Callback>
+struct QueryFilter : public Callback {
+    template <typename... Args>
+    QueryFilter(int mask, Args&&... args)
+            : Callback(std::forward<Args>(args)...), mQueryMask(mask) { }
+
+    virtual bool needsCollision(btBroadphaseProxy* proxy) const {
+        return queryMatches(proxy->m_collisionFilterGroup, mQueryMask);
+    }
+
+    int mQueryMask;
+};
+
+}
+
+#endif /* BULLET_QUERY_FILTER_H_ */
@@ -58,6 +58,14 @@ class BulletRigidBody : public PhysicsRigidBody,
 
     void getWorldTransform(btTransform &worldTrans) const;
 
+    /*
+     * Transform of the owner as last simulated, without
+     * reading back the scene object's transform.
+     */
+    btTransform getSimulatedTransform() const {
+        return mRigidBody->getCenterOfMassTransform() * m_centerOfMassOffset;
+    }
+
     void setWorldTransform(const btTransform &worldTrans);
 
     void applyCentralForce(float x, float y, float z);
@@ -13,11 +13,15 @@
  * limitations under the License.
  */
 #include <algorithm>
+#include <utility>
 #include "bullet_world.h"
 #include "bullet_rigidbody.h"
+#include "bullet_query_filter.h"
 
 #include <BulletCollision/CollisionDispatch/btDefaultCollisionConfiguration.h>
 #include <BulletCollision/BroadphaseCollision/btDbvtBroadphase.h>
+#include <BulletCollision/CollisionShapes/btSphereShape.h>
+#include <BulletCollision/CollisionShapes/btBoxShape.h>
 #include <BulletDynamics/Dynamics/btDiscreteDynamicsWorld.h>
 
 #include <BulletDynamics/Dynamics/btDynamicsWorld.h>
@@ -27,6 +31,10 @@
 
 namespace gvr {
 
+static bool isMoving(const btRigidBody* rb) {
+    return rb->isActive() && !rb->isStaticObject();
+}
+
 BulletWorld::BulletWorld() {
     initialize();
 }
@@ -54,6 +62,9 @@ void BulletWorld::initialize() {
     mPhysicsWorld->setGravity(btVector3(0, -10, 0));
 
     mDraggingConstraint = nullptr;
+    mBodyStates = nullptr;
+    mActiveBodies = nullptr;
+    mBodyStateCapacity = 0;
 }
 
 void BulletWorld::finalize() {
@@ -121,18 +132,146 @@ void BulletWorld::stopDrag() {
 
 void BulletWorld::addRigidBody(PhysicsRigidBody *body) {
     btRigidBody *b = (static_cast<BulletRigidBody *>(body))->getRigidBody();
+    int group;
+    int mask;
+
     body->updateConstructionInfo();
-    mPhysicsWorld->addRigidBody(b);
+    getUngroupedFilter(!b->isStaticOrKinematicObject(), group, mask);
+    mPhysicsWorld->addRigidBody(b, group, mask);
+    addBodyIndex(body);
 }
 
 void BulletWorld::addRigidBody(PhysicsRigidBody *body, int collisiontype, int collidesWith) {
     body->updateConstructionInfo();
     mPhysicsWorld->addRigidBody((static_cast<BulletRigidBody *>(body))->getRigidBody(),
-                                collidesWith, collisiontype);
+                                collisiontype & QUERY_GROUPS, collidesWith & QUERY_GROUPS);
+    addBodyIndex(body);
 }
 
 void BulletWorld::removeRigidBody(PhysicsRigidBody *body) {
     mPhysicsWorld->removeRigidBody((static_cast<BulletRigidBody *>(body))->getRigidBody());
+    removeBodyIndex(body);
+}
+
+/*
+ * Body indices are kept in the Bullet user index so finding
+ * the index of a body does not need a lookup table.
+ * Indices of removed bodies are reused.
+ */
+void BulletWorld::addBodyIndex(PhysicsRigidBody *body) {
+    BulletRigidBody* rb = static_cast<BulletRigidBody*>(body);
+    int index;
+
+    if (mFreeIndices.empty()) {
+        index = mBodies.size();
+        mBodies.push_back(rb);
+    } else {
+        index = mFreeIndices.back();
+        mFreeIndices.pop_back();
+        mBodies[index] = rb;
+    }
+    rb->getRigidBody()->setUserIndex(index);
+    if (index < mBodyStateCapacity) {
+        writeBodyState(index);
+    }
+}
+
+void BulletWorld::removeBodyIndex(PhysicsRigidBody *body) {
+    BulletRigidBody* rb = static_cast<BulletRigidBody*>(body);
+    int index = getBodyIndex(body);
+
+    if (index < 0) {
+        return;
+    }
+    mBodies[index] = nullptr;
+    mFreeIndices.push_back(index);
+    rb->getRigidBody()->setUserIndex(-1);
+    if (index < mBodyStateCapacity) {
+        reinterpret_cast<int*>(mBodyStates + index * BODY_STRIDE)[BODY_FLAGS] = 0;
+    }
+}
+
+int BulletWorld::getBodyIndex(PhysicsRigidBody *body) {
+    BulletRigidBody* rb = static_cast<BulletRigidBody*>(body);
+    int index = rb->getRigidBody()->getUserIndex();
+
+    if (index < 0 || index >= (int) mBodies.size() || mBodies[index] != rb) {
+        return -1;
+    }
+    return index;
+}
+
+void BulletWorld::setBodyStateBuffer(float* states, int* active, int capacity) {
+    int n = std::min((int) mBodies.size(), capacity);
+
+    mBodyStates = states;
+    mActiveBodies = active;
+    mBodyStateCapacity = capacity;
+    if (states == nullptr) {
+        mBodyStateCapacity = 0;
+        return;
+    }
+    mActiveBodies[0] = 0;
+    for (int i = 0; i < n; ++i) {
+        if (mBodies[i] != nullptr) {
+            writeBodyState(i);
+        }
+    }
+}
+
+void BulletWorld::writeBodyState(int index) {
+    const BulletRigidBody* body = mBodies[index];
+    const btRigidBody* rb = body->getRigidBody();
+    btTransform t = body->getSimulatedTransform();
+    const btVector3& pos = t.getOrigin();
+    btQuaternion rot = t.getRotation();
+    const btVector3& linear = rb->getLinearVelocity();
+    const btVector3& angular = rb->getAngularVelocity();
+    float* s = mBodyStates + index * BODY_STRIDE;
+
+    s[BODY_POSITION] = pos.getX();
+    s[BODY_POSITION + 1] = pos.getY();
+    s[BODY_POSITION + 2] = pos.getZ();
+    s[BODY_ROTATION] = rot.getX();
+    s[BODY_ROTATION + 1] = rot.getY();
+    s[BODY_ROTATION + 2] = rot.getZ();
+    s[BODY_ROTATION + 3] = rot.getW();
+    s[BODY_LINEAR_VELOCITY] = linear.getX();
+    s[BODY_LINEAR_VELOCITY + 1] = linear.getY();
+    s[BODY_LINEAR_VELOCITY + 2] = linear.getZ();
+    s[BODY_ANGULAR_VELOCITY] = angular.getX();
+    s[BODY_ANGULAR_VELOCITY + 1] = angular.getY();
+    s[BODY_ANGULAR_VELOCITY + 2] = angular.getZ();
+    reinterpret_cast<int*>(s)[BODY_FLAGS] = isMoving(rb) ? (BODY_IN_WORLD | BODY_ACTIVE)
+                                                         : BODY_IN_WORLD;
+}
+
+/*
+ * Write the state of the bodies which moved in the last step
+ * and list their indices. A body which fell asleep is written
+ * once more so its final resting state is kept, after that
+ * its entry is left alone until it wakes up.
+ */
+void BulletWorld::updateBodyStates() {
+    int n = std::min((int) mBodies.size(), mBodyStateCapacity);
+    int numActive = 0;
+
+    for (int i = 0; i < n; ++i) {
+        const BulletRigidBody* body = mBodies[i];
+
+        if (body == nullptr) {
+            continue;
+        }
+        if (isMoving(body->getRigidBody())) {
+            writeBodyState(i);
+            mActiveBodies[++numActive] = i;
+        } else if (reinterpret_cast<int*>(mBodyStates + i * BODY_STRIDE)[BODY_FLAGS] & BODY_ACTIVE) {
+            writeBodyState(i);
+        }
+    }
+    if (mActiveBodies != nullptr) {
+        mActiveBodies[0] = numActive;
+    }
 }
 
 void BulletWorld::step(float timeStep, int maxSubSteps) {
@@ -143,71 +282,271 @@ void BulletWorld::step(float timeStep, int maxSubSteps) {
     }
 
     mPhysicsWorld->stepSimulation(timeStep, maxSubSteps);
+    updateContacts();
+    updateBodyStates();
 }
 
-/**
- * Returns by reference the list of new and ceased collisions
- *  that will be the objects of ONENTER and ONEXIT events.
- */
-void BulletWorld::listCollisions(std::list <ContactPoint> &contactPoints) {
-
 /*
- * Creates a list of all the current collisions on the World
- * */
-    std::map<std::pair<long,long>, ContactPoint> currCollisions;
-    int numManifolds = mPhysicsWorld->getDispatcher()->getNumManifolds();
-    btPersistentManifold *contactManifold;
+ * Update the pairs of bodies in contact after a step.
+ * Manifolds without contact points only mean the bounding
+ * boxes overlap so they are skipped.
+ */
+void BulletWorld::updateContacts() {
+    btDispatcher* dispatcher = mPhysicsWorld->getDispatcher();
+    int numManifolds = dispatcher->getNumManifolds();
+    std::lock_guard<std::mutex> lock(mContactLock);
 
+    mContacts.beginStep();
     for (int i = 0; i < numManifolds; i++) {
-        ContactPoint contactPt;
+        btPersistentManifold* contactManifold = dispatcher->getManifoldByIndexInternal(i);
+        int numContacts = contactManifold->getNumContacts();
+
+        if (numContacts <= 0) {
+            continue;
+        }
 
-        contactManifold = mPhysicsWorld->getDispatcher()->
-                getManifoldByIndexInternal(i);
+        ContactPoint contactPt;
+        int deepest = 0;
 
         contactPt.body0 = (BulletRigidBody *) (contactManifold->getBody0()->getUserPointer());
         contactPt.body1 = (BulletRigidBody *) (contactManifold->getBody1()->getUserPointer());
-        contactPt.normal[0] = contactManifold->getContactPoint(0).m_normalWorldOnB.getX();
-        contactPt.normal[1] = contactManifold->getContactPoint(0).m_normalWorldOnB.getY();
-        contactPt.normal[2] = contactManifold->getContactPoint(0).m_normalWorldOnB.getZ();
-        contactPt.distance = contactManifold->getContactPoint(0).getDistance();
+        contactPt.numPoints = numContacts;
+        for (int j = 0; j < numContacts; j++) {
+            const btManifoldPoint& pt = contactManifold->getContactPoint(j);
+
+            contactPt.impulse += pt.getAppliedImpulse();
+            if (pt.getDistance() < contactManifold->getContactPoint(deepest).getDistance()) {
+                deepest = j;
+            }
+        }
+
+        const btManifoldPoint& pt = contactManifold->getContactPoint(deepest);
+
+        contactPt.normal[0] = pt.m_normalWorldOnB.getX();
+        contactPt.normal[1] = pt.m_normalWorldOnB.getY();
+        contactPt.normal[2] = pt.m_normalWorldOnB.getZ();
+        contactPt.distance = pt.getDistance();
         contactPt.isHit = true;
+        mContacts.addContact(contactPt);
+    }
+    mContacts.endStep();
+}
 
-        std::pair<long, long> collisionPair((long)contactPt.body0, (long)contactPt.body1);
-        std::pair<std::pair<long, long>, ContactPoint> newPair(collisionPair, contactPt);
-        currCollisions.insert(newPair);
-
-        /*
-         * If one of these current collisions is not on the list with all the previous
-         * collision, then it should be on the return list, because it is an onEnter event
-         * */
-        auto it = prevCollisions.find(collisionPair);
-        if ( it == prevCollisions.end()) {
-            contactPoints.push_front(contactPt);
-        } 
-        contactManifold = 0;
-    }
-
-    /*
-     * After going through all the current list, go through all the previous collisions list,
-     * if one of its collisions is not on the current collision list, then it should be
-     * on the return list, because it is an onExit event
-     * */
-    for (auto it = prevCollisions.begin(); it != prevCollisions.end(); ++it) {
-        if (currCollisions.find(it->first) == currCollisions.end()) {
-            ContactPoint cp = it->second;
-            cp.isHit = false;
-            contactPoints.push_front(cp);
+/**
+ * Returns by reference the list of new and ceased collisions
+ * from the last step that will be the objects of ONENTER and ONEXIT events.
+ */
+void BulletWorld::listCollisions(std::vector<ContactPoint> &contactPoints) {
+    std::lock_guard<std::mutex> lock(mContactLock);
+    const std::vector<ContactPoint>& events = mContacts.getEvents();
+
+    contactPoints.assign(events.begin(), events.end());
+}
+
+/**
+ * Returns by reference all the pairs of bodies touching after the last step.
+ */
+void BulletWorld::listContacts(std::vector<ContactPoint> &contactPoints) {
+    std::lock_guard<std::mutex> lock(mContactLock);
+
+    mContacts.getContacts(contactPoints);
+}
+
+/*
+ * Collects every hit along a ray into a vector which is reused
+ * between queries instead of Bullet's AllHitsRayResultCallback,
+ * which allocates four arrays per ray.
+ */
+struct AllHitsCallback : public QueryFilter<btCollisionWorld::RayResultCallback> {
+    AllHitsCallback(int mask, const btVector3& from, const btVector3& to,
+                    std::vector<PhysicsHit>& hits)
+            : QueryFilter(mask), mFrom(from), mTo(to), mLength(from.distance(to)), mHits(hits) { }
+
+    virtual btScalar addSingleResult(btCollisionWorld::LocalRayResult& result,
+                                     bool normalInWorldSpace) {
+        void* body = result.m_collisionObject->getUserPointer();
+
+        if (body == nullptr) {
+            return m_closestHitFraction;
+        }
+
+        btVector3 normal = result.m_hitNormalLocal;
+        btVector3 point;
+        PhysicsHit hit;
+
+        if (!normalInWorldSpace) {
+            normal = result.m_collisionObject->getWorldTransform().getBasis() * normal;
         }
+        point.setInterpolate3(mFrom, mTo, result.m_hitFraction);
+        m_collisionObject = result.m_collisionObject;
+        hit.body = static_cast<BulletRigidBody*>(body);
+        hit.distance = result.m_hitFraction * mLength;
+        hit.point[0] = point.getX();
+        hit.point[1] = point.getY();
+        hit.point[2] = point.getZ();
+        hit.normal[0] = normal.getX();
+        hit.normal[1] = normal.getY();
+        hit.normal[2] = normal.getZ();
+        mHits.push_back(hit);
+        return m_closestHitFraction;
     }
 
+    btVector3 mFrom;
+    btVector3 mTo;
+    btScalar mLength;
+    std::vector<PhysicsHit>& mHits;
+};
+
 /*
- * Save all the current collisions on the previous collisions list for the next iteration
- * */
-    prevCollisions.clear();
-    prevCollisions.swap(currCollisions);
+ * Collects the distinct bodies touching a query object.
+ */
+struct OverlapCallback : public QueryFilter<btCollisionWorld::ContactResultCallback> {
+    OverlapCallback(int mask, const btCollisionObject* query,
+                    std::vector<PhysicsRigidBody*>& bodies)
+            : QueryFilter(mask), mQuery(query), mBodies(bodies) { }
+
+    virtual btScalar addSingleResult(btManifoldPoint& cp,
+                                     const btCollisionObjectWrapper* colObj0Wrap, int partId0, int index0,
+                                     const btCollisionObjectWrapper* colObj1Wrap, int partId1, int index1) {
+        const btCollisionObject* obj = colObj0Wrap->getCollisionObject();
+
+        if (obj == mQuery) {
+            obj = colObj1Wrap->getCollisionObject();
+        }
+
+        void* body = obj->getUserPointer();
+
+        if ((body != nullptr) && (cp.getDistance() <= 0)) {
+            PhysicsRigidBody* rb = static_cast<BulletRigidBody*>(body);
+
+            if (std::find(mBodies.begin(), mBodies.end(), rb) == mBodies.end()) {
+                mBodies.push_back(rb);
+            }
+        }
+        return 0;
+    }
+
+    const btCollisionObject* mQuery;
+    std::vector<PhysicsRigidBody*>& mBodies;
+};
+
+static void storeHit(PhysicsHit& hit, const btCollisionObject* obj, btScalar distance,
+                     const btVector3& point, const btVector3& normal) {
+    hit.body = static_cast<BulletRigidBody*>(obj->getUserPointer());
+    hit.distance = distance;
+    hit.point[0] = point.getX();
+    hit.point[1] = point.getY();
+    hit.point[2] = point.getZ();
+    hit.normal[0] = normal.getX();
+    hit.normal[1] = normal.getY();
+    hit.normal[2] = normal.getZ();
+}
+
+static bool closestRay(btDynamicsWorld* world, const float* from, const float* to,
+                       int mask, PhysicsHit& hit) {
+    btVector3 rayFrom(from[0], from[1], from[2]);
+    btVector3 rayTo(to[0], to[1], to[2]);
+    QueryFilter<btCollisionWorld::ClosestRayResultCallback> callback(mask, rayFrom, rayTo);
+
+    world->rayTest(rayFrom, rayTo, callback);
+    if (!callback.hasHit() || (callback.m_collisionObject->getUserPointer() == nullptr)) {
+        hit.body = nullptr;
+        return false;
+    }
+    storeHit(hit, callback.m_collisionObject,
+             callback.m_closestHitFraction * rayFrom.distance(rayTo),
+             callback.m_hitPointWorld, callback.m_hitNormalWorld);
+    return true;
+}
 
+static bool compareHits(const PhysicsHit& a, const PhysicsHit& b) {
+    return a.distance < b.distance;
 }
 
+int BulletWorld::rayTest(const float* from, const float* to, int mask, bool closest,
+                         PhysicsHit* hits, int capacity) {
+    if (closest) {
+        PhysicsHit hit;
+
+        if (!closestRay(mPhysicsWorld, from, to, mask, hit)) {
+            return 0;
+        }
+        if (capacity > 0) {
+            hits[0] = hit;
+        }
+        return 1;
+    }
+
+    btVector3 rayFrom(from[0], from[1], from[2]);
+    btVector3 rayTo(to[0], to[1], to[2]);
+    AllHitsCallback callback(mask, rayFrom, rayTo, mQueryHits);
+    int n;
+
+    mQueryHits.clear();
+    mPhysicsWorld->rayTest(rayFrom, rayTo, callback);
+    n = mQueryHits.size();
+    std::sort(mQueryHits.begin(), mQueryHits.end(), compareHits);
+    std::copy(mQueryHits.begin(), mQueryHits.begin() + std::min(n, capacity), hits);
+    return n;
+}
+
+int BulletWorld::rayTest(int rayCount, const float* rays, int mask, PhysicsHit* hits) {
+    int hitCount = 0;
+
+    for (int i = 0; i < rayCount; ++i) {
+        const float* ray = rays + i * 6;
+
+        if (closestRay(mPhysicsWorld, ray, ray + 3, mask, hits[i])) {
+            ++hitCount;
+        }
+    }
+    return hitCount;
+}
+
+bool BulletWorld::sweepTest(PhysicsQueryShape shape, const float* size,
+                            const float* from, const float* to, int mask, PhysicsHit& hit) {
+    btSphereShape sphere(size[0]);
+    btBoxShape box(btVector3(size[0], size[1], size[2]));
+    btConvexShape* castShape = (shape == QUERY_SHAPE_BOX) ? static_cast<btConvexShape*>(&box)
+                                                          : static_cast<btConvexShape*>(&sphere);
+    btVector3 sweepFrom(from[0], from[1], from[2]);
+    btVector3 sweepTo(to[0], to[1], to[2]);
+    btTransform start(btQuaternion::getIdentity(), sweepFrom);
+    btTransform end(btQuaternion::getIdentity(), sweepTo);
+    QueryFilter<btCollisionWorld::ClosestConvexResultCallback> callback(mask, sweepFrom, sweepTo);
+
+    mPhysicsWorld->convexSweepTest(castShape, start, end, callback);
+    if (!callback.hasHit() || (callback.m_hitCollisionObject->getUserPointer() == nullptr)) {
+        hit.body = nullptr;
+        return false;
+    }
+    storeHit(hit, callback.m_hitCollisionObject,
+             callback.m_closestHitFraction * sweepFrom.distance(sweepTo),
+             callback.m_hitPointWorld, callback.m_hitNormalWorld);
+    return true;
+}
+
+int BulletWorld::overlapTest(PhysicsQueryShape shape, const float* size, const float* center,
+                             int mask, PhysicsRigidBody** bodies, int capacity) {
+    btSphereShape sphere(size[0]);
+    btBoxShape box(btVector3(size[0], size[1], size[2]));
+    btCollisionObject query;
+    OverlapCallback callback(mask, &query, mQueryBodies);
+    int n;
+
+    if (shape == QUERY_SHAPE_BOX) {
+        query.setCollisionShape(&box);
+    } else {
+        query.setCollisionShape(&sphere);
+    }
+    query.setWorldTransform(btTransform(btQuaternion::getIdentity(),
+                                        btVector3(center[0], center[1], center[2])));
+    mQueryBodies.clear();
+    mPhysicsWorld->contactTest(&query, callback);
+    n = mQueryBodies.size();
+    std::copy(mQueryBodies.begin(), mQueryBodies.begin() + std::min(n, capacity), bodies);
+    return n;
+}
 
 void BulletWorld::setGravity(float x, float y, float z) {
     mPhysicsWorld->setGravity(btVector3(x, y, z));
@@ -23,8 +23,7 @@
 #include "../physics_common.h"
 #include "../physics_world.h"
 
-#include <utility>
-#include <map>
+#include <mutex>
 #include <BulletDynamics/ConstraintSolver/btPoint2PointConstraint.h>
 
 class btDynamicsWorld;
@@ -37,6 +36,7 @@ namespace gvr {
 
 class PhysicsConstraint;
 class PhysicsRigidBody;
+class BulletRigidBody;
 
 class BulletWorld : public PhysicsWorld {
  public:
@@ -61,7 +61,24 @@ class BulletWorld : public PhysicsWorld {
 
     void step(float timeStep, int maxSubSteps);
 
-    void listCollisions(std::list <ContactPoint> &contactPoints);
+    int getBodyIndex(PhysicsRigidBody *body);
+
+    void setBodyStateBuffer(float* states, int* active, int capacity);
+
+    void listCollisions(std::vector<ContactPoint> &contactPoints);
+
+    void listContacts(std::vector<ContactPoint> &contactPoints);
+
+    int rayTest(const float* from, const float* to, int mask, bool closest,
+                PhysicsHit* hits, int capacity);
+
+    int rayTest(int rayCount, const float* rays, int mask, PhysicsHit* hits);
+
+    bool sweepTest(PhysicsQueryShape shape, const float* size,
+                   const float* from, const float* to, int mask, PhysicsHit& hit);
+
+    int overlapTest(PhysicsQueryShape shape, const float* size, const float* center,
+                    int mask, PhysicsRigidBody** bodies, int capacity);
 
     void setGravity(float x, float y, float z);
 
@@ -74,8 +91,26 @@ class BulletWorld : public PhysicsWorld {
 
     void finalize();
 
+    void updateContacts();
+
+    void addBodyIndex(PhysicsRigidBody *body);
+
+    void removeBodyIndex(PhysicsRigidBody *body);
+
+    void updateBodyStates();
+
+    void writeBodyState(int index);
+
  private:
-    std::map<std::pair <long,long>, ContactPoint> prevCollisions;
+    ContactTracker mContacts;
+    std::mutex mContactLock;
+    std::vector<PhysicsHit> mQueryHits;
+    std::vector<PhysicsRigidBody*> mQueryBodies;
+    std::vector<BulletRigidBody*> mBodies;
+    std::vector<int> mFreeIndices;
+    float* mBodyStates;
+    int* mActiveBodies;
+    int mBodyStateCapacity;
     btDynamicsWorld *mPhysicsWorld;
     btCollisionConfiguration *mCollisionConfiguration;
     btCollisionDispatcher *mDispatcher;
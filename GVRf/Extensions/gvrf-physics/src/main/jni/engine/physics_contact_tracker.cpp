@@ -0,0 +1,206 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Tracks which pairs of rigid bodies are in contact between steps
+ ***************************************************************************/
+
+#include <stdint.h>
+#include "physics_contact_tracker.h"
+
+namespace gvr {
+
+static const unsigned int INITIAL_SIZE = 64;
+
+ContactTracker::ContactTracker()
+        : mTable(INITIAL_SIZE), mMask(INITIAL_SIZE - 1), mCount(0), mGeneration(0) {
+    for (auto it = mTable.begin(); it != mTable.end(); ++it) {
+        it->generation = 0;
+    }
+}
+
+void ContactTracker::clear() {
+    for (auto it = mTable.begin(); it != mTable.end(); ++it) {
+        it->generation = 0;
+    }
+    mEvents.clear();
+    mCount = 0;
+}
+
+void ContactTracker::beginStep() {
+    mEvents.clear();
+    ++mGeneration;
+    if (mGeneration == 0) {
+        // Wrapped around, zero means empty so restart at one
+        for (auto it = mTable.begin(); it != mTable.end(); ++it) {
+            if (it->generation != 0) {
+                it->generation = 1;
+                it->enteredGeneration = 0;
+            }
+        }
+        mGeneration = 2;
+    }
+}
+
+bool ContactTracker::samePair(const ContactPoint& c, const PhysicsRigidBody* a, const PhysicsRigidBody* b) {
+    return ((c.body0 == a) && (c.body1 == b)) || ((c.body0 == b) && (c.body1 == a));
+}
+
+/*
+ * The hash does not depend on the order of the bodies
+ * so a pair is found even if the engine swaps them.
+ */
+unsigned int ContactTracker::hash(const PhysicsRigidBody* a, const PhysicsRigidBody* b) {
+    uint64_t x = reinterpret_cast<uintptr_t>(a);
+    uint64_t y = reinterpret_cast<uintptr_t>(b);
+    uint64_t h = (x < y) ? (x * 0x9E3779B97F4A7C15ULL) ^ y : (y * 0x9E3779B97F4A7C15ULL) ^ x;
+
+    h ^= h >> 29;
+    h *= 0xBF58476D1CE4E5B9ULL;
+    h ^= h >> 32;
+    return static_cast<unsigned int>(h);
+}
+
+/*
+ * Linear probing: returns the slot holding the pair
+ * or the empty slot where it should go.
+ */
+unsigned int ContactTracker::findSlot(const PhysicsRigidBody* a, const PhysicsRigidBody* b) const {
+    unsigned int slot = hash(a, b) & mMask;
+
+    while (mTable[slot].generation != 0) {
+        if (samePair(mTable[slot].contact, a, b)) {
+            break;
+        }
+        slot = (slot + 1) & mMask;
+    }
+    return slot;
+}
+
+void ContactTracker::addContact(const ContactPoint& contact) {
+    if ((mCount + 1) * 4 > static_cast<int>(mTable.size()) * 3) {
+        grow();
+    }
+
+    unsigned int slot = findSlot(contact.body0, contact.body1);
+    Entry& e = mTable[slot];
+
+    if (e.generation == 0) {
+        e.contact = contact;
+        e.contact.isHit = true;
+        e.generation = mGeneration;
+        e.enteredGeneration = mGeneration;
+        ++mCount;
+        mEvents.push_back(e.contact);
+    } else if (e.generation != mGeneration) {
+        // Still touching since the last step
+        e.contact = contact;
+        e.contact.isHit = true;
+        e.generation = mGeneration;
+    } else {
+        // Another manifold for the same pair in this step
+        e.contact.numPoints += contact.numPoints;
+        e.contact.impulse += contact.impulse;
+        if (contact.distance < e.contact.distance) {
+            e.contact.distance = contact.distance;
+            e.contact.normal[0] = contact.normal[0];
+            e.contact.normal[1] = contact.normal[1];
+            e.contact.normal[2] = contact.normal[2];
+        }
+        if (e.enteredGeneration == mGeneration) {
+            // Keep the enter event up to date with the merged contact
+            for (auto it = mEvents.begin(); it != mEvents.end(); ++it) {
+                if (samePair(*it, contact.body0, contact.body1)) {
+                    *it = e.contact;
+                    break;
+                }
+            }
+        }
+    }
+}
+
+/*
+ * Every pair which was not seen in this step has stopped
+ * touching: report it and remove it from the table.
+ */
+void ContactTracker::endStep() {
+    unsigned int size = mTable.size();
+    unsigned int i = 0;
+
+    while (i < size) {
+        Entry& e = mTable[i];
+
+        if ((e.generation != 0) && (e.generation != mGeneration)) {
+            ContactPoint exit = e.contact;
+
+            exit.isHit = false;
+            mEvents.push_back(exit);
+            removeAt(i);
+            // removeAt may have moved another entry into slot i
+        } else {
+            ++i;
+        }
+    }
+}
+
+/*
+ * Backward shift deletion keeps the probe sequences
+ * intact without leaving tombstones behind.
+ */
+void ContactTracker::removeAt(unsigned int slot) {
+    unsigned int hole = slot;
+    unsigned int next = (slot + 1) & mMask;
+
+    while (mTable[next].generation != 0) {
+        const ContactPoint& c = mTable[next].contact;
+        unsigned int home = hash(c.body0, c.body1) & mMask;
+
+        // Move the entry back if the hole is between its home slot and where it is now
+        if (((next - home) & mMask) >= ((next - hole) & mMask)) {
+            mTable[hole] = mTable[next];
+            hole = next;
+        }
+        next = (next + 1) & mMask;
+    }
+    mTable[hole].generation = 0;
+    --mCount;
+}
+
+void ContactTracker::grow() {
+    std::vector<Entry> old;
+
+    old.swap(mTable);
+    mTable.resize(old.size() * 2);
+    mMask = mTable.size() - 1;
+    for (auto it = mTable.begin(); it != mTable.end(); ++it) {
+        it->generation = 0;
+    }
+    for (auto it = old.begin(); it != old.end(); ++it) {
+        if (it->generation != 0) {
+            mTable[findSlot(it->contact.body0, it->contact.body1)] = *it;
+        }
+    }
+}
+
+void ContactTracker::getContacts(std::vector<ContactPoint>& contacts) const {
+    contacts.clear();
+    for (auto it = mTable.begin(); it != mTable.end(); ++it) {
+        if (it->generation != 0) {
+            contacts.push_back(it->contact);
+        }
+    }
+}
+
+}
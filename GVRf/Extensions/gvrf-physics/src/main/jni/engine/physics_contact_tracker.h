@@ -0,0 +1,110 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Tracks which pairs of rigid bodies are in contact between steps
+ ***************************************************************************/
+
+#ifndef PHYSICS_CONTACT_TRACKER_H_
+#define PHYSICS_CONTACT_TRACKER_H_
+
+#include <vector>
+
+namespace gvr {
+
+class PhysicsRigidBody;
+
+struct ContactPoint {
+    PhysicsRigidBody* body0 = 0;
+    PhysicsRigidBody* body1 = 0;
+    float normal[3] = {0.0f, 0.0f, 0.0f};
+    float distance = 0.0f;
+    float impulse = 0.0f;
+    int numPoints = 0;
+    bool isHit = true;
+};
+
+/*
+ * Keeps the pairs of bodies in contact in an open addressed
+ * hash table which is reused from one step to the next.
+ * Each entry is stamped with the step it was last seen in,
+ * so finding the pairs which stopped touching is a single
+ * pass over the table instead of a second lookup per pair.
+ *
+ * Usage for each simulation step:
+ *   beginStep();
+ *   addContact(...) for each contact manifold
+ *   endStep();
+ *   getEvents() has the pairs which started (isHit true)
+ *   and stopped (isHit false) touching in that step.
+ *
+ * This does not depend on the physics engine so it can be
+ * built and tested on the host.
+ */
+class ContactTracker {
+public:
+    ContactTracker();
+
+    void beginStep();
+
+    /*
+     * Record a contact between two bodies in the current step.
+     * Several contacts for the same pair (e.g. from compound shapes)
+     * are merged: the points and impulses are added up and the
+     * normal of the deepest contact is kept.
+     */
+    void addContact(const ContactPoint& contact);
+
+    void endStep();
+
+    void clear();
+
+    const std::vector<ContactPoint>& getEvents() const {
+        return mEvents;
+    }
+
+    int getContactCount() const {
+        return mCount;
+    }
+
+    /*
+     * Copy the pairs currently in contact.
+     */
+    void getContacts(std::vector<ContactPoint>& contacts) const;
+
+private:
+    struct Entry {
+        ContactPoint contact;
+        unsigned int generation;      // 0 for an empty slot
+        unsigned int enteredGeneration;
+    };
+
+    unsigned int findSlot(const PhysicsRigidBody* a, const PhysicsRigidBody* b) const;
+    void grow();
+    void removeAt(unsigned int slot);
+
+    static bool samePair(const ContactPoint& c, const PhysicsRigidBody* a, const PhysicsRigidBody* b);
+    static unsigned int hash(const PhysicsRigidBody* a, const PhysicsRigidBody* b);
+
+    std::vector<Entry> mTable;
+    std::vector<ContactPoint> mEvents;
+    unsigned int mMask;
+    int mCount;
+    unsigned int mGeneration;
+};
+
+}
+
+#endif /* PHYSICS_CONTACT_TRACKER_H_ */
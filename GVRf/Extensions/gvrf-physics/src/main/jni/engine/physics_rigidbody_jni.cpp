@@ -63,6 +63,10 @@ extern "C" {
     Java_org_gearvrf_physics_Native3DRigidBody_applyTorqueImpulse(JNIEnv * env, jobject obj,
             jlong jrigid_body, jfloat x, jfloat y, jfloat z);
 
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_Native3DRigidBody_applyCommands(JNIEnv * env, jobject obj,
+            jint count, jintArray jopcodes, jlongArray jrigid_bodies, jfloatArray jargs);
+
     JNIEXPORT void   JNICALL
     Java_org_gearvrf_physics_Native3DRigidBody_setGravity(JNIEnv * env, jobject obj,
             jlong jrigid_body, jfloat x, jfloat y, jfloat z);
@@ -239,6 +243,60 @@ Java_org_gearvrf_physics_Native3DRigidBody_applyTorqueImpulse(JNIEnv * env, jobj
     rigid_body->applyTorqueImpulse(x, y, z);
 }
 
+/*
+ * Opcodes and argument layout must match PhysicsCommandBuffer.
+ */
+enum RigidBodyCommand {
+    APPLY_CENTRAL_FORCE = 0,
+    APPLY_FORCE = 1,
+    APPLY_CENTRAL_IMPULSE = 2,
+    APPLY_IMPULSE = 3,
+    APPLY_TORQUE = 4,
+    APPLY_TORQUE_IMPULSE = 5
+};
+
+static const int COMMAND_ARG_STRIDE = 6;
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_Native3DRigidBody_applyCommands(JNIEnv * env, jobject obj,
+        jint count, jintArray jopcodes, jlongArray jrigid_bodies, jfloatArray jargs) {
+    if (count <= 0) {
+        return;
+    }
+    jint* opcodes = env->GetIntArrayElements(jopcodes, 0);
+    jlong* bodies = env->GetLongArrayElements(jrigid_bodies, 0);
+    jfloat* args = env->GetFloatArrayElements(jargs, 0);
+
+    for (int i = 0; i < count; ++i) {
+        PhysicsRigidBody *rigid_body = reinterpret_cast<PhysicsRigidBody *>(bodies[i]);
+        const jfloat* a = args + i * COMMAND_ARG_STRIDE;
+
+        switch (opcodes[i]) {
+            case APPLY_CENTRAL_FORCE:
+                rigid_body->applyCentralForce(a[0], a[1], a[2]);
+                break;
+            case APPLY_FORCE:
+                rigid_body->applyForce(a[0], a[1], a[2], a[3], a[4], a[5]);
+                break;
+            case APPLY_CENTRAL_IMPULSE:
+                rigid_body->applyCentralImpulse(a[0], a[1], a[2]);
+                break;
+            case APPLY_IMPULSE:
+                rigid_body->applyImpulse(a[0], a[1], a[2], a[3], a[4], a[5]);
+                break;
+            case APPLY_TORQUE:
+                rigid_body->applyTorque(a[0], a[1], a[2]);
+                break;
+            case APPLY_TORQUE_IMPULSE:
+                rigid_body->applyTorqueImpulse(a[0], a[1], a[2]);
+                break;
+        }
+    }
+    env->ReleaseFloatArrayElements(jargs, args, JNI_ABORT);
+    env->ReleaseLongArrayElements(jrigid_bodies, bodies, JNI_ABORT);
+    env->ReleaseIntArrayElements(jopcodes, opcodes, JNI_ABORT);
+}
+
 JNIEXPORT void   JNICALL
 Java_org_gearvrf_physics_Native3DRigidBody_setGravity(JNIEnv * env, jobject obj,
         jlong jrigid_body, jfloat x, jfloat y, jfloat z) {
@@ -23,17 +23,50 @@
 #include "physics_common.h"
 #include "physics_rigidbody.h"
 #include "physics_constraint.h"
+#include "physics_contact_tracker.h"
 #include "../objects/scene_object.h"
-#include <list>
+#include <vector>
 
 namespace gvr {
 
-struct ContactPoint {
-	PhysicsRigidBody* body0 = 0;
-	PhysicsRigidBody* body1 = 0;
-	float normal[3] = {0.0f, 0.0f, 0.0f};
-	float distance = 0.0f;
-	bool isHit = true;
+/*
+ * Result of a ray or sweep query. The distance is measured from
+ * the start of the query, point and normal are in world coordinates.
+ */
+struct PhysicsHit {
+    PhysicsRigidBody* body;
+    float distance;
+    float point[3];
+    float normal[3];
+};
+
+/*
+ * Shapes which can be swept or tested for overlap.
+ * The size is the radius of a sphere or the half extents of a box.
+ */
+enum PhysicsQueryShape {
+    QUERY_SHAPE_SPHERE = 0,
+    QUERY_SHAPE_BOX = 1
+};
+
+/*
+ * Layout of the state of one body in the buffer set with
+ * setBodyStateBuffer, in floats. Must match GVRWorld.
+ * The rotation is a quaternion in X, Y, Z, W order.
+ * The flags slot holds an int.
+ */
+enum PhysicsBodyState {
+    BODY_POSITION = 0,
+    BODY_ROTATION = 3,
+    BODY_LINEAR_VELOCITY = 7,
+    BODY_ANGULAR_VELOCITY = 10,
+    BODY_FLAGS = 13,
+    BODY_STRIDE = 16
+};
+
+enum PhysicsBodyFlags {
+    BODY_IN_WORLD = 1,
+    BODY_ACTIVE = 2
 };
 
 class PhysicsWorld : public Component {
@@ -63,7 +96,60 @@ public:
 
     virtual void step(float timeStep, int maxSubSteps) = 0;
 
-    virtual void listCollisions(std::list<ContactPoint>& contactPoints) = 0;
+    /*
+     * Each body in the world has a small index which does not change
+     * while it stays in the world. Returns -1 if the body is not in it.
+     */
+    virtual int getBodyIndex(PhysicsRigidBody *body) = 0;
+
+    /*
+     * Set where the state of the bodies is written after each step.
+     * states holds BODY_STRIDE floats for capacity bodies.
+     * active gets the number of bodies which moved in the step
+     * followed by their indices, so it must hold capacity + 1 ints.
+     */
+    virtual void setBodyStateBuffer(float* states, int* active, int capacity) = 0;
+
+    /*
+     * Get the pairs of bodies which started (isHit true) or
+     * stopped (isHit false) touching in the last step.
+     */
+    virtual void listCollisions(std::vector<ContactPoint>& contactPoints) = 0;
+
+    /*
+     * Get all the pairs of bodies touching after the last step.
+     */
+    virtual void listContacts(std::vector<ContactPoint>& contactPoints) = 0;
+
+    /*
+     * Cast a ray from (from) to (to) and get the closest hit or all
+     * the hits, nearest first. Only bodies in the collision groups
+     * selected by mask are considered. Up to capacity hits are stored,
+     * the return value is the total number of hits.
+     */
+    virtual int rayTest(const float* from, const float* to, int mask, bool closest,
+                        PhysicsHit* hits, int capacity) = 0;
+
+    /*
+     * Cast rayCount rays stored as 6 floats each (from, to) and get the
+     * closest hit for each of them. hits[i].body is null if ray i missed.
+     * Returns the number of rays which hit something.
+     */
+    virtual int rayTest(int rayCount, const float* rays, int mask, PhysicsHit* hits) = 0;
+
+    /*
+     * Sweep a sphere or box without rotation from (from) to (to)
+     * and get the first body it touches.
+     */
+    virtual bool sweepTest(PhysicsQueryShape shape, const float* size,
+                           const float* from, const float* to, int mask, PhysicsHit& hit) = 0;
+
+    /*
+     * Find the bodies which touch a sphere or box placed at center.
+     * Up to capacity bodies are stored, the return value is the total.
+     */
+    virtual int overlapTest(PhysicsQueryShape shape, const float* size, const float* center,
+                            int mask, PhysicsRigidBody** bodies, int capacity) = 0;
 
     virtual void setGravity(float gx, float gy, float gz) = 0;
 
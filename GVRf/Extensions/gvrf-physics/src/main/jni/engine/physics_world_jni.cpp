@@ -20,6 +20,10 @@
 #include <android/asset_manager.h>
 #include <android/asset_manager_jni.h>
 
+#include <algorithm>
+#include <limits>
+#include <vector>
+
 #include "bullet/bullet_world.h"
 #include "physics_world.h"
 #include "physics_rigidbody.h"
@@ -71,9 +75,40 @@ extern "C" {
     Java_org_gearvrf_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
             jlong jworld, jfloat jtime_step, int maxSubSteps);
 
-    JNIEXPORT jobjectArray JNICALL
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_getBodyIndex(JNIEnv * env, jobject obj,
+            jlong jworld, jlong jrigid_body);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_setBodyStateBuffer(JNIEnv * env, jobject obj,
+            jlong jworld, jobject jstates, jobject jactive, jint capacity);
+
+    JNIEXPORT jint JNICALL
     Java_org_gearvrf_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj,
-                                                                    jlong jworld);
+            jlong jworld, jlongArray jbodies, jfloatArray jdata);
+
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_listContacts(JNIEnv * env, jobject obj,
+            jlong jworld, jlongArray jbodies, jfloatArray jdata);
+
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_rayTest(JNIEnv * env, jobject obj,
+            jlong jworld, jfloatArray jray, jint mask, jboolean closest,
+            jlongArray jbodies, jfloatArray jhits);
+
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_rayTestBatch(JNIEnv * env, jobject obj,
+            jlong jworld, jint rayCount, jfloatArray jrays, jint mask,
+            jlongArray jbodies, jfloatArray jhits);
+
+    JNIEXPORT jboolean JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_sweepTest(JNIEnv * env, jobject obj,
+            jlong jworld, jint shape, jfloatArray jparams, jint mask,
+            jlongArray jbody, jfloatArray jhit);
+
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_physics_NativePhysics3DWorld_overlapTest(JNIEnv * env, jobject obj,
+            jlong jworld, jint shape, jfloatArray jparams, jint mask, jlongArray jbodies);
 
     JNIEXPORT void JNICALL
     Java_org_gearvrf_physics_NativePhysics3DWorld_setGravity(JNIEnv* env, jobject obj,
@@ -166,39 +201,225 @@ Java_org_gearvrf_physics_NativePhysics3DWorld_step(JNIEnv * env, jobject obj,
     world->step((float)jtime_step, maxSubSteps);
 }
 
-JNIEXPORT jobjectArray JNICALL
-Java_org_gearvrf_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj, jlong jworld) {
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_getBodyIndex(JNIEnv * env, jobject obj,
+        jlong jworld, jlong jrigid_body) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
+    PhysicsRigidBody* rigid_body = reinterpret_cast<PhysicsRigidBody*>(jrigid_body);
 
-    jclass collisionInfoClass = env->FindClass("org/gearvrf/physics/GVRCollisionInfo");
-    jmethodID collisionInfoConstructor = env->GetMethodID(collisionInfoClass, "<init>", "(JJ[FFZ)V");
+    return world->getBodyIndex(rigid_body);
+}
 
+/*
+ * The buffers are direct ByteBuffers owned by GVRWorld,
+ * which keeps them alive until it replaces them.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_setBodyStateBuffer(JNIEnv * env, jobject obj,
+        jlong jworld, jobject jstates, jobject jactive, jint capacity) {
+    PhysicsWorld *world = reinterpret_cast<PhysicsWorld*>(jworld);
+    float* states = static_cast<float*>(env->GetDirectBufferAddress(jstates));
+    int* active = static_cast<int*>(env->GetDirectBufferAddress(jactive));
+
+    world->setBodyStateBuffer(states, active, capacity);
+}
+
+/*
+ * Copy contacts into flat Java arrays: two body pointers and
+ * CONTACT_STRIDE floats (normal, distance, impulse, number of
+ * points, 1 if touching) for each pair. Only as many as fit are
+ * copied but the total is returned so the caller can grow the
+ * arrays and try again.
+ */
+static const int CONTACT_STRIDE = 7;
+
+static jint storeContacts(JNIEnv* env, const std::vector<ContactPoint>& contacts,
+                          jlongArray jbodies, jfloatArray jdata)
+{
+    int n = contacts.size();
+    int capacity = std::min(env->GetArrayLength(jbodies) / 2,
+                            env->GetArrayLength(jdata) / CONTACT_STRIDE);
+    int count = std::min(n, capacity);
+
+    if (count <= 0)
+    {
+        return n;
+    }
+    jlong* bodies = env->GetLongArrayElements(jbodies, 0);
+    jfloat* data = env->GetFloatArrayElements(jdata, 0);
+
+    for (int i = 0; i < count; ++i)
+    {
+        const ContactPoint& cp = contacts[i];
+        jfloat* d = data + i * CONTACT_STRIDE;
+
+        bodies[i * 2] = reinterpret_cast<jlong>(cp.body0);
+        bodies[i * 2 + 1] = reinterpret_cast<jlong>(cp.body1);
+        d[0] = cp.normal[0];
+        d[1] = cp.normal[1];
+        d[2] = cp.normal[2];
+        d[3] = cp.distance;
+        d[4] = cp.impulse;
+        d[5] = cp.numPoints;
+        d[6] = cp.isHit ? 1.0f : 0.0f;
+    }
+    env->ReleaseFloatArrayElements(jdata, data, 0);
+    env->ReleaseLongArrayElements(jbodies, bodies, 0);
+    return n;
+}
+
+/*
+ * Only called from the physics thread so the list can be reused.
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_listCollisions(JNIEnv * env, jobject obj,
+        jlong jworld, jlongArray jbodies, jfloatArray jdata) {
+    static std::vector<ContactPoint> contactPoints;
     PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
-    std::list <ContactPoint> contactPoints;
 
     world->listCollisions(contactPoints);
+    return storeContacts(env, contactPoints, jbodies, jdata);
+}
 
-    int size = contactPoints.size();
-    jobjectArray jNewList = env->NewObjectArray(size, collisionInfoClass, NULL);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_listContacts(JNIEnv * env, jobject obj,
+        jlong jworld, jlongArray jbodies, jfloatArray jdata) {
+    PhysicsWorld *world = reinterpret_cast <PhysicsWorld*> (jworld);
+    std::vector<ContactPoint> contactPoints;
+
+    world->listContacts(contactPoints);
+    return storeContacts(env, contactPoints, jbodies, jdata);
+}
 
-    int i = 0;
-    for (auto it = contactPoints.begin(); it != contactPoints.end(); ++it) {
-        const ContactPoint& data = *it;
+/*
+ * Copy query hits into flat Java arrays: a body pointer and
+ * HIT_STRIDE floats (distance, point, normal) for each hit.
+ * Misses get a null body and an infinite distance.
+ */
+static const int HIT_STRIDE = 7;
 
-        jfloatArray normal = env->NewFloatArray(3);
-        env->SetFloatArrayRegion(normal, 0, 3, data.normal);
+static void storeHits(JNIEnv* env, const PhysicsHit* hits, int count,
+                      jlongArray jbodies, jfloatArray jhits)
+{
+    if (count <= 0)
+    {
+        return;
+    }
+    jlong* bodies = env->GetLongArrayElements(jbodies, 0);
+    jfloat* data = env->GetFloatArrayElements(jhits, 0);
+
+    for (int i = 0; i < count; ++i)
+    {
+        const PhysicsHit& hit = hits[i];
+        jfloat* d = data + i * HIT_STRIDE;
+
+        bodies[i] = reinterpret_cast<jlong>(hit.body);
+        if (hit.body == nullptr)
+        {
+            std::fill(d, d + HIT_STRIDE, 0.0f);
+            d[0] = std::numeric_limits<float>::infinity();
+            continue;
+        }
+        d[0] = hit.distance;
+        std::copy(hit.point, hit.point + 3, d + 1);
+        std::copy(hit.normal, hit.normal + 3, d + 4);
+    }
+    env->ReleaseFloatArrayElements(jhits, data, 0);
+    env->ReleaseLongArrayElements(jbodies, bodies, 0);
+}
 
-        jobject contactObject = env->NewObject(collisionInfoClass, collisionInfoConstructor,
-                                               (jlong)data.body0, (jlong)data.body1,
-                                               (jfloatArray)normal, (jfloat)data.distance,
-                                               (jboolean)data.isHit);
+/*
+ * The scene queries are only called from the physics thread
+ * so the hit list can be reused.
+ */
+static std::vector<PhysicsHit> sQueryHits;
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_rayTest(JNIEnv * env, jobject obj,
+        jlong jworld, jfloatArray jray, jint mask, jboolean closest,
+        jlongArray jbodies, jfloatArray jhits)
+{
+    PhysicsWorld* world = reinterpret_cast<PhysicsWorld*>(jworld);
+    int capacity = std::min(env->GetArrayLength(jbodies),
+                            env->GetArrayLength(jhits) / HIT_STRIDE);
+    float ray[6];
+
+    env->GetFloatArrayRegion(jray, 0, 6, ray);
+    sQueryHits.resize(std::max(capacity, 1));
+
+    int n = world->rayTest(ray, ray + 3, mask, closest, sQueryHits.data(), capacity);
+
+    storeHits(env, sQueryHits.data(), std::min(n, capacity), jbodies, jhits);
+    return n;
+}
 
-        env->SetObjectArrayElement(jNewList, i++, contactObject);
-        env->DeleteLocalRef(contactObject);
-        env->DeleteLocalRef(normal);
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_rayTestBatch(JNIEnv * env, jobject obj,
+        jlong jworld, jint rayCount, jfloatArray jrays, jint mask,
+        jlongArray jbodies, jfloatArray jhits)
+{
+    PhysicsWorld* world = reinterpret_cast<PhysicsWorld*>(jworld);
+
+    if (rayCount <= 0)
+    {
+        return 0;
     }
+    jfloat* rays = env->GetFloatArrayElements(jrays, 0);
+
+    sQueryHits.resize(rayCount);
+
+    int n = world->rayTest(rayCount, rays, mask, sQueryHits.data());
+
+    env->ReleaseFloatArrayElements(jrays, rays, JNI_ABORT);
+    storeHits(env, sQueryHits.data(), rayCount, jbodies, jhits);
+    return n;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_sweepTest(JNIEnv * env, jobject obj,
+        jlong jworld, jint shape, jfloatArray jparams, jint mask,
+        jlongArray jbody, jfloatArray jhit)
+{
+    PhysicsWorld* world = reinterpret_cast<PhysicsWorld*>(jworld);
+    PhysicsHit hit;
+    float params[9];
+
+    env->GetFloatArrayRegion(jparams, 0, 9, params);
 
-    env->DeleteLocalRef(collisionInfoClass);
-    return jNewList;
+    bool isHit = world->sweepTest(static_cast<PhysicsQueryShape>(shape), params,
+                                  params + 3, params + 6, mask, hit);
+
+    storeHits(env, &hit, 1, jbody, jhit);
+    return isHit;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_physics_NativePhysics3DWorld_overlapTest(JNIEnv * env, jobject obj,
+        jlong jworld, jint shape, jfloatArray jparams, jint mask, jlongArray jbodies)
+{
+    static std::vector<PhysicsRigidBody*> bodies;
+    PhysicsWorld* world = reinterpret_cast<PhysicsWorld*>(jworld);
+    int capacity = env->GetArrayLength(jbodies);
+    float params[6];
+
+    env->GetFloatArrayRegion(jparams, 0, 6, params);
+    bodies.resize(std::max(capacity, 1));
+
+    int n = world->overlapTest(static_cast<PhysicsQueryShape>(shape), params, params + 3,
+                               mask, bodies.data(), capacity);
+    int count = std::min(n, capacity);
+
+    if (count > 0)
+    {
+        jlong* ptrs = env->GetLongArrayElements(jbodies, 0);
+
+        for (int i = 0; i < count; ++i)
+        {
+            ptrs[i] = reinterpret_cast<jlong>(bodies[i]);
+        }
+        env->ReleaseLongArrayElements(jbodies, ptrs, 0);
+    }
+    return n;
 }
 
 JNIEXPORT void JNICALL
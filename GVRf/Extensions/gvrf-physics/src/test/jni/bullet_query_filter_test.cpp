@@ -0,0 +1,135 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Host test for the collision group filter of the scene queries.
+ * It only needs the Bullet headers, build and run it from this directory:
+ *
+ *   g++ -std=c++11 -I../../main/jni/bullet3/include \
+ *       -I../../main/jni/engine/bullet bullet_query_filter_test.cpp -o query_filter_test
+ *   ./query_filter_test
+ ***************************************************************************/
+
+#include <cstdio>
+#include <BulletCollision/CollisionDispatch/btCollisionWorld.h>
+#include "bullet_query_filter.h"
+
+using namespace gvr;
+
+static int failures = 0;
+
+static void check(bool condition, const char* what) {
+    if (!condition) {
+        std::printf("FAILED: %s\n", what);
+        ++failures;
+    }
+}
+
+struct Body {
+    btBroadphaseProxy proxy;
+
+    Body(int group, int mask) {
+        proxy.m_collisionFilterGroup = group;
+        proxy.m_collisionFilterMask = mask;
+    }
+};
+
+static Body ungrouped(bool isDynamic) {
+    int group;
+    int mask;
+
+    getUngroupedFilter(isDynamic, group, mask);
+    return Body(group, mask);
+}
+
+/*
+ * Bodies in group N of a collision matrix, added the way
+ * GVRWorld.addBody passes the short group and mask values.
+ */
+static Body grouped(int groupId, short mask) {
+    return Body(static_cast<short>(1 << groupId) & QUERY_GROUPS, mask & QUERY_GROUPS);
+}
+
+static bool hits(int queryMask, Body& body) {
+    QueryFilter<btCollisionWorld::ClosestRayResultCallback> filter(queryMask, btVector3(0, 0, 0),
+                                                                   btVector3(1, 0, 0));
+    return filter.needsCollision(&body.proxy);
+}
+
+/*
+ * Bullet's default broadphase pair filter.
+ */
+static bool collide(const Body& a, const Body& b) {
+    return ((a.proxy.m_collisionFilterGroup & b.proxy.m_collisionFilterMask) != 0) &&
+           ((b.proxy.m_collisionFilterGroup & a.proxy.m_collisionFilterMask) != 0);
+}
+
+static void testUngroupedBodiesMatchAnyMask() {
+    Body dynamicBody = ungrouped(true);
+    Body staticBody = ungrouped(false);
+    int masks[] = { -1, 0, 1, 2, 1 << 5, 1 << 15, 0x7FFF };
+
+    for (int mask : masks) {
+        check(hits(mask, dynamicBody), "ungrouped dynamic body matches any mask");
+        check(hits(mask, staticBody), "ungrouped static body matches any mask");
+    }
+}
+
+static void testGroupedBodiesMatchTheirGroup() {
+    for (int groupId = 0; groupId < 16; ++groupId) {
+        Body body = grouped(groupId, static_cast<short>(0xFFFF));
+
+        check(hits(-1, body), "-1 matches every group");
+        check(hits(1 << groupId, body), "group bit matches its group");
+        check(!hits(~(1 << groupId), body), "other group bits do not match");
+        check(!hits(0, body), "empty mask matches no group");
+    }
+}
+
+static void testUngroupedCollisionsUnchanged() {
+    Body dynamicA = ungrouped(true);
+    Body dynamicB = ungrouped(true);
+    Body staticA = ungrouped(false);
+    Body staticB = ungrouped(false);
+
+    check(collide(dynamicA, dynamicB), "ungrouped dynamic bodies collide");
+    check(collide(dynamicA, staticA), "ungrouped dynamic and static bodies collide");
+    check(!collide(staticA, staticB), "ungrouped static bodies do not collide");
+}
+
+static void testGroupedCollisions() {
+    Body group0 = grouped(0, 1 << 0);
+    Body group1 = grouped(1, 1 << 1);
+    Body group15 = grouped(15, static_cast<short>(1 << 15));
+    Body dynamicBody = ungrouped(true);
+    Body staticBody = ungrouped(false);
+
+    check(collide(group15, grouped(15, static_cast<short>(1 << 15))), "group 15 collides with itself");
+    check(!collide(group0, group1), "default matrix keeps groups apart");
+    check(!collide(group15, staticBody), "marker bit does not leak into group 15");
+    check(!collide(group15, dynamicBody), "marker bit does not leak into group 15");
+    check(collide(group0, dynamicBody), "group 0 collides with ungrouped dynamic bodies");
+}
+
+int main() {
+    testUngroupedBodiesMatchAnyMask();
+    testGroupedBodiesMatchTheirGroup();
+    testUngroupedCollisionsUnchanged();
+    testGroupedCollisions();
+    if (failures == 0) {
+        std::printf("OK\n");
+    }
+    return failures == 0 ? 0 : 1;
+}
@@ -11,6 +11,8 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 
 import lu.flier.script.V8ScriptEngineFactory;
 
@@ -21,6 +23,9 @@ import lu.flier.script.V8ScriptEngineFactory;
  * Once a script text is set or loaded, you can invoke functions in the
  * script using nvokeFunction(String functionName, Object[] parameters)},
  * to handle events delivered to it.
+ *
+ * The script text is compiled the first time a function is invoked
+ * and the compiled script is reused until the text changes.
  */
 
 public class GVRJavascriptV8File {
@@ -41,6 +46,7 @@ public class GVRJavascriptV8File {
     protected Bindings bindings = null;
     protected Invocable invocable = null;
     protected Bindings inputBindings = null;
+    protected CompiledScript mCompiledScript = null;
     Map inputVars = null;
 
 
@@ -66,7 +72,7 @@ public class GVRJavascriptV8File {
             }
 
             mEngine.eval( paramString );
-            mEngine.eval( mScriptText );
+            evalScript();
 
             invocable = (Invocable) mEngine;
              invocable.invokeFunction(funcName, parameters);
@@ -86,6 +92,49 @@ public class GVRJavascriptV8File {
         return runs;
     }
 
+    /**
+     * Invokes another function of this script without evaluating
+     * the script or its parameters again.
+     * The engine is shared by all scripts so this must immediately follow
+     * {@link #invokeFunction(String, Object[], String)} on this file,
+     * on the same thread.
+     * @param funcName   name of the function to call
+     * @param parameters arguments to the function
+     * @return true if the function ran, false on error
+     */
+    public boolean invokeNextFunction(String funcName, Object[] parameters) {
+        if ( invocable == null ) {
+            return false;
+        }
+        try {
+            invocable.invokeFunction(funcName, parameters);
+            bindings = mEngine.getBindings( ScriptContext.ENGINE_SCOPE);
+            return true;
+        } catch (Exception e) {
+            Log.d(TAG, "Exception: " + e);
+            Log.d(TAG, "   function: '" + funcName + "'");
+            Log.d(TAG, "   JavaScript:\n" + mScriptText);
+        }
+        return false;
+    }
+
+    /*
+     * Parsing the script text is the most expensive part of
+     * invoking a function, so the text is compiled once.
+     * It still has to be run each time because other scripts
+     * share the engine and may have replaced its globals.
+     */
+    private void evalScript() throws ScriptException {
+        if ( !(mEngine instanceof Compilable) ) {
+            mEngine.eval( mScriptText );
+            return;
+        }
+        if ( mCompiledScript == null ) {
+            mCompiledScript = ((Compilable) mEngine).compile( mScriptText );
+        }
+        mCompiledScript.eval();
+    }
+
     /**
      * Access to values modified during invoking of Script file
      * Enables X3D to get values script modifies..
@@ -100,6 +149,7 @@ public class GVRJavascriptV8File {
      */
     public void setScriptText(String scriptText) {
         mScriptText = scriptText;
+        mCompiledScript = null;
     }
 
     /**
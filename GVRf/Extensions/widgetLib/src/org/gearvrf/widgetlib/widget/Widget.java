@@ -1257,7 +1257,11 @@ public class Widget implements Layout.WidgetContainer {
      *            'Z' component of the absolute position.
      */
     public void setPosition(float x, float y, float z) {
-        getTransform().setPosition(x, y, z);
+        if (mDeferPosition) {
+            mPositionDeferred = true;
+        } else {
+            getTransform().setPosition(x, y, z);
+        }
         if (mTransformCache.setPosition(x, y, z)) {
             onTransformChanged();
         }
@@ -1272,7 +1276,11 @@ public class Widget implements Layout.WidgetContainer {
      *            New 'X' component of the absolute position.
      */
     public void setPositionX(float x) {
-        getTransform().setPositionX(x);
+        if (mDeferPosition) {
+            mPositionDeferred = true;
+        } else {
+            getTransform().setPositionX(x);
+        }
         if (mTransformCache.setPosX(x)) {
             onTransformChanged();
         }
@@ -1287,7 +1295,11 @@ public class Widget implements Layout.WidgetContainer {
      *            New 'Y' component of the absolute position.
      */
     public void setPositionY(float y) {
-        getTransform().setPositionY(y);
+        if (mDeferPosition) {
+            mPositionDeferred = true;
+        } else {
+            getTransform().setPositionY(y);
+        }
         if (mTransformCache.setPosY(y)) {
             onTransformChanged();
         }
@@ -1302,7 +1314,11 @@ public class Widget implements Layout.WidgetContainer {
      *            New 'Z' component of the absolute position.
      */
     public void setPositionZ(float z) {
-        getTransform().setPositionZ(z);
+        if (mDeferPosition) {
+            mPositionDeferred = true;
+        } else {
+            getTransform().setPositionZ(z);
+        }
         if (mTransformCache.setPosZ(z)) {
             onTransformChanged();
         }
@@ -3171,6 +3187,33 @@ public class Widget implements Layout.WidgetContainer {
         mPreventTransformChanged = prevent;
     }
 
+    private boolean mDeferPosition;
+    private boolean mPositionDeferred;
+
+    /**
+     * Keep position changes in the {@link TransformCache} only, until
+     * {@link #commitPosition()} is called. Layouts set X, Y and Z of a child
+     * separately, often from different {@link Layout Layouts}; deferring
+     * them sets the position of the {@link GVRTransform} once per child.
+     * The position getters return the new position while it is deferred.
+     */
+    public void deferPosition() {
+        mDeferPosition = true;
+    }
+
+    /**
+     * Set the position of the {@link GVRTransform} if it was changed after
+     * {@link #deferPosition()}, and stop deferring position changes.
+     */
+    public void commitPosition() {
+        mDeferPosition = false;
+        if (mPositionDeferred) {
+            mPositionDeferred = false;
+            getTransform().setPosition(mTransformCache.getPosX(),
+                    mTransformCache.getPosY(), mTransformCache.getPosZ());
+        }
+    }
+
     private boolean addChildInner(final Widget child,
                                   final GVRSceneObject childRootSceneObject, int index) {
         if (child == this || child.getSceneObject() == getSceneObject()) {
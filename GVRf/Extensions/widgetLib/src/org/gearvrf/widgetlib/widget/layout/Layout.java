@@ -13,6 +13,7 @@ import static org.gearvrf.widgetlib.main.Utility.equal;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.utility.RuntimeAssertion;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -427,16 +428,24 @@ abstract public class Layout {
                     mMeasuredChildren.size(), this);
             copySet = new HashSet<>(mMeasuredChildren);
         }
+        List<Widget> laidOutChildren = new ArrayList<>(copySet.size());
         for (int nextMeasured: copySet) {
             Widget child = mContainer.get(nextMeasured);
             if (child != null) {
                 child.preventTransformChanged(true);
+                child.deferPosition();
                 layoutChild(nextMeasured);
                 postLayoutChild(nextMeasured);
                 child.preventTransformChanged(false);
+                laidOutChildren.add(child);
             }
 
         }
+
+        // Positions are computed per axis; set each changed child's transform once
+        for (Widget child: laidOutChildren) {
+            child.commitPosition();
+        }
     }
 
     /**
@@ -1,6 +1,7 @@
 package org.gearvrf.widgetlib.widget.layout.basic;
 
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 
 import org.gearvrf.widgetlib.log.Log;
 import org.gearvrf.widgetlib.widget.layout.CacheData;
@@ -22,6 +23,8 @@ class LinearCacheDataSet implements CacheDataSet {
             copy.mTotalPadding = mTotalPadding;
             copy.mTotalSize = mTotalSize;
             copy.mOuterPaddingEnabled = mOuterPaddingEnabled;
+            copy.mOffsetShift = mOffsetShift;
+            copy.mPositionsValid = false;
 
             for (int pos = 0; pos < count(); ++pos) {
                 copy.mCacheDataSet.put(mCacheDataSet.keyAt(pos),
@@ -40,8 +43,8 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public void dump() {
         Log.d(TAG, "\n==== DUMP CACHE start ======\nCache size = %d " +
-                        "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b",
-                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled);
+                        "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b offsetShift = %f",
+                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled, mOffsetShift);
 
         for (int pos = 0; pos < count(); ++pos) {
             Log.d(TAG, "data[%d, %d]: %s", mIdsSet.get(pos), pos,
@@ -75,6 +78,18 @@ class LinearCacheDataSet implements CacheDataSet {
             actualPos = count();
         }
         Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "addData id = %d pos = %d", id, actualPos);
+
+        // the layout adds items at either end of the list as it scrolls,
+        // which keeps the position index valid without rebuilding it
+        if (mPositionsValid) {
+            if (actualPos == mIdsSet.size()) {
+                mPositions.put(id, mPositionBase + actualPos);
+            } else if (actualPos == 0) {
+                mPositions.put(id, --mPositionBase);
+            } else {
+                mPositionsValid = false;
+            }
+        }
         mIdsSet.add(actualPos, id);
 
         // update total padding
@@ -90,14 +105,11 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public int getPos(final int id) {
-        int pos = 0;
-        for (int nextId : mIdsSet) {
-            if (nextId == id) {
-                break;
-            }
-            pos++;
+        if (!mPositionsValid) {
+            rebuildPositions();
         }
-        return pos == mIdsSet.size() ? -1 : pos;
+        int index = mPositions.indexOfKey(id);
+        return index < 0 ? -1 : mPositions.valueAt(index) - mPositionBase;
     }
 
     @Override
@@ -105,7 +117,7 @@ class LinearCacheDataSet implements CacheDataSet {
         float offset = Float.NaN;
         CacheData data = mCacheDataSet.get(id);
         if (data != null) {
-            offset = data.getOffset();
+            offset = data.getOffset() + mOffsetShift;
         }
         return offset;
     }
@@ -128,7 +140,7 @@ class LinearCacheDataSet implements CacheDataSet {
         CacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
-            offset = data.getOffset() - getStartPadding(pos, data) - data.getSize() / 2;
+            offset = data.getOffset() + mOffsetShift - getStartPadding(pos, data) - data.getSize() / 2;
         }
         return offset;
     }
@@ -139,7 +151,7 @@ class LinearCacheDataSet implements CacheDataSet {
         CacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
-            offset = data.getOffset() + data.getSize() / 2 + getEndPadding(pos, data);
+            offset = data.getOffset() + mOffsetShift + data.getSize() / 2 + getEndPadding(pos, data);
         }
         return offset;
     }
@@ -154,6 +166,13 @@ class LinearCacheDataSet implements CacheDataSet {
 
             mCacheDataSet.remove(id);
             mIdsSet.remove(pos);
+
+            mPositions.delete(id);
+            if (pos == 0) {
+                ++mPositionBase;
+            } else if (pos != mIdsSet.size()) {
+                mPositionsValid = false;
+            }
         }
     }
 
@@ -168,16 +187,22 @@ class LinearCacheDataSet implements CacheDataSet {
             case ALL:
                 mCacheDataSet.clear();
                 mIdsSet.clear();
+                mPositions.clear();
+                mPositionBase = 0;
+                mPositionsValid = true;
+                mOffsetShift = 0;
                 mTotalSize = 0;
                 mTotalPadding = 0;
                 break;
             case OFFSET:
+                mOffsetShift = 0;
                 for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
                     CacheData data = mCacheDataSet.valueAt(pos);
                     data.setOffset(Float.NaN);
                 }
                 break;
             case SIZE:
+                mOffsetShift = 0;
                 mTotalSize = 0;
                 mTotalPadding = 0;
                 for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
@@ -187,6 +212,7 @@ class LinearCacheDataSet implements CacheDataSet {
                 }
                 break;
             case PADDING:
+                mOffsetShift = 0;
                 mTotalSize = 0;
                 mTotalPadding = 0;
                 for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
@@ -243,7 +269,7 @@ class LinearCacheDataSet implements CacheDataSet {
             int pos = getPos(id);
             float startPadding = getStartPadding(pos, data);
             float offset = alignment + (startPadding + data.getSize() / 2);
-            data.setOffset(offset);
+            data.setOffset(offset - mOffsetShift);
             mCacheDataSet.put(id, data);
 
             float endPadding = getEndPadding(pos, data);
@@ -259,7 +285,7 @@ class LinearCacheDataSet implements CacheDataSet {
             int pos = getPos(id);
             float endPadding = getEndPadding(pos, data);
             float offset = alignment - (endPadding + data.getSize() / 2);
-            data.setOffset(offset);
+            data.setOffset(offset - mOffsetShift);
             mCacheDataSet.put(id, data);
 
             float startPadding = getStartPadding(pos, data);
@@ -292,14 +318,11 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public void shiftBy(final float amount) {
-        for (int pos = mCacheDataSet.size(); --pos >= 0;) {
-            CacheData data =  mCacheDataSet.valueAt(pos);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy item[%s] newOffset = %f",
-                    data, (data.getOffset() + amount));
-
-            data.setOffset(data.getOffset() + amount);
-            mCacheDataSet.setValueAt(pos, data);
-        }
+        // the offsets in CacheData are relative to mOffsetShift,
+        // so scrolling does not have to visit every item
+        mOffsetShift += amount;
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy amount = %f offsetShift = %f",
+                amount, mOffsetShift);
     }
 
 
@@ -343,6 +366,15 @@ class LinearCacheDataSet implements CacheDataSet {
         return paddingSpace;
     }
 
+    private void rebuildPositions() {
+        mPositions.clear();
+        mPositionBase = 0;
+        for (int pos = 0; pos < mIdsSet.size(); ++pos) {
+            mPositions.put(mIdsSet.get(pos), pos);
+        }
+        mPositionsValid = true;
+    }
+
     private float getStartPadding(final int pos, final CacheData data) {
         float startPadding = pos > 0 || mOuterPaddingEnabled ? data.getStartPadding() : 0;
         return startPadding;
@@ -357,9 +389,15 @@ class LinearCacheDataSet implements CacheDataSet {
     protected float mTotalSize;
     protected float mTotalPadding;
     private boolean mOuterPaddingEnabled;
+    // added to the offsets in mCacheDataSet
+    private float mOffsetShift;
 
     SparseArray<CacheData> mCacheDataSet = new SparseArray<>();
     List<Integer> mIdsSet = new ArrayList<>();
+    // position of an id is mPositions.get(id) - mPositionBase
+    private SparseIntArray mPositions = new SparseIntArray();
+    private int mPositionBase;
+    private boolean mPositionsValid = true;
 
     LinearCacheDataSet(boolean outerPaddingEnabled) {
         mOuterPaddingEnabled = outerPaddingEnabled;
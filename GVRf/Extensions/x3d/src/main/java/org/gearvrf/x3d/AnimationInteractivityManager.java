@@ -83,6 +83,8 @@ import org.joml.Vector3f;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Vector;
 
 import javax.script.Bindings;
@@ -140,6 +142,15 @@ public class AnimationInteractivityManager {
     private PerFrameScripting perFrameScripting = new PerFrameScripting();
     private SensorImplementation sensorImplementation = new SensorImplementation();
 
+    // ROUTE nodes indexed by lower case name, see updateRouteNodes()
+    private HashMap<String, Sensor> routeSensors = new HashMap<String, Sensor>();
+    private HashMap<String, TimeSensor> routeTimeSensors = new HashMap<String, TimeSensor>();
+    private HashMap<String, Interpolator> routeInterpolators = new HashMap<String, Interpolator>();
+    private HashMap<String, EventUtility> routeEventUtilities = new HashMap<String, EventUtility>();
+    private HashMap<String, ScriptObject> routeScriptObjects = new HashMap<String, ScriptObject>();
+    private HashMap<String, DefinedItem> routeDefinedItems = new HashMap<String, DefinedItem>();
+    private int routeNodeCount = -1;
+
     // Append this incremented value to GVRSceneObject names to insure unique
     // GVRSceneObjects when new GVRScene objects are generated to support animation
     private static int animationCount = 1;
@@ -208,50 +219,23 @@ public class AnimationInteractivityManager {
         // Get pointers to the Sensor, TimeSensor, Interpolator,
         // EventUtility (such as BooleanToggle), ScriptObject
         // and/or Defined Items based the nodes of this object
-        for (Sensor sensor : sensors) {
-            if (sensor.getName().equalsIgnoreCase(fromNode)) {
-                routeFromSensor = sensor;
-            }
-        }
-
-        for (TimeSensor timeSensor : timeSensors) {
-            if (timeSensor.name.equalsIgnoreCase(toNode)) {
-                routeToTimeSensor = timeSensor;
-            } else if (timeSensor.name.equalsIgnoreCase(fromNode)) {
-                routeFromTimeSensor = timeSensor;
-            }
-        }
-
-        for (Interpolator interpolator : interpolators) {
-            if (interpolator.name.equalsIgnoreCase(toNode)) {
-                routeToInterpolator = interpolator;
-            } else if (interpolator.name.equalsIgnoreCase(fromNode)) {
-                routeFromInterpolator = interpolator;
-            }
-        }
-
-        for (EventUtility eventUtility : eventUtilities) {
-            if (eventUtility.getName().equalsIgnoreCase(toNode)) {
-                routeToEventUtility = eventUtility;
-            } else if (eventUtility.getName().equalsIgnoreCase(fromNode)) {
-                routeFromEventUtility = eventUtility;
-            }
-        }
-
-        for (ScriptObject scriptObject : scriptObjects) {
-            if (scriptObject.getName().equalsIgnoreCase(toNode)) {
-                routeToScriptObject = scriptObject;
-            } else if (scriptObject.getName().equalsIgnoreCase(fromNode)) {
-                routeFromScriptObject = scriptObject;
-            }
-        }
-
-        for (DefinedItem definedItem : definedItems) {
-            if (definedItem.getName().equalsIgnoreCase(toNode)) {
-                routeToDefinedItem = definedItem;
-            } else if (definedItem.getName().equalsIgnoreCase(fromNode)) {
-                routeFromDefinedItem = definedItem;
-            }
+        updateRouteNodes();
+        String toName = toNode.toLowerCase(Locale.US);
+        String fromName = fromNode.toLowerCase(Locale.US);
+        boolean fromIsTo = toName.equals(fromName);
+
+        routeFromSensor = routeSensors.get(fromName);
+        routeToTimeSensor = routeTimeSensors.get(toName);
+        routeToInterpolator = routeInterpolators.get(toName);
+        routeToEventUtility = routeEventUtilities.get(toName);
+        routeToScriptObject = routeScriptObjects.get(toName);
+        routeToDefinedItem = routeDefinedItems.get(toName);
+        if (!fromIsTo) {
+            routeFromTimeSensor = routeTimeSensors.get(fromName);
+            routeFromInterpolator = routeInterpolators.get(fromName);
+            routeFromEventUtility = routeEventUtilities.get(fromName);
+            routeFromScriptObject = routeScriptObjects.get(fromName);
+            routeFromDefinedItem = routeDefinedItems.get(fromName);
         }
 
         // Now build the InteractiveObject by assigning pointers
@@ -492,6 +476,53 @@ public class AnimationInteractivityManager {
     }  //  end buildInteractiveObject
 
 
+    /**
+     * Index the nodes a ROUTE can refer to by name so each ROUTE is
+     * resolved with a few lookups instead of scanning every list.
+     * Nodes are normally all parsed before the ROUTEs, the index is
+     * only rebuilt if one of the lists has changed size since.
+     * When more than one node has the same name the last one wins,
+     * as it did when the lists were searched.
+     */
+    private void updateRouteNodes() {
+        int nodeCount = sensors.size() + timeSensors.size() + interpolators.size()
+                + eventUtilities.size() + scriptObjects.size() + definedItems.size();
+        if (nodeCount == routeNodeCount) {
+            return;
+        }
+        routeNodeCount = nodeCount;
+        routeSensors.clear();
+        routeTimeSensors.clear();
+        routeInterpolators.clear();
+        routeEventUtilities.clear();
+        routeScriptObjects.clear();
+        routeDefinedItems.clear();
+        for (Sensor sensor : sensors) {
+            putRouteNode(routeSensors, sensor.getName(), sensor);
+        }
+        for (TimeSensor timeSensor : timeSensors) {
+            putRouteNode(routeTimeSensors, timeSensor.name, timeSensor);
+        }
+        for (Interpolator interpolator : interpolators) {
+            putRouteNode(routeInterpolators, interpolator.name, interpolator);
+        }
+        for (EventUtility eventUtility : eventUtilities) {
+            putRouteNode(routeEventUtilities, eventUtility.getName(), eventUtility);
+        }
+        for (ScriptObject scriptObject : scriptObjects) {
+            putRouteNode(routeScriptObjects, scriptObject.getName(), scriptObject);
+        }
+        for (DefinedItem definedItem : definedItems) {
+            putRouteNode(routeDefinedItems, definedItem.getName(), definedItem);
+        }
+    }
+
+    private static <T> void putRouteNode(HashMap<String, T> nodes, String name, T node) {
+        if (name != null) {
+            nodes.put(name.toLowerCase(Locale.US), node);
+        }
+    }
+
     /**
      * BuildInteractiveObjectFromAnchor is a special type of interactive object in that it does not get
      * built using ROUTE's.
@@ -1510,11 +1541,7 @@ public class AnimationInteractivityManager {
         final void onDrawFrame(float frameTime) {
             if ( interactiveObjectFinal.getScriptObject().getInitializationDone() ) {
                 if ( firstFrameRun_MustInitalize ) {
-                    String paramString = "var params =[";
-                    for (int i = 0; i < parameters.length; i++ ) {
-                        paramString += (parameters[i] + ", ");
-                    }
-                    paramString = paramString.substring(0, (paramString.length()-2)) + "];";
+                    String paramString = BuildParamString(parameters);
 
                     GVRJavascriptV8File gvrJavascriptV8File = interactiveObjectFinal.getScriptObject().getGVRJavascriptV8File();
 
@@ -1967,7 +1994,7 @@ public class AnimationInteractivityManager {
                 // <SCRIPT> node initialize() functions set inputOnly values
                 // so we don't continue to run the main script method.
                 // http://www.web3d.org/documents/specifications/19775-1/V3.2/Part01/components/scripting.html#Script
-                complete = gvrJavascriptV8FileFinal.invokeFunction(INITIALIZE_FUNCTION, parametersFinal, "");
+                complete = gvrJavascriptV8FileFinal.invokeNextFunction(INITIALIZE_FUNCTION, parametersFinal);
                 if ( !complete ) {
                     Log.e(TAG, "Error with initialize() function in SCRIPT '" +
                             interactiveObjectFinal.getScriptObject().getName() + "'");
@@ -2004,11 +2031,7 @@ public class AnimationInteractivityManager {
                             // only initialize if this is not called per frame
                             // initialization for scripts called per frame must be called
                             // when we begin the first frame due to V8 engine start-up
-                            String paramString = "var params =[";
-                            for (int i = 0; i < parameters.length; i++ ) {
-                                paramString += (parameters[i] + ", ");
-                            }
-                            paramString = paramString.substring(0, (paramString.length()-2)) + "];";
+                            String paramString = BuildParamString(parameters);
 
                             final GVRJavascriptV8File gvrJavascriptV8FileFinal = gvrJavascriptV8File;
                             final InteractiveObject interactiveObjectFinal = interactiveObject;
@@ -2187,8 +2210,9 @@ public class AnimationInteractivityManager {
             Bindings gvrFunctionBindingValues = gvrJavascriptV8FileFinal.getLocalBindings();
             //set the bindings from X3D Script field with inputOnly / inputOutput
             gvrJavascriptV8FileFinal.setInputValues(gvrFunctionBindingValues);
-            // Now run this Script's actual function
-            complete = gvrJavascriptV8FileFinal.invokeFunction(functionNameFinal, parametersFinal, paramStringFinal);
+            // Now run this Script's actual function, the script
+            // and its parameters were just evaluated so just call it
+            complete = gvrJavascriptV8FileFinal.invokeNextFunction(functionNameFinal, parametersFinal);
 
             if (complete) {
                 // The JavaScript (JS) ran ok.  Now get the return
@@ -2206,16 +2230,23 @@ public class AnimationInteractivityManager {
     }  //  end RunScriptThread
 
 
+    // Builds the statement which declares the arguments passed to
+    // the GearVRinitJavaScript() function in the V8 engine
+    private static String BuildParamString(Object[] parameters) {
+        StringBuilder paramString = new StringBuilder("var params =[");
+        for (int i = 0; i < parameters.length; i++ ) {
+            if (i > 0) paramString.append(", ");
+            paramString.append(parameters[i]);
+        }
+        return paramString.append("];").toString();
+    }
+
     // Run the JavaScript program, Output saved in localBindings
     private void RunScript(InteractiveObject interactiveObject, String functionName, Object[] parameters) {
         boolean complete = false;
         if ( V8JavaScriptEngine) {
             GVRJavascriptV8File gvrJavascriptV8File = interactiveObject.getScriptObject().getGVRJavascriptV8File();
-            String paramString = "var params =[";
-            for (int i = 0; i < parameters.length; i++ ) {
-                paramString += (parameters[i] + ", ");
-            }
-            paramString = paramString.substring(0, (paramString.length()-2)) + "];";
+            String paramString = BuildParamString(parameters);
 
             final GVRJavascriptV8File gvrJavascriptV8FileFinal = gvrJavascriptV8File;
             final InteractiveObject interactiveObjectFinal = interactiveObject;
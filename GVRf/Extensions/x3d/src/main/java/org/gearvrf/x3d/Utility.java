@@ -570,6 +570,7 @@ public class Utility
             mNormalIndices.clear();
             mTexcoordIndices.clear();
             mMaxYTexcoord = Float.NEGATIVE_INFINITY;
+            mVertexBufferDefine = null;
         }
 
         void defineVertexBuffer(DefinedItem item)
@@ -577,6 +578,15 @@ public class Utility
             mVertexBufferDefine = item;
         }
 
+        /*
+         * True if the Coordinate node of the mesh being
+         * parsed is DEFined and may be used elsewhere.
+         */
+        boolean hasVertexBufferDefine()
+        {
+            return mVertexBufferDefine != null;
+        }
+
         /*
          * Add a new X3D position index to use in later generating the vertex buffer.
          * These indices are the same as those in the X3D file.
@@ -0,0 +1,279 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.x3d;
+
+import org.gearvrf.GVRIndexBuffer;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRTexture;
+import org.gearvrf.GVRVertexBuffer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Shares meshes, textures and materials between X3D shapes which have the same content.
+ * <p>
+ * CAD exports often repeat the same bolt or panel thousands of times
+ * without using DEF / USE. Each one would otherwise get its own
+ * GVRMesh (and vertex and index buffers on the GPU) and its own GVRMaterial.
+ * The cache is keyed on the content of the geometry, texture or material
+ * so identical ones are only created once while the X3D file is parsed.
+ * <p>
+ * Only resources which cannot be changed later are shared.
+ * X3Dobject does not share anything which is DEFined since a ROUTE
+ * or a Script can modify it at run time.
+ */
+class X3DResourceCache {
+    private static final String[] MESH_ATTRIBUTES = { "a_position", "a_normal", "a_texcoord" };
+
+    private final HashMap<String, GVRMesh> mPrimitives = new HashMap<String, GVRMesh>();
+    private final HashMap<String, GVRTexture> mTextures = new HashMap<String, GVRTexture>();
+    private final HashMap<MeshKey, GVRMesh> mMeshes = new HashMap<MeshKey, GVRMesh>();
+    private final HashMap<MaterialKey, GVRMaterial> mMaterials = new HashMap<MaterialKey, GVRMaterial>();
+    private int mSharedMeshes = 0;
+    private int mSharedMaterials = 0;
+
+    /**
+     * Get the mesh of a Box, Cone, Cylinder or Sphere made earlier.
+     * @param key primitive type and all of its parameters
+     * @return mesh or null if there is no primitive with these parameters yet
+     */
+    GVRMesh getPrimitive(String key) {
+        GVRMesh mesh = mPrimitives.get(key);
+        if (mesh != null) {
+            ++mSharedMeshes;
+        }
+        return mesh;
+    }
+
+    void putPrimitive(String key, GVRMesh mesh) {
+        mPrimitives.put(key, mesh);
+    }
+
+    /**
+     * Get the texture made earlier for an ImageTexture.
+     * @param key file name and texture parameters
+     * @return texture or null if there is none
+     */
+    GVRTexture getTexture(String key) {
+        return mTextures.get(key);
+    }
+
+    void putTexture(String key, GVRTexture texture) {
+        mTextures.put(key, texture);
+    }
+
+    /**
+     * Make the key for the IndexedFaceSet in the mesh creator.
+     * This must be called before the mesh creator is cleared.
+     * @param meshCreator mesh creator with the positions, normals,
+     *                    texture coordinates and indices parsed
+     * @return key with the sizes and a hash of the X3D input data
+     */
+    MeshKey makeMeshKey(Utility.MeshCreatorX meshCreator) {
+        return new MeshKey(meshCreator);
+    }
+
+    /**
+     * Look for a mesh made earlier from the same X3D input data.
+     * The key does not keep the input data, so a mesh with the same
+     * key is only shared if it has the same vertices and indices as
+     * those organized from the input.
+     * @param key   key from {@link #makeMeshKey(Utility.MeshCreatorX)}
+     * @param vbuf  vertices organized from the X3D input data
+     * @param ibuf  indices organized from the X3D input data
+     * @return mesh or null if there is none
+     */
+    GVRMesh getMesh(MeshKey key, GVRVertexBuffer vbuf, GVRIndexBuffer ibuf) {
+        GVRMesh mesh = mMeshes.get(key);
+        if ((mesh == null) || !isSameMesh(mesh, vbuf, ibuf)) {
+            return null;
+        }
+        ++mSharedMeshes;
+        return mesh;
+    }
+
+    /*
+     * The first mesh made for a key stays in the cache,
+     * a different mesh with the same hash is not shared.
+     */
+    void putMesh(MeshKey key, GVRMesh mesh) {
+        if (!mMeshes.containsKey(key)) {
+            mMeshes.put(key, mesh);
+        }
+    }
+
+    private static boolean isSameMesh(GVRMesh mesh, GVRVertexBuffer vbuf, GVRIndexBuffer ibuf) {
+        GVRVertexBuffer verts = mesh.getVertexBuffer();
+        GVRIndexBuffer indices = mesh.getIndexBuffer();
+
+        if (!verts.getDescriptor().equals(vbuf.getDescriptor())
+                || (verts.getVertexCount() != vbuf.getVertexCount())
+                || (indices.getIndexCount() != ibuf.getIndexCount())) {
+            return false;
+        }
+        for (String name : MESH_ATTRIBUTES) {
+            boolean isSet = verts.hasAttribute(name);
+
+            if (isSet != vbuf.hasAttribute(name)) {
+                return false;
+            }
+            if (isSet && !Arrays.equals(verts.getFloatArray(name), vbuf.getFloatArray(name))) {
+                return false;
+            }
+        }
+        return Arrays.equals(indices.asIntArray(), ibuf.asIntArray());
+    }
+
+    /**
+     * Get the material to use for a shape.
+     * @param material  material set up for the shape
+     * @param values    all of the values set in the material
+     * @param textures  all of the textures set in the material
+     * @return material made earlier with the same values and textures,
+     *         or the input material if there is none
+     */
+    GVRMaterial shareMaterial(GVRMaterial material, float[] values, GVRTexture[] textures) {
+        MaterialKey key = new MaterialKey(values, textures);
+        GVRMaterial shared = mMaterials.get(key);
+        if (shared != null) {
+            ++mSharedMaterials;
+            return shared;
+        }
+        mMaterials.put(key, material);
+        return material;
+    }
+
+    int getSharedMeshCount() {
+        return mSharedMeshes;
+    }
+
+    int getSharedMaterialCount() {
+        return mSharedMaterials;
+    }
+
+    void clear() {
+        mPrimitives.clear();
+        mTextures.clear();
+        mMeshes.clear();
+        mMaterials.clear();
+    }
+
+    /*
+     * Key with the sizes and a 64 bit hash of the X3D positions,
+     * normals, texture coordinates and their indices. Keys of
+     * different input data are very unlikely to be equal,
+     * getMesh compares the meshes to make sure.
+     */
+    static final class MeshKey {
+        private final int[] mSizes = new int[6];
+        private long mContentHash = 0xcbf29ce484222325L;
+        private final int mHash;
+
+        private MeshKey(Utility.MeshCreatorX meshCreator) {
+            addFloats(0, meshCreator.mInputPositions);
+            addFloats(1, meshCreator.mInputNormals);
+            addFloats(2, meshCreator.mInputTexCoords);
+            addInts(3, meshCreator.mPositionIndices);
+            addInts(4, meshCreator.mNormalIndices);
+            addInts(5, meshCreator.mTexcoordIndices);
+            mHash = 31 * Arrays.hashCode(mSizes) + (int) (mContentHash ^ (mContentHash >>> 32));
+        }
+
+        private void addFloats(int i, Utility.MeshCreatorX.FloatArray data) {
+            float[] array = data.array();
+
+            mSizes[i] = data.getSize();
+            for (int j = 0; j < mSizes[i]; ++j) {
+                add(Float.floatToIntBits(array[j]));
+            }
+        }
+
+        private void addInts(int i, Utility.MeshCreatorX.IntArray data) {
+            int[] array = data.array();
+
+            mSizes[i] = data.getSize();
+            for (int j = 0; j < mSizes[i]; ++j) {
+                add(array[j]);
+            }
+        }
+
+        // FNV-1a over the four bytes of the value
+        private void add(int value) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                mContentHash = (mContentHash ^ ((value >>> shift) & 0xFF)) * 0x100000001b3L;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MeshKey)) {
+                return false;
+            }
+            MeshKey other = (MeshKey) o;
+            return (mContentHash == other.mContentHash) && Arrays.equals(mSizes, other.mSizes);
+        }
+    }
+
+    /*
+     * Textures are compared by identity, ImageTextures with the
+     * same file and parameters already share a GVRTexture.
+     */
+    private static final class MaterialKey {
+        private final float[] mValues;
+        private final GVRTexture[] mTextures;
+        private final int mHash;
+
+        MaterialKey(float[] values, GVRTexture[] textures) {
+            mValues = values;
+            mTextures = textures;
+            int hash = Arrays.hashCode(values);
+            for (GVRTexture t : textures) {
+                hash = 31 * hash + System.identityHashCode(t);
+            }
+            mHash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MaterialKey)) {
+                return false;
+            }
+            MaterialKey other = (MaterialKey) o;
+            if ((mHash != other.mHash) || !Arrays.equals(mValues, other.mValues)
+                    || (mTextures.length != other.mTextures.length)) {
+                return false;
+            }
+            for (int i = 0; i < mTextures.length; ++i) {
+                if (mTextures[i] != other.mTextures[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -40,12 +40,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -247,6 +257,21 @@ public class X3Dobject {
     private Vector<InlineObject> inlineObjects = new Vector<InlineObject>();
     private Utility utility = null;
 
+    // Inline .x3d files are read on these threads while the main file
+    // is still being parsed, then parsed in order after it.
+    // Files which do not fit in the prefetch budget are streamed
+    // when they are parsed instead.
+    private static final int MAX_INLINE_THREADS = 4;
+    private static final long MAX_INLINE_PREFETCH_BYTES = 16 * 1024 * 1024;
+    private ExecutorService inlineLoader = null;
+    private HashMap<String, InlineDocument> inlineDocuments = new HashMap<String, InlineDocument>();
+    private long inlineBytesHeld = 0; // guarded by inlineDocuments
+    private volatile int inlinesLoaded = 0;
+    private volatile boolean inlinesCancelled = false;
+
+    // Meshes, textures and materials shared by shapes with the same content
+    private X3DResourceCache resourceCache = new X3DResourceCache();
+
     /**
      * public list of <Viewpoints> since camera position can be
      * changed in real-time
@@ -327,6 +352,69 @@ public class X3Dobject {
         Text_FontParams.style = GVRTextViewSceneObject.fontStyleTypes.PLAIN;
     }
 
+    // Box, Cone, Cylinder and Sphere nodes with the same parameters share
+    // the GVRMesh of the first one. Each gets its own GVRMaterial which
+    // ShapePostParsing() may later replace with a shared one.
+    private GVRSceneObject getSharedPrimitive(String primitiveKey) {
+        GVRMesh mesh = resourceCache.getPrimitive(primitiveKey);
+        if (mesh == null) {
+            return null;
+        }
+        return new GVRSceneObject(gvrContext, mesh, new GVRMaterial(gvrContext, x3DShader));
+    }
+
+    private void putSharedPrimitive(String primitiveKey, GVRSceneObject primitive) {
+        resourceCache.putPrimitive(primitiveKey, primitive.getRenderData().getMesh());
+    }
+
+    // The material of a Shape can be shared if nothing DEFined refers to it,
+    // otherwise a ROUTE or Script could change it for all the shapes using it.
+    private boolean canShareMaterial() {
+        if (!shaderSettings.getMaterialName().isEmpty()
+                || !shaderSettings.getAppearanceName().isEmpty()
+                || !shaderSettings.getTextureTransformName().isEmpty()
+                || !shaderSettings.movieTextures.isEmpty()
+                || (shaderSettings.getMultiTexture() && !shaderSettings.getMultiTextureName().isEmpty())
+                || (meshAttachedSceneObject instanceof GVRTextViewSceneObject)) {
+            return false;
+        }
+        for (DefinedItem definedItem : mDefinedItems) {
+            GVRTexture texture = definedItem.getGVRTexture();
+            if ((texture != null) && ((texture == shaderSettings.texture)
+                    || (texture == shaderSettings.getMultiTextureGVRTexture(0))
+                    || (texture == shaderSettings.getMultiTextureGVRTexture(1)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Find a material made earlier with the same settings as this Shape.
+    // texMtx is the texture matrix if one was set in the material.
+    private GVRMaterial shareMaterial(float[] texMtx) {
+        float[] values = new float[(texMtx != null) ? 22 : 13];
+        GVRTexture[] textures;
+
+        System.arraycopy(shaderSettings.diffuseColor, 0, values, 0, 3);
+        values[3] = 1.0f - shaderSettings.getTransparency();
+        System.arraycopy(shaderSettings.specularColor, 0, values, 4, 3);
+        System.arraycopy(shaderSettings.emissiveColor, 0, values, 7, 3);
+        values[10] = shaderSettings.shininess;
+        if (shaderSettings.getMultiTexture()) {
+            values[11] = 1;
+            values[12] = shaderSettings.getMultiTextureMode().ordinal();
+            textures = new GVRTexture[] { shaderSettings.getMultiTextureGVRTexture(0),
+                                          shaderSettings.getMultiTextureGVRTexture(1) };
+        }
+        else {
+            textures = new GVRTexture[] { shaderSettings.texture };
+        }
+        if (texMtx != null) {
+            System.arraycopy(texMtx, 0, values, 13, 9);
+        }
+        return resourceCache.shareMaterial(gvrMaterial, values, textures);
+    }
+
     //Called after parsing </Shape>
     private void ShapePostParsing() {
         if (!gvrRenderingDataUSEd) {
@@ -345,6 +433,8 @@ public class X3Dobject {
                 // UNIVERSAL_LIGHTS
 
                 if (!gvrMaterialUSEd) { // if GVRMaterial is NOT set by a USE statement.
+                    boolean shareMaterial = canShareMaterial();
+                    float[] texMtx = null;
 
                     if (meshAttachedSceneObject == null) {
                         gvrMaterial = shaderSettings.material;
@@ -492,7 +582,7 @@ public class X3Dobject {
                                 shaderSettings.getTextureRotation());
 
                         shaderSettings.textureMatrix = textureTransform;
-                        float[] texMtx = new float[9];
+                        texMtx = new float[9];
                         shaderSettings.textureMatrix.get(texMtx);
                         gvrMaterial.setFloatArray("texture_matrix", texMtx);
                     }
@@ -513,6 +603,13 @@ public class X3Dobject {
                         gvrRenderData.setRenderingOrder(GVRRenderingOrder.TRANSPARENT);
                     }
 
+                    if (shareMaterial) {
+                        GVRMaterial sharedMaterial = shareMaterial(texMtx);
+                        if (sharedMaterial != gvrMaterial) {
+                            gvrMaterial = sharedMaterial;
+                            gvrRenderData.setMaterial(gvrMaterial);
+                        }
+                    }
                 } // end ! gvrMaterialUSEd
 
                 gvrTexture = null;
@@ -1157,9 +1254,20 @@ public class X3Dobject {
                             }
 
                             final String defValue = attributes.getValue("DEF");
-                            gvrTexture = new GVRTexture(gvrContext, gvrTextureParameters);
-                            GVRAssetLoader.TextureRequest request = new GVRAssetLoader.TextureRequest(assetRequest, gvrTexture, (inlineSubdirectory + filename));
-                            assetRequest.loadTexture(request);
+                            // ImageTextures which are not DEFined share the texture
+                            // of an earlier one with the same file and wrap modes
+                            String textureKey = (defValue == null) ? (inlineSubdirectory + filename + ' '
+                                    + gvrTextureParameters.getWrapSType() + ' '
+                                    + gvrTextureParameters.getWrapTType()) : null;
+                            gvrTexture = (textureKey != null) ? resourceCache.getTexture(textureKey) : null;
+                            if (gvrTexture == null) {
+                                gvrTexture = new GVRTexture(gvrContext, gvrTextureParameters);
+                                GVRAssetLoader.TextureRequest request = new GVRAssetLoader.TextureRequest(assetRequest, gvrTexture, (inlineSubdirectory + filename));
+                                assetRequest.loadTexture(request);
+                                if (textureKey != null) {
+                                    resourceCache.putTexture(textureKey, gvrTexture);
+                                }
+                            }
                             shaderSettings.setTexture(gvrTexture);
                             if (defValue != null) {
                                 DefinedItem item = new DefinedItem(defValue);
@@ -2149,10 +2257,15 @@ public class X3Dobject {
                     if (attributeValue != null) {
                         solid = utility.parseBooleanString(attributeValue);
                     }
-                    Vector3f sizeVector = new Vector3f(size[0], size[1], size[2]);
-                    GVRCubeSceneObject gvrCubeSceneObject = new GVRCubeSceneObject(
-                            gvrContext, solid, sizeVector);
-                    gvrCubeSceneObject.getRenderData().setMaterial(new GVRMaterial(gvrContext, x3DShader));
+                    String primitiveKey = "Box " + size[0] + ' ' + size[1] + ' ' + size[2] + ' ' + solid;
+                    GVRSceneObject gvrCubeSceneObject = getSharedPrimitive(primitiveKey);
+                    if (gvrCubeSceneObject == null) {
+                        Vector3f sizeVector = new Vector3f(size[0], size[1], size[2]);
+                        gvrCubeSceneObject = new GVRCubeSceneObject(
+                                gvrContext, solid, sizeVector);
+                        gvrCubeSceneObject.getRenderData().setMaterial(new GVRMaterial(gvrContext, x3DShader));
+                        putSharedPrimitive(primitiveKey, gvrCubeSceneObject);
+                    }
 
                     if ( proto != null ) {
                         if (proto.getGeometry() == null) {
@@ -2196,16 +2309,21 @@ public class X3Dobject {
                     if (attributeValue != null) {
                         solid = utility.parseBooleanString(attributeValue);
                     }
-                    GVRCylinderSceneObject.CylinderParams params = new GVRCylinderSceneObject.CylinderParams();
-                    params.BottomRadius = bottomRadius;
-                    params.TopRadius = 0;
-                    params.Height = height;
-                    params.FacingOut = solid;
-                    params.HasTopCap = false;
-                    params.HasBottomCap = bottom;
-                    params.Material = new GVRMaterial(gvrContext, x3DShader);
-                    GVRCylinderSceneObject gvrConeSceneObject = new GVRCylinderSceneObject(gvrContext,
-                            params);
+                    String primitiveKey = "Cone " + bottomRadius + ' ' + height + ' ' + bottom + ' ' + solid;
+                    GVRSceneObject gvrConeSceneObject = getSharedPrimitive(primitiveKey);
+                    if (gvrConeSceneObject == null) {
+                        GVRCylinderSceneObject.CylinderParams params = new GVRCylinderSceneObject.CylinderParams();
+                        params.BottomRadius = bottomRadius;
+                        params.TopRadius = 0;
+                        params.Height = height;
+                        params.FacingOut = solid;
+                        params.HasTopCap = false;
+                        params.HasBottomCap = bottom;
+                        params.Material = new GVRMaterial(gvrContext, x3DShader);
+                        gvrConeSceneObject = new GVRCylinderSceneObject(gvrContext,
+                                params);
+                        putSharedPrimitive(primitiveKey, gvrConeSceneObject);
+                    }
 
                     if ( proto != null ) {
                         if (proto.getGeometry() == null) {
@@ -2255,16 +2373,22 @@ public class X3Dobject {
                     if (attributeValue != null) {
                         top = utility.parseBooleanString(attributeValue);
                     }
-                    GVRCylinderSceneObject.CylinderParams params = new GVRCylinderSceneObject.CylinderParams();
-                    params.BottomRadius = radius;
-                    params.TopRadius = radius;
-                    params.Height = height;
-                    params.HasBottomCap = bottom;
-                    params.HasTopCap = top;
-                    params.FacingOut = solid;
-                    params.Material = new GVRMaterial(gvrContext, x3DShader);
-                    GVRCylinderSceneObject gvrCylinderSceneObject = new GVRCylinderSceneObject(
-                            gvrContext, params);
+                    String primitiveKey = "Cylinder " + radius + ' ' + height + ' '
+                            + bottom + ' ' + top + ' ' + solid;
+                    GVRSceneObject gvrCylinderSceneObject = getSharedPrimitive(primitiveKey);
+                    if (gvrCylinderSceneObject == null) {
+                        GVRCylinderSceneObject.CylinderParams params = new GVRCylinderSceneObject.CylinderParams();
+                        params.BottomRadius = radius;
+                        params.TopRadius = radius;
+                        params.Height = height;
+                        params.HasBottomCap = bottom;
+                        params.HasTopCap = top;
+                        params.FacingOut = solid;
+                        params.Material = new GVRMaterial(gvrContext, x3DShader);
+                        gvrCylinderSceneObject = new GVRCylinderSceneObject(
+                                gvrContext, params);
+                        putSharedPrimitive(primitiveKey, gvrCylinderSceneObject);
+                    }
                     if ( proto != null ) {
                         if (proto.getGeometry() == null) {
                             Geometry geometry = new Geometry();
@@ -2291,8 +2415,13 @@ public class X3Dobject {
                     if (attributeValue != null) {
                         solid = utility.parseBooleanString(attributeValue);
                     }
-                    GVRSphereSceneObject gvrSphereSceneObject = new GVRSphereSceneObject(
-                            gvrContext, solid, new GVRMaterial(gvrContext, x3DShader), radius);
+                    String primitiveKey = "Sphere " + radius + ' ' + solid;
+                    GVRSceneObject gvrSphereSceneObject = getSharedPrimitive(primitiveKey);
+                    if (gvrSphereSceneObject == null) {
+                        gvrSphereSceneObject = new GVRSphereSceneObject(
+                                gvrContext, solid, new GVRMaterial(gvrContext, x3DShader), radius);
+                        putSharedPrimitive(primitiveKey, gvrSphereSceneObject);
+                    }
 
                     if ( proto != null ) {
                          if (proto.getGeometry() == null) {
@@ -2607,6 +2736,7 @@ public class X3Dobject {
                         InlineObject inlineObject = new InlineObject(inlineGVRSceneObject,
                                 url);
                         inlineObjects.add(inlineObject);
+                        prefetchInline(url);
                     }
 
                     // LOD has it's own GVRSceneObject which has a
@@ -3881,20 +4011,36 @@ public class X3Dobject {
                     }
                 }
                 else {
+                    // An IndexedFaceSet with the same X3D data as an earlier
+                    // one shares its mesh unless either of them is DEFined.
+                    boolean shareMesh = reorganizeVerts && (proto == null)
+                            && (indexedSetDEFName.length() == 0)
+                            && !utility.meshCreator.hasVertexBufferDefine();
+                    X3DResourceCache.MeshKey meshKey = shareMesh ?
+                            resourceCache.makeMeshKey(utility.meshCreator) : null;
+                    GVRMesh mesh;
+
                     if (reorganizeVerts) {
                         gvrVertexBuffer = utility.meshCreator.organizeVertices(gvrIndexBuffer);
                         reorganizeVerts = false;
                     }
-                    GVRMesh mesh = new GVRMesh(gvrContext, gvrVertexBuffer.getDescriptor());
-                    if (indexedSetDEFName.length() > 0) {
-                        // Save GVRMesh since it may be reused later.
-                        DefinedItem definedItem = new DefinedItem(indexedSetDEFName);
-                        definedItem.setGVRMesh(mesh);
-                        mDefinedItems.add(definedItem); // Array list of DEFined items
+                    mesh = (meshKey != null) ?
+                            resourceCache.getMesh(meshKey, gvrVertexBuffer, gvrIndexBuffer) : null;
+                    if (mesh == null) {
+                        mesh = new GVRMesh(gvrContext, gvrVertexBuffer.getDescriptor());
+                        if (meshKey != null) {
+                            resourceCache.putMesh(meshKey, mesh);
+                        }
+                        if (indexedSetDEFName.length() > 0) {
+                            // Save GVRMesh since it may be reused later.
+                            DefinedItem definedItem = new DefinedItem(indexedSetDEFName);
+                            definedItem.setGVRMesh(mesh);
+                            mDefinedItems.add(definedItem); // Array list of DEFined items
+                        }
+                        mesh.setIndexBuffer(gvrIndexBuffer);
+                        mesh.setVertexBuffer(gvrVertexBuffer);
                     }
                     gvrRenderData.setMesh(mesh);
-                    mesh.setIndexBuffer(gvrIndexBuffer);
-                    mesh.setVertexBuffer(gvrVertexBuffer);
                 }
                 gvrVertexBuffer = null;
                 gvrIndexBuffer = null;
@@ -4305,37 +4451,30 @@ public class X3Dobject {
 
             // parse the Inline files
             if (inlineObjects.size() != 0) {
-                for (int i = 0; i < inlineObjects.size(); i++) {
+                for (int i = 0; (i < inlineObjects.size()) && !inlinesCancelled; i++) {
                     InlineObject inlineObject = inlineObjects.get(i);
                     String[] urls = inlineObject.getURL();
                     for (int j = 0; j < urls.length; j++) {
-                        GVRAndroidResource gvrAndroidResource = null;
-                        GVRResourceVolume gvrResourceVolume = null;
                         try {
-                            String filename = urls[j];
+                            String filename = getInlineFileName(urls[j]);
                             inlineSubdirectory = "";
                             int lastIndex = urls[j].lastIndexOf('/');
                             if (lastIndex != -1) {
-                                inlineSubdirectory = urls[j].substring(0, urls[j].lastIndexOf('/')+1);
-                                filename = urls[j].substring(urls[j].lastIndexOf('/')+1, urls[j].length());
+                                inlineSubdirectory = urls[j].substring(0, lastIndex + 1);
                             }
 
-                            // Get rid of any single or double quotes surrounding the filename.
-                            // this happens when the url = '"filename.x3d"' for example
-                            if ( (filename.indexOf("\"") == 0) || (filename.indexOf("\'") == 0) ) {
-                                filename = filename.substring(1, filename.length());
-                            }
-                            if ( (filename.indexOf("\"") == (filename.length()-1)) || (filename.indexOf("\'") == (filename.length()-1)) ) {
-                                filename = filename.substring(0, filename.length()-1);
-                            }
-
-                            gvrResourceVolume = new GVRResourceVolume(gvrContext, urls[j]);
-                            gvrAndroidResource = gvrResourceVolume.openResource( filename );
-
                             if ( filename.toLowerCase().endsWith(".x3d")) {
-                                inputStream = gvrAndroidResource.getStream();
+                                // read by prefetchInline when the Inline node was parsed
+                                InputStream document = openInlineDocument(urls[j]);
+                                if (document == null) {
+                                    break;
+                                }
                                 currentSceneObject = inlineObject.getInlineGVRSceneObject();
-                                saxParser.parse(inputStream, userhandler);
+                                try {
+                                    saxParser.parse(document, userhandler);
+                                } finally {
+                                    document.close();
+                                }
                             }
                             else {
                                 GVRExternalScene gvrExternalScene = new GVRExternalScene(gvrContext, urls[j], false);
@@ -4359,9 +4498,17 @@ public class X3Dobject {
                                     + exception);
                         }
                     }
+                    if (!inlinesCancelled) {
+                        ++inlinesLoaded;
+                    }
                 }
             }
 
+            // The shared resources are kept by the scene objects using them
+            Log.d(TAG, "X3D shapes shared " + resourceCache.getSharedMeshCount() + " meshes and "
+                    + resourceCache.getSharedMaterialCount() + " materials");
+            resourceCache.clear();
+
             try {
                 animationInteractivityManager.initAnimationsAndInteractivity();
                 // Need to build a JavaScript function that constructs the
@@ -4376,7 +4523,212 @@ public class X3Dobject {
         } catch (Exception exception) {
 
             Log.e(TAG, "X3D/XML Parsing Exception = " + exception);
+        } finally {
+            if (inlineLoader != null) {
+                inlineLoader.shutdownNow();
+                inlineLoader = null;
+            }
+            synchronized (inlineDocuments) {
+                inlineDocuments.clear();
+                inlineBytesHeld = 0;
+            }
         }
 
     } // end Parse
+
+    /**
+     * Get the number of Inline nodes found so far.
+     * Inline files can contain Inline nodes, so this can grow
+     * while the Inline files are parsed.
+     * @return number of Inline nodes
+     */
+    public int getInlineCount() {
+        return inlineObjects.size();
+    }
+
+    /**
+     * Get the number of Inline nodes whose files have been parsed
+     * and added to the scene graph. Together with {@link #getInlineCount()}
+     * this can be polled from another thread to show loading progress.
+     * @return number of Inline nodes loaded
+     */
+    public int getInlinesLoaded() {
+        return inlinesLoaded;
+    }
+
+    /**
+     * Stop loading Inline files. Files still being read are abandoned
+     * and Inline nodes which have not been parsed yet are left empty.
+     * An Inline file which is being parsed when this is called
+     * is completed.
+     */
+    public void cancelInlines() {
+        inlinesCancelled = true;
+        synchronized (inlineDocuments) {
+            for (InlineDocument document : inlineDocuments.values()) {
+                document.data.cancel(true);
+            }
+        }
+    }
+
+    /*
+     * Remove the path and any quotes around the file name of an Inline url.
+     * This happens when the url = '"filename.x3d"' for example
+     */
+    private static String getInlineFileName(String url) {
+        String filename = url;
+        int lastIndex = url.lastIndexOf('/');
+        if (lastIndex != -1) {
+            filename = url.substring(lastIndex + 1, url.length());
+        }
+        if ( (filename.indexOf("\"") == 0) || (filename.indexOf("\'") == 0) ) {
+            filename = filename.substring(1, filename.length());
+        }
+        if ( (filename.indexOf("\"") == (filename.length()-1)) || (filename.indexOf("\'") == (filename.length()-1)) ) {
+            filename = filename.substring(0, filename.length()-1);
+        }
+        return filename;
+    }
+
+    /*
+     * An Inline file being read by prefetchInline and the number
+     * of Inline nodes which have not parsed it yet.
+     */
+    private static class InlineDocument {
+        Future<byte[]> data;
+        int uses = 1;
+        long size = 0;
+    }
+
+    /*
+     * Start reading the .x3d files of an Inline node on the inline loader
+     * threads. Reading from the assets, the SD card or the network is
+     * the slow part of loading an Inline, the parse itself has to stay
+     * on the parsing thread since it builds the scene graph and the
+     * DEF / USE names in order. Each url is only read once even if
+     * several Inline nodes refer to it.
+     * The files read ahead are kept in memory until they are parsed,
+     * at most MAX_INLINE_PREFETCH_BYTES of them. A file which does
+     * not fit is dropped and streamed by openInlineDocument instead.
+     */
+    private void prefetchInline(String[] urls) {
+        for (final String url : urls) {
+            final String filename = getInlineFileName(url);
+            if (!filename.toLowerCase().endsWith(".x3d")) {
+                continue; // GVRExternalScene loads the other formats
+            }
+            synchronized (inlineDocuments) {
+                if (inlinesCancelled) {
+                    continue;
+                }
+                InlineDocument existing = inlineDocuments.get(url);
+                if (existing != null) {
+                    ++existing.uses;
+                    continue;
+                }
+                if (inlineLoader == null) {
+                    inlineLoader = Executors.newFixedThreadPool(Math.max(1,
+                            Math.min(MAX_INLINE_THREADS, Runtime.getRuntime().availableProcessors() - 1)));
+                }
+                final InlineDocument inline = new InlineDocument();
+                inline.data = inlineLoader.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        GVRAndroidResource gvrAndroidResource = openInlineResource(url, filename);
+                        boolean kept = false;
+                        try {
+                            InputStream stream = gvrAndroidResource.getStream();
+                            ByteArrayOutputStream document = new ByteArrayOutputStream();
+                            byte[] buffer = new byte[8192];
+                            int n;
+                            while (((n = stream.read(buffer)) != -1) && !inlinesCancelled) {
+                                synchronized (inlineDocuments) {
+                                    if (inlineBytesHeld + n > MAX_INLINE_PREFETCH_BYTES) {
+                                        return null;
+                                    }
+                                    inlineBytesHeld += n;
+                                    inline.size += n;
+                                }
+                                document.write(buffer, 0, n);
+                            }
+                            kept = true;
+                            return document.toByteArray();
+                        } finally {
+                            if (!kept) {
+                                synchronized (inlineDocuments) {
+                                    inlineBytesHeld -= inline.size;
+                                    inline.size = 0;
+                                }
+                            }
+                            gvrAndroidResource.closeStream();
+                        }
+                    }
+                });
+                inlineDocuments.put(url, inline);
+            }
+        }
+    }
+
+    private GVRAndroidResource openInlineResource(String url, String filename) throws IOException {
+        GVRResourceVolume gvrResourceVolume = new GVRResourceVolume(gvrContext, url);
+        return gvrResourceVolume.openResource(filename);
+    }
+
+    /*
+     * Get an Inline file started by prefetchInline, waiting for it
+     * to be read. A file which did not fit in the prefetch budget is
+     * opened here and streamed to the parser. The memory held for
+     * the file is released once every Inline node using it has
+     * opened it. Errors while reading the file are thrown as they
+     * would have been if the file was read here.
+     * @return stream to parse, which the caller closes,
+     *         or null if loading was cancelled
+     */
+    private InputStream openInlineDocument(String url) throws IOException, InterruptedException {
+        InlineDocument document;
+        synchronized (inlineDocuments) {
+            document = inlineDocuments.get(url);
+        }
+        if (document == null) {
+            prefetchInline(new String[] { url });
+            synchronized (inlineDocuments) {
+                document = inlineDocuments.get(url);
+            }
+            if (document == null) {
+                return null;
+            }
+        }
+        byte[] data;
+        try {
+            data = document.data.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            synchronized (inlineDocuments) {
+                if ((--document.uses == 0) && (inlineDocuments.get(url) == document)) {
+                    inlineDocuments.remove(url);
+                    inlineBytesHeld -= document.size;
+                    document.size = 0;
+                }
+            }
+        }
+        if (data != null) {
+            return new ByteArrayInputStream(data);
+        }
+        if (inlinesCancelled) {
+            return null;
+        }
+        final GVRAndroidResource gvrAndroidResource = openInlineResource(url, getInlineFileName(url));
+        return new FilterInputStream(gvrAndroidResource.getStream()) {
+            @Override
+            public void close() {
+                gvrAndroidResource.closeStream();
+            }
+        };
+    }
 }
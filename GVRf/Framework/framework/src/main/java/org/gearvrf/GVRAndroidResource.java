@@ -22,6 +22,7 @@ import android.util.TypedValue;
 
 import org.gearvrf.asynchronous.CompressedTexture;
 import org.gearvrf.asynchronous.GVRCompressedTextureLoader;
+import org.gearvrf.utility.DownloadCache;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.MarkingFileInputStream;
 
@@ -31,6 +32,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
 
 /**
  * A class to minimize overload fan-out.
@@ -237,10 +239,24 @@ public class GVRAndroidResource {
     /*
      * A {@link URLBufferedInputStream} that supports {@link
      * InputStream#mark(int)} and {@link InputStream#reset()}
+     *
+     * This is used when local caching is not allowed, so nothing is
+     * written to disk. The first {@link #MAX_BUFFER} bytes read from
+     * the network are kept in memory, so a reset() during that part,
+     * such as after a decoder reads the header, reads them back from
+     * memory. After that the buffer is dropped and a reset() opens
+     * the URL again and skips to the mark.
      */
     static class URLBufferedInputStream extends InputStream {
-        private URL url;
-        private BufferedInputStream in;
+        private static final int MAX_BUFFER = 1024 * 1024;
+
+        private final URL url;
+        private InputStream in;
+        private byte[] buffer = new byte[8192];
+        private int bufferLength = 0;
+        private final byte[] oneByte = new byte[1];
+        private long position = 0;
+        private long markPosition = 0;
 
         public URLBufferedInputStream(URL url) throws IOException {
             this.url = url;
@@ -252,26 +268,77 @@ public class GVRAndroidResource {
             return true;
         }
 
+        @Override
+        public void mark(int readlimit) {
+            markPosition = position;
+        }
+
         @Override
         public void reset() throws IOException {
-            // Since the bufferInputStream resets the offset within the internal
-            // buffer while may not resets the url's stream correctly
-            // it could easily causes OOM error when decoding it after some
-            // initial read and reset.
-            // Here we tackle it by opening a new connection to the url and
-            // restart from beginning
-            in = new BufferedInputStream(url.openStream());
+            if (buffer == null) {
+                in.close();
+                in = new BufferedInputStream(url.openStream());
+                for (long n = markPosition; n > 0; ) {
+                    long skipped = in.skip(n);
+                    if (skipped <= 0) {
+                        if (in.read() < 0) {
+                            throw new IOException("Cannot reset " + url + " to " + markPosition);
+                        }
+                        skipped = 1;
+                    }
+                    n -= skipped;
+                }
+            }
+            position = markPosition;
         }
 
         @Override
         public int read() throws IOException {
-            return in.read();
+            return (read(oneByte, 0, 1) == 1) ? (oneByte[0] & 0xFF) : -1;
         }
 
         @Override
-        public int read(byte[] buffer, int byteOffset, int byteCount)
+        public int read(byte[] dest, int byteOffset, int byteCount)
                 throws IOException {
-            return in.read(buffer, byteOffset, byteCount);
+            int count;
+
+            if ((buffer != null) && (position < bufferLength)) {
+                count = (int) Math.min(byteCount, bufferLength - position);
+                System.arraycopy(buffer, (int) position, dest, byteOffset, count);
+            } else {
+                count = in.read(dest, byteOffset, byteCount);
+                if ((count > 0) && (buffer != null)) {
+                    keep(dest, byteOffset, count);
+                }
+            }
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        /*
+         * Add what was read from the network to the buffer,
+         * or drop the buffer once it would grow too big.
+         */
+        private void keep(byte[] src, int offset, int count) {
+            int length = bufferLength + count;
+
+            if (length > MAX_BUFFER) {
+                buffer = null;
+                return;
+            }
+            if (length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(Math.max(length, buffer.length * 2), MAX_BUFFER));
+            }
+            System.arraycopy(src, offset, buffer, bufferLength, count);
+            bufferLength = length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            in.close();
         }
     }
 
@@ -387,9 +454,13 @@ public class GVRAndroidResource {
             } else {
                 Log.d(TAG,
                         "Allow local caching, download the resource to local cache");
-                File file = GVRAssetLoader.downloadFile(context,
-                        url.toString());
-                stream = new MarkingFileInputStream(file);
+                DownloadCache cache = DownloadCache.getInstance(context.getCacheDir());
+                File file = cache.acquire(url);
+                try {
+                    stream = new MarkingFileInputStream(file);
+                } finally {
+                    cache.release(file);
+                }
                 streamState = StreamStates.OPEN;
             }
             break;
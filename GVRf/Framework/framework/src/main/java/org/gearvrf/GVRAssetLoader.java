@@ -28,6 +28,7 @@ import org.gearvrf.jassimp.AiIOStream;
 import org.gearvrf.jassimp.AiIOSystem;
 import org.gearvrf.jassimp.AiTexture;
 import org.gearvrf.jassimp.Jassimp;
+import org.gearvrf.utility.DownloadCache;
 import org.gearvrf.utility.FileNameUtils;
 import org.gearvrf.utility.GVRByteArray;
 import org.gearvrf.utility.Log;
@@ -35,14 +36,11 @@ import org.gearvrf.utility.ResourceCache;
 import org.gearvrf.utility.ResourceCacheBase;
 import org.gearvrf.utility.Threads;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -52,7 +50,6 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * {@link GVRAssetLoader} provides methods for importing 3D models and textures.
@@ -81,7 +78,7 @@ public final class GVRAssetLoader {
      * called by GVRAssetLoader to get around the restriction that GVRContext
      * can only have a single listener for asset events.
      */
-    public static class AssetRequest implements IAssetEvents
+    public static class AssetRequest implements IAssetEvents, IAssetImportEvents
     {
         protected final GVRContext        mContext;
         protected final GVRScene          mScene;
@@ -368,6 +365,25 @@ public final class GVRAssetLoader {
             }
         }
 
+        /**
+         * Called when a stage of importing the model is finished.
+         * @param context GVRContext which loaded the model
+         * @param stage   name of the import stage
+         * @param seconds elapsed time for the stage
+         * @param modelFile filename of model loaded
+         */
+        @Override
+        public void onImportStage(GVRContext context, String stage, float seconds, String modelFile)
+        {
+            Log.d(TAG, "ASSET: %s stage %s took %f sec", modelFile, stage, seconds);
+            if (mUserHandler instanceof IAssetImportEvents)
+            {
+                ((IAssetImportEvents) mUserHandler).onImportStage(context, stage, seconds, modelFile);
+            }
+            mContext.getEventManager().sendEvent(mContext, IAssetImportEvents.class,
+                                                 "onImportStage", new Object[] { mContext, stage, seconds, modelFile });
+        }
+
         /**
          * Called when the model and all of its textures have loaded.
          * @param context GVRContext which loaded the texture
@@ -1818,6 +1834,7 @@ public final class GVRAssetLoader {
 
         model.setName(filePath);
         ResourceVolumeIO jassimpIO = new ResourceVolumeIO(request.getVolume());
+        long startTime = System.nanoTime();
         try
         {
             assimpScene = Jassimp.importFile(FileNameUtils.getFilename(filePath),
@@ -1836,6 +1853,7 @@ public final class GVRAssetLoader {
             request.onModelError(mContext, errmsg, filePath);
             throw new IOException(errmsg);
         }
+        request.onImportStage(mContext, "import", (System.nanoTime() - startTime) / 1e9f, filePath);
         jassimpAdapter.processScene(request, model, assimpScene);
         request.onModelLoaded(mContext, model, filePath);
         mContext.runOnTheFrameworkThread(new Runnable() {
@@ -1882,6 +1900,17 @@ public final class GVRAssetLoader {
         }
     }
 
+    /**
+     * Get a local copy of a file on the network.
+     * <p>
+     * Files are kept in a size limited cache in the application
+     * cache directory and revalidated with the server when they
+     * get old. Concurrent requests for the same URL share one download.
+     * @param context   Android context
+     * @param urlString URL of the file to download
+     * @return local file, or null if the file cannot be downloaded
+     * @see DownloadCache
+     */
     public static File downloadFile(Context context, String urlString) {
         URL url = null;
         try {
@@ -1891,54 +1920,12 @@ public final class GVRAssetLoader {
             return null;
         }
 
-        String directoryPath = context.getCacheDir().getAbsolutePath();
-        // add a uuid value for the url to prevent aliasing from files sharing
-        // same name inside one given app
-        String outputFilename = directoryPath + File.separator
-                + UUID.nameUUIDFromBytes(urlString.getBytes()).toString()
-                + FileNameUtils.getURLFilename(urlString);
-
-        Log.d(TAG, "URL filename: %s", outputFilename);
-
-        File localCopy = new File(outputFilename);
-        if (localCopy.exists()) {
-            return localCopy;
-        }
-
-        InputStream input = null;
-        // Output stream to write file
-        OutputStream output = null;
-
         try {
-            input = new BufferedInputStream(url.openStream(), 8192);
-            output = new FileOutputStream(outputFilename);
-
-            byte data[] = new byte[1024];
-            int count;
-            while ((count = input.read(data)) != -1) {
-                // writing data to file
-                output.write(data, 0, count);
-            }
+            return DownloadCache.getInstance(context.getCacheDir()).fetch(url);
         } catch (IOException e) {
-            Log.e(TAG, "Failed to download: ", urlString);
+            Log.e(TAG, "Failed to download: %s %s", urlString, e.getMessage());
             return null;
-        } finally {
-            if (input != null) {
-                try {
-                    input.close();
-                } catch (IOException e) {
-                }
-            }
-
-            if (output != null) {
-                try {
-                    output.close();
-                } catch (IOException e) {
-                }
-            }
         }
-
-        return new File(outputFilename);
     }
 
     public GVRTextureParameters getDefaultTextureParameters() {
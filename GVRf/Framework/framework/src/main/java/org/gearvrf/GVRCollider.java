@@ -31,7 +31,15 @@ import java.util.List;
  * @see GVRSceneObject#attachComponent(GVRComponent)
  */
 public class GVRCollider extends GVRComponent {
+    /**
+     * Layer mask of a collider which is in every layer.
+     * This is the default for new colliders.
+     */
+    public static final int ALL_LAYERS = -1;
+
     private float mPickDistance = 0;
+    private int mLayerMask = ALL_LAYERS;
+    private boolean mLayerMaskSet = false;
     private static final LongSparseArray<WeakReference<GVRCollider>> sColliders = new LongSparseArray<WeakReference<GVRCollider>>();
     private final static List<NativeCleanupHandler> sCleanup;
     private final static CleanupHandlerListManager sConcatenations;
@@ -128,6 +136,69 @@ public class GVRCollider extends GVRComponent {
         mPickDistance = dist;
     }
 
+    /**
+     * Gets the layers this collider is in.
+     *
+     * @return bit mask with one bit for each of the 32 layers
+     * @see #setLayerMask(int)
+     */
+    public int getLayerMask()
+    {
+        return mLayerMask;
+    }
+
+    /**
+     * Puts this collider into a set of layers.
+     *
+     * There are 32 layers, one for each bit of the mask.
+     * Picking functions and {@link GVRPicker} take a query mask
+     * and only test colliders whose layer mask shares a bit with it.
+     * Colliders which are filtered out are skipped before any
+     * intersection test is done.
+     * A collider is in all layers by default ({@link #ALL_LAYERS}).
+     * A collider with a layer mask of zero is never picked.
+     * <p>
+     * Layers 0 to 15 are the same as the collision groups of the
+     * physics extension's collision matrix so one layer definition
+     * can be used for both picking and physics.
+     *
+     * @param mask bit mask with one bit for each layer
+     * @see #setLayer(int)
+     * @see GVRPicker#setQueryMask(int)
+     */
+    public void setLayerMask(int mask)
+    {
+        mLayerMask = mask;
+        mLayerMaskSet = true;
+        NativeCollider.setLayerMask(getNative(), mask);
+    }
+
+    /**
+     * Tells whether the layers of this collider were chosen.
+     *
+     * @return true if {@link #setLayerMask(int)} or {@link #setLayer(int)}
+     *         was called, false if the collider is still in its default layers
+     */
+    public boolean isLayerMaskSet()
+    {
+        return mLayerMaskSet;
+    }
+
+    /**
+     * Puts this collider into a single layer.
+     *
+     * @param layer layer index between 0 and 31
+     * @see #setLayerMask(int)
+     */
+    public void setLayer(int layer)
+    {
+        if ((layer < 0) || (layer > 31))
+        {
+            throw new IllegalArgumentException("Layer must be a value between 0 and 31");
+        }
+        setLayerMask(1 << layer);
+    }
+
     public void setOwnerObject(GVRSceneObject owner)
     {
         GVRPicker.sFindObjectsLock.lock();
@@ -146,4 +217,6 @@ public class GVRCollider extends GVRComponent {
 class NativeCollider
 {
     static native long getComponentType();
+
+    static native void setLayerMask(long collider, int mask);
 }
\ No newline at end of file
@@ -33,6 +33,11 @@ import java.util.List;
  *
  * One can use this class to specify multiple colliders for a
  * single {@link GVRSceneObject}.
+ *
+ * The group is picked as a whole so the
+ * {@linkplain #setLayerMask(int) layer mask} of the group decides
+ * which queries consider it. The layer masks of the colliders
+ * in the group are not used for picking.
  */
 public class GVRColliderGroup extends GVRCollider implements IComponentGroup<GVRCollider>
 {
@@ -28,6 +28,7 @@ import org.gearvrf.animation.GVRAnimationEngine;
 import org.gearvrf.animation.GVRMaterialAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.debug.DebugServer;
+import org.gearvrf.debug.LiveLinkServer;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.periodic.GVRPeriodicEngine;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
@@ -167,6 +168,7 @@ public abstract class GVRContext implements IEventReceiver {
 
     // Debug server
     protected DebugServer mDebugServer;
+    protected LiveLinkServer mLiveLinkServer;
 
     protected GVRAssetLoader mImporter = new GVRAssetLoader(this);
     /*
@@ -339,6 +341,34 @@ public abstract class GVRContext implements IEventReceiver {
         return mDebugServer;
     }
 
+    /**
+     * Start a live link server on the default TCP/IP port.
+     * @see LiveLinkServer
+     */
+    public synchronized LiveLinkServer startLiveLinkServer() {
+        if (mLiveLinkServer != null) {
+            Log.e(TAG, "Live link server has already been started.");
+            return mLiveLinkServer;
+        }
+
+        mLiveLinkServer = new LiveLinkServer(this);
+        Threads.spawn(mLiveLinkServer);
+        return mLiveLinkServer;
+    }
+
+    /**
+     * Stops the current live link server and closes its connection.
+     */
+    public synchronized void stopLiveLinkServer() {
+        if (mLiveLinkServer == null) {
+            Log.e(TAG, "Live link server is not running.");
+            return;
+        }
+
+        mLiveLinkServer.shutdown();
+        mLiveLinkServer = null;
+    }
+
     /**
      * Logs an error by sending an error event to all listeners.
      * 
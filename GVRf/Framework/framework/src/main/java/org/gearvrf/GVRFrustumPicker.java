@@ -172,7 +172,7 @@ public class GVRFrustumPicker extends GVRPicker {
     public void doPick()
     {
         GVRSceneObject owner = getOwnerObject();
-        GVRPickedObject[] picked = pickVisible(mScene);
+        GVRPickedObject[] picked = pickVisible(mScene, mQueryMask);
 
         if (mProjection != null)
         {
@@ -238,9 +238,25 @@ public class GVRFrustumPicker extends GVRPicker {
      * @since 1.6.6
      */
     public static final GVRPickedObject[] pickVisible(GVRScene scene) {
+        return pickVisible(scene, GVRCollider.ALL_LAYERS);
+    }
+
+    /**
+     * Returns the list of colliders in the given layers attached
+     * to scene objects that are visible from the viewpoint of the camera.
+     *
+     * @param scene
+     *            The {@link GVRScene} with all the objects to be tested.
+     * @param mask
+     *            Bit mask of the layers to consider. Colliders whose
+     *            layer mask does not share a bit with it are skipped.
+     * @see #pickVisible(GVRScene)
+     * @see GVRCollider#setLayerMask(int)
+     */
+    public static final GVRPickedObject[] pickVisible(GVRScene scene, int mask) {
         sFindObjectsLock.lock();
         try {
-            final GVRPickedObject[] result = NativePicker.pickVisible(scene.getNative());
+            final GVRPickedObject[] result = NativePicker.pickVisible(scene.getNative(), mask);
             return result;
         } finally {
             sFindObjectsLock.unlock();
@@ -103,7 +103,22 @@ public enum GVRImportSettings {
     /**
      * Do not include textures and omit texture coordinates from meshes
      */
-    NO_TEXTURING(0x8000000);
+    NO_TEXTURING(0x8000000),
+
+    /**
+     * Remove animation keys which can be reconstructed by interpolating
+     * between their neighbors within a small tolerance.
+     * @see org.gearvrf.animation.keyframe.GVRAnimationChannel#reduceKeys(float, float, float)
+     */
+    REDUCE_KEYFRAMES(0x10000000),
+
+    /**
+     * Store normals, tangents, texture coordinates, colors and bone weights
+     * in 8 or 16 bit normalized formats when the quantization error is small enough.
+     * Positions are always kept as floats.
+     * @see org.gearvrf.utility.VertexQuantizer
+     */
+    QUANTIZE_VERTICES(0x20000000);
 
     
     private int mValue;
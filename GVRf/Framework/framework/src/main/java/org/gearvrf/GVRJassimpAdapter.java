@@ -16,6 +16,8 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import static java.lang.Math.max;
 
 import org.gearvrf.animation.GVRAnimation;
@@ -50,6 +52,8 @@ import org.gearvrf.jassimp.Jassimp;
 import org.gearvrf.jassimp.JassimpConfig;
 import org.gearvrf.shaders.GVRPBRShader;
 import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+import org.gearvrf.utility.VertexQuantizer;
 import org.joml.Matrix4f;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
@@ -68,6 +72,30 @@ class  GVRJassimpAdapter
     private static final int MAX_TEX_COORDS = JassimpConfig.MAX_NUMBER_TEXCOORDS;
     private static final int MAX_VERTEX_COLORS = JassimpConfig.MAX_NUMBER_COLORSETS;
 
+    /*
+     * Tolerances used to drop animation keys when
+     * GVRImportSettings.REDUCE_KEYFRAMES is set
+     */
+    private static final float KEY_POSITION_TOLERANCE = 0.0005f;
+    private static final float KEY_ROTATION_TOLERANCE = 0.001f;
+    private static final float KEY_SCALE_TOLERANCE = 0.0005f;
+
+    /*
+     * Largest errors allowed for vertex attributes when
+     * GVRImportSettings.QUANTIZE_VERTICES is set
+     */
+    private static final float TEXCOORD_ERROR = 1.0f / 2048.0f;
+    private static final float DIRECTION_ERROR = 1.0f / 128.0f;
+    private static final float COLOR_ERROR = 1.0f / 256.0f;
+    private boolean mReduceKeys = false;
+
+    /*
+     * Maximum number of threads converting meshes at the same time,
+     * including the thread loading the model.
+     */
+    private static final int MAX_MESH_THREADS =
+        Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
     /*
      * Maps the name of the GVRSceneObject / AiNode to the GVRBone
      * attached to the GVRSceneObject
@@ -85,6 +113,16 @@ class  GVRJassimpAdapter
      */
     private GVRMesh[] mMeshes;
 
+    /**
+     * Maps the Assimp mesh ID to the skin and blend shapes made for
+     * the corresponding GVRMesh. These are null if the mesh has none.
+     * The blend shape buffers of a mesh are shared by every scene object
+     * which instances it and must not be modified: each GVRMeshMorph
+     * copies them into its own blend shape data.
+     */
+    private GVRSkin[] mSkins;
+    private GVRVertexBuffer[][] mBlendShapes;
+
     /**
      * Maps the Assimp material ID (index of the material in AiScene)
      *  to the corresponding GVRMaterial
@@ -104,8 +142,11 @@ class  GVRJassimpAdapter
         float[] tangentsArray = null;
         float[] bitangentsArray = null;
         float[] normalsArray = null;
+        float[][] texCoordArrays = new float[MAX_TEX_COORDS][];
+        float[][] colorArrays = new float[MAX_VERTEX_COLORS][];
         boolean doTexturing = !settings.contains(GVRImportSettings.NO_TEXTURING);
         boolean doLighting = !settings.contains(GVRImportSettings.NO_LIGHTING);
+        boolean quantize = settings.contains(GVRImportSettings.QUANTIZE_VERTICES);
 
         // Vertices
         FloatBuffer verticesBuffer = aiMesh.getPositionBuffer();
@@ -122,7 +163,24 @@ class  GVRJassimpAdapter
                 FloatBuffer fbuf = aiMesh.getTexCoordBuffer(texIndex);
                 if (fbuf != null)
                 {
-                    vertexDescriptor += " float2 a_texcoord";
+                    FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 2);
+                    if (aiMesh.getNumUVComponents(texIndex) == 2)
+                    {
+                        coords.put(fbuf);
+                    }
+                    else
+                    {
+                        for (int i = 0; i < aiMesh.getNumVertices(); ++i)
+                        {
+                            float u = aiMesh.getTexCoordU(i, texIndex);
+                            float v = aiMesh.getTexCoordV(i, texIndex);
+                            coords.put(u);
+                            coords.put(v);
+                        }
+                    }
+                    texCoordArrays[texIndex] = coords.array();
+                    vertexDescriptor += " " + getVertexType(texCoordArrays[texIndex], 2, TEXCOORD_ERROR, quantize)
+                            + " a_texcoord";
                     if (texIndex > 0)
                     {
                         vertexDescriptor += texIndex;
@@ -137,10 +195,9 @@ class  GVRJassimpAdapter
             FloatBuffer normalsBuffer = aiMesh.getNormalBuffer();
             if (normalsBuffer != null)
             {
-                vertexDescriptor += " float3 a_normal";
-
                 normalsArray = new float[normalsBuffer.capacity()];
                 normalsBuffer.get(normalsArray, 0, normalsBuffer.capacity());
+                vertexDescriptor += " " + getVertexType(normalsArray, 3, DIRECTION_ERROR, quantize) + " a_normal";
             }
 
         }
@@ -156,19 +213,23 @@ class  GVRJassimpAdapter
                 {
                     name += c;
                 }
-                vertexDescriptor += " float4 " + name;
+                FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 4);
+                coords.put(fbuf);
+                colorArrays[c] = coords.array();
+                vertexDescriptor += " " + getVertexType(colorArrays[c], 4, COLOR_ERROR, quantize) + " " + name;
             }
         }
 
         if (aiMesh.hasBones())
         {
-            vertexDescriptor += " float4 a_bone_weights int4 a_bone_indices";
+            /*
+             * Normalized weights are always in [0, 1]
+             */
+            vertexDescriptor += quantize ? " unorm8x4 a_bone_weights int4 a_bone_indices"
+                                         : " float4 a_bone_weights int4 a_bone_indices";
         }
         if (doLighting && aiMesh.hasTangentsAndBitangents())
         {
-
-            vertexDescriptor += " float3 a_tangent float3 a_bitangent";
-
             FloatBuffer tangentBuffer = aiMesh.getTangentBuffer();
 
             tangentsArray = new float[tangentBuffer.capacity()];
@@ -186,6 +247,8 @@ class  GVRJassimpAdapter
                 normal.cross(tangent, bitangent);
                 bitangentsArray[i] = bitangent.x; bitangentsArray[i+1] = bitangent.y; bitangentsArray[i + 2] = bitangent.z;
             }
+            vertexDescriptor += " " + getVertexType(tangentsArray, 3, DIRECTION_ERROR, quantize) + " a_tangent";
+            vertexDescriptor += " " + getVertexType(bitangentsArray, 3, DIRECTION_ERROR, quantize) + " a_bitangent";
         }
 
         GVRMesh mesh = new GVRMesh(ctx, vertexDescriptor);
@@ -193,19 +256,15 @@ class  GVRJassimpAdapter
         // Vertex Colors
         for (int c = 0; c < MAX_VERTEX_COLORS; c++)
         {
-            FloatBuffer fbuf = aiMesh.getColorBuffer(c);
-            if (fbuf != null)
+            if (colorArrays[c] != null)
             {
-                FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 4);
-                FloatBuffer source = aiMesh.getColorBuffer(c);
                 String name = "a_color";
 
                 if (c > 0)
                 {
                     name += c;
                 }
-                coords.put(source);
-                mesh.setFloatVec(name, coords);
+                mesh.setFloatArray(name, colorArrays[c]);
             }
         }
 
@@ -233,99 +292,131 @@ class  GVRJassimpAdapter
             mesh.setFloatArray("a_bitangent", bitangentsArray);
         }
         // TexCords
-        if (doTexturing)
+        for (int texIndex = 0; texIndex < MAX_TEX_COORDS; texIndex++)
         {
-            for (int texIndex = 0; texIndex < MAX_TEX_COORDS; texIndex++)
+            if (texCoordArrays[texIndex] != null)
             {
-                FloatBuffer fbuf = aiMesh.getTexCoordBuffer(texIndex);
-                if (fbuf != null)
-                {
-                    FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 2);
-                    if (aiMesh.getNumUVComponents(texIndex) == 2)
-                    {
-                        FloatBuffer coordsSource = aiMesh.getTexCoordBuffer(texIndex);
-                        coords.put(coordsSource);
-                    }
-                    else
-                    {
-                        for (int i = 0; i < aiMesh.getNumVertices(); ++i)
-                        {
-                            float u = aiMesh.getTexCoordU(i, texIndex);
-                            float v = aiMesh.getTexCoordV(i, texIndex);
-                            coords.put(u);
-                            coords.put(v);
-                        }
-                    }
-                    mesh.setTexCoords(coords.array(), texIndex);
-                }
+                mesh.setTexCoords(texCoordArrays[texIndex], texIndex);
             }
         }
         return mesh;
     }
 
+    /*
+     * Get the descriptor type for a vertex attribute.
+     * If quantizing, the smallest type which keeps the error
+     * within the bound is chosen, otherwise it is float.
+     */
+    private String getVertexType(float[] data, int components, float maxError, boolean quantize)
+    {
+        VertexQuantizer.Format format = VertexQuantizer.Format.FLOAT;
+
+        if (quantize)
+        {
+            format = VertexQuantizer.chooseFormat(data, maxError);
+        }
+        return format.getTypeName(components);
+    }
+
     public void setMeshMorphComponent(GVRMesh mesh, GVRSceneObject sceneObject, AiMesh aiMesh)
+    {
+        attachBlendShapes(sceneObject, createBlendShapes(mesh, aiMesh));
+    }
+
+    /**
+     * Make a vertex buffer for each Assimp animation mesh
+     * with the blend shape positions, normals and tangents.
+     * This does not touch the scene graph so it may be called
+     * from any thread.
+     * @param mesh      GVRMesh the blend shapes apply to
+     * @param aiMesh    Assimp mesh with the animation meshes
+     * @return array of blend shapes, null if the mesh has none
+     */
+    private GVRVertexBuffer[] createBlendShapes(GVRMesh mesh, AiMesh aiMesh)
     {
         int nAnimationMeshes = aiMesh.getAnimationMeshes().size();
         if (nAnimationMeshes == 0)
-            return;
-        try
+            return null;
+
+        GVRVertexBuffer[] blendShapes = new GVRVertexBuffer[nAnimationMeshes];
+        int blendShapeNum = 0;
+        Vector3f tangent = new Vector3f();
+        Vector3f normal = new Vector3f();
+        Vector3f bitangent = new Vector3f();
+
+        for (AiAnimMesh animMesh : aiMesh.getAnimationMeshes())
         {
-            GVRMeshMorph morph = new GVRMeshMorph(mContext, nAnimationMeshes);
-            sceneObject.attachComponent(morph);
-            int blendShapeNum = 0;
+            GVRVertexBuffer animBuff = new GVRVertexBuffer(mesh.getVertexBuffer(),
+                                                           "float3 a_position float3 a_normal float3 a_tangent float3 a_bitangent");
+            float[] vertexArray = null;
+            float[] normalArray = null;
+            float[] tangentArray = null;
+            float[] bitangentArray = null;
 
-            for (AiAnimMesh animMesh : aiMesh.getAnimationMeshes())
+            //copy target positions to anim vertex buffer
+            FloatBuffer animPositionBuffer = animMesh.getPositionBuffer();
+            if (animPositionBuffer != null)
             {
-                GVRVertexBuffer animBuff = new GVRVertexBuffer(mesh.getVertexBuffer(),
-                                                               "float3 a_position float3 a_normal float3 a_tangent float3 a_bitangent");
-                float[] vertexArray = null;
-                float[] normalArray = null;
-                float[] tangentArray = null;
-                float[] bitangentArray = null;
-
-                //copy target positions to anim vertex buffer
-                FloatBuffer animPositionBuffer = animMesh.getPositionBuffer();
-                if (animPositionBuffer != null)
-                {
-                    vertexArray = new float[animPositionBuffer.capacity()];
-                    animPositionBuffer.get(vertexArray, 0, animPositionBuffer.capacity());
-                    animBuff.setFloatArray("a_position", vertexArray);
-                }
+                vertexArray = new float[animPositionBuffer.capacity()];
+                animPositionBuffer.get(vertexArray, 0, animPositionBuffer.capacity());
+                animBuff.setFloatArray("a_position", vertexArray);
+            }
 
-                //copy target normals to anim normal buffer
-                FloatBuffer animNormalBuffer = animMesh.getNormalBuffer();
-                if (animNormalBuffer != null)
-                {
-                    normalArray = new float[animNormalBuffer.capacity()];
-                    animNormalBuffer.get(normalArray, 0, animNormalBuffer.capacity());
-                    animBuff.setFloatArray("a_normal", normalArray);
-                }
+            //copy target normals to anim normal buffer
+            FloatBuffer animNormalBuffer = animMesh.getNormalBuffer();
+            if (animNormalBuffer != null)
+            {
+                normalArray = new float[animNormalBuffer.capacity()];
+                animNormalBuffer.get(normalArray, 0, animNormalBuffer.capacity());
+                animBuff.setFloatArray("a_normal", normalArray);
+            }
 
-                //copy target tangents to anim tangent buffer
-                FloatBuffer animTangentBuffer = animMesh.getTangentBuffer();
-                if (animTangentBuffer != null)
+            //copy target tangents to anim tangent buffer
+            FloatBuffer animTangentBuffer = animMesh.getTangentBuffer();
+            if (animTangentBuffer != null)
+            {
+                tangentArray = new float[animTangentBuffer.capacity()];
+                animTangentBuffer.get(tangentArray, 0, animTangentBuffer.capacity());
+                animBuff.setFloatArray("a_tangent", tangentArray);
+                //calculate bitangents
+                bitangentArray = new float[tangentArray.length];
+                for (int i = 0; i < tangentArray.length; i += 3)
                 {
-                    tangentArray = new float[animTangentBuffer.capacity()];
-                    animTangentBuffer.get(tangentArray, 0, animTangentBuffer.capacity());
-                    animBuff.setFloatArray("a_tangent", tangentArray);
-                    //calculate bitangents
-                    bitangentArray = new float[tangentArray.length];
-                    for (int i = 0; i < tangentArray.length; i += 3)
-                    {
-                        Vector3f tangent =
-                            new Vector3f(tangentArray[i], tangentArray[i + 1], tangentArray[i + 2]);
-                        Vector3f normal =
-                            new Vector3f(normalArray[i], normalArray[i + 1], normalArray[i + 2]);
-                        Vector3f bitangent = new Vector3f();
-                        normal.cross(tangent, bitangent);
-                        bitangentArray[i] = bitangent.x;
-                        bitangentArray[i + 1] = bitangent.y;
-                        bitangentArray[i + 2] = bitangent.z;
-                    }
-                    animBuff.setFloatArray("a_bitangent", bitangentArray);
+                    tangent.set(tangentArray[i], tangentArray[i + 1], tangentArray[i + 2]);
+                    normal.set(normalArray[i], normalArray[i + 1], normalArray[i + 2]);
+                    normal.cross(tangent, bitangent);
+                    bitangentArray[i] = bitangent.x;
+                    bitangentArray[i + 1] = bitangent.y;
+                    bitangentArray[i + 2] = bitangent.z;
                 }
-                morph.setBlendShape(blendShapeNum, animBuff);
-                blendShapeNum++;
+                animBuff.setFloatArray("a_bitangent", bitangentArray);
+            }
+            blendShapes[blendShapeNum++] = animBuff;
+        }
+        return blendShapes;
+    }
+
+    /**
+     * Attach a GVRMeshMorph component with the given blend shapes
+     * to a scene object.
+     * The blend shapes are only read, so the same array can be
+     * attached to every instance of a mesh.
+     * @param sceneObject   GVRSceneObject to get the morph
+     * @param blendShapes   blend shapes from {@link #createBlendShapes(GVRMesh, AiMesh)},
+     *                      shared and read-only
+     */
+    private void attachBlendShapes(GVRSceneObject sceneObject, GVRVertexBuffer[] blendShapes)
+    {
+        if (blendShapes == null)
+            return;
+        try
+        {
+            GVRMeshMorph morph = new GVRMeshMorph(mContext, blendShapes.length);
+            sceneObject.attachComponent(morph);
+
+            for (int i = 0; i < blendShapes.length; ++i)
+            {
+                morph.setBlendShape(i, blendShapes[i]);
             }
             morph.update();
         }
@@ -736,6 +827,14 @@ class  GVRJassimpAdapter
             }
             channel.resizeScaleKeys(nextIndex);
         }
+        if (mReduceKeys)
+        {
+            int oldSize = channel.getKeyDataSize();
+            int numRemoved = channel.reduceKeys(KEY_POSITION_TOLERANCE, KEY_ROTATION_TOLERANCE, KEY_SCALE_TOLERANCE);
+
+            Log.d(TAG, "Reduced %s by %d keys, %d -> %d bytes", channel.getNodeName(),
+                  numRemoved, oldSize, channel.getKeyDataSize());
+        }
         return channel;
     }
 
@@ -825,6 +924,7 @@ class  GVRJassimpAdapter
             case NO_ANIMATION:
             case NO_LIGHTING:
             case NO_TEXTURING:
+            case REDUCE_KEYFRAMES:
                 return null;
             default:
                 // Unsupported setting
@@ -860,14 +960,33 @@ class  GVRJassimpAdapter
             importLights(scene.getLights(), lightList);
         }
         mMeshes = new GVRMesh[scene.getNumMeshes()];
+        mSkins = new GVRSkin[scene.getNumMeshes()];
+        mBlendShapes = new GVRVertexBuffer[scene.getNumMeshes()][];
         mMaterials = new GVRMaterial[scene.getNumMaterials()];
 
+        long startTime = System.nanoTime();
         traverseGraph(model, scene.getSceneRoot(sWrapperProvider), lightList);
         makeSkeleton(model);
         if (doAnimation)
         {
-            processAnimations(model, scene, settings.contains(GVRImportSettings.START_ANIMATIONS));
+            processAnimations(model, scene, settings.contains(GVRImportSettings.START_ANIMATIONS),
+                              settings.contains(GVRImportSettings.REDUCE_KEYFRAMES));
         }
+        startTime = reportStage(request, "graph", startTime);
+
+        /*
+         * Meshes are converted on worker threads while this thread
+         * makes the materials and starts loading their textures.
+         * The meshes and materials are attached to the scene
+         * objects after both are done.
+         */
+        MeshConverter converter = new MeshConverter(request);
+        converter.start();
+        processMaterials(request);
+        reportStage(request, "materials", startTime);
+        converter.finish();
+        startTime = reportStage(request, "meshes", converter.getStartTime());
+
         for (Map.Entry<GVRSceneObject, Integer> entry : mNodeMap.entrySet())
         {
             GVRSceneObject obj = entry.getKey();
@@ -878,14 +997,17 @@ class  GVRJassimpAdapter
                 processMesh(request, obj, meshId);
             }
         }
+        reportStage(request, "commit", startTime);
         if (modelParent != null)
         {
             modelParent.addChildObject(model);
         }
     }
 
-    private GVRAnimator processAnimations(GVRSceneObject model, AiScene scene, boolean startAnimations)
+    private GVRAnimator processAnimations(GVRSceneObject model, AiScene scene,
+                                          boolean startAnimations, boolean reduceKeys)
     {
+        mReduceKeys = reduceKeys;
         List<AiAnimation> animations = scene.getAnimations();
         if (animations.size() > 0)
         {
@@ -1045,7 +1167,177 @@ class  GVRJassimpAdapter
     }
 
     /**
-     * Helper method to create a new {@link GVRSceneObject} with a given mesh
+     * Report how long an import stage took.
+     * @param request   request for the model being loaded
+     * @param stage     name of the stage
+     * @param startTime System.nanoTime() when the stage started
+     * @return current time, the start of the next stage
+     */
+    private long reportStage(GVRAssetLoader.AssetRequest request, String stage, long startTime)
+    {
+        long now = System.nanoTime();
+
+        request.onImportStage(mContext, stage, (now - startTime) / 1e9f, mFileName);
+        return now;
+    }
+
+    /**
+     * Converts the Assimp meshes referenced by the scene graph into
+     * GVRMesh objects, including skin weights and blend shapes.
+     * <p>
+     * At most {@link #MAX_MESH_THREADS} threads work on the meshes.
+     * Each one takes the next unconverted mesh until none are left.
+     * The thread calling {@link #finish()} helps out and then waits
+     * for the others, so when it returns all of the meshes are done.
+     * Errors are reported from the calling thread after all the
+     * workers finish.
+     */
+    private class MeshConverter implements Runnable
+    {
+        private final GVRAssetLoader.AssetRequest mRequest;
+        private final EnumSet<GVRImportSettings> mSettings;
+        private final int[] mMeshIds;
+        private final AtomicInteger mNextMesh = new AtomicInteger(0);
+        private final String[] mMeshErrors;
+        private final CountDownLatch mMeshesLeft;
+        private long mStartTime;
+
+        MeshConverter(GVRAssetLoader.AssetRequest request)
+        {
+            boolean[] used = new boolean[mMeshes.length];
+            int numMeshes = 0;
+
+            for (Integer meshId : mNodeMap.values())
+            {
+                if ((meshId >= 0) && !used[meshId])
+                {
+                    used[meshId] = true;
+                    ++numMeshes;
+                }
+            }
+            mMeshIds = new int[numMeshes];
+            numMeshes = 0;
+            for (int i = 0; i < used.length; ++i)
+            {
+                if (used[i])
+                {
+                    mMeshIds[numMeshes++] = i;
+                }
+            }
+            mRequest = request;
+            mSettings = request.getImportSettings();
+            mMeshErrors = new String[numMeshes];
+            mMeshesLeft = new CountDownLatch(numMeshes);
+        }
+
+        public long getStartTime() { return mStartTime; }
+
+        public void start()
+        {
+            int numThreads = Math.min(MAX_MESH_THREADS, mMeshIds.length) - 1;
+
+            mStartTime = System.nanoTime();
+            for (int i = 0; i < numThreads; ++i)
+            {
+                Threads.spawn(this);
+            }
+        }
+
+        public void finish()
+        {
+            boolean interrupted = false;
+
+            run();
+            while (true)
+            {
+                try
+                {
+                    mMeshesLeft.await();
+                    break;
+                }
+                catch (InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            for (int i = 0; i < mMeshIds.length; ++i)
+            {
+                if (mMeshErrors[i] != null)
+                {
+                    mRequest.onModelError(mContext, mMeshErrors[i], mFileName);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int i;
+
+            while ((i = mNextMesh.getAndIncrement()) < mMeshIds.length)
+            {
+                try
+                {
+                    convertMesh(mMeshIds[i]);
+                }
+                catch (RuntimeException ex)
+                {
+                    mMeshErrors[i] = "Cannot convert mesh " + mMeshIds[i] + ": " + ex.getMessage();
+                }
+                finally
+                {
+                    mMeshesLeft.countDown();
+                }
+            }
+        }
+
+        private void convertMesh(int meshId)
+        {
+            AiMesh aiMesh = mScene.getMeshes().get(meshId);
+            GVRMesh mesh = createMesh(mContext, aiMesh, mSettings);
+
+            if (aiMesh.hasBones() && (mSkeleton != null))
+            {
+                mSkins[meshId] = processBones(mesh, aiMesh.getBones());
+            }
+            mBlendShapes[meshId] = createBlendShapes(mesh, aiMesh);
+            mMeshes[meshId] = mesh;
+        }
+    }
+
+    /**
+     * Make the materials for all of the meshes referenced by the
+     * scene graph. This starts loading their textures in the background.
+     *
+     * @param assetRequest
+     *            GVRAssetRequest containing the original request to load the model
+     */
+    private void processMaterials(GVRAssetLoader.AssetRequest assetRequest)
+    {
+        for (Integer meshId : mNodeMap.values())
+        {
+            if (meshId < 0)
+            {
+                continue;
+            }
+            AiMesh aiMesh = mScene.getMeshes().get(meshId);
+            int materialId = aiMesh.getMaterialIndex();
+
+            if (mMaterials[materialId] == null)
+            {
+                AiMaterial material = mScene.getMaterials().get(materialId);
+                mMaterials[materialId] = processMaterial(assetRequest, material, aiMesh);
+            }
+        }
+    }
+
+    /**
+     * Helper method to attach a converted mesh and its material
+     * to a {@link GVRSceneObject}
      *
      * @param assetRequest
      *            GVRAssetRequest containing the original request to load the model
@@ -1065,29 +1357,22 @@ class  GVRJassimpAdapter
         AiMesh aiMesh = mScene.getMeshes().get(meshId);
         GVRMesh mesh = mMeshes[meshId];
         GVRMaterial gvrMaterial = mMaterials[aiMesh.getMaterialIndex()];
+        GVRSkin skin = mSkins[meshId];
 
         if (mesh == null)
         {
-            mesh = createMesh(mContext, aiMesh, settings);
-            mMeshes[meshId] = mesh;
-            if (aiMesh.hasBones() && (mSkeleton != null))
-            {
-                GVRSkin skin = processBones(mesh, aiMesh.getBones());
-                if (skin != null)
-                {
-                    sceneObject.attachComponent(skin);
-                }
-            }
-        }
-        else
-        {
-            Log.v("BONE", "instancing mesh %s", sceneObject.getName());
+            return;
         }
-        if (gvrMaterial == null)
+        if (skin != null)
         {
-            AiMaterial material = mScene.getMaterials().get(aiMesh.getMaterialIndex());
-            gvrMaterial = processMaterial(assetRequest, material, aiMesh);
-            mMaterials[aiMesh.getMaterialIndex()] = gvrMaterial;
+            if (skin.getOwnerObject() == null)
+            {
+                sceneObject.attachComponent(skin);
+            }
+            else
+            {
+                Log.v("BONE", "instancing mesh %s", sceneObject.getName());
+            }
         }
         GVRRenderData renderData = new GVRRenderData(mContext, gvrMaterial);
 
@@ -1097,7 +1382,7 @@ class  GVRJassimpAdapter
             renderData.disableLight();
         }
         sceneObject.attachRenderData(renderData);
-        setMeshMorphComponent(mesh, sceneObject, aiMesh);
+        attachBlendShapes(sceneObject, mBlendShapes[meshId]);
     }
 
     private static final Map<AiTextureType, String> textureMap;
@@ -26,6 +26,7 @@ import org.gearvrf.shaders.GVROESShader;
 import org.gearvrf.shaders.GVROESVerticalStereoShader;
 import org.gearvrf.shaders.GVRPhongLayeredShader;
 import org.gearvrf.shaders.GVRPhongShader;
+import org.gearvrf.shaders.GVRSDFTextShader;
 import org.gearvrf.shaders.GVRTextureShader;
 import org.gearvrf.shaders.GVRVerticalFlipShader;
 import org.gearvrf.utility.Colors;
@@ -144,6 +145,10 @@ public class GVRMaterial extends  GVRShaderData
             public static final GVRShaderId ID = new GVRShaderId(GVRColorBlendShader.class);
         }
 
+        public abstract static class SDFText {
+            public static final GVRShaderId ID = new GVRShaderId(GVRSDFTextShader.class);
+        }
+
     };
 
     /**
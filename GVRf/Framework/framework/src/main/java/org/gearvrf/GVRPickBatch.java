@@ -0,0 +1,293 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * Picks the closest object hit by each of a set of rays in one pass.
+ * <p>
+ * Picking with {@link GVRPicker#pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)}
+ * visits every collider in the scene for each ray and crosses
+ * into native code each time. When there are several controllers,
+ * sensors or line of sight checks each frame, add all of the rays to
+ * a batch and pick them together. The colliders are visited once
+ * and the results are written into arrays owned by the batch,
+ * so picking the same number of rays again does not allocate.
+ * <p>
+ * Each ray has a mask. A ray only hits colliders whose
+ * {@linkplain GVRCollider#setLayerMask(int) layer mask}
+ * shares a bit with it. Use -1 to consider all colliders.
+ * <p>
+ * The rays are in world coordinates. You can get the world
+ * ray for a picker with {@link GVRPicker#getWorldPickRay(org.joml.Vector3f, org.joml.Vector3f)}.
+ * <pre>
+ *     batch.clear();
+ *     batch.addRay(ox, oy, oz, dx, dy, dz, -1);
+ *     ...
+ *     batch.pick(scene);
+ *     for (int i = 0; i &lt; batch.getRayCount(); ++i)
+ *     {
+ *         if (batch.isHit(i)) ...
+ *     }
+ * </pre>
+ * @see GVRPicker#pickClosest(GVRScene, GVRPickBatch)
+ */
+public class GVRPickBatch
+{
+    private static final int HIT_STRIDE = GVRPickResults.HIT_STRIDE;
+    private int mRayCount = 0;
+    private int mHitCount = 0;
+    private float[] mRays;
+    private int[] mMasks;
+    private long[] mColliderPtrs;
+    private GVRCollider[] mColliders;
+    private float[] mHitData;
+    private int[] mFaceData;
+
+    /**
+     * Construct a batch which can hold a number of rays
+     * without growing.
+     * @param capacity initial number of rays
+     */
+    public GVRPickBatch(int capacity)
+    {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Remove all the rays from the batch.
+     * The storage is kept so the batch can be refilled without allocating.
+     */
+    public void clear()
+    {
+        mRayCount = 0;
+        mHitCount = 0;
+    }
+
+    /**
+     * Get the number of rays in the batch.
+     */
+    public int getRayCount() { return mRayCount; }
+
+    /**
+     * Get the number of rays which hit something in the last pick.
+     */
+    public int getHitCount() { return mHitCount; }
+
+    /**
+     * Add a ray to the batch.
+     * @param ox    X coordinate of origin
+     * @param oy    Y coordinate of origin
+     * @param oz    Z coordinate of origin
+     * @param dx    X coordinate of direction
+     * @param dy    Y coordinate of direction
+     * @param dz    Z coordinate of direction
+     * @param mask  colliders in these layers are considered, -1 for all
+     * @return index of the ray
+     */
+    public int addRay(float ox, float oy, float oz, float dx, float dy, float dz, int mask)
+    {
+        if (mRayCount >= mMasks.length)
+        {
+            allocate(mMasks.length * 2);
+        }
+        setRay(mRayCount++, ox, oy, oz, dx, dy, dz, mask);
+        return mRayCount - 1;
+    }
+
+    /**
+     * Replace a ray in the batch.
+     * @param index index of the ray to change
+     * @see #addRay(float, float, float, float, float, float, int)
+     */
+    public void setRay(int index, float ox, float oy, float oz, float dx, float dy, float dz, int mask)
+    {
+        checkIndex(index);
+        int i = index * 6;
+
+        mRays[i] = ox;
+        mRays[i + 1] = oy;
+        mRays[i + 2] = oz;
+        mRays[i + 3] = dx;
+        mRays[i + 4] = dy;
+        mRays[i + 5] = dz;
+        mMasks[index] = mask;
+    }
+
+    /**
+     * Pick the closest object for all the rays in the batch.
+     * This function is thread safe, only one thread at a time
+     * picks from a scene.
+     * @param scene scene to pick from
+     * @return number of rays which hit something
+     */
+    public int pick(GVRScene scene)
+    {
+        GVRPicker.sFindObjectsLock.lock();
+        try
+        {
+            mHitCount = NativePicker.pickClosestBatch(scene.getNative(), mRayCount,
+                                                      mRays, mMasks,
+                                                      mColliderPtrs, mHitData, mFaceData);
+        }
+        finally
+        {
+            GVRPicker.sFindObjectsLock.unlock();
+        }
+
+        /*
+         * Most rays hit the same collider as last time,
+         * only look up the ones which changed.
+         */
+        for (int i = 0; i < mRayCount; ++i)
+        {
+            long ptr = mColliderPtrs[i];
+            GVRCollider collider = mColliders[i];
+
+            if (ptr == 0)
+            {
+                mColliders[i] = null;
+            }
+            else if ((collider == null) || (collider.getNative() != ptr))
+            {
+                mColliders[i] = GVRCollider.lookup(ptr);
+            }
+        }
+        return mHitCount;
+    }
+
+    /**
+     * Determine whether a ray hit anything.
+     * @param index index of the ray
+     * @return true if the ray hit a collider
+     */
+    public boolean isHit(int index)
+    {
+        checkIndex(index);
+        return mColliders[index] != null;
+    }
+
+    /**
+     * Get the closest collider hit by a ray.
+     * @param index index of the ray
+     * @return collider hit or null if nothing was hit
+     */
+    public GVRCollider getCollider(int index)
+    {
+        checkIndex(index);
+        return mColliders[index];
+    }
+
+    /**
+     * Get the scene object which owns the collider hit by a ray.
+     * @param index index of the ray
+     * @return scene object hit or null if nothing was hit
+     */
+    public GVRSceneObject getHitObject(int index)
+    {
+        GVRCollider collider = getCollider(index);
+        return (collider != null) ? collider.getOwnerObject() : null;
+    }
+
+    /**
+     * Get the distance from the ray origin to the closest hit.
+     * @param index index of the ray
+     * @return hit distance, infinity if nothing was hit
+     */
+    public float getHitDistance(int index)
+    {
+        checkIndex(index);
+        return (mColliders[index] != null) ? mHitData[index * HIT_STRIDE] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Get the hit location in the coordinate system of the collider.
+     * @param index index of the ray
+     * @param dest  array to get X, Y, Z of the hit location
+     * @return true if the ray hit something, false if not
+     */
+    public boolean getHitLocation(int index, float[] dest)
+    {
+        checkIndex(index);
+        if (mColliders[index] == null)
+        {
+            return false;
+        }
+        System.arraycopy(mHitData, index * HIT_STRIDE + 1, dest, 0, 3);
+        return true;
+    }
+
+    /**
+     * Get the index of the face hit if the collider computes mesh coordinates.
+     * @param index index of the ray
+     * @return face index or -1
+     */
+    public int getFaceIndex(int index)
+    {
+        checkIndex(index);
+        return (mColliders[index] != null) ? mFaceData[index * 2] : -1;
+    }
+
+    /**
+     * Get the texture coordinates of the hit if the collider computes mesh coordinates.
+     * @param index index of the ray
+     * @param dest  array to get U, V
+     * @return true if the coordinates were computed, false if not
+     */
+    public boolean getTextureCoords(int index, float[] dest)
+    {
+        checkIndex(index);
+        if ((mColliders[index] == null) || (mFaceData[index * 2 + 1] == 0))
+        {
+            return false;
+        }
+        System.arraycopy(mHitData, index * HIT_STRIDE + 7, dest, 0, 2);
+        return true;
+    }
+
+    private void allocate(int size)
+    {
+        float[] rays = new float[size * 6];
+        int[] masks = new int[size];
+        long[] ptrs = new long[size];
+        GVRCollider[] colliders = new GVRCollider[size];
+        float[] hitData = new float[size * HIT_STRIDE];
+        int[] faceData = new int[size * 2];
+
+        if (mRays != null)
+        {
+            System.arraycopy(mRays, 0, rays, 0, mRayCount * 6);
+            System.arraycopy(mMasks, 0, masks, 0, mRayCount);
+            System.arraycopy(mColliderPtrs, 0, ptrs, 0, mRayCount);
+            System.arraycopy(mColliders, 0, colliders, 0, mRayCount);
+            System.arraycopy(mHitData, 0, hitData, 0, mRayCount * HIT_STRIDE);
+            System.arraycopy(mFaceData, 0, faceData, 0, mRayCount * 2);
+        }
+        mRays = rays;
+        mMasks = masks;
+        mColliderPtrs = ptrs;
+        mColliders = colliders;
+        mHitData = hitData;
+        mFaceData = faceData;
+    }
+
+    private void checkIndex(int index)
+    {
+        if ((index < 0) || (index >= mRayCount))
+        {
+            throw new IndexOutOfBoundsException("Ray index " + index + " out of range");
+        }
+    }
+}
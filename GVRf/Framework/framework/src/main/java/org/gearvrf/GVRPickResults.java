@@ -0,0 +1,468 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.GVRPicker.GVRPickedObject;
+
+/**
+ * Reusable store for the results of a pick.
+ * <p>
+ * Each {@link GVRPicker} keeps one of these and fills it every frame.
+ * The hit data is kept in primitive arrays which the native picker
+ * writes into directly, so picking the same set of objects
+ * frame after frame does not allocate. The arrays only grow
+ * when more objects are hit than ever before.
+ * <p>
+ * The results also contain the difference from the previous pick.
+ * Colliders which were not hit last time are marked as entered
+ * and the colliders which are no longer hit are kept in a separate exit list.
+ * <p>
+ * A collider keeps the same {@link GVRPickedObject} collision for as
+ * long as it is hit and the hit data in it is updated in place,
+ * so a moving cursor does not allocate either. A collision is only
+ * valid until the next pick. Copy what you need from it, for example
+ * with {@link GVRPickedObject#getHitLocation()}, to keep it longer.
+ * A collision is not changed any more once its collider is exited.
+ * <p>
+ * You can read the results by index from a {@link IPickResultsListener}
+ * which is called without allocating or using reflection.
+ * @see GVRPicker#getPickResults()
+ * @see GVRPicker#addPickResultsListener(IPickResultsListener)
+ */
+public class GVRPickResults
+{
+    /*
+     * Floats stored for each hit:
+     * distance, hit position (3), barycentric coordinates (3),
+     * texture coordinates (2), normal (3)
+     */
+    static final int HIT_STRIDE = 12;
+    private static final int DISTANCE = 0;
+    private static final int POSITION = 1;
+    private static final int BARYCENTRIC = 4;
+    private static final int TEXCOORD = 7;
+    private static final int NORMAL = 9;
+
+    private int mCount = 0;
+    private long[] mColliderPtrs;
+    private GVRCollider[] mColliders;
+    private GVRPickedObject[] mHits;
+    private boolean[] mEntered;
+    private float[] mHitData;
+    private int[] mFaceData;
+
+    private int mPrevCount = 0;
+    private long[] mPrevColliderPtrs;
+    private GVRCollider[] mPrevColliders;
+    private GVRPickedObject[] mPrevHits;
+
+    private int mExitCount = 0;
+    private GVRPickedObject[] mExited;
+
+    GVRPickResults()
+    {
+        allocate(4);
+    }
+
+    /**
+     * Get the number of colliders hit by the last pick.
+     * @return number of hits
+     */
+    public int getCount() { return mCount; }
+
+    /**
+     * Get the collider hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return collider hit
+     */
+    public GVRCollider getCollider(int index)
+    {
+        checkIndex(index);
+        return mColliders[index];
+    }
+
+    /**
+     * Get the scene object which owns the collider hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return scene object hit
+     */
+    public GVRSceneObject getHitObject(int index)
+    {
+        checkIndex(index);
+        return mColliders[index].getOwnerObject();
+    }
+
+    /**
+     * Get the distance from the origin of the pick ray to the hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return hit distance
+     */
+    public float getHitDistance(int index)
+    {
+        checkIndex(index);
+        return mHitData[index * HIT_STRIDE + DISTANCE];
+    }
+
+    /**
+     * Get the hit location in the coordinate system of the collider.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @param dest  array to get X, Y, Z of the hit location
+     */
+    public void getHitLocation(int index, float[] dest)
+    {
+        checkIndex(index);
+        System.arraycopy(mHitData, index * HIT_STRIDE + POSITION, dest, 0, 3);
+    }
+
+    /**
+     * Get the index of the face hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return face index or -1 if the collider does not
+     *         compute mesh coordinates
+     * @see GVRMeshCollider#GVRMeshCollider(GVRContext, GVRMesh, boolean)
+     */
+    public int getFaceIndex(int index)
+    {
+        checkIndex(index);
+        return mFaceData[index * 2];
+    }
+
+    /**
+     * Get the barycentric coordinates of the hit on the face hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @param dest  array to get the 3 coordinates
+     * @return true if the coordinates were computed, false if not
+     */
+    public boolean getBarycentricCoords(int index, float[] dest)
+    {
+        return getMeshData(index, BARYCENTRIC, 3, dest);
+    }
+
+    /**
+     * Get the texture coordinates of the hit on the mesh hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @param dest  array to get U, V
+     * @return true if the coordinates were computed, false if not
+     */
+    public boolean getTextureCoords(int index, float[] dest)
+    {
+        return getMeshData(index, TEXCOORD, 2, dest);
+    }
+
+    /**
+     * Get the surface normal at the hit on the mesh hit.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @param dest  array to get X, Y, Z of the normal
+     * @return true if the normal was computed, false if not
+     */
+    public boolean getNormalCoords(int index, float[] dest)
+    {
+        return getMeshData(index, NORMAL, 3, dest);
+    }
+
+    /**
+     * Determine if the collider was hit for the first time.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return true if not hit by the previous pick, false if it was
+     */
+    public boolean isEntered(int index)
+    {
+        checkIndex(index);
+        return mEntered[index];
+    }
+
+    /**
+     * Get the collision for a hit.
+     * The same collision object is returned for a collider
+     * for as long as it is hit and it is updated by every pick.
+     * @param index index of hit, 0 to {@link #getCount()} - 1
+     * @return collision for the hit
+     */
+    public GVRPickedObject getPickedObject(int index)
+    {
+        checkIndex(index);
+        return mHits[index];
+    }
+
+    /**
+     * Get the number of colliders hit by the previous pick
+     * which are not hit anymore.
+     * @return number of exited colliders
+     */
+    public int getExitCount() { return mExitCount; }
+
+    /**
+     * Get the last collision with a collider which is no longer hit.
+     * @param index index of exited collider, 0 to {@link #getExitCount()} - 1
+     * @return last collision with the exited collider
+     */
+    public GVRPickedObject getExited(int index)
+    {
+        if ((index < 0) || (index >= mExitCount))
+        {
+            throw new IndexOutOfBoundsException("Exit index " + index + " out of range");
+        }
+        return mExited[index];
+    }
+
+    /**
+     * Pick from a scene and update the results.
+     * Must be called with {@link GVRPicker#sFindObjectsLock} held.
+     */
+    void pick(GVRScene scene, GVRTransform trans,
+              float ox, float oy, float oz,
+              float dx, float dy, float dz, boolean closest, int mask)
+    {
+        long nativeTrans = (trans != null) ? trans.getNative() : 0L;
+        int n;
+
+        swap();
+        while (true)
+        {
+            n = NativePicker.pickResults(scene.getNative(), nativeTrans,
+                                         ox, oy, oz, dx, dy, dz, closest, mask,
+                                         mColliderPtrs, mHitData, mFaceData);
+            if (n <= mColliderPtrs.length)
+            {
+                break;
+            }
+            allocate(n);
+        }
+        update(n);
+    }
+
+    /*
+     * Make the current results the previous ones and
+     * forget the collisions exited last time.
+     */
+    private void swap()
+    {
+        for (int i = 0; i < mExitCount; ++i)
+        {
+            mExited[i] = null;
+        }
+        mExitCount = 0;
+
+        long[] ptrs = mPrevColliderPtrs;
+        GVRCollider[] colliders = mPrevColliders;
+        GVRPickedObject[] hits = mPrevHits;
+
+        mPrevColliderPtrs = mColliderPtrs;
+        mPrevColliders = mColliders;
+        mPrevHits = mHits;
+        mPrevCount = mCount;
+        mColliderPtrs = ptrs;
+        mColliders = colliders;
+        mHits = hits;
+        mCount = 0;
+    }
+
+    /*
+     * Resolve the colliders hit and compare against the previous pick.
+     * Colliders hit last time are found in the previous results
+     * so the collider table is only consulted for new hits.
+     */
+    private void update(int n)
+    {
+        int count = 0;
+
+        for (int i = 0; i < n; ++i)
+        {
+            long ptr = mColliderPtrs[i];
+            int prev = findPrevious(ptr);
+            GVRCollider collider = (prev >= 0) ? mPrevColliders[prev] : GVRCollider.lookup(ptr);
+            GVRPickedObject hit;
+
+            if (collider == null)
+            {
+                continue;
+            }
+            if (count != i)
+            {
+                mColliderPtrs[count] = ptr;
+                System.arraycopy(mHitData, i * HIT_STRIDE, mHitData, count * HIT_STRIDE, HIT_STRIDE);
+                mFaceData[count * 2] = mFaceData[i * 2];
+                mFaceData[count * 2 + 1] = mFaceData[i * 2 + 1];
+            }
+            if (prev >= 0)
+            {
+                /*
+                 * The collision is updated in place so a moving cursor
+                 * does not allocate. Its touch state carries over
+                 * so the picker can tell when touching starts and ends.
+                 */
+                hit = mPrevHits[prev];
+                mPrevHits[prev] = null;
+                mEntered[count] = false;
+                setHit(hit, count);
+            }
+            else
+            {
+                hit = makeHit(collider, count);
+                mEntered[count] = true;
+            }
+            mColliders[count] = collider;
+            mHits[count] = hit;
+            ++count;
+        }
+        mCount = count;
+
+        /*
+         * Anything left in the previous results was exited
+         */
+        for (int i = 0; i < mPrevCount; ++i)
+        {
+            if (mPrevHits[i] != null)
+            {
+                mExited[mExitCount++] = mPrevHits[i];
+                mPrevHits[i] = null;
+            }
+            mPrevColliders[i] = null;
+        }
+        for (int i = count; i < n; ++i)
+        {
+            mColliders[i] = null;
+            mHits[i] = null;
+        }
+    }
+
+    private int findPrevious(long ptr)
+    {
+        for (int i = 0; i < mPrevCount; ++i)
+        {
+            if ((mPrevColliderPtrs[i] == ptr) && (mPrevHits[i] != null))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Make a new collision from the hit data at an index.
+     */
+    private GVRPickedObject makeHit(GVRCollider collider, int index)
+    {
+        int ofs = index * HIT_STRIDE;
+        float[] location = new float[3];
+
+        System.arraycopy(mHitData, ofs + POSITION, location, 0, 3);
+        if (mFaceData[index * 2 + 1] == 0)
+        {
+            return new GVRPickedObject(collider, location, mHitData[ofs + DISTANCE],
+                                       mFaceData[index * 2], null, null, null);
+        }
+        float[] barycentric = new float[3];
+        float[] texCoords = new float[2];
+        float[] normal = new float[3];
+
+        System.arraycopy(mHitData, ofs + BARYCENTRIC, barycentric, 0, 3);
+        System.arraycopy(mHitData, ofs + TEXCOORD, texCoords, 0, 2);
+        System.arraycopy(mHitData, ofs + NORMAL, normal, 0, 3);
+        return new GVRPickedObject(collider, location, mHitData[ofs + DISTANCE],
+                                   mFaceData[index * 2], barycentric, texCoords, normal);
+    }
+
+    /*
+     * Copy the hit data at an index into an existing collision.
+     * The coordinate arrays are only made when a collider
+     * starts computing mesh coordinates.
+     */
+    private void setHit(GVRPickedObject hit, int index)
+    {
+        int ofs = index * HIT_STRIDE;
+
+        hit.hitDistance = mHitData[ofs + DISTANCE];
+        hit.faceIndex = mFaceData[index * 2];
+        System.arraycopy(mHitData, ofs + POSITION, hit.hitLocation, 0, 3);
+        if (mFaceData[index * 2 + 1] == 0)
+        {
+            hit.barycentricCoords = null;
+            hit.textureCoords = null;
+            hit.normalCoords = null;
+            return;
+        }
+        if (hit.barycentricCoords == null)
+        {
+            hit.barycentricCoords = new float[3];
+            hit.textureCoords = new float[2];
+            hit.normalCoords = new float[3];
+        }
+        System.arraycopy(mHitData, ofs + BARYCENTRIC, hit.barycentricCoords, 0, 3);
+        System.arraycopy(mHitData, ofs + TEXCOORD, hit.textureCoords, 0, 2);
+        System.arraycopy(mHitData, ofs + NORMAL, hit.normalCoords, 0, 3);
+    }
+
+    /*
+     * Grow the arrays to hold at least n hits.
+     * The previous results and the exit list must be able
+     * to hold as many hits as the current ones.
+     */
+    private void allocate(int n)
+    {
+        int size = (mColliderPtrs == null) ? n : Math.max(n, mColliderPtrs.length * 2);
+
+        mColliderPtrs = grow(mColliderPtrs, size);
+        mPrevColliderPtrs = grow(mPrevColliderPtrs, size);
+        mColliders = grow(mColliders, new GVRCollider[size]);
+        mPrevColliders = grow(mPrevColliders, new GVRCollider[size]);
+        mHits = grow(mHits, new GVRPickedObject[size]);
+        mPrevHits = grow(mPrevHits, new GVRPickedObject[size]);
+        mExited = grow(mExited, new GVRPickedObject[size]);
+        mEntered = new boolean[size];
+        mHitData = new float[size * HIT_STRIDE];
+        mFaceData = new int[size * 2];
+    }
+
+    private static long[] grow(long[] src, int size)
+    {
+        long[] dst = new long[size];
+
+        if (src != null)
+        {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        }
+        return dst;
+    }
+
+    private static <T> T[] grow(T[] src, T[] dst)
+    {
+        if (src != null)
+        {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        }
+        return dst;
+    }
+
+    private boolean getMeshData(int index, int offset, int size, float[] dest)
+    {
+        checkIndex(index);
+        if (mFaceData[index * 2 + 1] == 0)
+        {
+            return false;
+        }
+        System.arraycopy(mHitData, index * HIT_STRIDE + offset, dest, 0, size);
+        return true;
+    }
+
+    private void checkIndex(int index)
+    {
+        if ((index < 0) || (index >= mCount))
+        {
+            throw new IndexOutOfBoundsException("Hit index " + index + " out of range");
+        }
+    }
+}
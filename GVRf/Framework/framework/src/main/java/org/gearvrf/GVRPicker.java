@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.gearvrf.debug.GVRMetrics;
 import org.gearvrf.io.GVRCursorController;
 import org.gearvrf.utility.Log;
 import org.joml.Matrix4f;
@@ -66,7 +67,17 @@ import org.joml.Vector3f;
  * Each cursor controller has an internal picker that generates pick events
  * from that cursor. When a cursor is used, the pick events contain touch
  * information. You can register as a listener for pick events from a specific cursor.
+ * <p>
+ * The picker reuses its {@link GVRPickResults} from one frame to the next.
+ * The {@link GVRPickedObject} collision for a collider is updated in place
+ * while the collider stays hit, so it is only valid until the next pick.
+ * A {@link IPickResultsListener} receives the results without the
+ * reflection and argument arrays the pick events need. A listener
+ * added to the event receiver of the picker which implements
+ * {@link IPickResultsListener} gets the results that way instead of
+ * the pick and touch events from the picker.
  * @see IPickEvents
+ * @see IPickResultsListener
  * @see GVRSceneObject#attachCollider(GVRCollider)
  * @see GVRCollider
  * @see GVRCollider#setEnable(boolean)
@@ -85,9 +96,12 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     protected GVRCursorController mController = null;
     protected GVRPickedObject[] mPicked = null;
     protected boolean mPickClosest = true;
+    protected int mQueryMask = GVRCollider.ALL_LAYERS;
     protected GVREventReceiver mListeners = null;
     protected Lock mPickEventLock = new ReentrantLock();
     protected boolean mPickListChanged = false;
+    protected final GVRPickResults mResults = new GVRPickResults();
+    private IPickResultsListener[] mResultListeners = new IPickResultsListener[0];
     protected EnumSet<EventOptions> mEventOptions = EnumSet.of(
             EventOptions.SEND_PICK_EVENTS,
             EventOptions.SEND_TO_SCENE,
@@ -455,6 +469,63 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      */
     public final GVREventReceiver getEventReceiver() { return mListeners; }
 
+    /**
+     * Get the results of the last pick.
+     * <p>
+     * The results are updated in place every frame so they should
+     * only be examined from the pick event or results listeners.
+     * @return pick results, empty if nothing has been picked yet.
+     * @see IPickResultsListener
+     */
+    public final GVRPickResults getPickResults() { return mResults; }
+
+    /**
+     * Add a listener which is called with the results after every pick.
+     * The listener is called directly by the picker on the thread
+     * doing the pick, before the pick events are sent.
+     * @param listener listener to add
+     * @see #removePickResultsListener(IPickResultsListener)
+     */
+    public void addPickResultsListener(IPickResultsListener listener)
+    {
+        synchronized (mResults)
+        {
+            for (IPickResultsListener l : mResultListeners)
+            {
+                if (l == listener)
+                {
+                    return;
+                }
+            }
+            IPickResultsListener[] listeners = Arrays.copyOf(mResultListeners, mResultListeners.length + 1);
+            listeners[mResultListeners.length] = listener;
+            mResultListeners = listeners;
+        }
+    }
+
+    /**
+     * Remove a listener added by {@link #addPickResultsListener(IPickResultsListener)}.
+     * @param listener listener to remove
+     */
+    public void removePickResultsListener(IPickResultsListener listener)
+    {
+        synchronized (mResults)
+        {
+            int n = mResultListeners.length;
+            for (int i = 0; i < n; ++i)
+            {
+                if (mResultListeners[i] == listener)
+                {
+                    IPickResultsListener[] listeners = new IPickResultsListener[n - 1];
+                    System.arraycopy(mResultListeners, 0, listeners, 0, i);
+                    System.arraycopy(mResultListeners, i + 1, listeners, i, n - i - 1);
+                    mResultListeners = listeners;
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Query if picker is picking closest object or all objects
      * intersected by the pick ray.
@@ -479,6 +550,31 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         mPickClosest = flag;
     }
 
+    /**
+     * Get the layers this picker considers.
+     * @return query mask, {@link GVRCollider#ALL_LAYERS} by default
+     * @see #setQueryMask(int)
+     */
+    public int getQueryMask() { return mQueryMask; }
+
+    /**
+     * Restrict picking to colliders in some layers.
+     * Only colliders whose {@linkplain GVRCollider#setLayerMask(int) layer mask}
+     * shares a bit with the query mask are picked.
+     * The others are skipped in native code before any
+     * intersection test so they cost almost nothing.
+     * This lets different cursors, UI and gameplay rays see
+     * different sets of objects without enabling and disabling
+     * picking on each object.
+     * @param mask bit mask with one bit for each layer to pick,
+     *             {@link GVRCollider#ALL_LAYERS} to pick everything.
+     * @see GVRCollider#setLayerMask(int)
+     */
+    public void setQueryMask(int mask)
+    {
+        mQueryMask = mask;
+    }
+
     /**
      * Called every frame if the picker is enabled
      * to generate pick events.
@@ -511,31 +607,27 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      */
     protected void doPick()
     {
+        long startTime = GVRMetrics.isEnabled() ? System.nanoTime() : 0;
         GVRSceneObject owner = getOwnerObject();
         GVRTransform trans = (owner != null) ? owner.getTransform() : null;
-        GVRPickedObject[] picked;
 
-        if (mPickClosest)
+        sFindObjectsLock.lock();
+        try
         {
-            GVRPickedObject closest = pickClosest(mScene, trans,
-                mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
-                mRayDirection.x, mRayDirection.y, mRayDirection.z);
-            if (closest != null)
-            {
-                picked = new GVRPickedObject[] { closest };
-            }
-            else
-            {
-                picked = new GVRPickedObject[0];
-            }
+            mResults.pick(mScene, trans,
+                          mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                          mRayDirection.x, mRayDirection.y, mRayDirection.z,
+                          mPickClosest, mQueryMask);
         }
-        else
+        finally
         {
-            picked = pickObjects(mScene, trans,
-                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
-                    mRayDirection.x, mRayDirection.y, mRayDirection.z);
+            sFindObjectsLock.unlock();
         }
-        generatePickEvents(picked);
+        if (startTime != 0)
+        {
+            GVRMetrics.get().pickTime.record((System.nanoTime() - startTime) / 1000);
+        }
+        generatePickEvents(mResults);
         mMotionEvent = null;
     }
 
@@ -561,6 +653,101 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         mPickEventLock.unlock();
     }
 
+    /**
+     * Generate pick and touch events from the results of a pick.
+     * The results already know which colliders were entered
+     * and exited, so the collisions are not searched and
+     * the collision for a collider is the same every frame.
+     * @param results results from the last pick
+     */
+    protected void generatePickEvents(GVRPickResults results)
+    {
+        IPickResultsListener[] listeners = mResultListeners;
+        int count = results.getCount();
+
+        for (IPickResultsListener l : listeners)
+        {
+            l.onPickResults(this, results);
+        }
+        List<IEvents> eventListeners = mListeners.getListeners();
+        for (int i = 0; i < eventListeners.size(); ++i)
+        {
+            IEvents l = eventListeners.get(i);
+            if ((l instanceof IPickResultsListener) && !contains(listeners, l))
+            {
+                ((IPickResultsListener) l).onPickResults(this, results);
+            }
+        }
+        for (int i = 0; i < results.getExitCount(); ++i)
+        {
+            GVRPickedObject collision = results.getExited(i);
+
+            collision.touched = mTouched;
+            collision.motionEvent = mMotionEvent;
+            mPickListChanged = true;
+            propagateOnExit(collision.hitCollider.getOwnerObject(), collision);
+        }
+        for (int i = 0; i < count; ++i)
+        {
+            GVRPickedObject collision = results.getPickedObject(i);
+            boolean wasTouched = collision.touched;
+
+            collision.picker = this;
+            collision.touched = mTouched;
+            collision.motionEvent = mMotionEvent;
+            if (results.isEntered(i))
+            {
+                mPickListChanged = true;
+                propagateOnEnter(collision);
+                if (mTouched)
+                {
+                    propagateOnTouch(collision);
+                }
+            }
+            else
+            {
+                propagateOnInside(collision);
+                if (wasTouched && !mTouched)
+                {
+                    mPickListChanged = true;
+                    propagateOnNoTouch(collision);
+                }
+                else if (!wasTouched && mTouched)
+                {
+                    mPickListChanged = true;
+                    propagateOnTouch(collision);
+                }
+            }
+        }
+        if (count > 0)
+        {
+            /*
+             * The pick list is only reallocated when the number of hits changes
+             */
+            GVRPickedObject[] picked = mPicked;
+            if ((picked == null) || (picked.length != count))
+            {
+                picked = new GVRPickedObject[count];
+            }
+            for (int i = 0; i < count; ++i)
+            {
+                picked[i] = results.getPickedObject(i);
+            }
+            mPicked = picked;
+            propagateOnPick(this);
+        }
+        else
+        {
+            mPicked = null;
+            propagateOnNoPick(this);
+            if (mMotionEvent != null)
+            {
+                propagateOnMotionOutside(mMotionEvent);
+            }
+        }
+        mPickListChanged = false;
+    }
+
     protected void generatePickEvents(GVRPickedObject[] picked)
     {
     /*
@@ -659,6 +846,64 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         return System.identityHashCode(this);
     }
 
+    /**
+     * Determine whether the picker or any listener attached to it
+     * needs events from one of the pick or touch interfaces.
+     * Listeners which implement {@link IPickResultsListener}
+     * get the results instead, so nothing is sent to them.
+     * @param eventsClass {@link IPickEvents} or {@link ITouchEvents}
+     * @return true if the events should be sent to the listeners
+     */
+    protected boolean hasEventListeners(Class<? extends IEvents> eventsClass)
+    {
+        if (eventsClass.isInstance(this))
+        {
+            return true;
+        }
+        List<IEvents> listeners = mListeners.getListeners();
+        for (int i = 0; i < listeners.size(); ++i)
+        {
+            IEvents l = listeners.get(i);
+            if (eventsClass.isInstance(l) && !(l instanceof IPickResultsListener))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(IPickResultsListener[] listeners, IEvents listener)
+    {
+        for (IPickResultsListener l : listeners)
+        {
+            if (l == listener)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Send an event to the picker and to the listeners attached to it
+     * which do not implement {@link IPickResultsListener}.
+     */
+    private void sendToListeners(Class<? extends IEvents> eventsClass, String eventName, Object... params)
+    {
+        GVREventManager eventManager = getGVRContext().getEventManager();
+        List<IEvents> listeners = mListeners.getListeners();
+
+        eventManager.sendEventWithMask(GVREventManager.SEND_MASK_OBJECT, this, eventsClass, eventName, params);
+        for (int i = 0; i < listeners.size(); ++i)
+        {
+            IEvents l = listeners.get(i);
+            if (eventsClass.isInstance(l) && !(l instanceof IPickResultsListener))
+            {
+                eventManager.sendEventWithMask(GVREventManager.SEND_MASK_OBJECT, l, eventsClass, eventName, params);
+            }
+        }
+    }
+
     /**
      * Propagate onNoPick events to listeners
      * @param picker GVRPicker which generated the event
@@ -667,9 +912,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(IPickEvents.class))
             {
-                getGVRContext().getEventManager().sendEvent(this, IPickEvents.class, "onNoPick", picker);
+                sendToListeners(IPickEvents.class, "onNoPick", picker);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
@@ -686,9 +931,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(IPickEvents.class))
             {
-                getGVRContext().getEventManager().sendEvent(this, IPickEvents.class, "onPick", picker);
+                sendToListeners(IPickEvents.class, "onPick", picker);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
@@ -705,9 +950,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     {
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                getGVRContext().getEventManager().sendEvent(this, ITouchEvents.class, "onMotionOutside", this, event);
+                sendToListeners(ITouchEvents.class, "onMotionOutside", this, event);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_SCENE) && (mScene != null))
             {
@@ -726,9 +971,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onEnter", hitObject, hit);
+                sendToListeners(ITouchEvents.class, "onEnter", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -741,9 +986,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(IPickEvents.class))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onEnter", hitObject, hit);
+                sendToListeners(IPickEvents.class, "onEnter", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -766,9 +1011,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         {
             GVREventManager eventManager = getGVRContext().getEventManager();
             GVRSceneObject hitObject = hit.getHitObject();
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onTouchStart", hitObject, hit);
+                sendToListeners(ITouchEvents.class, "onTouchStart", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -791,9 +1036,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         {
             GVREventManager eventManager = getGVRContext().getEventManager();
             GVRSceneObject hitObject = hit.getHitObject();
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onTouchEnd", hitObject, hit);
+                sendToListeners(ITouchEvents.class, "onTouchEnd", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -816,9 +1061,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onInside", hitObject, hit);
+                sendToListeners(ITouchEvents.class, "onInside", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -831,9 +1076,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(IPickEvents.class))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onInside", hitObject, hit);
+                sendToListeners(IPickEvents.class, "onInside", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -855,9 +1100,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         GVREventManager eventManager = getGVRContext().getEventManager();
         if (mEventOptions.contains(EventOptions.SEND_TOUCH_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(ITouchEvents.class))
             {
-                eventManager.sendEvent(this, ITouchEvents.class, "onExit", hitObject, hit);
+                sendToListeners(ITouchEvents.class, "onExit", hitObject, hit);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -870,9 +1115,9 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         }
         if (mEventOptions.contains(EventOptions.SEND_PICK_EVENTS))
         {
-            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS))
+            if (mEventOptions.contains(EventOptions.SEND_TO_LISTENERS) && hasEventListeners(IPickEvents.class))
             {
-                eventManager.sendEvent(this, IPickEvents.class, "onExit", hitObject);
+                sendToListeners(IPickEvents.class, "onExit", hitObject);
             }
             if (mEventOptions.contains(EventOptions.SEND_TO_HIT_OBJECT))
             {
@@ -1066,7 +1311,8 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
                                                       float dy, float dz) {
         sFindObjectsLock.lock();
         try {
-            final GVRPickedObject[] result = NativePicker.pickObjects(scene.getNative(), 0L, ox, oy, oz, dx, dy, dz);
+            final GVRPickedObject[] result = NativePicker.pickObjects(scene.getNative(), 0L, ox, oy, oz, dx, dy, dz,
+                                                                      GVRCollider.ALL_LAYERS);
             return result;
         } finally {
             sFindObjectsLock.unlock();
@@ -1131,6 +1377,22 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     public static final GVRPickedObject pickClosest(GVRScene scene, GVRTransform trans,
                                                     float ox, float oy, float oz,
                                                     float dx, float dy, float dz)
+    {
+        return pickClosest(scene, trans, ox, oy, oz, dx, dy, dz, GVRCollider.ALL_LAYERS);
+    }
+
+    /**
+     * Casts a ray into the scene graph, and returns the closest object
+     * in the given layers.
+     * <p/>
+     * Only colliders whose {@linkplain GVRCollider#setLayerMask(int) layer mask}
+     * shares a bit with the query mask are tested.
+     * @param mask  bit mask of the layers to pick from
+     * @see #pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public static final GVRPickedObject pickClosest(GVRScene scene, GVRTransform trans,
+                                                    float ox, float oy, float oz,
+                                                    float dx, float dy, float dz, int mask)
     {
         sFindObjectsLock.lock();
         try {
@@ -1138,13 +1400,36 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             final GVRPickedObject result =
                     NativePicker.pickClosest(scene.getNative(),
                             nativeTrans,
-                            ox, oy, oz, dx, dy, dz);
+                            ox, oy, oz, dx, dy, dz, mask);
             return result;
         } finally {
             sFindObjectsLock.unlock();
         }
     }
 
+    /**
+     * Casts several rays into the scene graph and finds the
+     * closest object hit by each one.
+     * <p/>
+     * The rays and their layer masks are supplied in the batch,
+     * in world coordinates. All of the rays are tested in a single
+     * pass over the colliders in the scene, which is much cheaper
+     * than picking with each ray separately when there are
+     * several controllers or sensors. The results are stored
+     * in the batch.
+     * <p/>
+     * This method is thread safe, only one thread at a time
+     * picks from a scene.
+     * @param scene The {@link GVRScene} with all the objects to be tested.
+     * @param batch rays to pick with, gets the closest hit for each ray.
+     * @return number of rays which hit something
+     * @see GVRPickBatch
+     */
+    public static final int pickClosest(GVRScene scene, GVRPickBatch batch)
+    {
+        return batch.pick(scene);
+    }
+
     /**
      * Casts a ray into the scene graph, and returns the objects it intersects.
      * <p/>
@@ -1201,16 +1486,67 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      */
     public static final GVRPickedObject[] pickObjects(GVRScene scene, GVRTransform trans, float ox, float oy, float oz, float dx,
                                                       float dy, float dz) {
+        return pickObjects(scene, trans, ox, oy, oz, dx, dy, dz, GVRCollider.ALL_LAYERS);
+    }
+
+    /**
+     * Casts a ray into the scene graph, and returns the objects it intersects
+     * in the given layers.
+     * <p/>
+     * Only colliders whose {@linkplain GVRCollider#setLayerMask(int) layer mask}
+     * shares a bit with the query mask are tested.
+     * @param mask  bit mask of the layers to pick from
+     * @see #pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public static final GVRPickedObject[] pickObjects(GVRScene scene, GVRTransform trans, float ox, float oy, float oz, float dx,
+                                                      float dy, float dz, int mask) {
         sFindObjectsLock.lock();
         try {
             long nativeTrans = (trans != null) ? trans.getNative() : 0L;
-            final GVRPickedObject[] result = NativePicker.pickObjects(scene.getNative(), nativeTrans, ox, oy, oz, dx, dy, dz);
+            final GVRPickedObject[] result = NativePicker.pickObjects(scene.getNative(), nativeTrans, ox, oy, oz, dx, dy, dz, mask);
             return result;
         } finally {
             sFindObjectsLock.unlock();
         }
     }
 
+    /**
+     * Turn the per-layer pick statistics on or off.
+     * They are off by default. When they are on every collider
+     * tested during picking is counted in each of its layers.
+     * @param enable true to count, false to stop counting
+     * @see #getLayerStatistics(GVRScene, int[], int[], int[])
+     */
+    public static final void setLayerStatisticsEnabled(boolean enable)
+    {
+        NativePicker.enableLayerStats(enable);
+    }
+
+    /**
+     * Get picking statistics for each of the 32 collider layers
+     * and reset the counters.
+     * Each array which is not null must have room for 32 entries,
+     * entry N is for the layer with bit (1 << N).
+     * @param scene     scene whose colliders are counted
+     * @param colliders gets the number of enabled colliders in each layer
+     * @param tested    gets the number of ray tests against colliders in each
+     *                  layer since the last call
+     * @param hits      gets the number of those tests which hit
+     * @see #setLayerStatisticsEnabled(boolean)
+     */
+    public static final void getLayerStatistics(GVRScene scene, int[] colliders, int[] tested, int[] hits)
+    {
+        sFindObjectsLock.lock();
+        try
+        {
+            NativePicker.getLayerStats(scene.getNative(), colliders, tested, hits);
+        }
+        finally
+        {
+            sFindObjectsLock.unlock();
+        }
+    }
+
     /**
      * Internal utility to help JNI add hit objects to the pick list.
      */
@@ -1251,6 +1587,11 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
      * <p/>
      * When a pick request is performed, each collision is
      * described as a GVRPickedObject.
+     * <p/>
+     * The collisions passed to pick and touch events belong to the
+     * picker, which updates them in place while their collider stays hit.
+     * They are only valid until the next pick. The getters return
+     * copies of the coordinates which can be kept.
      *
      * @since 1.6.6
      * @see GVRPicker#pickObjects(GVRScene, float, float, float, float, float, float)
@@ -1260,14 +1601,14 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         public final GVRCollider hitCollider;
         public GVRPicker picker;
         public final float[] hitLocation;
-        public final float hitDistance;
+        public float hitDistance;
         public boolean touched;
         public MotionEvent motionEvent;
         public int collidableIndex;
-        public final int faceIndex;
-        public final float[] barycentricCoords;
-        public final float[] textureCoords;
-        public final float[] normalCoords;
+        public int faceIndex;
+        public float[] barycentricCoords;
+        public float[] textureCoords;
+        public float[] normalCoords;
 
         /**
          * Creates a new instance of {@link GVRPickedObject}.
@@ -1439,17 +1780,29 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
 final class NativePicker {
     static native GVRPicker.GVRPickedObject pickClosest(long scene, long transform,
                                                         float ox, float oy, float oz,
-                                                        float dx, float dy, float dz);
+                                                        float dx, float dy, float dz, int mask);
 
     static native GVRPicker.GVRPickedObject[] pickObjects(long scene, long transform, float ox, float oy, float oz,
-                                                          float dx, float dy, float dz);
+                                                          float dx, float dy, float dz, int mask);
 
     static native GVRPicker.GVRPickedObject[] pickBounds(long scene, List<GVRSceneObject> collidables);
 
     static native GVRPicker.GVRPickedObject pickSceneObject(long sceneObject, float ox, float oy, float oz,
                                                             float dx, float dy, float dz);
 
-    static native GVRPicker.GVRPickedObject[] pickVisible(long scene);
+    static native GVRPicker.GVRPickedObject[] pickVisible(long scene, int mask);
+
+    static native int pickResults(long scene, long transform,
+                                  float ox, float oy, float oz,
+                                  float dx, float dy, float dz, boolean closest, int mask,
+                                  long[] colliders, float[] hitData, int[] faceData);
+
+    static native int pickClosestBatch(long scene, int numRays, float[] rays, int[] masks,
+                                       long[] colliders, float[] hitData, int[] faceData);
+
+    static native void enableLayerStats(boolean enable);
+
+    static native void getLayerStats(long scene, int[] colliders, int[] tested, int[] hits);
 
     static native boolean pickSceneObjectAgainstBoundingBox(long sceneObject,
                                                             float ox, float oy, float oz, float dx, float dy, float dz, ByteBuffer readbackBuffer);
@@ -20,6 +20,7 @@ import android.os.Environment;
 import org.gearvrf.GVRCameraRig.GVRCameraRigType;
 import org.gearvrf.GVRRenderData.GVRRenderMaskBit;
 import org.gearvrf.debug.GVRConsole;
+import org.gearvrf.debug.GVRMetrics;
 import org.gearvrf.script.GVRScriptBehaviorBase;
 import org.gearvrf.script.IScriptable;
 import org.gearvrf.utility.Log;
@@ -365,10 +366,17 @@ public class GVRScene extends GVRHybridObject implements PrettyPrint, IScriptabl
         if (mStatsEnabled) {
             mStatsConsole.clear();
             NativeScene.resetStats(getNative());
+        } else if (GVRMetrics.isEnabled()) {
+            NativeScene.resetStats(getNative());
         }
     }
 
     void updateStats() {
+        if (GVRMetrics.isEnabled()) {
+            GVRMetrics metrics = GVRMetrics.get();
+            metrics.drawCalls.set(NativeScene.getNumberDrawCalls(getNative()));
+            metrics.triangles.set(NativeScene.getNumberTriangles(getNative()));
+        }
         if (mStatsEnabled) {
             int numberDrawCalls = NativeScene.getNumberDrawCalls(getNative());
             int numberTriangles = NativeScene.getNumberTriangles(getNative());
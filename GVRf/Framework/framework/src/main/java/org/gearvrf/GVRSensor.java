@@ -44,7 +44,7 @@ public class GVRSensor extends GVRBehavior
     static private long TYPE_SENSOR = newComponentType(GVRSensor.class);
 
     private static final float[] EMPTY_HIT_POINT = new float[3];
-    private GVRPicker.GVRPickedObject mHit = null;
+    private GVRPicker mPicker = null;
 
     /*
      * Listens for pick events from all scene objects.
@@ -176,11 +176,11 @@ public class GVRSensor extends GVRBehavior
 
         if (collision.picker == null)
         {
-            collision.picker = mHit.picker;
+            collision.picker = mPicker;
         }
         else if (over)
         {
-            mHit = collision;
+            mPicker = collision.picker;     // collisions are reused by the picker, only keep the picker
         }
         controller = collision.picker.getController();
         if (controller != null)
@@ -0,0 +1,454 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.joml.Matrix4f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A table of transforms which Java can read and write
+ * without calling into native code.
+ * <p>
+ * Each call to {@link GVRTransform#getModelMatrix4f()} or
+ * {@link GVRTransform#getPositionX()} crosses into native code and the
+ * matrix getters allocate a new result. Behaviors which look at
+ * many transforms every frame can instead add them to a table.
+ * The table is kept in a direct buffer shared with native code.
+ * Once per frame, on the GL thread, the changes made through the table
+ * are applied to the transforms and then the local values and world
+ * matrix of every transform in the table are copied back.
+ * <p>
+ * The values read from the table are those of the last update.
+ * Values written with {@link #setPosition(int, float, float, float)},
+ * {@link #setRotation(int, float, float, float, float)},
+ * {@link #setScale(int, float, float, float)} or the batch setters
+ * can be read back at once. They are applied to the transforms at the
+ * start of the next frame, which is also when the world matrices change.
+ * Only the position, rotation or scale written through the table is
+ * applied, changes made through {@link GVRTransform} to the others are
+ * kept. If the same value is changed both ways before the next frame,
+ * the one written through the table wins.
+ * <p>
+ * The table registers itself to be updated every frame when it is
+ * constructed, call {@link #release()} when you are done with it.
+ * Adding transforms beyond the initial capacity grows the table.
+ * It is best to do this from the GL thread or before the first frame.
+ * @see GVRTransform
+ */
+public class GVRTransformTable extends GVRHybridObject
+{
+    /**
+     * Number of floats for each transform in the table.
+     */
+    public static final int STRIDE = 32;
+    private static final int MATRIX = 0;
+    private static final int POSITION = 16;
+    private static final int ROTATION = 19;
+    private static final int SCALE = 23;
+    private static final int FLAGS = 26;
+    private static final int POSITION_CHANGED = 1;
+    private static final int ROTATION_CHANGED = 2;
+    private static final int SCALE_CHANGED = 4;
+
+    private ByteBuffer mData;
+    private FloatBuffer mFloats;
+    private IntBuffer mInts;
+    private GVRTransform[] mTransforms;
+    private int mSize = 0;
+    private final GVRDrawFrameListener mUpdater = new GVRDrawFrameListener()
+    {
+        public void onDrawFrame(float frameTime)
+        {
+            sync();
+        }
+    };
+
+    /**
+     * Construct a table which can hold a number of transforms
+     * without growing and start updating it every frame.
+     * @param gvrContext GVRContext to associate the table with
+     * @param capacity   initial number of transforms
+     */
+    public GVRTransformTable(GVRContext gvrContext, int capacity)
+    {
+        super(gvrContext, NativeTransformTable.ctor());
+        allocate(Math.max(capacity, 1));
+        gvrContext.registerDrawFrameListener(mUpdater);
+    }
+
+    /**
+     * Stop updating the table and remove all the transforms from it.
+     */
+    public void release()
+    {
+        getGVRContext().unregisterDrawFrameListener(mUpdater);
+        synchronized (this)
+        {
+            for (int i = 0; i < mSize; ++i)
+            {
+                if (mTransforms[i] != null)
+                {
+                    remove(i);
+                }
+            }
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Get the number of slots in use, including empty ones
+     * left by {@link #remove(int)}.
+     * Valid indices are less than this.
+     */
+    public int getSize() { return mSize; }
+
+    /**
+     * Add a transform to the table.
+     * Its values can be read right away.
+     * @param transform transform to add
+     * @return index of the transform in the table
+     */
+    public synchronized int add(GVRTransform transform)
+    {
+        int index = indexOf(transform);
+
+        if (index >= 0)
+        {
+            return index;
+        }
+        for (index = 0; index < mSize; ++index)
+        {
+            if (mTransforms[index] == null)
+            {
+                break;
+            }
+        }
+        if (index == mSize)
+        {
+            if (mSize >= mTransforms.length)
+            {
+                allocate(mTransforms.length * 2);
+            }
+            ++mSize;
+        }
+        mTransforms[index] = transform;
+        NativeTransformTable.setTransform(getNative(), index, transform.getNative(), mData);
+        return index;
+    }
+
+    /**
+     * Remove a transform from the table.
+     * The slot is reused by the next {@link #add(GVRTransform)}.
+     * @param index index of the transform to remove
+     */
+    public synchronized void remove(int index)
+    {
+        checkIndex(index);
+        mTransforms[index] = null;
+        NativeTransformTable.setTransform(getNative(), index, 0L, mData);
+    }
+
+    /**
+     * Find a transform in the table.
+     * @param transform transform to look for
+     * @return index of the transform or -1 if it is not in the table
+     */
+    public synchronized int indexOf(GVRTransform transform)
+    {
+        for (int i = 0; i < mSize; ++i)
+        {
+            if (mTransforms[i] == transform)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the transform at an index.
+     * @param index index of the transform
+     * @return transform or null if the slot is empty
+     */
+    public GVRTransform getTransform(int index)
+    {
+        checkIndex(index);
+        return mTransforms[index];
+    }
+
+    /**
+     * Get the world matrix of a transform as of the last update.
+     * @param index index of the transform
+     * @param dest  matrix to get the result
+     * @return dest
+     */
+    public Matrix4f getModelMatrix(int index, Matrix4f dest)
+    {
+        FloatBuffer f = mFloats;
+        int i = slot(index) + MATRIX;
+
+        return dest.set(f.get(i), f.get(i + 1), f.get(i + 2), f.get(i + 3),
+                        f.get(i + 4), f.get(i + 5), f.get(i + 6), f.get(i + 7),
+                        f.get(i + 8), f.get(i + 9), f.get(i + 10), f.get(i + 11),
+                        f.get(i + 12), f.get(i + 13), f.get(i + 14), f.get(i + 15));
+    }
+
+    /**
+     * Get the world matrices of several transforms as of the last update.
+     * @param indices indices of the transforms
+     * @param count   number of indices to use
+     * @param dest    gets 16 floats (column major) for each transform
+     */
+    public void getModelMatrices(int[] indices, int count, float[] dest)
+    {
+        FloatBuffer f = mFloats;
+
+        for (int j = 0; j < count; ++j)
+        {
+            int i = slot(indices[j]) + MATRIX;
+
+            for (int k = 0; k < 16; ++k)
+            {
+                dest[j * 16 + k] = f.get(i + k);
+            }
+        }
+    }
+
+    /**
+     * Get the X coordinate of the world position of a transform.
+     */
+    public float getWorldPositionX(int index) { return mFloats.get(slot(index) + MATRIX + 12); }
+
+    /**
+     * Get the Y coordinate of the world position of a transform.
+     */
+    public float getWorldPositionY(int index) { return mFloats.get(slot(index) + MATRIX + 13); }
+
+    /**
+     * Get the Z coordinate of the world position of a transform.
+     */
+    public float getWorldPositionZ(int index) { return mFloats.get(slot(index) + MATRIX + 14); }
+
+    /**
+     * Get the X coordinate of the local position of a transform.
+     */
+    public float getPositionX(int index) { return mFloats.get(slot(index) + POSITION); }
+
+    /**
+     * Get the Y coordinate of the local position of a transform.
+     */
+    public float getPositionY(int index) { return mFloats.get(slot(index) + POSITION + 1); }
+
+    /**
+     * Get the Z coordinate of the local position of a transform.
+     */
+    public float getPositionZ(int index) { return mFloats.get(slot(index) + POSITION + 2); }
+
+    /**
+     * Get the W component of the local rotation quaternion of a transform.
+     */
+    public float getRotationW(int index) { return mFloats.get(slot(index) + ROTATION); }
+
+    /**
+     * Get the X component of the local rotation quaternion of a transform.
+     */
+    public float getRotationX(int index) { return mFloats.get(slot(index) + ROTATION + 1); }
+
+    /**
+     * Get the Y component of the local rotation quaternion of a transform.
+     */
+    public float getRotationY(int index) { return mFloats.get(slot(index) + ROTATION + 2); }
+
+    /**
+     * Get the Z component of the local rotation quaternion of a transform.
+     */
+    public float getRotationZ(int index) { return mFloats.get(slot(index) + ROTATION + 3); }
+
+    /**
+     * Get the X scale factor of a transform.
+     */
+    public float getScaleX(int index) { return mFloats.get(slot(index) + SCALE); }
+
+    /**
+     * Get the Y scale factor of a transform.
+     */
+    public float getScaleY(int index) { return mFloats.get(slot(index) + SCALE + 1); }
+
+    /**
+     * Get the Z scale factor of a transform.
+     */
+    public float getScaleZ(int index) { return mFloats.get(slot(index) + SCALE + 2); }
+
+    /**
+     * Set the local position of a transform.
+     * It is applied at the start of the next frame.
+     * @param index index of the transform
+     */
+    public void setPosition(int index, float x, float y, float z)
+    {
+        FloatBuffer f = mFloats;
+        int i = slot(index);
+
+        f.put(i + POSITION, x);
+        f.put(i + POSITION + 1, y);
+        f.put(i + POSITION + 2, z);
+        changed(i, POSITION_CHANGED);
+    }
+
+    /**
+     * Set the local rotation of a transform.
+     * It is applied at the start of the next frame.
+     * @param index index of the transform
+     */
+    public void setRotation(int index, float w, float x, float y, float z)
+    {
+        FloatBuffer f = mFloats;
+        int i = slot(index);
+
+        f.put(i + ROTATION, w);
+        f.put(i + ROTATION + 1, x);
+        f.put(i + ROTATION + 2, y);
+        f.put(i + ROTATION + 3, z);
+        changed(i, ROTATION_CHANGED);
+    }
+
+    /**
+     * Set the local scale of a transform.
+     * It is applied at the start of the next frame.
+     * @param index index of the transform
+     */
+    public void setScale(int index, float x, float y, float z)
+    {
+        FloatBuffer f = mFloats;
+        int i = slot(index);
+
+        f.put(i + SCALE, x);
+        f.put(i + SCALE + 1, y);
+        f.put(i + SCALE + 2, z);
+        changed(i, SCALE_CHANGED);
+    }
+
+    /**
+     * Set the local positions of several transforms,
+     * for example from one frame of an animation.
+     * @param indices   indices of the transforms
+     * @param count     number of indices to use
+     * @param positions X, Y, Z for each transform
+     */
+    public void setPositions(int[] indices, int count, float[] positions)
+    {
+        for (int j = 0; j < count; ++j)
+        {
+            setPosition(indices[j], positions[j * 3], positions[j * 3 + 1], positions[j * 3 + 2]);
+        }
+    }
+
+    /**
+     * Set the local rotations of several transforms,
+     * for example from one frame of an animation.
+     * @param indices   indices of the transforms
+     * @param count     number of indices to use
+     * @param rotations quaternion W, X, Y, Z for each transform
+     */
+    public void setRotations(int[] indices, int count, float[] rotations)
+    {
+        for (int j = 0; j < count; ++j)
+        {
+            setRotation(indices[j], rotations[j * 4], rotations[j * 4 + 1],
+                        rotations[j * 4 + 2], rotations[j * 4 + 3]);
+        }
+    }
+
+    /**
+     * Set the local scales of several transforms,
+     * for example from one frame of an animation.
+     * @param indices indices of the transforms
+     * @param count   number of indices to use
+     * @param scales  X, Y, Z for each transform
+     */
+    public void setScales(int[] indices, int count, float[] scales)
+    {
+        for (int j = 0; j < count; ++j)
+        {
+            setScale(indices[j], scales[j * 3], scales[j * 3 + 1], scales[j * 3 + 2]);
+        }
+    }
+
+    /**
+     * Apply the changes made through the table and copy back
+     * the current values of all the transforms.
+     * This is called every frame on the GL thread,
+     * you only need to call it to see changes sooner.
+     */
+    public synchronized void sync()
+    {
+        NativeTransformTable.sync(getNative(), mData);
+    }
+
+    private void changed(int slot, int flag)
+    {
+        IntBuffer flags = mInts;
+
+        flags.put(slot + FLAGS, flags.get(slot + FLAGS) | flag);
+    }
+
+    private int slot(int index)
+    {
+        if ((index < 0) || (index >= mSize))
+        {
+            throw new IndexOutOfBoundsException("Transform index " + index + " out of range");
+        }
+        return index * STRIDE;
+    }
+
+    private void checkIndex(int index)
+    {
+        slot(index);
+    }
+
+    private void allocate(int capacity)
+    {
+        ByteBuffer data = ByteBuffer.allocateDirect(capacity * STRIDE * 4).order(ByteOrder.nativeOrder());
+        GVRTransform[] transforms = new GVRTransform[capacity];
+
+        if (mData != null)
+        {
+            ByteBuffer old = mData.duplicate();
+
+            old.clear();
+            data.put(old);
+            data.clear();
+            System.arraycopy(mTransforms, 0, transforms, 0, mSize);
+        }
+        mTransforms = transforms;
+        mData = data;
+        mFloats = data.asFloatBuffer();
+        mInts = data.asIntBuffer();
+    }
+}
+
+class NativeTransformTable
+{
+    static native long ctor();
+
+    static native void setTransform(long table, int index, long transform, ByteBuffer data);
+
+    static native void sync(long table, ByteBuffer data);
+}
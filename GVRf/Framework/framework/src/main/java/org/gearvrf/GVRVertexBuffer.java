@@ -66,6 +66,10 @@ public class GVRVertexBuffer extends GVRHybridObject implements PrettyPrint
      *                    Each vertex component has a name and a type.
      *                    The types may be "int", "float" or "mat"
      *                    followed by an integer indicating vector size.
+     *                    Attributes other than a_position may also use
+     *                    the smaller "halfN", "snorm16xN", "unorm16xN",
+     *                    "snorm8xN" or "unorm8xN" types. These are set
+     *                    and read as floats and converted by the vertex buffer.
      * @param vertexCount number of vertices in the buffer.
      *                    The vertex count cannot be changed once the
      *                    vertex buffer is constructed.
@@ -73,7 +77,10 @@ public class GVRVertexBuffer extends GVRHybridObject implements PrettyPrint
      * <ul>
      * <li>float3 a_position float2 a_texcoord float3 a_normal</li>
      * <li>float3 a_position, int4 a_bone_indices, float4 a_bone_weights</li>
+     * <li>float3 a_position half2 a_texcoord snorm8x3 a_normal</li>
      * </ul>
+     * @throws IllegalArgumentException if a_position is not a float attribute
+     * @see org.gearvrf.utility.VertexQuantizer
      */
     public GVRVertexBuffer(GVRContext gvrContext, String descriptor, int vertexCount)
     {
@@ -23,6 +23,7 @@ import org.gearvrf.animation.GVRAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.animation.GVROpacityAnimation;
 import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
+import org.gearvrf.debug.GVRMetrics;
 import org.gearvrf.io.GVRGearCursorController;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.script.IScriptManager;
@@ -260,6 +261,14 @@ abstract class GVRViewManager extends GVRContext {
         mFrameTime = (currentTime - mPreviousTimeNanos) / 1e9f;
         mPreviousTimeNanos = currentTime;
 
+        if (GVRMetrics.isEnabled()) {
+            GVRMetrics metrics = GVRMetrics.get();
+            metrics.frameTime.record((long) (mFrameTime * 1e6f));
+            metrics.glTaskQueue.set(mRunnables.size());
+            metrics.animations.set(getAnimationEngine().getAnimationCount());
+            metrics.loaderQueue.set(GVRAsynchronousResourceLoader.getPendingRequestCount());
+        }
+
         /*
          * Without the sensor data, can't draw a scene properly.
          */
@@ -0,0 +1,37 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf;
+
+/**
+ * Optional interface for timing how long a model takes to import.
+ * A handler passed to the asset loader, or a listener on the
+ * {@link GVRContext}, receives these events if it implements
+ * this interface as well as {@link IAssetEvents}.
+ */
+public interface IAssetImportEvents extends IEvents
+{
+    /**
+     * Called when a stage of importing a model is finished.
+     * Models loaded with Assimp go through the stages
+     * "import", "graph", "materials", "meshes" and "commit".
+     * Meshes are converted while the materials are made
+     * so the times for those two stages overlap.
+     * @param context   GVRContext used to load the model
+     * @param stage     name of the import stage
+     * @param seconds   elapsed time for the stage
+     * @param filePath  File path or URL of the model.
+     */
+    public void onImportStage(GVRContext context, String stage, float seconds, String filePath);
+}
@@ -0,0 +1,49 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * Receives the results of every pick from a {@link GVRPicker}.
+ * <p>
+ * Unlike {@link IPickEvents}, this listener is called directly
+ * by the picker instead of through the {@link GVREventManager}
+ * so there is no reflection and nothing is allocated.
+ * The results contain enter and exit information, so a
+ * listener can do everything the pick events do by walking
+ * the hits by index:
+ * <pre>
+ *     for (int i = 0; i &lt; results.getCount(); ++i)
+ *     {
+ *         if (results.isEntered(i)) ...
+ *     }
+ *     for (int i = 0; i &lt; results.getExitCount(); ++i) ...
+ * </pre>
+ * The results are only valid during the call.
+ * <p>
+ * A pick or touch event listener added to the event receiver of
+ * the picker which also implements this interface is called here
+ * and does not get the pick and touch events from the picker.
+ * @see GVRPicker#addPickResultsListener(IPickResultsListener)
+ * @see GVRPickResults
+ */
+public interface IPickResultsListener {
+    /**
+     * Called after each pick, whether or not anything was hit.
+     * @param picker  GVRPicker which did the pick
+     * @param results hits from this pick and colliders exited since the last one
+     */
+    void onPickResults(GVRPicker picker, GVRPickResults results);
+}
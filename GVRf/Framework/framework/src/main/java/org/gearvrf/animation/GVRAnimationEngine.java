@@ -142,6 +142,15 @@ public class GVRAnimationEngine {
         mAnimations.remove(animation);
     }
 
+    /**
+     * Get the number of animations which are running.
+     *
+     * @return number of animations
+     */
+    public int getAnimationCount() {
+        return mAnimations.size();
+    }
+
     private final class DrawFrame implements GVRDrawFrameListener {
 
         @Override
@@ -281,6 +281,38 @@ public final class GVRAnimationChannel implements PrettyPrint {
         return mPostState;
     }
 
+    /**
+     * Remove keys which can be reconstructed by interpolating
+     * between their neighbors within the given tolerances.
+     * <p>
+     * This can be used after importing an animation or as an
+     * offline step before saving it. Dense exports which sample
+     * every frame typically shrink considerably.
+     *
+     * @param posTolerance      maximum position error (distance)
+     * @param rotTolerance      maximum rotation error in radians
+     * @param scaleTolerance    maximum scale error
+     * @return total number of keys removed
+     * @see GVRFloatAnimation#reduceKeys(float)
+     */
+    public int reduceKeys(float posTolerance, float rotTolerance, float scaleTolerance)
+    {
+        return mPosInterpolator.reduceKeys(posTolerance) +
+               mRotInterpolator.reduceKeys(rotTolerance) +
+               mSclInterpolator.reduceKeys(scaleTolerance);
+    }
+
+    /**
+     * Get the number of bytes used by the position, rotation and scale keys.
+     * @return size of key data in bytes
+     */
+    public int getKeyDataSize()
+    {
+        return mPosInterpolator.getKeyDataSize() +
+               mRotInterpolator.getKeyDataSize() +
+               mSclInterpolator.getKeyDataSize();
+    }
+
     /**
      * Obtains the transform for a specific time in animation.
      *
@@ -377,6 +377,155 @@ public class GVRFloatAnimation implements PrettyPrint
         mFloatInterpolator.setKeyData(mKeys);
     }
 
+    /**
+     * Remove keys which can be reconstructed from their neighbors.
+     * <p>
+     * A key is dropped if interpolating between the surrounding keys
+     * that are kept reproduces its value within the given tolerance.
+     * The first and last keys are always kept unless the whole
+     * animation is constant, in which case a single key remains.
+     * The keys are fit with the same interpolation used at runtime
+     * so the error of the reduced animation is bounded at every
+     * original key time.
+     *
+     * @param tolerance maximum allowed error per key (distance for
+     *                  float keys, angle in radians for quaternions)
+     * @return number of keys removed
+     */
+    public int reduceKeys(float tolerance)
+    {
+        int numKeys = getNumKeys();
+
+        if (numKeys <= 1)
+        {
+            return 0;
+        }
+        float[] newKeys = new float[mKeys.length];
+        float[] temp = new float[mFloatsPerKey - 1];
+        int anchor = 0;
+        int n = 0;
+
+        System.arraycopy(mKeys, 0, newKeys, 0, mFloatsPerKey);
+        ++n;
+        for (int end = 2; end < numKeys; ++end)
+        {
+            if (!canRemoveKeys(anchor, end, tolerance, temp))
+            {
+                anchor = end - 1;
+                System.arraycopy(mKeys, anchor * mFloatsPerKey, newKeys, n * mFloatsPerKey, mFloatsPerKey);
+                ++n;
+            }
+        }
+        /*
+         * Drop the last key if the whole animation is constant.
+         */
+        if ((n > 1) || !isConstant(tolerance, temp))
+        {
+            System.arraycopy(mKeys, (numKeys - 1) * mFloatsPerKey, newKeys, n * mFloatsPerKey, mFloatsPerKey);
+            ++n;
+        }
+        if (n == numKeys)
+        {
+            return 0;
+        }
+        mKeys = new float[n * mFloatsPerKey];
+        System.arraycopy(newKeys, 0, mKeys, 0, mKeys.length);
+        mFloatInterpolator.setKeyData(mKeys);
+        return numKeys - n;
+    }
+
+    /**
+     * Determine whether all keys are within tolerance of the first key.
+     * @param tolerance maximum allowed error per key
+     * @param temp      temporary storage for key values
+     * @return true if the animation does not change
+     */
+    protected boolean isConstant(float tolerance, float[] temp)
+    {
+        getKey(0, temp);
+        for (int i = getNumKeys() - 1; i > 0; --i)
+        {
+            if (getKeyError(i, temp) > tolerance)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether all of the keys between two keys
+     * can be reconstructed by interpolating between them.
+     * @param firstKey  index of first key kept
+     * @param lastKey   index of last key kept
+     * @param tolerance maximum allowed error per key
+     * @param temp      temporary storage for interpolated values
+     * @return true if all keys in between are within tolerance
+     */
+    protected boolean canRemoveKeys(int firstKey, int lastKey, float tolerance, float[] temp)
+    {
+        float startTime = getTime(firstKey);
+        float deltaTime = getTime(lastKey) - startTime;
+
+        for (int i = firstKey + 1; i < lastKey; ++i)
+        {
+            float factor = (deltaTime > 0) ? (getTime(i) - startTime) / deltaTime : 0;
+
+            interpolateKeys(firstKey, lastKey, factor, temp);
+            if (getKeyError(i, temp) > tolerance)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Interpolate between two arbitrary keys.
+     * @param firstKey  index of first key
+     * @param lastKey   index of second key
+     * @param factor    interpolation factor between 0 and 1
+     * @param values    where to store the interpolated values
+     */
+    protected void interpolateKeys(int firstKey, int lastKey, float factor, float[] values)
+    {
+        int firstOfs = firstKey * mFloatsPerKey + 1;
+        int lastOfs = lastKey * mFloatsPerKey + 1;
+
+        for (int i = 0; i < mFloatsPerKey - 1; ++i)
+        {
+            values[i] = factor * mKeys[lastOfs + i] + (1.0f - factor) * mKeys[firstOfs + i];
+        }
+    }
+
+    /**
+     * Compute the difference between a key and a set of values.
+     * @param keyIndex  index of key to compare against
+     * @param values    values to compare
+     * @return Euclidean distance between the key and the values
+     */
+    protected float getKeyError(int keyIndex, float[] values)
+    {
+        int ofs = keyIndex * mFloatsPerKey + 1;
+        float sum = 0;
+
+        for (int i = 0; i < mFloatsPerKey - 1; ++i)
+        {
+            float d = mKeys[ofs + i] - values[i];
+            sum += d * d;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * Get the number of bytes used to store the key data.
+     * @return size of key data in bytes
+     */
+    public int getKeyDataSize()
+    {
+        return mKeys.length * 4;
+    }
+
     @Override
     public void prettyPrint(StringBuffer sb, int indent) {
         sb.append(Log.getSpaces(indent));
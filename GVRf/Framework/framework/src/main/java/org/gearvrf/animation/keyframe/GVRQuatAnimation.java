@@ -10,6 +10,8 @@ import org.joml.Quaternionf;
 public final class GVRQuatAnimation extends GVRFloatAnimation
 {
     private static final String TAG = GVRQuatAnimation.class.getSimpleName();
+    private final Quaternionf mTempQuatA = new Quaternionf();
+    private final Quaternionf mTempQuatB = new Quaternionf();
 
     public static class SphericalInterpolator extends LinearInterpolator
     {
@@ -89,6 +91,42 @@ public final class GVRQuatAnimation extends GVRFloatAnimation
         q.w = mKeys[index + 4];
     }
 
+    /**
+     * Spherically interpolate between two arbitrary keys.
+     * @param firstKey  index of first key
+     * @param lastKey   index of second key
+     * @param factor    interpolation factor between 0 and 1
+     * @param values    where to store the interpolated quaternion
+     */
+    @Override
+    protected void interpolateKeys(int firstKey, int lastKey, float factor, float[] values)
+    {
+        getKey(firstKey, mTempQuatA);
+        getKey(lastKey, mTempQuatB);
+        mTempQuatA.slerp(mTempQuatB, factor, mTempQuatA);
+        values[0] = mTempQuatA.x;
+        values[1] = mTempQuatA.y;
+        values[2] = mTempQuatA.z;
+        values[3] = mTempQuatA.w;
+    }
+
+    /**
+     * Compute the angle between a key and a quaternion.
+     * @param keyIndex  index of key to compare against
+     * @param values    quaternion to compare (x, y, z, w)
+     * @return angle between the two rotations in radians
+     */
+    @Override
+    protected float getKeyError(int keyIndex, float[] values)
+    {
+        int ofs = keyIndex * mFloatsPerKey + 1;
+        float dot = mKeys[ofs] * values[0] + mKeys[ofs + 1] * values[1] +
+                    mKeys[ofs + 2] * values[2] + mKeys[ofs + 3] * values[3];
+
+        dot = Math.min(Math.abs(dot), 1.0f);
+        return 2.0f * (float) Math.acos(dot);
+    }
+
     public void setKey(int keyIndex, float time, final Quaternionf q)
     {
         int index = keyIndex * mFloatsPerKey;
@@ -195,6 +195,28 @@ public class GVRSkeletonAnimation extends GVRAnimation implements PrettyPrint {
         }
     }
 
+    /**
+     * Remove redundant keys from all of the bone channels.
+     * @param posTolerance      maximum position error (distance)
+     * @param rotTolerance      maximum rotation error in radians
+     * @param scaleTolerance    maximum scale error
+     * @return total number of keys removed
+     * @see GVRAnimationChannel#reduceKeys(float, float, float)
+     */
+    public int reduceKeys(float posTolerance, float rotTolerance, float scaleTolerance)
+    {
+        int numRemoved = 0;
+
+        for (GVRAnimationChannel channel : mBoneChannels)
+        {
+            if (channel != null)
+            {
+                numRemoved += channel.reduceKeys(posTolerance, rotTolerance, scaleTolerance);
+            }
+        }
+        return numRemoved;
+    }
+
     public void setTarget(GVRSceneObject target)
     {
         mTarget = target;
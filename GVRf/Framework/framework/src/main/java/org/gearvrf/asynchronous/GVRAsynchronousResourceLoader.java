@@ -72,6 +72,16 @@ public class GVRAsynchronousResourceLoader {
         AsyncBitmapTexture.setup(gvrContext);
     }
 
+    /**
+     * Get the number of asynchronous resource requests which are
+     * waiting to load or loading.
+     *
+     * @return number of pending requests
+     */
+    public static int getPendingRequestCount() {
+        return Throttler.get().getPendingRequestCount();
+    }
+
     /**
      * Load a compressed texture asynchronously.
      * 
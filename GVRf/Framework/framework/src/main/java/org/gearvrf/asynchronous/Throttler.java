@@ -101,6 +101,13 @@ class Throttler implements Scheduler {
     private Throttler() {
     }
 
+    /**
+     * Get the number of resource requests which are waiting or loading.
+     */
+    int getPendingRequestCount() {
+        return requests.getPendingCount();
+    }
+
     /*
      * Extension points
      */
@@ -277,6 +284,10 @@ class Throttler implements Scheduler {
         private final Map<GVRAndroidResource, PendingRequest<? extends GVRHybridObject, ?>> pendingRequests =
                 new ConcurrentHashMap<GVRAndroidResource, PendingRequest<? extends GVRHybridObject, ?>>();
 
+        int getPendingCount() {
+            return pendingRequests.size();
+        }
+
         private Map<Class<? extends GVRHybridObject>, AsyncLoaderFactory<? extends GVRHybridObject, ?>> getFactories() {
             return AsyncManager.get().getFactories();
         }
@@ -0,0 +1,358 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of named performance metrics. <p>
+ *
+ * There are three kinds of metrics:
+ * <ul>
+ * <li>{@link Counter} counts events.</li>
+ * <li>{@link Gauge} holds the latest value of something.</li>
+ * <li>{@link Histogram} records the distribution of a value, usually a
+ * time in microseconds, in log-linear buckets with about 6% precision.</li>
+ * </ul>
+ * Metrics are updated with atomic operations only, so they can be written
+ * from the GL thread every frame without locks or allocation. Reading a
+ * snapshot while they are being written may mix values from adjacent frames.
+ * <p>
+ * Recording is off until {@link #setEnabled(boolean)} is called. The
+ * framework fills in the standard metrics below every frame while it is
+ * on. Applications can add their own with {@link #counter(String)},
+ * {@link #gauge(String)} and {@link #histogram(String)}.
+ * <p>
+ * {@link #toJson()} returns a snapshot of all metrics; {@link #dump(File)}
+ * writes one to a file for automated performance tests.
+ */
+public class GVRMetrics {
+    private static final GVRMetrics sInstance = new GVRMetrics();
+    private static volatile boolean sEnabled = false;
+
+    private final ConcurrentHashMap<String, Metric> mMetrics = new ConcurrentHashMap<String, Metric>();
+
+    /** Time between frames in microseconds */
+    public final Histogram frameTime = histogram("frame.time");
+
+    /** Draw calls in the last frame */
+    public final Gauge drawCalls = gauge("render.drawCalls");
+
+    /** Triangles drawn in the last frame */
+    public final Gauge triangles = gauge("render.triangles");
+
+    /** Tasks waiting to run on the GL thread at the start of the frame */
+    public final Gauge glTaskQueue = gauge("gl.taskQueue");
+
+    /** Number of running animations */
+    public final Gauge animations = gauge("animation.count");
+
+    /** Time taken by each pick in microseconds */
+    public final Histogram pickTime = histogram("pick.time");
+
+    /** Resource load requests which are waiting or in progress */
+    public final Gauge loaderQueue = gauge("loader.queue");
+
+    /**
+     * A value which can be written to a JSON snapshot.
+     */
+    public interface Metric {
+        void reset();
+
+        void appendJson(StringBuilder sb);
+    }
+
+    /**
+     * Counts events.
+     */
+    public static class Counter implements Metric {
+        private final AtomicLong mValue = new AtomicLong();
+
+        public void increment() {
+            mValue.incrementAndGet();
+        }
+
+        public void add(long n) {
+            mValue.addAndGet(n);
+        }
+
+        public long get() {
+            return mValue.get();
+        }
+
+        @Override
+        public void reset() {
+            mValue.set(0);
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            sb.append(mValue.get());
+        }
+    }
+
+    /**
+     * Holds the latest value of something.
+     */
+    public static class Gauge implements Metric {
+        private volatile long mValue;
+
+        public void set(long value) {
+            mValue = value;
+        }
+
+        public long get() {
+            return mValue;
+        }
+
+        @Override
+        public void reset() {
+            mValue = 0;
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            sb.append(mValue);
+        }
+    }
+
+    /**
+     * Records the distribution of non-negative values.
+     * <p>
+     * Values below 32 get a bucket each; above that every power of two is
+     * split into 16 buckets, so a recorded value is within 1/16 of the
+     * value reported for its bucket. Values above 2<sup>40</sup> are
+     * counted in the last bucket.
+     */
+    public static class Histogram implements Metric {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+        private static final int MAX_BIT = 40;
+        private static final int NUM_BUCKETS = LINEAR_BUCKETS
+                + (MAX_BIT - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray mCounts = new AtomicLongArray(NUM_BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            mCounts.incrementAndGet(bucketOf(value));
+            mCount.incrementAndGet();
+            mSum.addAndGet(value);
+            long max = mMax.get();
+            while ((value > max) && !mMax.compareAndSet(max, value)) {
+                max = mMax.get();
+            }
+        }
+
+        public long getCount() {
+            return mCount.get();
+        }
+
+        public long getMax() {
+            return mMax.get();
+        }
+
+        public double getMean() {
+            long count = mCount.get();
+            return (count > 0) ? (double) mSum.get() / count : 0;
+        }
+
+        /**
+         * Get the value below which the given fraction of the
+         * recorded values fall.
+         * @param fraction between 0 and 1
+         * @return upper bound of the bucket holding that value
+         */
+        public long getPercentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < NUM_BUCKETS; ++i) {
+                total += mCounts.get(i);
+            }
+            long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+
+            for (int i = 0; i < NUM_BUCKETS; ++i) {
+                seen += mCounts.get(i);
+                if ((seen >= target) && (seen > 0)) {
+                    return Math.min(bucketUpperBound(i), mMax.get());
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public void reset() {
+            for (int i = 0; i < NUM_BUCKETS; ++i) {
+                mCounts.set(i, 0);
+            }
+            mCount.set(0);
+            mSum.set(0);
+            mMax.set(0);
+        }
+
+        @Override
+        public void appendJson(StringBuilder sb) {
+            sb.append("{\"count\":").append(getCount())
+              .append(",\"mean\":").append(Math.round(getMean()))
+              .append(",\"p50\":").append(getPercentile(0.5))
+              .append(",\"p90\":").append(getPercentile(0.9))
+              .append(",\"p99\":").append(getPercentile(0.99))
+              .append(",\"max\":").append(getMax())
+              .append('}');
+        }
+
+        static int bucketOf(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int) value;
+            }
+            int msb = 63 - Long.numberOfLeadingZeros(value);
+            if (msb >= MAX_BIT) {
+                return NUM_BUCKETS - 1;
+            }
+            int shift = msb - SUB_BITS;
+            return LINEAR_BUCKETS + (msb - SUB_BITS - 1) * SUB_BUCKETS
+                    + (int) ((value >> shift) - SUB_BUCKETS);
+        }
+
+        static long bucketUpperBound(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket;
+            }
+            int k = bucket - LINEAR_BUCKETS;
+            int shift = k / SUB_BUCKETS + 1;
+            long lower = (long) (SUB_BUCKETS + k % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1;
+        }
+    }
+
+    private GVRMetrics() {
+    }
+
+    /**
+     * Get the metrics registry.
+     */
+    public static GVRMetrics get() {
+        return sInstance;
+    }
+
+    /**
+     * Determine whether the framework is recording metrics.
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Turn recording of the standard metrics on or off.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Get a counter, creating it if it does not exist.
+     * @throws IllegalArgumentException if the name is used by another kind of metric
+     */
+    public Counter counter(String name) {
+        return getOrAdd(name, Counter.class);
+    }
+
+    /**
+     * Get a gauge, creating it if it does not exist.
+     * @throws IllegalArgumentException if the name is used by another kind of metric
+     */
+    public Gauge gauge(String name) {
+        return getOrAdd(name, Gauge.class);
+    }
+
+    /**
+     * Get a histogram, creating it if it does not exist.
+     * @throws IllegalArgumentException if the name is used by another kind of metric
+     */
+    public Histogram histogram(String name) {
+        return getOrAdd(name, Histogram.class);
+    }
+
+    /**
+     * Clear all metrics.
+     */
+    public void reset() {
+        for (Metric m : mMetrics.values()) {
+            m.reset();
+        }
+    }
+
+    /**
+     * Get a snapshot of all metrics as a JSON object,
+     * keyed by metric name in alphabetical order.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(1024);
+
+        sb.append("{\"time\":").append(System.currentTimeMillis());
+        for (Map.Entry<String, Metric> e : new TreeMap<String, Metric>(mMetrics).entrySet()) {
+            sb.append(",\"").append(e.getKey()).append("\":");
+            e.getValue().appendJson(sb);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Write a JSON snapshot of all metrics to a file.
+     */
+    public void dump(File file) throws IOException {
+        Writer out = new FileWriter(file);
+        try {
+            out.write(toJson());
+        } finally {
+            out.close();
+        }
+    }
+
+    private <T extends Metric> T getOrAdd(String name, Class<T> type) {
+        Metric m = mMetrics.get(name);
+        if (m == null) {
+            try {
+                m = type.newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            Metric old = mMetrics.putIfAbsent(name, m);
+            if (old != null) {
+                m = old;
+            }
+        }
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException("Metric " + name + " is not a " + type.getSimpleName());
+        }
+        return type.cast(m);
+    }
+}
@@ -0,0 +1,679 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransform;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+/**
+ * Live link server lets an editor drive the scene on the device
+ * over a compact binary protocol. <p>
+ *
+ * The {@link DebugServer} accepts script source which is evaluated for
+ * every change. That is fine for occasional commands but too slow
+ * for an editor streaming changes while an object is dragged. The live
+ * link instead sends small binary messages addressed by object id.
+ * Changes to the same object are coalesced until the editor ends its
+ * frame with a FRAME message. Everything from the frames completed
+ * since the last GL frame is applied in one batch on the GL thread,
+ * creates and removes first and then the changes to each object.
+ * A REMOVE or CREATE drops the changes queued before it for that id,
+ * so they do not land on an object created again with the same id. <p>
+ *
+ * All messages start with a one byte opcode followed by big-endian
+ * fields ({@link DataOutputStream} format). A UTF field is an unsigned
+ * short byte count followed by that many bytes of standard UTF-8,
+ * not the modified UTF-8 of {@link DataOutputStream#writeUTF(String)}:
+ * <pre>
+ *  SNAPSHOT   (request)  no fields
+ *  CREATE     int id, int parentId, UTF name
+ *  REMOVE     int id
+ *  TRANSFORM  int id, float px py pz, float qw qx qy qz, float sx sy sz
+ *  VISIBLE    int id, byte visible
+ *  COLOR      int id, float r g b a
+ *  NAME       int id, UTF name
+ *  FRAME      int sequence
+ * </pre>
+ * The device answers SNAPSHOT with a SNAPSHOT message containing int count
+ * followed by count records of int id, int parentId, UTF name, byte visible
+ * and the ten transform floats, parents before children. After a FRAME has
+ * been applied the device sends FRAME_ACK with the same sequence number,
+ * which the editor can use to measure latency. <p>
+ *
+ * Ids of objects which were already in the scene are assigned by the
+ * device when a snapshot is taken, counting up from 1. Objects created
+ * by the editor should use ids from {@link #FIRST_CLIENT_ID} up.
+ * Parent id 0 is the scene root. <p>
+ *
+ * To start the server:
+ * <pre>
+ *     Threads.spawn(new LiveLinkServer(gvrContext));
+ * </pre>
+ */
+public class LiveLinkServer implements Runnable {
+    public static final int DEFAULT_LIVE_LINK_PORT = 1646;
+    public static final int FIRST_CLIENT_ID = 0x10000000;
+
+    public static final int SNAPSHOT = 1;
+    public static final int CREATE = 2;
+    public static final int REMOVE = 3;
+    public static final int TRANSFORM = 4;
+    public static final int VISIBLE = 5;
+    public static final int COLOR = 6;
+    public static final int NAME = 7;
+    public static final int FRAME = 8;
+    public static final int FRAME_ACK = 9;
+
+    private static final String TAG = "LiveLink";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final GVRContext gvrContext;
+    private final int port;
+    private volatile boolean shuttingDown;
+    private ServerSocket serverSocket;
+    private volatile LiveLinkConnection connection;
+
+    /*
+     * Accessed only on the GL thread
+     */
+    private final SparseArray<GVRSceneObject> objects = new SparseArray<GVRSceneObject>();
+    private final IdentityHashMap<GVRSceneObject, Integer> objectIds =
+            new IdentityHashMap<GVRSceneObject, Integer>();
+    private int nextDeviceId = 1;
+
+    /*
+     * Changes to one object, coalesced until the end of the frame.
+     */
+    static class Delta {
+        static final int TRANSFORM_CHANGED = 1;
+        static final int VISIBLE_CHANGED = 2;
+        static final int COLOR_CHANGED = 4;
+        static final int NAME_CHANGED = 8;
+
+        int id;
+        int changed;
+        final float[] transform = new float[10];
+        final float[] color = new float[4];
+        boolean visible;
+        String name;
+    }
+
+    /*
+     * Structural change which must be applied in order.
+     */
+    static class Command {
+        final int opcode;
+        final int id;
+        final int parentId;
+        final String name;
+
+        Command(int opcode, int id, int parentId, String name) {
+            this.opcode = opcode;
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+        }
+    }
+
+    /*
+     * Everything received from the editor since the last batch.
+     */
+    static class Batch {
+        final ArrayList<Command> commands = new ArrayList<Command>();
+        final SparseArray<Delta> deltas = new SparseArray<Delta>();
+        final ArrayList<Delta> deltaOrder = new ArrayList<Delta>();
+        final ArrayList<Integer> frames = new ArrayList<Integer>();
+        boolean snapshot;
+
+        boolean isEmpty() {
+            return commands.isEmpty() && deltaOrder.isEmpty()
+                    && frames.isEmpty() && !snapshot;
+        }
+    }
+
+    /*
+     * Each connection's reader thread fills its own build batch until the
+     * editor ends the frame, then merges it into pendingBatch. The GL
+     * thread swaps pendingBatch with applyBatch and applies it.
+     * pendingBatch and freeDeltas are guarded by batchLock.
+     */
+    private final Object batchLock = new Object();
+    private Batch pendingBatch = new Batch();
+    private Batch applyBatch = new Batch();
+    private final ArrayList<Delta> freeDeltas = new ArrayList<Delta>();
+
+    private final GVRDrawFrameListener frameListener = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            applyPending();
+        }
+    };
+
+    class LiveLinkConnection implements Runnable {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final ExecutorService writer = Executors.newSingleThreadExecutor();
+        private final Batch buildBatch = new Batch();
+
+        LiveLinkConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (!shuttingDown) {
+                    readMessage(in, buildBatch);
+                }
+            } catch (EOFException e) {
+                // client disconnected
+            } catch (IOException e) {
+                Log.e(TAG, "Live link connection error: " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        /*
+         * Send a message assembled on the GL thread without
+         * blocking the GL thread on the socket.
+         */
+        void send(final byte[] message) {
+            writer.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        out.write(message);
+                        out.flush();
+                    } catch (IOException e) {
+                        Log.e(TAG, "Cannot write to live link: " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        void close() {
+            writer.shutdown();
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+            if (connection == this) {
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * The default port is 1646.
+     *
+     * @param gvrContext
+     *     The {@link GVRContext} object.
+     */
+    public LiveLinkServer(GVRContext gvrContext) {
+        this(gvrContext, DEFAULT_LIVE_LINK_PORT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param gvrContext
+     *     The {@link GVRContext} object.
+     * @param port
+     *     The port to override the default port 1646.
+     */
+    public LiveLinkServer(GVRContext gvrContext, int port) {
+        this.gvrContext = gvrContext;
+        this.port = port;
+    }
+
+    /**
+     * Shuts down the server and closes the active connection.
+     */
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LiveLinkConnection conn = connection;
+        if (conn != null) {
+            conn.close();
+        }
+    }
+
+    /**
+     * Runs the server. Only one editor is connected at a time;
+     * a new connection replaces the previous one.
+     */
+    @Override
+    public void run() {
+        gvrContext.registerDrawFrameListener(frameListener);
+        try {
+            serverSocket = new ServerSocket(port, 1);
+            while (!shuttingDown) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    LiveLinkConnection old = connection;
+                    if (old != null) {
+                        old.close();
+                    }
+                    connection = new LiveLinkConnection(socket);
+                    new Thread(connection, "LiveLink").start();
+                } catch (SocketException e) {
+                    // closed
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                serverSocket.close();
+            } catch (Exception e) {
+            }
+            gvrContext.unregisterDrawFrameListener(frameListener);
+        }
+    }
+
+    /*
+     * Reader thread: parse one message into the batch being built.
+     */
+    private void readMessage(DataInputStream in, Batch buildBatch) throws IOException {
+        int opcode = in.readUnsignedByte();
+        Delta d;
+
+        switch (opcode) {
+        case SNAPSHOT:
+            synchronized (batchLock) {
+                pendingBatch.snapshot = true;
+            }
+            break;
+
+        case CREATE: {
+            int id = in.readInt();
+            int parentId = in.readInt();
+            String name = readString(in);
+            dropDelta(buildBatch, id);
+            buildBatch.commands.add(new Command(CREATE, id, parentId, name));
+            break;
+        }
+
+        case REMOVE: {
+            int id = in.readInt();
+            dropDelta(buildBatch, id);
+            buildBatch.commands.add(new Command(REMOVE, id, 0, null));
+            break;
+        }
+
+        case TRANSFORM:
+            d = getDelta(buildBatch, in.readInt());
+            for (int i = 0; i < 10; ++i) {
+                d.transform[i] = in.readFloat();
+            }
+            d.changed |= Delta.TRANSFORM_CHANGED;
+            break;
+
+        case VISIBLE:
+            d = getDelta(buildBatch, in.readInt());
+            d.visible = in.readByte() != 0;
+            d.changed |= Delta.VISIBLE_CHANGED;
+            break;
+
+        case COLOR:
+            d = getDelta(buildBatch, in.readInt());
+            for (int i = 0; i < 4; ++i) {
+                d.color[i] = in.readFloat();
+            }
+            d.changed |= Delta.COLOR_CHANGED;
+            break;
+
+        case NAME:
+            d = getDelta(buildBatch, in.readInt());
+            d.name = readString(in);
+            d.changed |= Delta.NAME_CHANGED;
+            break;
+
+        case FRAME:
+            endFrame(buildBatch, in.readInt());
+            break;
+
+        default:
+            throw new IOException("Unknown live link opcode " + opcode);
+        }
+    }
+
+    private Delta getDelta(Batch batch, int id) {
+        Delta d = batch.deltas.get(id);
+        if (d == null) {
+            synchronized (batchLock) {
+                int n = freeDeltas.size();
+                d = (n > 0) ? freeDeltas.remove(n - 1) : new Delta();
+            }
+            d.id = id;
+            d.changed = 0;
+            d.name = null;
+            batch.deltas.put(id, d);
+            batch.deltaOrder.add(d);
+        }
+        return d;
+    }
+
+    /*
+     * Forget the changes queued for an object which is removed or
+     * created again. Only changes queued after that apply to it.
+     */
+    private void dropDelta(Batch batch, int id) {
+        Delta d = batch.deltas.get(id);
+        if (d != null) {
+            batch.deltas.remove(id);
+            batch.deltaOrder.remove(d);
+            synchronized (batchLock) {
+                freeDeltas.add(d);
+            }
+        }
+    }
+
+    /*
+     * Reader thread: hand the completed editor frame to the GL thread,
+     * merging it with frames the GL thread has not picked up yet.
+     */
+    private void endFrame(Batch buildBatch, int sequence) {
+        synchronized (batchLock) {
+            Batch pending = pendingBatch;
+
+            /*
+             * The commands of this frame come after the changes
+             * of the earlier frames which are still pending
+             */
+            for (int i = 0; i < buildBatch.commands.size(); ++i) {
+                dropDelta(pending, buildBatch.commands.get(i).id);
+            }
+            pending.commands.addAll(buildBatch.commands);
+            for (int i = 0; i < buildBatch.deltaOrder.size(); ++i) {
+                Delta src = buildBatch.deltaOrder.get(i);
+                Delta dst = pending.deltas.get(src.id);
+
+                if (dst == null) {
+                    pending.deltas.put(src.id, src);
+                    pending.deltaOrder.add(src);
+                    continue;
+                }
+                if ((src.changed & Delta.TRANSFORM_CHANGED) != 0) {
+                    System.arraycopy(src.transform, 0, dst.transform, 0, 10);
+                }
+                if ((src.changed & Delta.COLOR_CHANGED) != 0) {
+                    System.arraycopy(src.color, 0, dst.color, 0, 4);
+                }
+                if ((src.changed & Delta.VISIBLE_CHANGED) != 0) {
+                    dst.visible = src.visible;
+                }
+                if ((src.changed & Delta.NAME_CHANGED) != 0) {
+                    dst.name = src.name;
+                }
+                dst.changed |= src.changed;
+                freeDeltas.add(src);
+            }
+            pending.frames.add(sequence);
+        }
+        buildBatch.commands.clear();
+        buildBatch.deltas.clear();
+        buildBatch.deltaOrder.clear();
+    }
+
+    /*
+     * GL thread: apply everything received since the last frame.
+     */
+    private void applyPending() {
+        Batch batch;
+
+        synchronized (batchLock) {
+            if (pendingBatch.isEmpty()) {
+                return;
+            }
+            batch = pendingBatch;
+            pendingBatch = applyBatch;
+            applyBatch = batch;
+        }
+        for (int i = 0; i < batch.commands.size(); ++i) {
+            applyCommand(batch.commands.get(i));
+        }
+        for (int i = 0; i < batch.deltaOrder.size(); ++i) {
+            applyDelta(batch.deltaOrder.get(i));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (batch.snapshot) {
+                writeSnapshot(out);
+            }
+            for (int i = 0; i < batch.frames.size(); ++i) {
+                out.writeByte(FRAME_ACK);
+                out.writeInt(batch.frames.get(i));
+            }
+        } catch (IOException e) {
+            // cannot happen writing to memory
+        }
+        LiveLinkConnection conn = connection;
+        if ((conn != null) && (bytes.size() > 0)) {
+            conn.send(bytes.toByteArray());
+        }
+
+        synchronized (batchLock) {
+            freeDeltas.addAll(batch.deltaOrder);
+        }
+        batch.commands.clear();
+        batch.deltas.clear();
+        batch.deltaOrder.clear();
+        batch.frames.clear();
+        batch.snapshot = false;
+    }
+
+    private void applyCommand(Command cmd) {
+        switch (cmd.opcode) {
+        case CREATE: {
+            GVRSceneObject obj = new GVRSceneObject(gvrContext);
+            obj.setName(cmd.name);
+            removeObject(cmd.id);
+            addObject(cmd.id, obj);
+            GVRSceneObject parent = (cmd.parentId != 0) ? objects.get(cmd.parentId) : null;
+            if (parent != null) {
+                parent.addChildObject(obj);
+            } else {
+                gvrContext.getMainScene().addSceneObject(obj);
+            }
+            break;
+        }
+
+        case REMOVE:
+            removeObject(cmd.id);
+            break;
+        }
+    }
+
+    private void applyDelta(Delta d) {
+        GVRSceneObject obj = objects.get(d.id);
+        if (obj == null) {
+            return;
+        }
+        if ((d.changed & Delta.TRANSFORM_CHANGED) != 0) {
+            float[] t = d.transform;
+            GVRTransform trans = obj.getTransform();
+            trans.setPosition(t[0], t[1], t[2]);
+            trans.setRotation(t[3], t[4], t[5], t[6]);
+            trans.setScale(t[7], t[8], t[9]);
+        }
+        if ((d.changed & Delta.VISIBLE_CHANGED) != 0) {
+            obj.setEnable(d.visible);
+        }
+        if ((d.changed & Delta.NAME_CHANGED) != 0) {
+            obj.setName(d.name);
+        }
+        if ((d.changed & Delta.COLOR_CHANGED) != 0) {
+            GVRRenderData rdata = obj.getRenderData();
+            GVRMaterial mtl = (rdata != null) ? rdata.getMaterial() : null;
+            if (mtl != null) {
+                float[] c = d.color;
+                if (mtl.hasUniform("diffuse_color")) {
+                    mtl.setDiffuseColor(c[0], c[1], c[2], c[3]);
+                } else if (mtl.hasUniform("u_color")) {
+                    mtl.setColor(c[0], c[1], c[2]);
+                    if (mtl.hasUniform("u_opacity")) {
+                        mtl.setOpacity(c[3]);
+                    }
+                }
+            }
+        }
+        d.name = null;
+    }
+
+    private void addObject(int id, GVRSceneObject obj) {
+        objects.put(id, obj);
+        objectIds.put(obj, id);
+    }
+
+    private void removeObject(int id) {
+        GVRSceneObject obj = objects.get(id);
+        if (obj == null) {
+            return;
+        }
+        forgetObject(obj);
+        GVRSceneObject parent = obj.getParent();
+        if (parent != null) {
+            parent.removeChildObject(obj);
+        }
+    }
+
+    /*
+     * Unregister an object and all of its descendants so the
+     * removed subtree can be collected and its ids reused.
+     */
+    private void forgetObject(GVRSceneObject obj) {
+        Integer id = objectIds.remove(obj);
+        if (id != null) {
+            objects.remove(id);
+        }
+        List<GVRSceneObject> children = obj.getChildren();
+        for (int i = 0; i < children.size(); ++i) {
+            forgetObject(children.get(i));
+        }
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        GVRScene scene = gvrContext.getMainScene();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        int count = 0;
+
+        for (GVRSceneObject child : scene.getRoot().getChildren()) {
+            count += writeObject(recordOut, child, 0);
+        }
+        out.writeByte(SNAPSHOT);
+        out.writeInt(count);
+        records.writeTo(out);
+    }
+
+    private int writeObject(DataOutputStream out, GVRSceneObject obj, int parentId) throws IOException {
+        Integer id = objectIds.get(obj);
+        if (id == null) {
+            while (objects.get(nextDeviceId) != null) {
+                ++nextDeviceId;
+            }
+            id = nextDeviceId++;
+            addObject(id, obj);
+        }
+        GVRTransform t = obj.getTransform();
+        String name = obj.getName();
+
+        out.writeInt(id);
+        out.writeInt(parentId);
+        writeString(out, (name != null) ? name : "");
+        out.writeByte(obj.isEnabled() ? 1 : 0);
+        out.writeFloat(t.getPositionX());
+        out.writeFloat(t.getPositionY());
+        out.writeFloat(t.getPositionZ());
+        out.writeFloat(t.getRotationW());
+        out.writeFloat(t.getRotationX());
+        out.writeFloat(t.getRotationY());
+        out.writeFloat(t.getRotationZ());
+        out.writeFloat(t.getScaleX());
+        out.writeFloat(t.getScaleY());
+        out.writeFloat(t.getScaleZ());
+
+        int count = 1;
+        List<GVRSceneObject> children = obj.getChildren();
+        for (int i = 0; i < children.size(); ++i) {
+            count += writeObject(out, children.get(i), id);
+        }
+        return count;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /*
+     * Names longer than the length field can hold are cut
+     * at the last whole character which fits.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        int length = bytes.length;
+        if (length > 0xFFFF) {
+            length = 0xFFFF;
+            while ((bytes[length] & 0xC0) == 0x80) {
+                --length;
+            }
+        }
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+}
@@ -15,8 +15,6 @@
 
 package org.gearvrf.periodic;
 
-import java.util.PriorityQueue;
-
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 
@@ -54,21 +52,19 @@ import org.gearvrf.GVRDrawFrameListener;
  * something like a notification.
  * 
  * <p>
- * The engine maintains a priority queue of events, which it checks in a
- * {@linkplain GVRDrawFrameListener frame listener}; events run as
- * {@linkplain GVRContext#runOnGlThread(Runnable) run-once events.} Every frame,
- * GVRF runs any run-once events; then any frame listeners (including
- * animations); then your {@linkplain org.gearvrf.GVRMain#onStep() method;} and
- * then it renders the scene. This means that any periodic events that run on a
- * given frame will run before any animations. It also means that there is
- * always a one frame delay between the time an event is dequeued and the time
- * it actually runs. Scheduling an event from a point in the render pipeline
- * after the periodic engine will add an additional one frame delay. (The
- * periodic engine may run before the animation engine or after it - try not to
- * write code that depends on one running before the other.) Running at 60 fps,
- * each frame is normally 17 milliseconds apart, unless you add too many
- * callbacks or put too much code into your {@code onStep()}; Android garbage
- * collection can introduce additional delays.
+ * The engine keeps events in a hashed hierarchical timer wheel with one
+ * millisecond resolution, so scheduling, rescheduling and canceling an event
+ * take constant time no matter how many events are pending. The wheel is
+ * advanced in a {@linkplain GVRDrawFrameListener frame listener} and all of
+ * the events which are due run directly from that listener, in a single pass.
+ * Scheduling an event from a point in the render pipeline after the periodic
+ * engine will add a one frame delay. (The periodic engine may run before the
+ * animation engine or after it - try not to write code that depends on one
+ * running before the other.) Running at 60 fps, each frame is normally 17
+ * milliseconds apart, unless you add too many callbacks or put too much code
+ * into your {@code onStep()}; Android garbage collection can introduce
+ * additional delays. {@link #getLateFireHistogram()} reports how late events
+ * actually ran.
  */
 public class GVRPeriodicEngine {
     private static GVRPeriodicEngine sInstance = null;
@@ -83,9 +79,39 @@ public class GVRPeriodicEngine {
         });
     }
 
+    /*
+     * Timer wheel layout: NUM_WHEELS levels of WHEEL_SIZE slots each.
+     * Level 0 has one slot per tick, level 1 one slot per WHEEL_SIZE ticks
+     * and so on. Events further in the future than the wheel covers are
+     * parked in the farthest slot and re-inserted when it cascades.
+     */
+    private static final long TICK_NANOS = 1000000L;
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NUM_WHEELS = 4;
+    private static final long MAX_TICKS = (1L << (WHEEL_BITS * NUM_WHEELS)) - 1;
+
+    private static final int NOT_QUEUED = -1;
+    private static final int DUE = NUM_WHEELS;
+
+    /**
+     * Number of buckets returned by {@link #getLateFireHistogram()}.
+     */
+    public static final int NUM_LATE_BUCKETS = 12;
+
     private final GVRContext mContext;
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+    private final Object mLock = new Object();
+    private final Event[][] mWheels = new Event[NUM_WHEELS][WHEEL_SIZE];
+    private final int[] mLevelCounts = new int[NUM_WHEELS];
+    private Event mDueHead = null;
+    private Event mDueTail = null;
+    private long mNextSequence = 0;
+    private long mCurrentTick = System.nanoTime() / TICK_NANOS;
+    private int mNumQueued = 0;
+    private final long[] mLateHistogram = new long[NUM_LATE_BUCKETS];
+    private long mMaxLateNanos = 0;
 
     protected GVRPeriodicEngine(GVRContext context) {
         mContext = context;
@@ -190,6 +216,57 @@ public class GVRPeriodicEngine {
         return new Event(task, delay, period, callback);
     }
 
+    /**
+     * Get the number of events waiting to run.
+     *
+     * @return number of scheduled events
+     */
+    public int getScheduledCount() {
+        synchronized (mLock) {
+            return mNumQueued;
+        }
+    }
+
+    /**
+     * Get the distribution of how late events ran.
+     * <p>
+     * Bucket 0 counts events which ran less than a millisecond after their
+     * scheduled time; bucket {@code i} counts events which were between
+     * 2<sup>i-1</sup> and 2<sup>i</sup> milliseconds late; the last bucket
+     * counts everything later than that.
+     *
+     * @return copy of the histogram, {@link #NUM_LATE_BUCKETS} entries
+     */
+    public long[] getLateFireHistogram() {
+        synchronized (mLock) {
+            return mLateHistogram.clone();
+        }
+    }
+
+    /**
+     * Get the largest delay between the time an event was scheduled
+     * to run and the time it ran.
+     *
+     * @return latest event, in seconds
+     */
+    public float getMaxLateness() {
+        synchronized (mLock) {
+            return mMaxLateNanos / 1e9f;
+        }
+    }
+
+    /**
+     * Clear the late fire histogram and maximum lateness.
+     */
+    public void resetStatistics() {
+        synchronized (mLock) {
+            for (int i = 0; i < NUM_LATE_BUCKETS; ++i) {
+                mLateHistogram[i] = 0;
+            }
+            mMaxLateNanos = 0;
+        }
+    }
+
     /**
      * Optional callback that you can supply to
      * {@link GVRPeriodicEngine#runEvery(Runnable, float, float, KeepRunning)}.
@@ -328,40 +405,236 @@ public class GVRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
     /**
      * The periodic engine's time base.
      * 
-     * Unit is seconds.
+     * Unit is nanoseconds.
      */
-    private static float now() {
-        return System.nanoTime() / 1e9f;
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    private static long toNanos(float seconds) {
+        return (long) (seconds * 1e9);
     }
 
     private class DrawFrameListener implements GVRDrawFrameListener {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            float now = GVRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
+            final long now = GVRPeriodicEngine.now();
+
+            synchronized (mLock) {
+                lockedAdvance(now / TICK_NANOS);
+            }
+            while (true) {
+                Event event;
+
+                synchronized (mLock) {
+                    event = mDueHead;
+                    if (event == null) {
+                        break;
+                    }
+                    lockedUnlink(event);
+                    lockedRecordLateness(now - event.mDeadline);
+                }
+                event.run();
+            }
+        }
+    }
+
+    /*
+     * Timer wheel management. All of these must be called with mLock held.
+     */
 
-                    mContext.runOnGlThread(mQueue.poll());
+    /**
+     * Advance the wheel to the given tick, moving all the events which
+     * are due onto the due list.
+     * <p>
+     * Ticks are only visited one at a time while the lowest wheel has
+     * events. Otherwise the wheel jumps to the next tick where a level
+     * which has events cascades, so catching up after a long pause
+     * does not spin once per tick.
+     */
+    private void lockedAdvance(long nowTick) {
+        if (mNumQueued == 0) {
+            mCurrentTick = Math.max(mCurrentTick, nowTick);
+            return;
+        }
+        while (mCurrentTick < nowTick) {
+            int emptyLevels = 0;
 
+            while ((emptyLevels < NUM_WHEELS) && (mLevelCounts[emptyLevels] == 0)) {
+                ++emptyLevels;
+            }
+            if (emptyLevels > 0) {
+                long skipTo = (emptyLevels == NUM_WHEELS) ? nowTick
+                        : mCurrentTick | ((1L << (WHEEL_BITS * emptyLevels)) - 1);
+
+                if (skipTo >= nowTick) {
+                    mCurrentTick = nowTick;
+                    break;
                 }
+                mCurrentTick = skipTo;
+            }
+            ++mCurrentTick;
+            int index = (int) (mCurrentTick & WHEEL_MASK);
+
+            if (index == 0) {
+                lockedCascade(1);
+            }
+            Event event = mWheels[0][index];
+            mWheels[0][index] = null;
+            while (event != null) {
+                Event next = event.mNext;
+                --mLevelCounts[0];
+                lockedLinkDue(event);
+                event = next;
+            }
+        }
+    }
+
+    /**
+     * Re-insert the events in the current slot of a higher level wheel
+     * into the lower levels, starting with the highest level which wrapped.
+     */
+    private void lockedCascade(int level) {
+        if (level >= NUM_WHEELS) {
+            return;
+        }
+        int index = (int) ((mCurrentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        if (index == 0) {
+            lockedCascade(level + 1);
+        }
+        Event event = mWheels[level][index];
+        mWheels[level][index] = null;
+        while (event != null) {
+            Event next = event.mNext;
+            --mNumQueued;
+            --mLevelCounts[level];
+            event.mLevel = NOT_QUEUED;
+            lockedInsert(event, true);
+            event = next;
+        }
+    }
+
+    /**
+     * Put an event into the wheel slot for its deadline.
+     *
+     * @param allowDue if true an event which is due at the current
+     *                 tick goes on the due list, otherwise it will
+     *                 be run at the next tick
+     */
+    private void lockedInsert(Event event, boolean allowDue) {
+        long tick = (event.mDeadline + TICK_NANOS - 1) / TICK_NANOS;
+        long delta = tick - mCurrentTick;
+
+        if (delta <= 0) {
+            if (allowDue) {
+                lockedLinkDue(event);
+                ++mNumQueued;
+                return;
             }
+            delta = 1;
+            tick = mCurrentTick + 1;
+        }
+        if (delta > MAX_TICKS) {
+            delta = MAX_TICKS;
+            tick = mCurrentTick + MAX_TICKS;
+        }
+        int level = 0;
+        while ((level < NUM_WHEELS - 1) && (delta >= (1L << (WHEEL_BITS * (level + 1))))) {
+            ++level;
+        }
+        int slot = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Event head = mWheels[level][slot];
+
+        event.mLevel = level;
+        event.mSlot = slot;
+        event.mPrev = null;
+        event.mNext = head;
+        if (head != null) {
+            head.mPrev = event;
+        }
+        mWheels[level][slot] = event;
+        ++mLevelCounts[level];
+        ++mNumQueued;
+    }
+
+    /**
+     * Add an event to the list of events to run this frame.
+     * The event must not be in any other list.
+     * The list is kept in deadline order, events with the same
+     * deadline run in the order they were scheduled. Events mostly
+     * arrive in order, so the search from the tail is short.
+     */
+    private void lockedLinkDue(Event event) {
+        Event prev = mDueTail;
+
+        while ((prev != null) && prev.runsAfter(event)) {
+            prev = prev.mPrev;
+        }
+        Event next = (prev != null) ? prev.mNext : mDueHead;
+
+        event.mLevel = DUE;
+        event.mPrev = prev;
+        event.mNext = next;
+        if (prev != null) {
+            prev.mNext = event;
+        } else {
+            mDueHead = event;
+        }
+        if (next != null) {
+            next.mPrev = event;
+        } else {
+            mDueTail = event;
+        }
+    }
+
+    /**
+     * Remove an event from whichever list it is in.
+     */
+    private void lockedUnlink(Event event) {
+        if (event.mLevel == NOT_QUEUED) {
+            return;
+        }
+        if (event.mPrev != null) {
+            event.mPrev.mNext = event.mNext;
+        } else if (event.mLevel == DUE) {
+            mDueHead = event.mNext;
+        } else {
+            mWheels[event.mLevel][event.mSlot] = event.mNext;
+        }
+        if (event.mNext != null) {
+            event.mNext.mPrev = event.mPrev;
+        } else if (event.mLevel == DUE) {
+            mDueTail = event.mPrev;
+        }
+        if (event.mLevel != DUE) {
+            --mLevelCounts[event.mLevel];
+        }
+        event.mPrev = null;
+        event.mNext = null;
+        event.mLevel = NOT_QUEUED;
+        --mNumQueued;
+    }
+
+    private void lockedRecordLateness(long lateNanos) {
+        long lateMillis = Math.max(lateNanos, 0) / 1000000L;
+        int bucket = 0;
+
+        while ((lateMillis > 0) && (bucket < NUM_LATE_BUCKETS - 1)) {
+            lateMillis >>= 1;
+            ++bucket;
+        }
+        ++mLateHistogram[bucket];
+        if (lateNanos > mMaxLateNanos) {
+            mMaxLateNanos = lateNanos;
         }
     }
 
-    private class Event implements EventImplementation {
+    private class Event implements PeriodicEvent, Runnable {
 
         /*
          * Task, and run-count
@@ -387,65 +660,76 @@ public class GVRPeriodicEngine {
          */
         private boolean mCanceled = false;
 
+        /*
+         * Intrusive links into a timer wheel slot or the due list.
+         * mLevel is NOT_QUEUED when the event is in neither.
+         */
+        private Event mPrev = null;
+        private Event mNext = null;
+        private int mLevel = NOT_QUEUED;
+        private int mSlot = 0;
+        private long mSequence = 0;
+
         private void lockedEnqueue() {
             if (mCanceled != true) {
-                mQueue.add(this);
+                mSequence = mNextSequence++;
+                lockedInsert(this, false);
             }
         }
 
+        private boolean runsAfter(Event other) {
+            return (mDeadline > other.mDeadline)
+                    || ((mDeadline == other.mDeadline) && (mSequence > other.mSequence));
+        }
+
         private void lockedDequeue() {
-            mQueue.remove(this);
+            lockedUnlink(this);
         }
 
         private void enqueue() {
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedEnqueue();
             }
         }
 
-        @SuppressWarnings("unused")
-        private void dequeue() {
-            synchronized (mQueue) {
-                lockedDequeue();
-            }
-        }
-
         /*
          * Scheduling fields.
          * 
-         * A run-once event has an mPeriod == UNSCHEDULED.
+         * A run-once event has an mPeriod == 0.
          * 
          * We allow the user to change the scheduling at any time. To assure
          * consistency, neither constructors nor the rescheduling methods set
          * these fields directly: both go through setDelay() or setRepeat().
          */
 
-        private float mTimeBase;
-        private float mScheduledTime;
-        private float mPeriod;
+        private long mTimeBase;
+        private long mDeadline;
+        private boolean mScheduled;
+        private long mPeriod;
         private KeepRunning mCallback;
 
         private void setDelay(float delay) {
             mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = UNSCHEDULED;
+            schedule(mTimeBase + toNanos(delay));
+            mPeriod = 0;
             mCallback = null;
         }
 
         private void setRepeat(float delay, float period, KeepRunning callback) {
             mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = period;
+            schedule(mTimeBase + toNanos(delay));
+            mPeriod = Math.max(toNanos(period), 1);
             mCallback = callback;
         }
 
-        private void schedule(float time) {
-            mScheduledTime = time;
+        private void schedule(long time) {
+            mDeadline = time;
+            mScheduled = true;
             mCanceled = false;
         }
 
         private void deschedule() {
-            mScheduledTime = UNSCHEDULED;
+            mScheduled = false;
         }
 
         private void reschedule() {
@@ -454,31 +738,35 @@ public class GVRPeriodicEngine {
                     return; // Do NOT reschedule
                 }
 
-                float next = mTimeBase + (((now() - mTimeBase) / mPeriod) + 1)
-                        * mPeriod;
-                schedule(next);
-                enqueue();
+                /*
+                 * Next multiple of the period after the first execution,
+                 * so late frames do not make the event drift.
+                 */
+                long first = mDeadline;
+                long elapsed = Math.max(now() - first, 0);
+                long next = first + ((elapsed / mPeriod) + 1) * mPeriod;
+
+                synchronized (mLock) {
+                    if (mCanceled != true) {
+                        schedule(next);
+                        lockedEnqueue();
+                    }
+                }
             }
         }
 
         private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
-                }
+            synchronized (mLock) {
+                return mLevel != NOT_QUEUED;
             }
-            // else
-            return false;
         }
 
         private boolean scheduled() {
-            return mScheduledTime != UNSCHEDULED;
+            return mScheduled;
         }
 
         private boolean repeats() {
-            return mPeriod != UNSCHEDULED;
+            return mPeriod != 0;
         }
 
         /*
@@ -511,12 +799,12 @@ public class GVRPeriodicEngine {
 
         @Override
         public float getCurrentWait() {
-            return scheduled() ? mScheduledTime - now() : UNSCHEDULED;
+            return scheduled() ? (mDeadline - now()) / 1e9f : UNSCHEDULED;
         }
 
         @Override
         public void cancel() {
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 deschedule();
                 lockedDequeue();
                 mCanceled = true;
@@ -527,7 +815,7 @@ public class GVRPeriodicEngine {
         public void runAfter(float delay) {
             validateDelay(delay);
 
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedDequeue();
                 setDelay(delay);
                 lockedEnqueue();
@@ -550,32 +838,13 @@ public class GVRPeriodicEngine {
             validateDelay(delay);
             validatePeriod(period);
 
-            synchronized (mQueue) {
+            synchronized (mLock) {
                 lockedDequeue();
                 setRepeat(delay, period, callback);
                 lockedEnqueue();
             }
         }
 
-        /*
-         * EventImplementation
-         */
-
-        @Override
-        public float getScheduledTime() {
-            return mScheduledTime;
-        }
-
-        /*
-         * Comparable<EventImplementation>
-         */
-
-        @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
-        }
-
         /*
          * Runnable
          */
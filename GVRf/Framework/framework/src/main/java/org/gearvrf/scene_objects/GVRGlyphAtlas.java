@@ -0,0 +1,446 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import org.gearvrf.GVRBitmapImage;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRTexture;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Signed distance field glyph atlas shared by many text labels.
+ * <p>
+ * Each glyph is rasterized once, converted to a distance field and
+ * packed into a single gray scale image. The distance field stores
+ * 128 on the glyph outline, larger values inside the glyph and smaller
+ * values outside, so text stays sharp at any scale when rendered with
+ * {@link org.gearvrf.shaders.GVRSDFTextShader}.
+ * <p>
+ * Packing, distance field generation and text layout do not
+ * use the GPU. The texture is only created when it is first
+ * requested with {@link #getTexture(GVRContext)}.
+ * @see GVRTextBatchSceneObject
+ */
+public class GVRGlyphAtlas
+{
+    /**
+     * Placement and metrics of a single glyph.
+     * Metrics are in pixels at the atlas font size.
+     */
+    public static class Glyph
+    {
+        public final char code;
+        public int x;               // left edge in atlas
+        public int y;               // top edge in atlas
+        public final int width;     // width in atlas including padding
+        public final int height;    // height in atlas including padding
+        public final float left;    // offset of left edge from pen position
+        public final float top;     // offset of top edge above baseline
+        public final float advance; // distance to next pen position
+        public float u0, v0, u1, v1;
+
+        public Glyph(char code, int width, int height, float left, float top, float advance)
+        {
+            this.code = code;
+            this.width = width;
+            this.height = height;
+            this.left = left;
+            this.top = top;
+            this.advance = advance;
+        }
+    }
+
+    public static final String DEFAULT_CHARACTERS =
+            " !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~";
+
+    private static final int FLOATS_PER_VERTEX_POS = 3;
+    private static final int FLOATS_PER_VERTEX_UV = 2;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mSpread;
+    private final float mFontSize;
+    private final float mLineHeight;
+    private final byte[] mPixels;
+    private final Glyph[] mAsciiGlyphs = new Glyph[128];
+    private final HashMap<Character, Glyph> mOtherGlyphs = new HashMap<>();
+    private int mShelfX = 0;
+    private int mShelfY = 0;
+    private int mShelfHeight = 0;
+    private GVRTexture mTexture = null;
+
+    /**
+     * Construct an empty atlas.
+     *
+     * @param width      atlas width in pixels
+     * @param height     atlas height in pixels
+     * @param spread     maximum distance in pixels encoded in the distance field,
+     *                   also the padding around each glyph
+     * @param fontSize   font size in pixels glyphs are rasterized at
+     * @param lineHeight distance between baselines in pixels
+     */
+    public GVRGlyphAtlas(int width, int height, int spread, float fontSize, float lineHeight)
+    {
+        if ((width <= 0) || (height <= 0) || (spread <= 0) || (fontSize <= 0))
+        {
+            throw new IllegalArgumentException("Atlas dimensions, spread and font size must be positive");
+        }
+        mWidth = width;
+        mHeight = height;
+        mSpread = spread;
+        mFontSize = fontSize;
+        mLineHeight = lineHeight;
+        mPixels = new byte[width * height];
+    }
+
+    /**
+     * Rasterize a set of characters into a new distance field atlas.
+     *
+     * @param typeface   font to use, null for the default font
+     * @param characters characters to include in the atlas
+     * @param fontSize   font size in pixels to rasterize at
+     * @param atlasSize  width and height of the atlas in pixels
+     * @return atlas containing the characters which fit
+     */
+    public static GVRGlyphAtlas create(Typeface typeface, CharSequence characters, int fontSize, int atlasSize)
+    {
+        int spread = Math.max(2, fontSize / 8);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+        paint.setTypeface((typeface != null) ? typeface : Typeface.DEFAULT);
+        paint.setTextSize(fontSize);
+        paint.setColor(Color.WHITE);
+
+        Paint.FontMetrics fm = paint.getFontMetrics();
+        GVRGlyphAtlas atlas = new GVRGlyphAtlas(atlasSize, atlasSize, spread, fontSize,
+                                                fm.descent - fm.ascent + fm.leading);
+        Rect bounds = new Rect();
+        char[] chars = new char[1];
+
+        for (int i = 0; i < characters.length(); ++i)
+        {
+            chars[0] = characters.charAt(i);
+            paint.getTextBounds(chars, 0, 1, bounds);
+
+            float advance = paint.measureText(chars, 0, 1);
+            int w = bounds.isEmpty() ? 0 : bounds.width() + 2 * spread;
+            int h = bounds.isEmpty() ? 0 : bounds.height() + 2 * spread;
+            byte[] alpha = new byte[w * h];
+
+            if (!bounds.isEmpty())
+            {
+                Bitmap bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ALPHA_8);
+                Canvas canvas = new Canvas(bitmap);
+
+                canvas.drawText(chars, 0, 1, spread - bounds.left, spread - bounds.top, paint);
+                bitmap.copyPixelsToBuffer(ByteBuffer.wrap(alpha));
+                bitmap.recycle();
+            }
+            if (!atlas.addGlyph(chars[0], alpha, w, h, bounds.left - spread, spread - bounds.top, advance))
+            {
+                break;
+            }
+        }
+        return atlas;
+    }
+
+    public int getWidth() { return mWidth; }
+
+    public int getHeight() { return mHeight; }
+
+    public float getFontSize() { return mFontSize; }
+
+    public float getLineHeight() { return mLineHeight; }
+
+    /**
+     * Get the gray scale distance field pixels of the atlas.
+     * @return array of width * height bytes, one per pixel
+     */
+    public byte[] getPixels() { return mPixels; }
+
+    /**
+     * Find a glyph in the atlas.
+     * @param c character to look for
+     * @return glyph or null if the character is not in the atlas
+     */
+    public Glyph getGlyph(char c)
+    {
+        if (c < mAsciiGlyphs.length)
+        {
+            return mAsciiGlyphs[c];
+        }
+        return mOtherGlyphs.get(c);
+    }
+
+    /**
+     * Add a glyph to the atlas.
+     * <p>
+     * The coverage mask is converted to a distance field and copied
+     * into the next free location in the atlas. Glyphs are packed
+     * in rows ("shelves") from left to right and top to bottom.
+     * The texture is not updated if it has already been created.
+     *
+     * @param c       character code
+     * @param alpha   coverage of the glyph, width * height bytes including padding
+     * @param width   width of the glyph mask in pixels
+     * @param height  height of the glyph mask in pixels
+     * @param left    offset of the left edge of the mask from the pen position
+     * @param top     offset of the top edge of the mask above the baseline
+     * @param advance distance to the next pen position
+     * @return true if the glyph was added, false if the atlas is full
+     */
+    public boolean addGlyph(char c, byte[] alpha, int width, int height, float left, float top, float advance)
+    {
+        Glyph g = new Glyph(c, width, height, left, top, advance);
+
+        if (!pack(g))
+        {
+            return false;
+        }
+        byte[] field = computeDistanceField(alpha, width, height, mSpread);
+
+        for (int y = 0; y < height; ++y)
+        {
+            System.arraycopy(field, y * width, mPixels, (g.y + y) * mWidth + g.x, width);
+        }
+        if (c < mAsciiGlyphs.length)
+        {
+            mAsciiGlyphs[c] = g;
+        }
+        else
+        {
+            mOtherGlyphs.put(c, g);
+        }
+        return true;
+    }
+
+    /**
+     * Reserve space for a glyph in the atlas and compute its texture coordinates.
+     * @param g glyph to place
+     * @return true if there was room for the glyph
+     */
+    boolean pack(Glyph g)
+    {
+        if ((g.width > mWidth) || (g.height > mHeight))
+        {
+            return false;
+        }
+        if (mShelfX + g.width > mWidth)
+        {
+            mShelfY += mShelfHeight;
+            mShelfX = 0;
+            mShelfHeight = 0;
+        }
+        if (mShelfY + g.height > mHeight)
+        {
+            return false;
+        }
+        g.x = mShelfX;
+        g.y = mShelfY;
+        g.u0 = (float) g.x / mWidth;
+        g.v0 = (float) g.y / mHeight;
+        g.u1 = (float) (g.x + g.width) / mWidth;
+        g.v1 = (float) (g.y + g.height) / mHeight;
+        mShelfX += g.width;
+        mShelfHeight = Math.max(mShelfHeight, g.height);
+        return true;
+    }
+
+    /**
+     * Convert a coverage mask into a signed distance field.
+     * <p>
+     * A pixel is inside the glyph if its coverage is at least half.
+     * For each pixel the distance to the nearest pixel on the other
+     * side of the outline is found within the spread, and mapped
+     * to 0 - 255 with 128 on the outline.
+     *
+     * @param alpha  coverage mask, width * height bytes
+     * @param width  mask width in pixels
+     * @param height mask height in pixels
+     * @param spread maximum distance in pixels to search
+     * @return distance field, width * height bytes
+     */
+    public static byte[] computeDistanceField(byte[] alpha, int width, int height, int spread)
+    {
+        byte[] field = new byte[width * height];
+        int maxDistSq = spread * spread;
+
+        for (int y = 0; y < height; ++y)
+        {
+            for (int x = 0; x < width; ++x)
+            {
+                boolean inside = (alpha[y * width + x] & 0xFF) >= 128;
+                int minDistSq = maxDistSq;
+
+                for (int dy = -spread; dy <= spread; ++dy)
+                {
+                    int sy = y + dy;
+                    if ((sy < 0) || (sy >= height) || (dy * dy >= minDistSq))
+                    {
+                        continue;
+                    }
+                    for (int dx = -spread; dx <= spread; ++dx)
+                    {
+                        int sx = x + dx;
+                        int d = dx * dx + dy * dy;
+
+                        if ((sx < 0) || (sx >= width) || (d >= minDistSq))
+                        {
+                            continue;
+                        }
+                        if (((alpha[sy * width + sx] & 0xFF) >= 128) != inside)
+                        {
+                            minDistSq = d;
+                        }
+                    }
+                }
+                float dist = (float) Math.sqrt(minDistSq) / spread;
+                float value = inside ? 0.5f + 0.5f * dist : 0.5f - 0.5f * dist;
+                field[y * width + x] = (byte) Math.min(255, Math.round(value * 255));
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Get the width of a line of text.
+     * @param text text to measure
+     * @param size height of an em in scene units
+     * @return width of the widest line in scene units
+     */
+    public float measure(CharSequence text, float size)
+    {
+        float scale = size / mFontSize;
+        float width = 0;
+        float maxWidth = 0;
+
+        for (int i = 0; i < text.length(); ++i)
+        {
+            char c = text.charAt(i);
+
+            if (c == '\n')
+            {
+                maxWidth = Math.max(maxWidth, width);
+                width = 0;
+                continue;
+            }
+            Glyph g = getGlyph(c);
+            if (g != null)
+            {
+                width += g.advance * scale;
+            }
+        }
+        return Math.max(maxWidth, width);
+    }
+
+    /**
+     * Generate quads for a string of text.
+     * <p>
+     * Each glyph becomes a quad of four vertices (top left, bottom left,
+     * bottom right, top right) in the XY plane. Characters which are not
+     * in the atlas are skipped. Quads which are not needed for the text
+     * are collapsed to a point so they do not render.
+     *
+     * @param text      text to lay out, '\n' starts a new line
+     * @param x         X coordinate of pen position at the start of the first line
+     * @param y         Y coordinate of the baseline of the first line
+     * @param z         Z coordinate of the text
+     * @param size      height of an em in scene units
+     * @param positions destination for vertex positions, 12 floats per quad
+     * @param texcoords destination for texture coordinates, 8 floats per quad
+     * @param firstQuad index of the first quad to write
+     * @param maxQuads  number of quads reserved for this text
+     * @return number of glyphs written
+     */
+    public int layout(CharSequence text, float x, float y, float z, float size,
+                      float[] positions, float[] texcoords, int firstQuad, int maxQuads)
+    {
+        float scale = size / mFontSize;
+        float penX = x;
+        float penY = y;
+        int q = 0;
+
+        for (int i = 0; (i < text.length()) && (q < maxQuads); ++i)
+        {
+            char c = text.charAt(i);
+
+            if (c == '\n')
+            {
+                penX = x;
+                penY -= mLineHeight * scale;
+                continue;
+            }
+            Glyph g = getGlyph(c);
+            if (g == null)
+            {
+                continue;
+            }
+            if ((g.width > 0) && (g.height > 0))
+            {
+                float left = penX + g.left * scale;
+                float top = penY + g.top * scale;
+                float right = left + g.width * scale;
+                float bottom = top - g.height * scale;
+                int p = (firstQuad + q) * 4 * FLOATS_PER_VERTEX_POS;
+                int t = (firstQuad + q) * 4 * FLOATS_PER_VERTEX_UV;
+
+                positions[p++] = left;  positions[p++] = top;    positions[p++] = z;
+                positions[p++] = left;  positions[p++] = bottom; positions[p++] = z;
+                positions[p++] = right; positions[p++] = bottom; positions[p++] = z;
+                positions[p++] = right; positions[p++] = top;    positions[p] = z;
+                texcoords[t++] = g.u0;  texcoords[t++] = g.v0;
+                texcoords[t++] = g.u0;  texcoords[t++] = g.v1;
+                texcoords[t++] = g.u1;  texcoords[t++] = g.v1;
+                texcoords[t++] = g.u1;  texcoords[t] = g.v0;
+                ++q;
+            }
+            penX += g.advance * scale;
+        }
+        int n = q;
+        for (; q < maxQuads; ++q)
+        {
+            int p = (firstQuad + q) * 4 * FLOATS_PER_VERTEX_POS;
+            for (int j = 0; j < 4 * FLOATS_PER_VERTEX_POS; ++j)
+            {
+                positions[p + j] = 0;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Get the texture containing the atlas, creating it if necessary.
+     * @param ctx GVRContext to create the texture with
+     * @return texture with the distance field in the red channel
+     */
+    public GVRTexture getTexture(GVRContext ctx)
+    {
+        if (mTexture == null)
+        {
+            mTexture = new GVRTexture(new GVRBitmapImage(ctx, mWidth, mHeight, mPixels));
+        }
+        return mTexture;
+    }
+}
@@ -0,0 +1,246 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRSceneObject;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Renders many text labels with a single draw call using
+ * a shared signed distance field glyph atlas.
+ * <p>
+ * Each label reserves room for a maximum number of characters
+ * in one shared mesh. Changing the text of a label only rewrites
+ * the vertices of that label and the vertex buffer is uploaded
+ * once per frame, no matter how many labels changed. Unlike
+ * {@link GVRTextViewSceneObject} no bitmap is drawn or uploaded
+ * when the text changes.
+ * <p>
+ * All of the labels share the same color and font.
+ * Label positions are relative to this scene object.
+ * @see GVRGlyphAtlas
+ */
+public class GVRTextBatchSceneObject extends GVRSceneObject
+{
+    private static class Label
+    {
+        CharSequence text;
+        float x, y, z;
+        float size;
+        int firstQuad;
+        int maxQuads;
+    }
+
+    private final GVRGlyphAtlas mAtlas;
+    private final ArrayList<Label> mLabels = new ArrayList<>();
+    private float[] mPositions = new float[0];
+    private float[] mTexCoords = new float[0];
+    private int mNumQuads = 0;
+    private boolean mVerticesChanged = false;
+    private boolean mIndicesChanged = false;
+
+    /**
+     * Create an empty text batch.
+     *
+     * @param gvrContext current {@link GVRContext}
+     * @param atlas      glyph atlas with the characters to display
+     */
+    public GVRTextBatchSceneObject(GVRContext gvrContext, GVRGlyphAtlas atlas)
+    {
+        super(gvrContext, new GVRMesh(gvrContext, "float3 a_position float2 a_texcoord"),
+              new GVRMaterial(gvrContext, GVRMaterial.GVRShaderType.SDFText.ID));
+        mAtlas = atlas;
+
+        GVRRenderData rdata = getRenderData();
+        rdata.getMaterial().setMainTexture(atlas.getTexture(gvrContext));
+        rdata.setAlphaBlend(true);
+        rdata.setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        gvrContext.registerDrawFrameListener(new GVRDrawFrameListenerImpl(this));
+    }
+
+    public GVRGlyphAtlas getAtlas() { return mAtlas; }
+
+    /**
+     * Set the color of all the labels.
+     */
+    public void setTextColor(float r, float g, float b)
+    {
+        getRenderData().getMaterial().setVec3("u_color", r, g, b);
+    }
+
+    /**
+     * Add a label to the batch.
+     *
+     * @param text     initial text of the label
+     * @param maxChars maximum number of visible characters the label can hold
+     * @param x        X coordinate of the start of the baseline
+     * @param y        Y coordinate of the start of the baseline
+     * @param z        Z coordinate of the label
+     * @param size     height of an em in scene units
+     * @return index of the new label
+     */
+    public int addLabel(CharSequence text, int maxChars, float x, float y, float z, float size)
+    {
+        Label label = new Label();
+
+        label.text = text;
+        label.x = x;
+        label.y = y;
+        label.z = z;
+        label.size = size;
+        label.firstQuad = mNumQuads;
+        label.maxQuads = maxChars;
+        mLabels.add(label);
+        mNumQuads += maxChars;
+        ensureCapacity(mNumQuads);
+        mAtlas.layout(text, x, y, z, size, mPositions, mTexCoords, label.firstQuad, label.maxQuads);
+        mVerticesChanged = true;
+        mIndicesChanged = true;
+        return mLabels.size() - 1;
+    }
+
+    public int getLabelCount() { return mLabels.size(); }
+
+    public CharSequence getText(int labelIndex)
+    {
+        return mLabels.get(labelIndex).text;
+    }
+
+    /**
+     * Change the text of a label.
+     * Characters beyond the maximum given when the label was added are not shown.
+     *
+     * @param labelIndex index of label returned by {@link #addLabel}
+     * @param text       new text
+     */
+    public void setText(int labelIndex, CharSequence text)
+    {
+        Label label = mLabels.get(labelIndex);
+
+        label.text = text;
+        updateLabel(label);
+    }
+
+    /**
+     * Move a label.
+     *
+     * @param labelIndex index of label returned by {@link #addLabel}
+     */
+    public void setLabelPosition(int labelIndex, float x, float y, float z)
+    {
+        Label label = mLabels.get(labelIndex);
+
+        label.x = x;
+        label.y = y;
+        label.z = z;
+        updateLabel(label);
+    }
+
+    private void updateLabel(Label label)
+    {
+        mAtlas.layout(label.text, label.x, label.y, label.z, label.size,
+                      mPositions, mTexCoords, label.firstQuad, label.maxQuads);
+        mVerticesChanged = true;
+    }
+
+    private void ensureCapacity(int numQuads)
+    {
+        int n = numQuads * 4 * 3;
+
+        if (mPositions.length >= n)
+        {
+            return;
+        }
+        n = Math.max(n, mPositions.length * 2);
+        float[] positions = new float[n];
+        float[] texcoords = new float[n / 3 * 2];
+
+        System.arraycopy(mPositions, 0, positions, 0, mPositions.length);
+        System.arraycopy(mTexCoords, 0, texcoords, 0, mTexCoords.length);
+        mPositions = positions;
+        mTexCoords = texcoords;
+    }
+
+    /**
+     * Upload the vertices of all changed labels to the mesh.
+     * This is called automatically once per frame.
+     */
+    public void flush()
+    {
+        GVRMesh mesh = getRenderData().getMesh();
+
+        if (mIndicesChanged)
+        {
+            int numQuads = mPositions.length / 12;
+            int[] indices = new int[numQuads * 6];
+
+            for (int q = 0, i = 0; q < numQuads; ++q)
+            {
+                int v = q * 4;
+                indices[i++] = v;
+                indices[i++] = v + 1;
+                indices[i++] = v + 2;
+                indices[i++] = v;
+                indices[i++] = v + 2;
+                indices[i++] = v + 3;
+            }
+            mesh.setVertices(mPositions);
+            mesh.setTexCoords(mTexCoords);
+            mesh.setIndices(indices);
+            mIndicesChanged = false;
+            mVerticesChanged = false;
+        }
+        else if (mVerticesChanged)
+        {
+            mesh.setVertices(mPositions);
+            mesh.setTexCoords(mTexCoords);
+            mVerticesChanged = false;
+        }
+    }
+
+    private static final class GVRDrawFrameListenerImpl implements GVRDrawFrameListener
+    {
+        GVRDrawFrameListenerImpl(final GVRTextBatchSceneObject sceneObject)
+        {
+            mRef = new WeakReference<GVRTextBatchSceneObject>(sceneObject);
+            mContext = sceneObject.getGVRContext();
+        }
+
+        @Override
+        public void onDrawFrame(float frameTime)
+        {
+            final GVRTextBatchSceneObject sceneObject = mRef.get();
+            if (null != sceneObject)
+            {
+                sceneObject.flush();
+            }
+            else
+            {
+                mContext.unregisterDrawFrameListener(this);
+            }
+        }
+
+        private final WeakReference<GVRTextBatchSceneObject> mRef;
+        private final GVRContext mContext;
+    }
+}
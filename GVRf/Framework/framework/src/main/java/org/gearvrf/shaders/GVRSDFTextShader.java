@@ -0,0 +1,60 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.shaders;
+
+import android.content.Context;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRShaderData;
+import org.gearvrf.GVRShaderTemplate;
+import org.gearvrf.R;
+import org.gearvrf.utility.TextFile;
+
+/**
+ * Shader which renders text from a signed distance field glyph atlas.
+ * The distance field is stored in the red channel of the texture,
+ * 0.5 is on the glyph outline.
+ * This shader ignores light sources.
+ * @<code>
+ *     a_position   position vertex attribute
+ *     a_texcoord   texture coordinate vertex attribute
+ *     u_color      text color
+ *     u_opacity    opacity
+ *     u_edge       distance value of the glyph outline
+ *     u_smoothing  half width of the anti-aliased edge
+ *     u_texture    distance field glyph atlas
+ * </code>
+ * @see org.gearvrf.scene_objects.GVRGlyphAtlas
+ */
+public class GVRSDFTextShader extends GVRShaderTemplate
+{
+    public GVRSDFTextShader(GVRContext gvrContext)
+    {
+        super("float3 u_color float u_opacity float u_edge float u_smoothing", "sampler2D u_texture",
+              "float3 a_position float2 a_texcoord", GLSLESVersion.VULKAN);
+        Context context = gvrContext.getContext();
+        setSegment("FragmentTemplate", TextFile.readTextFile(context, R.raw.sdf_text_frag));
+        setSegment("VertexTemplate", TextFile.readTextFile(context, R.raw.pos_tex_ubo));
+    }
+
+    protected void setMaterialDefaults(GVRShaderData material)
+    {
+        material.setVec3("u_color", 1, 1, 1);
+        material.setFloat("u_opacity", 1);
+        material.setFloat("u_edge", 0.5f);
+        material.setFloat("u_smoothing", 0.06f);
+    }
+}
@@ -0,0 +1,722 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+/**
+ * Disk cache for files downloaded from the network.
+ * <p>
+ * {@link #fetch(URL)} returns a local copy of a URL, downloading it if
+ * necessary. The cache:
+ * <ul>
+ * <li>limits the number of downloads running at the same time; callers
+ * beyond the limit wait for a download to finish.</li>
+ * <li>combines requests for the same URL: if a URL is already being
+ * downloaded, later callers wait for that download instead of starting
+ * another.</li>
+ * <li>keeps the total size of the cached files under a byte limit,
+ * removing the least recently used files first. Files returned by
+ * {@link #acquire(URL)} are not removed until they are released.
+ * Partial downloads which have not been resumed for a day are
+ * removed too.</li>
+ * <li>revalidates cached files with {@code If-None-Match} and
+ * {@code If-Modified-Since} once they are older than the revalidation
+ * interval. If the server cannot be reached the cached copy is used.</li>
+ * <li>resumes interrupted downloads with a {@code Range} request if the
+ * server still has the same version of the file.</li>
+ * </ul>
+ * The cache only depends on a directory so it can be pointed at a
+ * local HTTP server for testing.
+ */
+public class DownloadCache {
+    private static final String TAG = Log.tag(DownloadCache.class);
+
+    /** Default limit on the total size of the cached files */
+    public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+    /** Default limit on the number of concurrent downloads */
+    public static final int DEFAULT_MAX_DOWNLOADS = 4;
+
+    /** Default time a cached file is used without asking the server */
+    public static final long DEFAULT_REVALIDATE_MILLIS = 5 * 60 * 1000;
+
+    private static final String CACHE_DIR = "downloads";
+    private static final String META_SUFFIX = ".meta";
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TIMEOUT_MILLIS = 30 * 1000;
+    private static final long STALE_PART_MILLIS = 24 * 60 * 60 * 1000;
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+
+    /*
+     * Downloads used to be kept in the application cache directory,
+     * named after the name based UUID of the URL followed by the
+     * file name of the URL.
+     */
+    private static final Pattern OLD_DOWNLOAD_NAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-3[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}.*");
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_VALIDATED = "validated";
+
+    private static DownloadCache sInstance = null;
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+    private final Semaphore mDownloadPermits;
+    private volatile long mRevalidateMillis = DEFAULT_REVALIDATE_MILLIS;
+
+    /*
+     * Cached files in least recently used order, guarded by "this".
+     */
+    private final LinkedHashMap<String, Entry> mEntries =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long mTotalBytes = 0;
+
+    /*
+     * Downloads in progress, guarded by itself.
+     */
+    private final HashMap<String, FutureTask<File>> mPending =
+            new HashMap<String, FutureTask<File>>();
+
+    private static class Entry {
+        final String key;
+        String etag;
+        String lastModified;
+        long validated;
+        long length;
+        int pins;
+
+        Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Get the shared download cache, which keeps its files in a
+     * subdirectory of the given directory.
+     *
+     * @param cacheDir
+     *            Application cache directory.
+     * @return Download cache singleton.
+     */
+    public static synchronized DownloadCache getInstance(File cacheDir) {
+        if (sInstance == null) {
+            sInstance = new DownloadCache(new File(cacheDir, CACHE_DIR),
+                    DEFAULT_MAX_BYTES, DEFAULT_MAX_DOWNLOADS);
+            deleteOldDownloads(cacheDir);
+        }
+        return sInstance;
+    }
+
+    /*
+     * Delete the files downloaded into the application cache directory
+     * before this cache existed, which would never be removed otherwise.
+     * The cache keeps its own files in a subdirectory.
+     */
+    private static void deleteOldDownloads(File cacheDir) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.isFile() && OLD_DOWNLOAD_NAME.matcher(f.getName()).matches()) {
+                Log.d(TAG, "Deleting old download %s", f.getName());
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Create a download cache.
+     *
+     * @param directory
+     *            Directory for downloaded files. Files left there by a
+     *            previous cache are reused; other files are deleted,
+     *            so the directory must not be shared.
+     * @param maxBytes
+     *            Limit on the total size of the cached files.
+     * @param maxDownloads
+     *            Limit on the number of concurrent downloads.
+     */
+    public DownloadCache(File directory, long maxBytes, int maxDownloads) {
+        if (maxBytes <= 0) {
+            throw Exceptions.IllegalArgument("maxBytes must be > 0");
+        }
+        if (maxDownloads <= 0) {
+            throw Exceptions.IllegalArgument("maxDownloads must be > 0");
+        }
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+        mDownloadPermits = new Semaphore(maxDownloads, true);
+        mDirectory.mkdirs();
+        scan();
+    }
+
+    /**
+     * Set how long a cached file is used before the server is asked
+     * whether it has changed.
+     *
+     * @param millis
+     *            Revalidation interval in milliseconds, 0 to ask every time.
+     */
+    public void setRevalidateInterval(long millis) {
+        mRevalidateMillis = millis;
+    }
+
+    /**
+     * Get the total size of the files in the cache.
+     *
+     * @return number of bytes used by complete downloads
+     */
+    public synchronized long getSize() {
+        return mTotalBytes;
+    }
+
+    /**
+     * Get a local copy of a URL, downloading it if it is not in the
+     * cache or has changed on the server. Blocks until the file is
+     * available.
+     *
+     * @param url
+     *            URL to fetch.
+     * @return Local file with the contents of the URL.
+     * @throws IOException
+     *             if the file is not cached and cannot be downloaded.
+     */
+    public File fetch(final URL url) throws IOException {
+        final String key = getKey(url);
+        FutureTask<File> task;
+        boolean owner = false;
+
+        synchronized (mPending) {
+            task = mPending.get(key);
+            if (task == null) {
+                task = new FutureTask<File>(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        return load(url, key);
+                    }
+                });
+                mPending.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (mPending) {
+                    mPending.remove(key);
+                }
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted fetching " + url);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Cannot fetch " + url, cause);
+        }
+    }
+
+    /**
+     * Get a local copy of a URL like {@link #fetch(URL)} and keep it in
+     * the cache until {@link #release(File)} is called.
+     * <p>
+     * A file returned by {@link #fetch(URL)} can be removed as soon as
+     * other downloads need the space. Use this function when the file
+     * is not opened right away, and release it once it is open or no
+     * longer needed.
+     *
+     * @param url
+     *            URL to fetch.
+     * @return Local file with the contents of the URL.
+     * @throws IOException
+     *             if the file is not cached and cannot be downloaded.
+     */
+    public File acquire(URL url) throws IOException {
+        final String key = getKey(url);
+
+        for (int i = 0; i < MAX_ACQUIRE_ATTEMPTS; ++i) {
+            File file = fetch(url);
+
+            synchronized (this) {
+                Entry entry = mEntries.get(key);
+
+                if ((entry != null) && file.exists()) {
+                    ++entry.pins;
+                    return file;
+                }
+            }
+            Log.d(TAG, "%s was removed before it could be acquired, fetching again", url);
+        }
+        throw new IOException("Cannot keep " + url + " in the cache");
+    }
+
+    /**
+     * Let the cache remove a file returned by {@link #acquire(URL)}.
+     *
+     * @param file
+     *            File returned by {@link #acquire(URL)}.
+     */
+    public synchronized void release(File file) {
+        Entry entry = mEntries.get(file.getName());
+
+        if ((entry != null) && (entry.pins > 0)) {
+            if ((--entry.pins == 0) && (mTotalBytes > mMaxBytes)) {
+                trim(null);
+            }
+        }
+    }
+
+    /**
+     * Fetch a URL on a background thread.
+     *
+     * @param url
+     *            URL to fetch.
+     * @return A future for the local file.
+     * @see #fetch(URL)
+     */
+    public Future<File> fetchAsync(final URL url) {
+        return Threads.spawn(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                return fetch(url);
+            }
+        });
+    }
+
+    /**
+     * Remove all of the files from the cache except the ones
+     * which are acquired.
+     */
+    public synchronized void clear() {
+        Iterator<Entry> iter = mEntries.values().iterator();
+
+        while (iter.hasNext()) {
+            Entry entry = iter.next();
+
+            if (entry.pins == 0) {
+                iter.remove();
+                mTotalBytes -= entry.length;
+                deleteFiles(entry.key);
+            }
+        }
+    }
+
+    private File load(URL url, String key) throws IOException {
+        Entry entry;
+        File file = new File(mDirectory, key);
+
+        synchronized (this) {
+            entry = mEntries.get(key);
+            if ((entry != null) && !file.exists()) {
+                removeEntry(entry);
+                entry = null;
+            }
+        }
+        if ((entry != null)
+                && (System.currentTimeMillis() - entry.validated < mRevalidateMillis)) {
+            return touch(file);
+        }
+        try {
+            mDownloadPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to download " + url);
+        }
+        try {
+            return download(url, key, entry);
+        } finally {
+            mDownloadPermits.release();
+        }
+    }
+
+    private File download(URL url, String key, Entry cached) throws IOException {
+        File file = new File(mDirectory, key);
+        File part = new File(mDirectory, key + PART_SUFFIX);
+        File partMeta = new File(mDirectory, key + PART_SUFFIX + META_SUFFIX);
+        URLConnection conn = url.openConnection();
+        HttpURLConnection http = (conn instanceof HttpURLConnection) ? (HttpURLConnection) conn : null;
+        long resumeFrom = 0;
+        int status = HttpURLConnection.HTTP_OK;
+
+        conn.setConnectTimeout(TIMEOUT_MILLIS);
+        conn.setReadTimeout(TIMEOUT_MILLIS);
+        if (http != null) {
+            if (cached != null) {
+                if (cached.etag != null) {
+                    conn.setRequestProperty("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    conn.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            } else if (part.length() > 0) {
+                Properties meta = readMeta(partMeta);
+                String validator = (meta != null) ? meta.getProperty(KEY_ETAG) : null;
+
+                if ((validator == null) && (meta != null)) {
+                    validator = meta.getProperty(KEY_LAST_MODIFIED);
+                }
+                if (validator != null) {
+                    resumeFrom = part.length();
+                    conn.setRequestProperty("Range", "bytes=" + resumeFrom + "-");
+                    conn.setRequestProperty("If-Range", validator);
+                }
+            }
+        }
+        try {
+            try {
+                conn.connect();
+                if (http != null) {
+                    status = http.getResponseCode();
+                }
+            } catch (IOException e) {
+                if (cached != null) {
+                    Log.w(TAG, "Cannot revalidate %s, using cached copy: %s", url, e.getMessage());
+                    return touch(file);
+                }
+                throw e;
+            }
+            if ((status == HttpURLConnection.HTTP_NOT_MODIFIED) && (cached != null)) {
+                Log.d(TAG, "%s not modified", url);
+                synchronized (this) {
+                    cached.validated = System.currentTimeMillis();
+                    writeMeta(new File(mDirectory, key + META_SUFFIX), url, cached);
+                }
+                return touch(file);
+            }
+            if ((status == HttpURLConnection.HTTP_PARTIAL) && (resumeFrom > 0)) {
+                long start = getRangeStart(conn.getHeaderField("Content-Range"));
+
+                if (start != resumeFrom) {
+                    Log.w(TAG, "Server resumed %s at %d instead of %d, downloading it again",
+                          url, start, resumeFrom);
+                    http.disconnect();
+                    part.delete();
+                    partMeta.delete();
+                    return download(url, key, null);
+                }
+                Log.d(TAG, "Resuming %s at %d", url, resumeFrom);
+            } else if (status == HttpURLConnection.HTTP_OK) {
+                resumeFrom = 0;
+            } else {
+                if ((cached != null) && (status >= HttpURLConnection.HTTP_INTERNAL_ERROR)) {
+                    Log.w(TAG, "HTTP %d revalidating %s, using cached copy", status, url);
+                    return touch(file);
+                }
+                throw new IOException("HTTP " + status + " downloading " + url);
+            }
+
+            Entry entry = new Entry(key);
+            entry.etag = conn.getHeaderField("ETag");
+            entry.lastModified = conn.getHeaderField("Last-Modified");
+
+            /*
+             * Save the validators first so an interrupted
+             * download can be resumed later.
+             */
+            writeMeta(partMeta, url, entry);
+            long expected = conn.getContentLength();
+            long length = copy(conn.getInputStream(), part, resumeFrom > 0);
+
+            if ((expected >= 0) && (length < resumeFrom + expected)) {
+                throw new IOException("Download of " + url + " truncated at " + length + " bytes");
+            }
+            entry.length = length;
+            entry.validated = System.currentTimeMillis();
+            return commit(url, entry, part, partMeta);
+        } finally {
+            if (http != null) {
+                http.disconnect();
+            }
+        }
+    }
+
+    /*
+     * Get the first byte position from a "bytes first-last/length"
+     * Content-Range header, or -1 if it is missing or malformed.
+     */
+    private static long getRangeStart(String contentRange) {
+        if ((contentRange == null) || !contentRange.startsWith("bytes ")) {
+            return -1;
+        }
+        int dash = contentRange.indexOf('-');
+        if (dash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /*
+     * Move a completed download into place and add it to the index.
+     */
+    private synchronized File commit(URL url, Entry entry, File part, File partMeta) throws IOException {
+        File file = new File(mDirectory, entry.key);
+        Entry old = mEntries.get(entry.key);
+
+        if (old != null) {
+            entry.pins = old.pins;
+            removeEntry(old);
+        }
+        file.delete();
+        if (!part.renameTo(file)) {
+            throw new IOException("Cannot move download of " + url + " into the cache");
+        }
+        partMeta.delete();
+        writeMeta(new File(mDirectory, entry.key + META_SUFFIX), url, entry);
+        mEntries.put(entry.key, entry);
+        mTotalBytes += entry.length;
+        trim(entry);
+        Log.d(TAG, "Downloaded %s, %d bytes, cache %d bytes", url, entry.length, mTotalBytes);
+        return file;
+    }
+
+    /*
+     * Remove least recently used files until the cache fits.
+     * The newest file and acquired files are kept even if
+     * the cache is still too big without them.
+     */
+    private void trim(Entry keep) {
+        Iterator<Entry> iter = mEntries.values().iterator();
+
+        while ((mTotalBytes > mMaxBytes) && iter.hasNext()) {
+            Entry entry = iter.next();
+
+            if ((entry != keep) && (entry.pins == 0)) {
+                iter.remove();
+                mTotalBytes -= entry.length;
+                deleteFiles(entry.key);
+            }
+        }
+        trimParts(mTotalBytes > mMaxBytes);
+    }
+
+    /*
+     * Remove partial downloads which are not being downloaded and have
+     * not been resumed for a day, or all of them if the cache is still
+     * too big.
+     */
+    private void trimParts(boolean all) {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long staleTime = System.currentTimeMillis() - STALE_PART_MILLIS;
+
+        for (File f : files) {
+            String name = f.getName();
+
+            if (!name.endsWith(PART_SUFFIX)) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - PART_SUFFIX.length());
+
+            synchronized (mPending) {
+                if (mPending.containsKey(key)) {
+                    continue;
+                }
+            }
+            if (all || (f.lastModified() < staleTime)) {
+                f.delete();
+                new File(mDirectory, name + META_SUFFIX).delete();
+            }
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        mEntries.remove(entry.key);
+        mTotalBytes -= entry.length;
+        deleteFiles(entry.key);
+    }
+
+    private void deleteFiles(String key) {
+        new File(mDirectory, key).delete();
+        new File(mDirectory, key + META_SUFFIX).delete();
+    }
+
+    private File touch(File file) {
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /*
+     * Rebuild the index from the files left by a previous run,
+     * oldest first.
+     */
+    private synchronized void scan() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> data = new ArrayList<File>();
+
+        for (File f : files) {
+            String name = f.getName();
+
+            if (name.endsWith(PART_SUFFIX + META_SUFFIX)) {
+                if (!new File(mDirectory, name.substring(0, name.length() - META_SUFFIX.length())).exists()) {
+                    f.delete();
+                }
+                continue;
+            }
+            if (name.endsWith(META_SUFFIX) || name.endsWith(PART_SUFFIX)) {
+                continue;
+            }
+            if (!new File(mDirectory, name + META_SUFFIX).exists()) {
+                f.delete();
+                continue;
+            }
+            data.add(f);
+        }
+        Collections.sort(data, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long ta = a.lastModified();
+                long tb = b.lastModified();
+                return (ta < tb) ? -1 : ((ta == tb) ? 0 : 1);
+            }
+        });
+        for (File f : data) {
+            Properties meta = readMeta(new File(mDirectory, f.getName() + META_SUFFIX));
+            if (meta == null) {
+                f.delete();
+                continue;
+            }
+            Entry entry = new Entry(f.getName());
+            entry.etag = meta.getProperty(KEY_ETAG);
+            entry.lastModified = meta.getProperty(KEY_LAST_MODIFIED);
+            try {
+                entry.validated = Long.parseLong(meta.getProperty(KEY_VALIDATED, "0"));
+            } catch (NumberFormatException e) {
+                entry.validated = 0;
+            }
+            entry.length = f.length();
+            mEntries.put(entry.key, entry);
+            mTotalBytes += entry.length;
+        }
+        trim(null);
+    }
+
+    private static long copy(InputStream in, File file, boolean append) throws IOException {
+        OutputStream out = new FileOutputStream(file, append);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+
+        try {
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+            }
+            out.close();
+        }
+        return file.length();
+    }
+
+    private static Properties readMeta(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        InputStream in = null;
+
+        try {
+            in = new FileInputStream(file);
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private static void writeMeta(File file, URL url, Entry entry) throws IOException {
+        Properties meta = new Properties();
+        OutputStream out = new FileOutputStream(file);
+
+        meta.setProperty(KEY_URL, url.toString());
+        if (entry.etag != null) {
+            meta.setProperty(KEY_ETAG, entry.etag);
+        }
+        if (entry.lastModified != null) {
+            meta.setProperty(KEY_LAST_MODIFIED, entry.lastModified);
+        }
+        meta.setProperty(KEY_VALIDATED, Long.toString(entry.validated));
+        try {
+            meta.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+
+    /*
+     * The cache file name is a hash of the URL followed by the
+     * URL file name, so the file keeps its extension.
+     */
+    private static String getKey(URL url) {
+        String urlString = url.toString();
+
+        return UUID.nameUUIDFromBytes(urlString.getBytes()).toString()
+                + FileNameUtils.getURLFilename(urlString);
+    }
+}
@@ -0,0 +1,609 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Reorders indexed triangle lists for the GPU vertex cache.
+ * <p>
+ * The optimizer works on plain Java arrays so it can be used on any
+ * mesh, not just the ones imported by Assimp, and can be run and
+ * measured outside of Android. {@link MeshUtils#optimize} applies it
+ * to a {@link org.gearvrf.GVRMesh}.
+ * <p>
+ * An optimization pass does the following:
+ * <ul>
+ * <li>welds vertices whose attributes are bitwise identical</li>
+ * <li>reorders the triangles with Tipsify (Sander, Nehab and Barczak 2007)
+ *     for a FIFO vertex cache of {@link #setCacheSize(int) the given size}</li>
+ * <li>optionally groups the triangles into clusters and sorts the clusters
+ *     so outward facing ones are drawn first, reducing overdraw</li>
+ * <li>renumbers the vertices in the order they are first used
+ *     so vertex fetch is sequential, dropping unused vertices</li>
+ * </ul>
+ * The average cache miss ratio (ACMR, misses per triangle) and the
+ * average transformed vertex ratio (ATVR, misses per vertex) are
+ * computed before and after so the gain can be checked.
+ * <p>
+ * Vertex order changes, so meshes with blend shapes should not be optimized
+ * unless the blend shape data is passed in as vertex attributes too.
+ */
+public class MeshOptimizer {
+    public static final int DEFAULT_CACHE_SIZE = 16;
+
+    /**
+     * Vertex cache statistics for an indexed triangle list.
+     */
+    public static class Stats {
+        public final int triangles;
+        public final int vertices;
+        public final int misses;
+
+        Stats(int triangles, int vertices, int misses) {
+            this.triangles = triangles;
+            this.vertices = vertices;
+            this.misses = misses;
+        }
+
+        /**
+         * @return average number of cache misses per triangle (0.5 best, 3 worst)
+         */
+        public float getACMR() {
+            return (triangles > 0) ? (float) misses / triangles : 0.0f;
+        }
+
+        /**
+         * @return average number of times each vertex is transformed (1 best)
+         */
+        public float getATVR() {
+            return (vertices > 0) ? (float) misses / vertices : 0.0f;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d triangles, %d vertices, ACMR %.3f, ATVR %.3f",
+                    triangles, vertices, getACMR(), getATVR());
+        }
+    }
+
+    private int mCacheSize = DEFAULT_CACHE_SIZE;
+    private boolean mWeld = true;
+    private float mOverdrawThreshold = 0.0f;
+    private int mVertexCount;
+    private Stats mBefore;
+    private Stats mAfter;
+
+    /**
+     * Set the number of entries in the simulated FIFO vertex cache.
+     * @param size cache size, defaults to {@link #DEFAULT_CACHE_SIZE}
+     */
+    public MeshOptimizer setCacheSize(int size) {
+        if (size < 3) {
+            throw new IllegalArgumentException("Vertex cache must hold at least one triangle");
+        }
+        mCacheSize = size;
+        return this;
+    }
+
+    public int getCacheSize() {
+        return mCacheSize;
+    }
+
+    /**
+     * Enable or disable welding of identical vertices (enabled by default).
+     */
+    public MeshOptimizer setWeld(boolean weld) {
+        mWeld = weld;
+        return this;
+    }
+
+    /**
+     * Enable overdraw aware cluster ordering.
+     * <p>
+     * The cache optimized triangles are split into clusters wherever the
+     * ACMR of the cluster is within <i>threshold</i> times the ACMR of the
+     * whole mesh. The clusters are then sorted so the ones facing away
+     * from the center of the mesh are drawn first. Larger thresholds give
+     * more clusters, which reduces overdraw at the cost of cache efficiency.
+     * @param threshold ACMR ratio, usually around 1.05. Zero (the default)
+     *                  disables cluster ordering.
+     */
+    public MeshOptimizer setOverdrawThreshold(float threshold) {
+        mOverdrawThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * @return cache statistics of the input to the last optimization
+     */
+    public Stats getStatsBefore() {
+        return mBefore;
+    }
+
+    /**
+     * @return cache statistics of the output of the last optimization
+     */
+    public Stats getStatsAfter() {
+        return mAfter;
+    }
+
+    /**
+     * @return number of vertices after the last optimization
+     */
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+
+    /**
+     * Optimize an indexed triangle list.
+     * <p>
+     * Each vertex attribute is an array holding the same number of
+     * components for every vertex. The arrays in the maps are replaced
+     * by welded and reordered copies which hold {@link #getVertexCount()}
+     * vertices. Welding compares all of the attributes so UV seams,
+     * hard normals and skin weights are kept.
+     * @param indices     triangle list indices, null for a non-indexed mesh
+     * @param vertexCount number of vertices in the attribute arrays
+     * @param floats      float vertex attributes by name, "a_position" is
+     *                    used for overdraw ordering
+     * @param ints        integer vertex attributes by name, may be null
+     * @return new triangle list indices, the attributes are not changed
+     *         if there are no triangles or vertices
+     */
+    public int[] optimize(int[] indices, int vertexCount,
+                          Map<String, float[]> floats, Map<String, int[]> ints) {
+        if (indices == null) {
+            indices = new int[vertexCount];
+            for (int i = 0; i < vertexCount; ++i) {
+                indices[i] = i;
+            }
+        }
+        int numIndices = indices.length - (indices.length % 3);
+        int[] result = Arrays.copyOf(indices, numIndices);
+
+        mBefore = analyze(result, vertexCount, mCacheSize);
+        if ((numIndices == 0) || (vertexCount == 0)) {
+            mVertexCount = vertexCount;
+            mAfter = mBefore;
+            return result;
+        }
+        int[][] streams = new int[countStreams(floats, ints)][];
+        int[] sizes = new int[streams.length];
+
+        packStreams(floats, ints, vertexCount, streams, sizes);
+        if (mWeld) {
+            int[] remap = weld(vertexCount, streams, sizes);
+
+            for (int i = 0; i < numIndices; ++i) {
+                result[i] = remap[result[i]];
+            }
+        }
+        int[] fans = new int[numIndices / 3 + 1];
+        int numFans = tipsify(result, vertexCount, mCacheSize, fans);
+
+        if (mOverdrawThreshold > 0.0f && (floats != null)) {
+            float[] positions = floats.get("a_position");
+
+            if (positions != null) {
+                sortClusters(result, positions, fans, numFans);
+            }
+        }
+        mVertexCount = compact(result, vertexCount, floats, ints);
+        mAfter = analyze(result, mVertexCount, mCacheSize);
+        return result;
+    }
+
+    /**
+     * Compute the vertex cache statistics of a triangle list
+     * assuming a FIFO cache of the given size.
+     * @param indices     triangle list indices
+     * @param vertexCount number of vertices referenced by the indices
+     * @param cacheSize   number of entries in the vertex cache
+     * @return cache statistics
+     */
+    public static Stats analyze(int[] indices, int vertexCount, int cacheSize) {
+        int[] stamps = new int[vertexCount];
+        int numIndices = indices.length - (indices.length % 3);
+        int time = cacheSize + 1;
+        int used = 0;
+
+        for (int i = 0; i < numIndices; ++i) {
+            int v = indices[i];
+
+            if (stamps[v] == 0) {
+                ++used;
+            }
+            if (time - stamps[v] > cacheSize) {
+                stamps[v] = time++;
+            }
+        }
+        return new Stats(numIndices / 3, used, time - cacheSize - 1);
+    }
+
+    private static int countStreams(Map<String, float[]> floats, Map<String, int[]> ints) {
+        return ((floats != null) ? floats.size() : 0) + ((ints != null) ? ints.size() : 0);
+    }
+
+    /*
+     * Convert every attribute into integer bits so welding can compare
+     * all attributes the same way. Negative zero is folded into zero.
+     */
+    private static void packStreams(Map<String, float[]> floats, Map<String, int[]> ints,
+                                    int vertexCount, int[][] streams, int[] sizes) {
+        int s = 0;
+
+        if (floats != null) {
+            for (float[] data : floats.values()) {
+                int[] bits = new int[data.length];
+
+                for (int i = 0; i < data.length; ++i) {
+                    bits[i] = Float.floatToIntBits(data[i] + 0.0f);
+                }
+                sizes[s] = data.length / vertexCount;
+                streams[s++] = bits;
+            }
+        }
+        if (ints != null) {
+            for (int[] data : ints.values()) {
+                sizes[s] = data.length / vertexCount;
+                streams[s++] = data;
+            }
+        }
+    }
+
+    /*
+     * Map each vertex to the first vertex with identical attributes
+     * using an open addressing hash table of vertex indices.
+     */
+    private static int[] weld(int vertexCount, int[][] streams, int[] sizes) {
+        int tableSize = Integer.highestOneBit(Math.max(vertexCount, 1) * 2) * 2;
+        int[] table = new int[tableSize];
+        int[] remap = new int[vertexCount];
+        int mask = tableSize - 1;
+
+        Arrays.fill(table, -1);
+        for (int v = 0; v < vertexCount; ++v) {
+            int slot = hashVertex(v, streams, sizes) & mask;
+
+            while (true) {
+                int other = table[slot];
+
+                if (other < 0) {
+                    table[slot] = v;
+                    remap[v] = v;
+                    break;
+                }
+                if (sameVertex(v, other, streams, sizes)) {
+                    remap[v] = other;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return remap;
+    }
+
+    private static int hashVertex(int v, int[][] streams, int[] sizes) {
+        int h = 0x811C9DC5;
+
+        for (int s = 0; s < streams.length; ++s) {
+            int[] data = streams[s];
+            int base = v * sizes[s];
+
+            for (int i = 0; i < sizes[s]; ++i) {
+                h = (h ^ data[base + i]) * 0x01000193;
+            }
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameVertex(int a, int b, int[][] streams, int[] sizes) {
+        for (int s = 0; s < streams.length; ++s) {
+            int[] data = streams[s];
+            int size = sizes[s];
+
+            for (int i = 0; i < size; ++i) {
+                if (data[a * size + i] != data[b * size + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Tipsify: emit the triangles around a fanning vertex, then pick the
+     * next fanning vertex among the vertices just used, preferring the ones
+     * which will still be in the cache after their remaining triangles
+     * are emitted. If none qualifies, fall back to the most recently used
+     * vertex with triangles left, then to the next unused vertex.
+     * The triangle offset at the end of each fan is stored in fans,
+     * negated when the next fan does not continue from the cache.
+     */
+    private static int tipsify(int[] indices, int vertexCount, int cacheSize, int[] fans) {
+        int numIndices = indices.length;
+        int numTris = numIndices / 3;
+        int[] live = new int[vertexCount];
+        int[] offsets = new int[vertexCount + 1];
+        int[] adjacency = new int[numIndices];
+        int[] stamps = new int[vertexCount];
+        int[] deadEnds = new int[numIndices];
+        int[] candidates = new int[numIndices];
+        boolean[] emitted = new boolean[numTris];
+        int[] output = new int[numIndices];
+        int numDeadEnds = 0;
+        int numOutput = 0;
+        int numFans = 0;
+        int time = cacheSize + 1;
+        int cursor = 0;
+        int fan = -1;
+
+        for (int i = 0; i < numIndices; ++i) {
+            ++live[indices[i]];
+        }
+        for (int v = 0; v < vertexCount; ++v) {
+            offsets[v + 1] = offsets[v] + live[v];
+        }
+        int[] fill = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < numIndices; ++i) {
+            adjacency[fill[indices[i]]++] = i / 3;
+        }
+        while ((cursor < vertexCount) && (live[cursor] == 0)) {
+            ++cursor;
+        }
+        if (cursor < vertexCount) {
+            fan = cursor;
+        }
+        while (fan >= 0) {
+            int numCandidates = 0;
+
+            for (int k = offsets[fan]; k < offsets[fan + 1]; ++k) {
+                int t = adjacency[k];
+
+                if (emitted[t]) {
+                    continue;
+                }
+                emitted[t] = true;
+                for (int j = 0; j < 3; ++j) {
+                    int v = indices[t * 3 + j];
+
+                    output[numOutput++] = v;
+                    deadEnds[numDeadEnds++] = v;
+                    candidates[numCandidates++] = v;
+                    --live[v];
+                    if (time - stamps[v] > cacheSize) {
+                        stamps[v] = time++;
+                    }
+                }
+            }
+            int next = -1;
+            int bestPriority = -1;
+
+            for (int c = 0; c < numCandidates; ++c) {
+                int v = candidates[c];
+
+                if (live[v] > 0) {
+                    int priority = 0;
+
+                    if (time - stamps[v] + 2 * live[v] <= cacheSize) {
+                        priority = time - stamps[v];
+                    }
+                    if (priority > bestPriority) {
+                        bestPriority = priority;
+                        next = v;
+                    }
+                }
+            }
+            boolean restart = (next < 0);
+
+            while ((next < 0) && (numDeadEnds > 0)) {
+                int v = deadEnds[--numDeadEnds];
+
+                if (live[v] > 0) {
+                    next = v;
+                }
+            }
+            while ((next < 0) && (cursor < vertexCount)) {
+                if (live[cursor] > 0) {
+                    next = cursor;
+                }
+                ++cursor;
+            }
+            if (numOutput > 0) {
+                fans[numFans++] = restart ? -(numOutput / 3) : (numOutput / 3);
+            }
+            fan = next;
+        }
+        System.arraycopy(output, 0, indices, 0, numIndices);
+        return numFans;
+    }
+
+    /*
+     * Split the fans into clusters with good cache locality and sort
+     * the clusters by how far they face out from the mesh center.
+     */
+    private void sortClusters(int[] indices, float[] positions, int[] fans, int numFans) {
+        int numTris = indices.length / 3;
+        int[] stamps = new int[positions.length / 3];
+
+        if (numTris == 0) {
+            return;
+        }
+        float limit = mOverdrawThreshold * analyze(indices, stamps.length, mCacheSize).getACMR();
+        int[] starts = new int[numFans + 1];
+        int numClusters = 0;
+        int start = 0;
+        int time = mCacheSize + 1;
+        int clusterStart = time;
+        int tri = 0;
+
+        /*
+         * The cache is flushed at the start of each cluster because
+         * the clusters will be drawn in a different order.
+         */
+        for (int f = 0; f < numFans; ++f) {
+            int end = Math.abs(fans[f]);
+
+            for (; tri < end; ++tri) {
+                for (int j = 0; j < 3; ++j) {
+                    int v = indices[tri * 3 + j];
+
+                    if ((stamps[v] < clusterStart) || (time - stamps[v] > mCacheSize)) {
+                        stamps[v] = time++;
+                    }
+                }
+            }
+            if ((fans[f] < 0) || (end == numTris) ||
+                ((float) (time - clusterStart) / (end - start) <= limit)) {
+                starts[numClusters++] = start;
+                start = end;
+                clusterStart = time;
+            }
+        }
+        starts[numClusters] = numTris;
+
+        float cx = 0, cy = 0, cz = 0;
+        float area = 0;
+        final float[] keys = new float[numClusters];
+        float[] centers = new float[numClusters * 3];
+        float[] normals = new float[numClusters * 3];
+
+        for (int c = 0; c < numClusters; ++c) {
+            for (int t = starts[c]; t < starts[c + 1]; ++t) {
+                int i0 = indices[t * 3] * 3;
+                int i1 = indices[t * 3 + 1] * 3;
+                int i2 = indices[t * 3 + 2] * 3;
+                float ex = positions[i1] - positions[i0];
+                float ey = positions[i1 + 1] - positions[i0 + 1];
+                float ez = positions[i1 + 2] - positions[i0 + 2];
+                float fx = positions[i2] - positions[i0];
+                float fy = positions[i2 + 1] - positions[i0 + 1];
+                float fz = positions[i2 + 2] - positions[i0 + 2];
+                float nx = ey * fz - ez * fy;
+                float ny = ez * fx - ex * fz;
+                float nz = ex * fy - ey * fx;
+                float a = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                float mx = (positions[i0] + positions[i1] + positions[i2]) / 3.0f;
+                float my = (positions[i0 + 1] + positions[i1 + 1] + positions[i2 + 1]) / 3.0f;
+                float mz = (positions[i0 + 2] + positions[i1 + 2] + positions[i2 + 2]) / 3.0f;
+
+                centers[c * 3] += mx * a;
+                centers[c * 3 + 1] += my * a;
+                centers[c * 3 + 2] += mz * a;
+                normals[c * 3] += nx;
+                normals[c * 3 + 1] += ny;
+                normals[c * 3 + 2] += nz;
+                keys[c] += a;
+            }
+            cx += centers[c * 3];
+            cy += centers[c * 3 + 1];
+            cz += centers[c * 3 + 2];
+            area += keys[c];
+        }
+        if (area > 0) {
+            cx /= area;
+            cy /= area;
+            cz /= area;
+        }
+        Integer[] order = new Integer[numClusters];
+        for (int c = 0; c < numClusters; ++c) {
+            float a = keys[c];
+            float nx = normals[c * 3];
+            float ny = normals[c * 3 + 1];
+            float nz = normals[c * 3 + 2];
+            float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+            order[c] = c;
+            if ((a <= 0) || (len <= 0)) {
+                keys[c] = 0;
+                continue;
+            }
+            keys[c] = ((centers[c * 3] / a - cx) * nx +
+                       (centers[c * 3 + 1] / a - cy) * ny +
+                       (centers[c * 3 + 2] / a - cz) * nz) / len;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Float.compare(keys[b], keys[a]);
+            }
+        });
+        int[] sorted = new int[indices.length];
+        int n = 0;
+
+        for (int c : order) {
+            int from = starts[c] * 3;
+            int count = (starts[c + 1] - starts[c]) * 3;
+
+            System.arraycopy(indices, from, sorted, n, count);
+            n += count;
+        }
+        System.arraycopy(sorted, 0, indices, 0, n);
+    }
+
+    /*
+     * Number the vertices in the order the triangles first use them,
+     * drop the unused ones and reorder the attributes to match.
+     * Returns the new number of vertices.
+     */
+    static int compact(int[] indices, int vertexCount,
+                       Map<String, float[]> floats, Map<String, int[]> ints) {
+        int[] order = new int[vertexCount];
+        int next = 0;
+
+        Arrays.fill(order, -1);
+        for (int i = 0; i < indices.length; ++i) {
+            int v = indices[i];
+
+            if (order[v] < 0) {
+                order[v] = next++;
+            }
+            indices[i] = order[v];
+        }
+        if (floats != null) {
+            for (Map.Entry<String, float[]> e : floats.entrySet()) {
+                float[] src = e.getValue();
+                int size = src.length / vertexCount;
+                float[] dst = new float[next * size];
+
+                for (int v = 0; v < vertexCount; ++v) {
+                    if (order[v] >= 0) {
+                        System.arraycopy(src, v * size, dst, order[v] * size, size);
+                    }
+                }
+                e.setValue(dst);
+            }
+        }
+        if (ints != null) {
+            for (Map.Entry<String, int[]> e : ints.entrySet()) {
+                int[] src = e.getValue();
+                int size = src.length / vertexCount;
+                int[] dst = new int[next * size];
+
+                for (int v = 0; v < vertexCount; ++v) {
+                    if (order[v] >= 0) {
+                        System.arraycopy(src, v * size, dst, order[v] * size, size);
+                    }
+                }
+                e.setValue(dst);
+            }
+        }
+        return next;
+    }
+}
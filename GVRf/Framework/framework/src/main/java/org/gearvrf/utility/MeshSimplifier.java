@@ -0,0 +1,1041 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reduces the number of triangles in an indexed triangle list
+ * using quadric error metrics (Garland and Heckbert 1997).
+ * <p>
+ * The simplifier only does half edge collapses: a vertex is always
+ * merged into one of its neighbors, so no new vertices are made and
+ * all of the vertex attributes (normals, texture coordinates, bone
+ * weights and indices) stay exactly as they were authored.
+ * <p>
+ * Vertices which share a position but have different attributes
+ * (UV seams, hard edges) are collapsed together along the seam so
+ * the seam stays intact. Seam and border edges get extra quadrics
+ * which keep them from moving, corners where more than two seams
+ * or borders meet are never removed. A collapse is rejected if it
+ * would change the topology of the mesh (the edge fails the link
+ * condition), flip or sharply turn a triangle, or leave a triangle
+ * with no area.
+ * <p>
+ * Like {@link MeshOptimizer} the simplifier works on plain arrays
+ * so it can be run and measured outside of Android.
+ * {@link MeshUtils#simplify} applies it to a {@link org.gearvrf.GVRMesh}.
+ */
+public class MeshSimplifier {
+    private static final float BORDER_WEIGHT = 10.0f;
+
+    /*
+     * A collapse is rejected if it turns the normal of a triangle
+     * by more than about 60 degrees or leaves a triangle whose
+     * area is this small compared to its longest edge squared.
+     */
+    private static final double MIN_NORMAL_COS = 0.5;
+    private static final double MIN_AREA_RATIO = 1e-6;
+
+    /*
+     * A triangle must stay within about 75 degrees of the
+     * original surface normal at each of its corners.
+     */
+    private static final double MIN_SURFACE_COS = 0.25;
+
+    private float mMaxError = Float.MAX_VALUE;
+    private int mVertexCount;
+    private float mError;
+
+    /**
+     * Stop simplifying before the quadric error of a collapse would exceed
+     * this value.
+     * <p>
+     * The quadric error is the root mean square distance of the merged
+     * vertex from the planes of the triangles that were collapsed into it.
+     * It tracks the real distance between the meshes but is not a bound
+     * on it: the largest distance ({@link #measureDistance}) is
+     * typically a few times larger.
+     * @param maxError quadric error in mesh units, unlimited by default
+     */
+    public MeshSimplifier setMaxError(float maxError) {
+        mMaxError = maxError;
+        return this;
+    }
+
+    /**
+     * @return number of vertices after the last simplification
+     */
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+
+    /**
+     * Get the estimated error of the last simplification.
+     * This is the largest quadric error of any collapse, expressed
+     * as a distance in mesh units.
+     * @return largest quadric error, see {@link #setMaxError(float)}
+     */
+    public float getError() {
+        return mError;
+    }
+
+    /**
+     * Simplify an indexed triangle list.
+     * <p>
+     * Each vertex attribute is an array holding the same number of
+     * components for every vertex. The arrays in the maps are replaced
+     * by copies which only hold the {@link #getVertexCount() remaining}
+     * vertices.
+     * @param indices         triangle list indices, null for a non-indexed mesh
+     * @param vertexCount     number of vertices in the attribute arrays
+     * @param floats          float vertex attributes by name, must include "a_position"
+     * @param ints            integer vertex attributes by name, may be null
+     * @param targetTriangles desired number of triangles
+     * @return new triangle list indices
+     */
+    public int[] simplify(int[] indices, int vertexCount,
+                          Map<String, float[]> floats, Map<String, int[]> ints,
+                          int targetTriangles) {
+        float[] vertices = floats.get("a_position");
+
+        if (vertices == null) {
+            throw new IllegalArgumentException("Mesh must have a_position to simplify");
+        }
+        if (indices == null) {
+            indices = new int[vertexCount];
+            for (int i = 0; i < vertexCount; ++i) {
+                indices[i] = i;
+            }
+        }
+        int[] tris = Arrays.copyOf(indices, indices.length - (indices.length % 3));
+        int numIndices = tris.length;
+
+        mError = 0.0f;
+        mVertexCount = vertexCount;
+        if ((numIndices == 0) || (vertexCount == 0)) {
+            return tris;
+        }
+        int[] posOf = new int[vertexCount];
+        int numPos = weldPositions(vertices, vertexCount, posOf);
+        float[] pos = new float[numPos * 3];
+        double[] quadrics = new double[numPos * 10];
+        double[] weights = new double[numPos];
+        double[] normals = new double[numPos * 3];
+
+        for (int v = 0; v < vertexCount; ++v) {
+            System.arraycopy(vertices, v * 3, pos, posOf[v] * 3, 3);
+        }
+        numIndices = removeDegenerates(tris, numIndices, posOf);
+        addFaceQuadrics(tris, numIndices, posOf, pos, quadrics, weights, normals);
+        addBorderQuadrics(tris, numIndices, posOf, pos, quadrics, weights);
+
+        while (numIndices / 3 > targetTriangles) {
+            int removed = collapsePass(tris, numIndices, vertexCount, posOf, numPos,
+                                       pos, quadrics, weights, normals, numIndices / 3 - targetTriangles);
+            if (removed == 0) {
+                break;
+            }
+            numIndices = removeDegenerates(tris, numIndices, posOf);
+        }
+        tris = Arrays.copyOf(tris, numIndices);
+        mVertexCount = MeshOptimizer.compact(tris, vertexCount, floats, ints);
+        return tris;
+    }
+
+    /*
+     * Give each distinct position an id, returns the number of positions.
+     */
+    private static int weldPositions(float[] vertices, int vertexCount, int[] posOf) {
+        int tableSize = Integer.highestOneBit(Math.max(vertexCount, 1) * 2) * 2;
+        int[] table = new int[tableSize];
+        int mask = tableSize - 1;
+        int numPos = 0;
+
+        Arrays.fill(table, -1);
+        for (int v = 0; v < vertexCount; ++v) {
+            int x = Float.floatToIntBits(vertices[v * 3] + 0.0f);
+            int y = Float.floatToIntBits(vertices[v * 3 + 1] + 0.0f);
+            int z = Float.floatToIntBits(vertices[v * 3 + 2] + 0.0f);
+            int h = ((x * 73856093) ^ (y * 19349663) ^ (z * 83492791));
+            int slot = (h ^ (h >>> 16)) & mask;
+
+            while (true) {
+                int other = table[slot];
+
+                if (other < 0) {
+                    table[slot] = v;
+                    posOf[v] = numPos++;
+                    break;
+                }
+                if ((Float.floatToIntBits(vertices[other * 3] + 0.0f) == x) &&
+                    (Float.floatToIntBits(vertices[other * 3 + 1] + 0.0f) == y) &&
+                    (Float.floatToIntBits(vertices[other * 3 + 2] + 0.0f) == z)) {
+                    posOf[v] = posOf[other];
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return numPos;
+    }
+
+    private static int removeDegenerates(int[] tris, int numIndices, int[] posOf) {
+        int n = 0;
+
+        for (int i = 0; i < numIndices; i += 3) {
+            int p0 = posOf[tris[i]];
+            int p1 = posOf[tris[i + 1]];
+            int p2 = posOf[tris[i + 2]];
+
+            if ((p0 != p1) && (p1 != p2) && (p0 != p2)) {
+                tris[n++] = tris[i];
+                tris[n++] = tris[i + 1];
+                tris[n++] = tris[i + 2];
+            }
+        }
+        return n;
+    }
+
+    /*
+     * Also sums the area weighted face normals around each position,
+     * which flips() uses as the orientation of the original surface.
+     */
+    private static void addFaceQuadrics(int[] tris, int numIndices, int[] posOf, float[] pos,
+                                        double[] quadrics, double[] weights, double[] normals) {
+        double[] n = new double[3];
+
+        for (int i = 0; i < numIndices; i += 3) {
+            int p0 = posOf[tris[i]];
+            int p1 = posOf[tris[i + 1]];
+            int p2 = posOf[tris[i + 2]];
+            double area = normal(pos, p0, p1, p2, n);
+
+            if (area <= 0) {
+                continue;
+            }
+            n[0] /= area;
+            n[1] /= area;
+            n[2] /= area;
+            double d = -(n[0] * pos[p0 * 3] + n[1] * pos[p0 * 3 + 1] + n[2] * pos[p0 * 3 + 2]);
+
+            area *= 0.5;
+            addPlane(quadrics, weights, p0, n, d, area);
+            addPlane(quadrics, weights, p1, n, d, area);
+            addPlane(quadrics, weights, p2, n, d, area);
+            for (int c = 0; c < 3; ++c) {
+                normals[p0 * 3 + c] += n[c] * area;
+                normals[p1 * 3 + c] += n[c] * area;
+                normals[p2 * 3 + c] += n[c] * area;
+            }
+        }
+    }
+
+    /*
+     * An edge used in only one direction is on a border or on a seam
+     * between vertices with different attributes. A plane through the
+     * edge, perpendicular to the triangle, keeps it from sliding sideways.
+     */
+    private static void addBorderQuadrics(int[] tris, int numIndices, int[] posOf, float[] pos,
+                                          double[] quadrics, double[] weights) {
+        EdgeTable directed = new EdgeTable(numIndices);
+        double[] n = new double[3];
+        double[] m = new double[3];
+
+        for (int i = 0; i < numIndices; ++i) {
+            directed.insert(tris[i], tris[next(i)]);
+        }
+        for (int i = 0; i < numIndices; ++i) {
+            int w0 = tris[i];
+            int w1 = tris[next(i)];
+
+            if (directed.find(w1, w0) >= 0) {
+                continue;
+            }
+            int t = i - (i % 3);
+            int p0 = posOf[w0];
+            int p1 = posOf[w1];
+            double area = normal(pos, posOf[tris[t]], posOf[tris[t + 1]], posOf[tris[t + 2]], n);
+
+            if (area <= 0) {
+                continue;
+            }
+            double ex = pos[p1 * 3] - pos[p0 * 3];
+            double ey = pos[p1 * 3 + 1] - pos[p0 * 3 + 1];
+            double ez = pos[p1 * 3 + 2] - pos[p0 * 3 + 2];
+            m[0] = ey * n[2] - ez * n[1];
+            m[1] = ez * n[0] - ex * n[2];
+            m[2] = ex * n[1] - ey * n[0];
+            double len = Math.sqrt(m[0] * m[0] + m[1] * m[1] + m[2] * m[2]);
+
+            if (len <= 0) {
+                continue;
+            }
+            m[0] /= len;
+            m[1] /= len;
+            m[2] /= len;
+            double d = -(m[0] * pos[p0 * 3] + m[1] * pos[p0 * 3 + 1] + m[2] * pos[p0 * 3 + 2]);
+            double w = (ex * ex + ey * ey + ez * ez) * BORDER_WEIGHT;
+
+            addPlane(quadrics, weights, p0, m, d, w);
+            addPlane(quadrics, weights, p1, m, d, w);
+        }
+    }
+
+    /*
+     * Pick the cheapest collapses which do not touch each other,
+     * perform them and return the number of triangles removed.
+     */
+    private int collapsePass(int[] tris, int numIndices, int vertexCount,
+                             int[] posOf, int numPos, float[] pos,
+                             double[] quadrics, double[] weights, double[] normals, int goal) {
+        int numTris = numIndices / 3;
+        EdgeTable directed = new EdgeTable(numIndices);
+        EdgeTable edges = new EdgeTable(numIndices);
+        int[] borderEdges = new int[numPos];
+        boolean[] locked = new boolean[numPos];
+
+        for (int i = 0; i < numIndices; ++i) {
+            directed.insert(tris[i], tris[next(i)]);
+        }
+        for (int i = 0; i < numIndices; ++i) {
+            int w0 = tris[i];
+            int w1 = tris[next(i)];
+            int p0 = posOf[w0];
+            int p1 = posOf[w1];
+            int e = edges.insert(Math.min(p0, p1), Math.max(p0, p1));
+
+            ++edges.counts[e];
+            if (directed.find(w1, w0) < 0) {
+                edges.border[e] = true;
+            }
+        }
+        for (int e = 0; e < edges.keys.length; ++e) {
+            if (edges.keys[e] == EdgeTable.EMPTY) {
+                continue;
+            }
+            int p0 = (int) (edges.keys[e] >>> 32);
+            int p1 = (int) edges.keys[e];
+
+            if (edges.border[e]) {
+                ++borderEdges[p0];
+                ++borderEdges[p1];
+            }
+            if (edges.counts[e] > 2) {
+                locked[p0] = true;
+                locked[p1] = true;
+            }
+        }
+        for (int p = 0; p < numPos; ++p) {
+            if ((borderEdges[p] != 0) && (borderEdges[p] != 2)) {
+                locked[p] = true;
+            }
+        }
+
+        /*
+         * Rank the edges by the cheaper of the two collapse directions.
+         * The cost is stored in the upper bits of the sort key.
+         */
+        long[] ranked = new long[edges.size];
+        int[] collapseFrom = new int[edges.keys.length];
+        float[] collapseError = new float[edges.keys.length];
+        int numRanked = 0;
+
+        for (int e = 0; e < edges.keys.length; ++e) {
+            if (edges.keys[e] == EdgeTable.EMPTY) {
+                continue;
+            }
+            int p0 = (int) (edges.keys[e] >>> 32);
+            int p1 = (int) edges.keys[e];
+            boolean sliding = edges.border[e];
+            boolean move0 = canMove(p0, sliding, locked, borderEdges);
+            boolean move1 = canMove(p1, sliding, locked, borderEdges);
+
+            if (!move0 && !move1) {
+                continue;
+            }
+            float e01 = move0 ? error(p0, p1, pos, quadrics, weights) : Float.MAX_VALUE;
+            float e10 = move1 ? error(p1, p0, pos, quadrics, weights) : Float.MAX_VALUE;
+            float err = Math.min(e01, e10);
+
+            if (err > mMaxError) {
+                continue;
+            }
+            collapseFrom[e] = (e01 <= e10) ? p0 : p1;
+            collapseError[e] = err;
+            ranked[numRanked++] = ((long) Float.floatToIntBits(err) << 32) | e;
+        }
+        Arrays.sort(ranked, 0, numRanked);
+
+        int[] wedgeStart = new int[vertexCount + 1];
+        int[] wedgeTris = buildAdjacency(tris, numIndices, null, vertexCount, wedgeStart);
+        int[] posStart = new int[numPos + 1];
+        int[] posTris = buildAdjacency(tris, numIndices, posOf, numPos, posStart);
+        int[] wedgesStart = new int[numPos + 1];
+        int[] wedges = buildWedges(tris, numIndices, posOf, numPos, wedgesStart);
+        int[] remap = new int[vertexCount];
+        boolean[] busy = new boolean[numPos];
+        int[] stamps = new int[numPos];
+        int stamp = 0;
+        int removed = 0;
+
+        for (int v = 0; v < vertexCount; ++v) {
+            remap[v] = v;
+        }
+        for (int r = 0; (r < numRanked) && (removed < goal); ++r) {
+            int e = (int) ranked[r];
+            int p0 = (int) (edges.keys[e] >>> 32);
+            int p1 = (int) edges.keys[e];
+            int from = collapseFrom[e];
+            int to = (from == p0) ? p1 : p0;
+
+            if (busy[from] || busy[to]) {
+                continue;
+            }
+            stamp += 2;
+            if (!linkCondition(from, to, tris, posOf, posTris, posStart, stamps, stamp) ||
+                !matchWedges(from, to, tris, posOf, wedges, wedgesStart, wedgeTris, wedgeStart, remap) ||
+                flips(from, to, tris, posOf, pos, normals, posTris, posStart)) {
+                for (int k = wedgesStart[from]; k < wedgesStart[from + 1]; ++k) {
+                    remap[wedges[k]] = wedges[k];
+                }
+                continue;
+            }
+            /*
+             * The one rings of both ends are frozen for the rest of the
+             * pass so the topology checks of later collapses stay valid.
+             */
+            for (int k = posStart[from]; k < posStart[from + 1]; ++k) {
+                int t = posTris[k] * 3;
+
+                busy[posOf[tris[t]]] = true;
+                busy[posOf[tris[t + 1]]] = true;
+                busy[posOf[tris[t + 2]]] = true;
+                if ((posOf[tris[t]] == to) || (posOf[tris[t + 1]] == to) || (posOf[tris[t + 2]] == to)) {
+                    ++removed;
+                }
+            }
+            for (int k = posStart[to]; k < posStart[to + 1]; ++k) {
+                int t = posTris[k] * 3;
+
+                busy[posOf[tris[t]]] = true;
+                busy[posOf[tris[t + 1]]] = true;
+                busy[posOf[tris[t + 2]]] = true;
+            }
+            for (int q = 0; q < 10; ++q) {
+                quadrics[to * 10 + q] += quadrics[from * 10 + q];
+            }
+            weights[to] += weights[from];
+            for (int c = 0; c < 3; ++c) {
+                normals[to * 3 + c] += normals[from * 3 + c];
+            }
+            mError = Math.max(mError, collapseError[e]);
+        }
+        for (int i = 0; i < numIndices; ++i) {
+            tris[i] = remap[tris[i]];
+        }
+        return removed;
+    }
+
+    private static boolean canMove(int p, boolean sliding, boolean[] locked, int[] borderEdges) {
+        return !locked[p] && ((borderEdges[p] == 0) || sliding);
+    }
+
+    /*
+     * Each vertex at the source position must move to a vertex at the
+     * destination position which it shares an edge with, so the
+     * attributes on both sides of a seam stay together.
+     * Fills in remap and returns false if there is no such vertex.
+     */
+    private static boolean matchWedges(int from, int to, int[] tris, int[] posOf,
+                                       int[] wedges, int[] wedgesStart,
+                                       int[] wedgeTris, int[] wedgeStart, int[] remap) {
+        for (int k = wedgesStart[from]; k < wedgesStart[from + 1]; ++k) {
+            int w = wedges[k];
+            int target = -1;
+
+            for (int j = wedgeStart[w]; (j < wedgeStart[w + 1]) && (target < 0); ++j) {
+                int t = wedgeTris[j] * 3;
+
+                for (int c = 0; c < 3; ++c) {
+                    if (posOf[tris[t + c]] == to) {
+                        target = tris[t + c];
+                        break;
+                    }
+                }
+            }
+            if (target < 0) {
+                return false;
+            }
+            remap[w] = target;
+        }
+        return true;
+    }
+
+    /*
+     * An edge can only be collapsed if the positions next to both of
+     * its ends are the ones opposite the edge in the triangles which
+     * share it. Otherwise the collapse would pinch the surface into
+     * a non-manifold edge or fold two sheets onto each other.
+     */
+    private static boolean linkCondition(int from, int to, int[] tris, int[] posOf,
+                                         int[] posTris, int[] posStart, int[] stamps, int stamp) {
+        int opposite = 0;
+        int common = 0;
+
+        for (int k = posStart[from]; k < posStart[from + 1]; ++k) {
+            int t = posTris[k] * 3;
+            boolean hasTo = false;
+
+            for (int c = 0; c < 3; ++c) {
+                hasTo |= (posOf[tris[t + c]] == to);
+            }
+            for (int c = 0; c < 3; ++c) {
+                int p = posOf[tris[t + c]];
+
+                if ((p == from) || (p == to)) {
+                    continue;
+                }
+                if (hasTo && (stamps[p] != stamp + 1)) {
+                    stamps[p] = stamp + 1;
+                    ++opposite;
+                } else if (stamps[p] < stamp) {
+                    stamps[p] = stamp;
+                }
+            }
+        }
+        for (int k = posStart[to]; k < posStart[to + 1]; ++k) {
+            int t = posTris[k] * 3;
+
+            for (int c = 0; c < 3; ++c) {
+                int p = posOf[tris[t + c]];
+
+                if ((p != from) && (p != to) && (stamps[p] == stamp)) {
+                    stamps[p] = stamp + 1;
+                    ++common;
+                }
+            }
+        }
+        return (common == 0) && (opposite <= 2);
+    }
+
+    /*
+     * Check the triangles which move with the collapse. They must not
+     * flip, turn sharply or lose their area. Small turns add up over
+     * many collapses, so a triangle must also still face the same way
+     * as the original surface around each of its corners.
+     */
+    private static boolean flips(int from, int to, int[] tris, int[] posOf, float[] pos,
+                                 double[] normals, int[] posTris, int[] posStart) {
+        double[] before = new double[3];
+        double[] after = new double[3];
+
+        for (int k = posStart[from]; k < posStart[from + 1]; ++k) {
+            int t = posTris[k] * 3;
+            int p0 = posOf[tris[t]];
+            int p1 = posOf[tris[t + 1]];
+            int p2 = posOf[tris[t + 2]];
+
+            if ((p0 == to) || (p1 == to) || (p2 == to)) {
+                continue;
+            }
+            double lenBefore = normal(pos, p0, p1, p2, before);
+            p0 = (p0 == from) ? to : p0;
+            p1 = (p1 == from) ? to : p1;
+            p2 = (p2 == from) ? to : p2;
+            double lenAfter = normal(pos, p0, p1, p2, after);
+
+            if (lenAfter <= MIN_AREA_RATIO * longestEdgeSquared(pos, p0, p1, p2)) {
+                return true;
+            }
+            double cos = (before[0] * after[0] + before[1] * after[1] + before[2] * after[2])
+                         / (lenBefore * lenAfter);
+            if (!(cos >= MIN_NORMAL_COS) ||
+                !facesSurface(after, normals, p0) ||
+                !facesSurface(after, normals, p1) ||
+                !facesSurface(after, normals, p2) ||
+                hasTriangle(to, p0, p1, p2, tris, posOf, posTris, posStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean facesSurface(double[] n, double[] normals, int p) {
+        double nx = normals[p * 3];
+        double ny = normals[p * 3 + 1];
+        double nz = normals[p * 3 + 2];
+        double dot = n[0] * nx + n[1] * ny + n[2] * nz;
+        double len = Math.sqrt((n[0] * n[0] + n[1] * n[1] + n[2] * n[2]) * (nx * nx + ny * ny + nz * nz));
+
+        return dot > MIN_SURFACE_COS * len;
+    }
+
+    /*
+     * Check whether a triangle around a position already uses the same
+     * three positions. Collapsing onto it would fold the surface shut,
+     * the last step of collapsing a closed mesh into nothing.
+     */
+    private static boolean hasTriangle(int to, int p0, int p1, int p2, int[] tris, int[] posOf,
+                                       int[] posTris, int[] posStart) {
+        for (int k = posStart[to]; k < posStart[to + 1]; ++k) {
+            int t = posTris[k] * 3;
+            int q0 = posOf[tris[t]];
+            int q1 = posOf[tris[t + 1]];
+            int q2 = posOf[tris[t + 2]];
+
+            if (((q0 == p0) || (q0 == p1) || (q0 == p2)) &&
+                ((q1 == p0) || (q1 == p1) || (q1 == p2)) &&
+                ((q2 == p0) || (q2 == p1) || (q2 == p2))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double longestEdgeSquared(float[] pos, int p0, int p1, int p2) {
+        return Math.max(distanceSquared(pos, p0, p1),
+                        Math.max(distanceSquared(pos, p1, p2), distanceSquared(pos, p2, p0)));
+    }
+
+    private static double distanceSquared(float[] pos, int a, int b) {
+        double dx = pos[b * 3] - pos[a * 3];
+        double dy = pos[b * 3 + 1] - pos[a * 3 + 1];
+        double dz = pos[b * 3 + 2] - pos[a * 3 + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static float error(int from, int to, float[] pos, double[] quadrics, double[] weights) {
+        double x = pos[to * 3];
+        double y = pos[to * 3 + 1];
+        double z = pos[to * 3 + 2];
+        int a = from * 10;
+        int b = to * 10;
+        double e = 0;
+        double[] q = quadrics;
+
+        e += (q[a] + q[b]) * x * x + 2 * (q[a + 1] + q[b + 1]) * x * y + 2 * (q[a + 2] + q[b + 2]) * x * z;
+        e += 2 * (q[a + 3] + q[b + 3]) * x + (q[a + 4] + q[b + 4]) * y * y + 2 * (q[a + 5] + q[b + 5]) * y * z;
+        e += 2 * (q[a + 6] + q[b + 6]) * y + (q[a + 7] + q[b + 7]) * z * z + 2 * (q[a + 8] + q[b + 8]) * z;
+        e += q[a + 9] + q[b + 9];
+
+        double w = weights[from] + weights[to];
+        return (w > 0) ? (float) Math.sqrt(Math.max(e, 0) / w) : 0.0f;
+    }
+
+    private static void addPlane(double[] quadrics, double[] weights, int p,
+                                 double[] n, double d, double w) {
+        int q = p * 10;
+
+        quadrics[q] += w * n[0] * n[0];
+        quadrics[q + 1] += w * n[0] * n[1];
+        quadrics[q + 2] += w * n[0] * n[2];
+        quadrics[q + 3] += w * n[0] * d;
+        quadrics[q + 4] += w * n[1] * n[1];
+        quadrics[q + 5] += w * n[1] * n[2];
+        quadrics[q + 6] += w * n[1] * d;
+        quadrics[q + 7] += w * n[2] * n[2];
+        quadrics[q + 8] += w * n[2] * d;
+        quadrics[q + 9] += w * d * d;
+        weights[p] += w;
+    }
+
+    /*
+     * Compute the unnormalized triangle normal, returns its length
+     * (twice the triangle area).
+     */
+    private static double normal(float[] pos, int p0, int p1, int p2, double[] n) {
+        double ex = pos[p1 * 3] - pos[p0 * 3];
+        double ey = pos[p1 * 3 + 1] - pos[p0 * 3 + 1];
+        double ez = pos[p1 * 3 + 2] - pos[p0 * 3 + 2];
+        double fx = pos[p2 * 3] - pos[p0 * 3];
+        double fy = pos[p2 * 3 + 1] - pos[p0 * 3 + 1];
+        double fz = pos[p2 * 3 + 2] - pos[p0 * 3 + 2];
+
+        n[0] = ey * fz - ez * fy;
+        n[1] = ez * fx - ex * fz;
+        n[2] = ex * fy - ey * fx;
+        return Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+    }
+
+    private static int next(int i) {
+        return (i % 3 == 2) ? i - 2 : i + 1;
+    }
+
+    /*
+     * Build a list of the triangles around each vertex, or around each
+     * position if posOf is supplied.
+     */
+    private static int[] buildAdjacency(int[] tris, int numIndices, int[] posOf,
+                                        int count, int[] start) {
+        int[] adjacency = new int[numIndices];
+
+        for (int i = 0; i < numIndices; ++i) {
+            int v = (posOf != null) ? posOf[tris[i]] : tris[i];
+            ++start[v + 1];
+        }
+        for (int v = 0; v < count; ++v) {
+            start[v + 1] += start[v];
+        }
+        int[] fill = Arrays.copyOf(start, count);
+        for (int i = 0; i < numIndices; ++i) {
+            int v = (posOf != null) ? posOf[tris[i]] : tris[i];
+            adjacency[fill[v]++] = i / 3;
+        }
+        return adjacency;
+    }
+
+    /*
+     * List the vertices still in use at each position.
+     */
+    private static int[] buildWedges(int[] tris, int numIndices, int[] posOf,
+                                     int numPos, int[] start) {
+        int[] seen = new int[posOf.length];
+        int[] unique = new int[numIndices];
+        int numUnique = 0;
+
+        for (int i = 0; i < numIndices; ++i) {
+            int w = tris[i];
+
+            if (seen[w] == 0) {
+                seen[w] = 1;
+                unique[numUnique++] = w;
+                ++start[posOf[w] + 1];
+            }
+        }
+        for (int p = 0; p < numPos; ++p) {
+            start[p + 1] += start[p];
+        }
+        int[] wedges = new int[numUnique];
+        int[] fill = Arrays.copyOf(start, numPos);
+        for (int i = 0; i < numUnique; ++i) {
+            wedges[fill[posOf[unique[i]]]++] = unique[i];
+        }
+        return wedges;
+    }
+
+    /**
+     * Measure the symmetric Hausdorff distance between two triangle meshes.
+     * <p>
+     * This is the largest distance from a vertex of either mesh
+     * to the surface of the other one, which is a close estimate
+     * for meshes whose triangles are small compared to their size.
+     * Useful for judging how far a simplified mesh has drifted.
+     * @param posA    positions of the first mesh (x, y, z per vertex)
+     * @param indicesA triangle list indices of the first mesh
+     * @param posB    positions of the second mesh
+     * @param indicesB triangle list indices of the second mesh
+     * @return distance in mesh units
+     */
+    public static float measureDistance(float[] posA, int[] indicesA, float[] posB, int[] indicesB) {
+        return Math.max(new TriangleGrid(posB, indicesB).maxDistance(posA, indicesA),
+                        new TriangleGrid(posA, indicesA).maxDistance(posB, indicesB));
+    }
+
+    /*
+     * Open addressing hash table of edges keyed by vertex pair.
+     */
+    private static class EdgeTable {
+        static final long EMPTY = -1L;
+        final long[] keys;
+        final int[] counts;
+        final boolean[] border;
+        final int mask;
+        int size = 0;
+
+        EdgeTable(int capacity) {
+            int n = Integer.highestOneBit(Math.max(capacity, 1) * 2) * 2;
+
+            keys = new long[n];
+            counts = new int[n];
+            border = new boolean[n];
+            mask = n - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+
+        int insert(int a, int b) {
+            long key = ((long) a << 32) | (b & 0xFFFFFFFFL);
+            int s = slot(key);
+
+            while (keys[s] != EMPTY) {
+                if (keys[s] == key) {
+                    return s;
+                }
+                s = (s + 1) & mask;
+            }
+            keys[s] = key;
+            ++size;
+            return s;
+        }
+
+        int find(int a, int b) {
+            long key = ((long) a << 32) | (b & 0xFFFFFFFFL);
+            int s = slot(key);
+
+            while (keys[s] != EMPTY) {
+                if (keys[s] == key) {
+                    return s;
+                }
+                s = (s + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    /*
+     * Uniform grid of triangles for nearest surface queries.
+     */
+    private static class TriangleGrid {
+        private final float[] mPos;
+        private final int[] mIndices;
+        private final float[] mMin = new float[3];
+        private final int[] mDims = new int[3];
+        private final int[] mCellStart;
+        private int[] mCellTris;
+        private final int[] mStamps;
+        private float mCellSize;
+        private int mStamp = 0;
+
+        TriangleGrid(float[] pos, int[] indices) {
+            int numTris = indices.length / 3;
+            float[] max = new float[3];
+
+            mPos = pos;
+            mIndices = indices;
+            mStamps = new int[numTris];
+            Arrays.fill(mMin, Float.MAX_VALUE);
+            Arrays.fill(max, -Float.MAX_VALUE);
+            for (int i = 0; i < indices.length; ++i) {
+                for (int c = 0; c < 3; ++c) {
+                    mMin[c] = Math.min(mMin[c], pos[indices[i] * 3 + c]);
+                    max[c] = Math.max(max[c], pos[indices[i] * 3 + c]);
+                }
+            }
+            float extent = Math.max(max[0] - mMin[0], Math.max(max[1] - mMin[1], max[2] - mMin[2]));
+            int cells = Math.max(1, (int) Math.cbrt(numTris));
+
+            mCellSize = Math.max(extent / cells, 1e-6f);
+            for (int c = 0; c < 3; ++c) {
+                mDims[c] = Math.max(1, Math.min(cells, (int) ((max[c] - mMin[c]) / mCellSize) + 1));
+            }
+            mCellStart = new int[mDims[0] * mDims[1] * mDims[2] + 1];
+
+            int[] lo = new int[3];
+            int[] hi = new int[3];
+            for (int pass = 0; pass < 2; ++pass) {
+                int[] fill = (pass == 0) ? null : Arrays.copyOf(mCellStart, mCellStart.length - 1);
+
+                for (int t = 0; t < numTris; ++t) {
+                    triangleCells(t, lo, hi);
+                    for (int z = lo[2]; z <= hi[2]; ++z) {
+                        for (int y = lo[1]; y <= hi[1]; ++y) {
+                            for (int x = lo[0]; x <= hi[0]; ++x) {
+                                int cell = (z * mDims[1] + y) * mDims[0] + x;
+
+                                if (fill == null) {
+                                    ++mCellStart[cell + 1];
+                                } else {
+                                    mCellTris[fill[cell]++] = t;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (pass == 0) {
+                    for (int c = 0; c < mCellStart.length - 1; ++c) {
+                        mCellStart[c + 1] += mCellStart[c];
+                    }
+                    mCellTris = new int[mCellStart[mCellStart.length - 1]];
+                }
+            }
+        }
+
+        private void triangleCells(int t, int[] lo, int[] hi) {
+            for (int c = 0; c < 3; ++c) {
+                float a = mPos[mIndices[t * 3] * 3 + c];
+                float b = mPos[mIndices[t * 3 + 1] * 3 + c];
+                float d = mPos[mIndices[t * 3 + 2] * 3 + c];
+
+                lo[c] = cell(Math.min(a, Math.min(b, d)), c);
+                hi[c] = cell(Math.max(a, Math.max(b, d)), c);
+            }
+        }
+
+        private int cell(float v, int axis) {
+            int i = (int) ((v - mMin[axis]) / mCellSize);
+            return Math.max(0, Math.min(mDims[axis] - 1, i));
+        }
+
+        float maxDistance(float[] pos, int[] indices) {
+            float[] p = new float[3];
+            boolean[] done = new boolean[pos.length / 3];
+            float worst = 0;
+
+            for (int i = 0; i < indices.length; ++i) {
+                int v = indices[i];
+
+                if (done[v]) {
+                    continue;
+                }
+                done[v] = true;
+                p[0] = pos[v * 3];
+                p[1] = pos[v * 3 + 1];
+                p[2] = pos[v * 3 + 2];
+                worst = Math.max(worst, (float) Math.sqrt(nearest(p)));
+            }
+            return worst;
+        }
+
+        /*
+         * Search shells of cells around the point until no closer
+         * triangle can be found. Returns the squared distance.
+         */
+        private float nearest(float[] p) {
+            int cx = cell(p[0], 0);
+            int cy = cell(p[1], 1);
+            int cz = cell(p[2], 2);
+            int maxRing = Math.max(mDims[0], Math.max(mDims[1], mDims[2]));
+            float best = Float.MAX_VALUE;
+            float outside = 0;
+
+            for (int c = 0; c < 3; ++c) {
+                float lo = mMin[c];
+                float hi = mMin[c] + mDims[c] * mCellSize;
+                float d = Math.max(lo - p[c], Math.max(p[c] - hi, 0));
+                outside += d * d;
+            }
+            ++mStamp;
+            for (int ring = 0; ring <= maxRing; ++ring) {
+                float reach = (ring > 0) ? (ring - 1) * mCellSize : 0;
+
+                if ((ring > 0) && (best <= reach * reach + outside)) {
+                    break;
+                }
+                for (int z = cz - ring; z <= cz + ring; ++z) {
+                    for (int y = cy - ring; y <= cy + ring; ++y) {
+                        for (int x = cx - ring; x <= cx + ring; ++x) {
+                            if ((Math.abs(x - cx) != ring) && (Math.abs(y - cy) != ring) && (Math.abs(z - cz) != ring)) {
+                                continue;
+                            }
+                            if ((x < 0) || (y < 0) || (z < 0) ||
+                                (x >= mDims[0]) || (y >= mDims[1]) || (z >= mDims[2])) {
+                                continue;
+                            }
+                            int cell = (z * mDims[1] + y) * mDims[0] + x;
+
+                            for (int k = mCellStart[cell]; k < mCellStart[cell + 1]; ++k) {
+                                int t = mCellTris[k];
+
+                                if (mStamps[t] != mStamp) {
+                                    mStamps[t] = mStamp;
+                                    best = Math.min(best, distanceSquared(p, t));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        /*
+         * Squared distance from a point to a triangle (Ericson, Real-Time Collision Detection 5.1.5).
+         * A triangle without area is measured as its three edges.
+         */
+        private float distanceSquared(float[] p, int t) {
+            int ia = mIndices[t * 3] * 3;
+            int ib = mIndices[t * 3 + 1] * 3;
+            int ic = mIndices[t * 3 + 2] * 3;
+            float ax = mPos[ia], ay = mPos[ia + 1], az = mPos[ia + 2];
+            float abx = mPos[ib] - ax, aby = mPos[ib + 1] - ay, abz = mPos[ib + 2] - az;
+            float acx = mPos[ic] - ax, acy = mPos[ic + 1] - ay, acz = mPos[ic + 2] - az;
+            float apx = p[0] - ax, apy = p[1] - ay, apz = p[2] - az;
+            float nx = aby * acz - abz * acy, ny = abz * acx - abx * acz, nz = abx * acy - aby * acx;
+            float abLen = abx * abx + aby * aby + abz * abz;
+            float acLen = acx * acx + acy * acy + acz * acz;
+
+            if (nx * nx + ny * ny + nz * nz <= 1e-12f * abLen * acLen) {
+                return Math.min(segmentDistanceSquared(p, ia, ib),
+                                Math.min(segmentDistanceSquared(p, ib, ic),
+                                         segmentDistanceSquared(p, ic, ia)));
+            }
+            float d1 = abx * apx + aby * apy + abz * apz;
+            float d2 = acx * apx + acy * apy + acz * apz;
+            float u, v;
+
+            if ((d1 <= 0) && (d2 <= 0)) {
+                u = 0; v = 0;
+            } else {
+                float bpx = apx - abx, bpy = apy - aby, bpz = apz - abz;
+                float d3 = abx * bpx + aby * bpy + abz * bpz;
+                float d4 = acx * bpx + acy * bpy + acz * bpz;
+                float cpx = apx - acx, cpy = apy - acy, cpz = apz - acz;
+                float d5 = abx * cpx + aby * cpy + abz * cpz;
+                float d6 = acx * cpx + acy * cpy + acz * cpz;
+                float vc = d1 * d4 - d3 * d2;
+                float vb = d5 * d2 - d1 * d6;
+                float va = d3 * d6 - d5 * d4;
+
+                if ((d3 >= 0) && (d4 <= d3)) {
+                    u = 1; v = 0;
+                } else if ((d6 >= 0) && (d5 <= d6)) {
+                    u = 0; v = 1;
+                } else if ((vc <= 0) && (d1 >= 0) && (d3 <= 0)) {
+                    u = d1 / (d1 - d3); v = 0;
+                } else if ((vb <= 0) && (d2 >= 0) && (d6 <= 0)) {
+                    u = 0; v = d2 / (d2 - d6);
+                } else if ((va <= 0) && ((d4 - d3) >= 0) && ((d5 - d6) >= 0)) {
+                    v = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+                    u = 1 - v;
+                } else if (va + vb + vc > 0) {
+                    float denom = 1.0f / (va + vb + vc);
+                    u = vb * denom;
+                    v = vc * denom;
+                } else {
+                    return Math.min(segmentDistanceSquared(p, ia, ib),
+                                    Math.min(segmentDistanceSquared(p, ib, ic),
+                                             segmentDistanceSquared(p, ic, ia)));
+                }
+            }
+            float dx = apx - (abx * u + acx * v);
+            float dy = apy - (aby * u + acy * v);
+            float dz = apz - (abz * u + acz * v);
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        /*
+         * Squared distance from a point to the segment between two positions.
+         */
+        private float segmentDistanceSquared(float[] p, int ia, int ib) {
+            float abx = mPos[ib] - mPos[ia], aby = mPos[ib + 1] - mPos[ia + 1], abz = mPos[ib + 2] - mPos[ia + 2];
+            float apx = p[0] - mPos[ia], apy = p[1] - mPos[ia + 1], apz = p[2] - mPos[ia + 2];
+            float len = abx * abx + aby * aby + abz * abz;
+            float u = (len > 0) ? (abx * apx + aby * apy + abz * apz) / len : 0;
+
+            u = Math.max(0, Math.min(1, u));
+            float dx = apx - abx * u;
+            float dy = apy - aby * u;
+            float dz = apz - abz * u;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -16,9 +16,23 @@
 package org.gearvrf.utility;
 
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRIndexBuffer;
+import org.gearvrf.GVRLODGroup;
 import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRVertexBuffer;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Utilities for mesh creation and manipulation.
  */
@@ -98,6 +112,251 @@ public class MeshUtils {
         return newMesh;
     }
 
+    /**
+     * Optimize a mesh for the vertex cache using default settings.
+     *
+     * @param mesh Mesh to be optimized.
+     * @return Vertex cache statistics after optimization.
+     * @see #optimize(GVRMesh, MeshOptimizer)
+     */
+    public static MeshOptimizer.Stats optimize(GVRMesh mesh) {
+        return optimize(mesh, new MeshOptimizer());
+    }
+
+    /**
+     * Weld and reorder the vertices and triangles of a mesh for the vertex cache.
+     * <p>
+     * This works for any triangle mesh, including meshes which were not
+     * imported with {@link org.gearvrf.GVRImportSettings#IMPROVE_VERTEX_CACHE_LOCALITY}.
+     * The mesh gets a new vertex and index buffer, other meshes sharing
+     * the old buffers are not changed. Statistics from before and after
+     * are available from the optimizer.
+     *
+     * @param mesh Mesh to be optimized.
+     * @param optimizer Optimizer with the desired settings.
+     * @return Vertex cache statistics after optimization.
+     */
+    public static MeshOptimizer.Stats optimize(GVRMesh mesh, MeshOptimizer optimizer) {
+        GVRVertexBuffer srcVerts = mesh.getVertexBuffer();
+        Map<String, float[]> floats = new LinkedHashMap<String, float[]>();
+        Map<String, int[]> ints = new LinkedHashMap<String, int[]>();
+
+        readAttributes(srcVerts, floats, ints);
+        int[] indices = optimizer.optimize(readIndices(mesh.getIndexBuffer()),
+                srcVerts.getVertexCount(), floats, ints);
+
+        if (indices.length == 0) {
+            return optimizer.getStatsAfter();   // nothing to draw, keep the mesh as it is
+        }
+        mesh.setVertexBuffer(createVertexBuffer(mesh.getGVRContext(), srcVerts.getDescriptor(),
+                optimizer.getVertexCount(), floats, ints));
+        mesh.setIndexBuffer(createIndexBuffer(mesh.getGVRContext(), indices, optimizer.getVertexCount()));
+        return optimizer.getStatsAfter();
+    }
+
+    /**
+     * Make a simplified copy of a mesh.
+     * <p>
+     * The new mesh has the same vertex layout and keeps the authored
+     * normals, texture coordinates and bone weights. It is also
+     * optimized for the vertex cache. This can be called from any thread.
+     *
+     * @param mesh Mesh to be simplified, it is not changed.
+     * @param ratio Fraction of the triangles to keep, between 0 and 1.
+     * @param maxError Largest allowed error in mesh units, simplification
+     *                 stops early rather than exceeding it.
+     * @return New simplified mesh, or the input mesh if it has no triangles.
+     * @see MeshSimplifier
+     */
+    public static GVRMesh simplify(GVRMesh mesh, float ratio, float maxError) {
+        GVRContext ctx = mesh.getGVRContext();
+        GVRVertexBuffer srcVerts = mesh.getVertexBuffer();
+        Map<String, float[]> floats = new LinkedHashMap<String, float[]>();
+        Map<String, int[]> ints = new LinkedHashMap<String, int[]>();
+        int[] indices = readIndices(mesh.getIndexBuffer());
+        int numTris = ((indices != null) ? indices.length : srcVerts.getVertexCount()) / 3;
+
+        if (numTris == 0) {
+            return mesh;
+        }
+        MeshSimplifier simplifier = new MeshSimplifier().setMaxError(maxError);
+        MeshOptimizer optimizer = new MeshOptimizer();
+
+        readAttributes(srcVerts, floats, ints);
+        indices = simplifier.simplify(indices, srcVerts.getVertexCount(), floats, ints,
+                (int) (numTris * ratio));
+        indices = optimizer.optimize(indices, simplifier.getVertexCount(), floats, ints);
+
+        int vertexCount = optimizer.getVertexCount();
+        return new GVRMesh(createVertexBuffer(ctx, srcVerts.getDescriptor(), vertexCount, floats, ints),
+                           createIndexBuffer(ctx, indices, vertexCount));
+    }
+
+    /**
+     * Generate lower detail versions of a scene object and put them in a {@link GVRLODGroup}.
+     * <p>
+     * The render data of the scene object moves to a new child which is
+     * the first level of detail. Each remaining level is a child with a
+     * simplified copy of the mesh which shares the original material.
+     * The levels are simplified in parallel on background threads,
+     * this function waits for them to finish so it should not be
+     * called from the GL thread.
+     *
+     * @param owner Scene object with render data to make levels for.
+     * @param ranges Camera distance at which each level is shown, the first is usually 0.
+     * @param ratios Fraction of the triangles kept in each level, 1 keeps the original mesh.
+     * @param maxError Largest allowed error in mesh units for any level.
+     * @return LOD group attached to the owner.
+     * @throws IllegalArgumentException if owner has no mesh or the arrays differ in size.
+     * @throws IllegalStateException if simplifying a level fails. The owner is not changed.
+     */
+    public static GVRLODGroup createLODGroup(GVRSceneObject owner, float[] ranges,
+                                             float[] ratios, final float maxError) {
+        final GVRRenderData srcData = owner.getRenderData();
+        GVRContext ctx = owner.getGVRContext();
+
+        if ((srcData == null) || (srcData.getMesh() == null)) {
+            throw new IllegalArgumentException("Scene object must have a mesh to make levels of detail");
+        }
+        if (ranges.length != ratios.length) {
+            throw new IllegalArgumentException("Need one ratio for each range");
+        }
+        final GVRMesh srcMesh = srcData.getMesh();
+        List<Future<GVRMesh>> levels = new ArrayList<Future<GVRMesh>>(ratios.length);
+
+        for (final float ratio : ratios) {
+            if (ratio >= 1.0f) {
+                levels.add(null);
+                continue;
+            }
+            levels.add(Threads.spawn(new Callable<GVRMesh>() {
+                @Override
+                public GVRMesh call() {
+                    return simplify(srcMesh, ratio, maxError);
+                }
+            }));
+        }
+        /*
+         * Wait for all the levels before changing the owner,
+         * so it keeps its render data if simplifying fails.
+         */
+        GVRMesh[] meshes = new GVRMesh[levels.size()];
+        try {
+            for (int i = 0; i < meshes.length; ++i) {
+                meshes[i] = (levels.get(i) != null) ? waitFor(levels.get(i)) : null;
+            }
+        } catch (RuntimeException e) {
+            for (Future<GVRMesh> level : levels) {
+                if (level != null) {
+                    level.cancel(true);
+                }
+            }
+            throw e;
+        }
+
+        GVRLODGroup lodGroup = new GVRLODGroup(ctx);
+        boolean sourceUsed = false;
+
+        owner.detachRenderData();
+        for (int i = 0; i < ranges.length; ++i) {
+            GVRSceneObject level = new GVRSceneObject(ctx);
+            GVRRenderData rdata;
+
+            if ((meshes[i] == null) && !sourceUsed) {
+                rdata = srcData;
+                sourceUsed = true;
+            } else {
+                rdata = new GVRRenderData(ctx, srcData.getMaterial());
+                rdata.setMesh((meshes[i] != null) ? meshes[i] : srcMesh);
+                rdata.setRenderingOrder(srcData.getRenderingOrder());
+                rdata.setCullFace(srcData.getCullFace());
+                rdata.setAlphaBlend(srcData.getAlphaBlend());
+            }
+            level.setName(owner.getName() + "_lod" + i);
+            level.attachRenderData(rdata);
+            lodGroup.addRange(ranges[i], level);
+        }
+        owner.attachComponent(lodGroup);
+        return lodGroup;
+    }
+
+    private static GVRMesh waitFor(Future<GVRMesh> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simplifying mesh", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot simplify mesh", e.getCause());
+        }
+    }
+
+    private static void readAttributes(GVRVertexBuffer vbuf,
+                                       Map<String, float[]> floats, Map<String, int[]> ints) {
+        Matcher matcher = Pattern.compile("([a-zA-Z0-9]+)[ \\t]+([a-zA-Z0-9_]+)[^ ]*")
+                                 .matcher(vbuf.getDescriptor());
+
+        while (matcher.find()) {
+            String name = matcher.group(2);
+
+            if (!vbuf.hasAttribute(name)) {
+                continue;
+            }
+            if (matcher.group(1).toLowerCase().charAt(0) == 'i') {
+                ints.put(name, vbuf.getIntArray(name));
+            } else {
+                floats.put(name, vbuf.getFloatArray(name));
+            }
+        }
+    }
+
+    private static int[] readIndices(GVRIndexBuffer ibuf) {
+        if ((ibuf == null) || (ibuf.getIndexCount() <= 0)) {
+            return null;
+        }
+        if (ibuf.getIndexSize() == 4) {
+            return ibuf.asIntArray();
+        }
+        char[] chars = ibuf.asCharArray();
+        int[] indices = new int[chars.length];
+
+        for (int i = 0; i < chars.length; ++i) {
+            indices[i] = chars[i];
+        }
+        return indices;
+    }
+
+    private static GVRVertexBuffer createVertexBuffer(GVRContext ctx, String descriptor, int vertexCount,
+                                                      Map<String, float[]> floats, Map<String, int[]> ints) {
+        GVRVertexBuffer vbuf = new GVRVertexBuffer(ctx, descriptor, vertexCount);
+
+        for (Map.Entry<String, float[]> e : floats.entrySet()) {
+            vbuf.setFloatArray(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, int[]> e : ints.entrySet()) {
+            vbuf.setIntArray(e.getKey(), e.getValue());
+        }
+        return vbuf;
+    }
+
+    private static GVRIndexBuffer createIndexBuffer(GVRContext ctx, int[] indices, int vertexCount) {
+        GVRIndexBuffer ibuf;
+
+        if (vertexCount <= 65536) {
+            char[] chars = new char[indices.length];
+
+            for (int i = 0; i < indices.length; ++i) {
+                chars[i] = (char) indices[i];
+            }
+            ibuf = new GVRIndexBuffer(ctx, 2, indices.length);
+            ibuf.setShortVec(chars);
+        } else {
+            ibuf = new GVRIndexBuffer(ctx, 4, indices.length);
+            ibuf.setIntVec(indices);
+        }
+        return ibuf;
+    }
+
     /**
      * Calcs the bonding size of given mesh.
      *
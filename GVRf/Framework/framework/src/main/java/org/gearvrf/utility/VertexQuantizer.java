@@ -0,0 +1,387 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Encoders for the quantized vertex attribute formats.
+ * <p>
+ * Besides "float" and "int", a {@link org.gearvrf.GVRVertexBuffer} descriptor
+ * may use these types for vertex attributes:
+ * <table>
+ * <tr><td>halfN</td><td>16 bit float</td></tr>
+ * <tr><td>snorm16xN</td><td>16 bit signed, normalized to [-1, 1]</td></tr>
+ * <tr><td>unorm16xN</td><td>16 bit unsigned, normalized to [0, 1]</td></tr>
+ * <tr><td>snorm8xN</td><td>8 bit signed, normalized to [-1, 1]</td></tr>
+ * <tr><td>unorm8xN</td><td>8 bit unsigned, normalized to [0, 1]</td></tr>
+ * </table>
+ * N is the number of components (1 to 4). Each attribute is padded to a
+ * multiple of 4 bytes so "snorm16x3" takes 8 bytes instead of 12 for "float3".
+ * The vertex buffer converts when floats are set or read so the
+ * Java API is unchanged, the shader still sees floats.
+ * <p>
+ * This class uses the same conversions as the vertex buffer so the
+ * error introduced can be measured before picking a format.
+ * It also contains octahedral encoding for unit vectors, which maps
+ * a normal to two components. The shader must decode these
+ * itself with {@link #decodeOctahedral(float, float, float[], int)}
+ * so octahedral normals are not a vertex buffer type.
+ */
+public class VertexQuantizer {
+    /**
+     * Storage formats for vertex attributes.
+     */
+    public enum Format {
+        FLOAT("float", 4, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY),
+        HALF("half", 2, -65504.0f, 65504.0f),
+        SNORM16("snorm16x", 2, -1.0f, 1.0f),
+        UNORM16("unorm16x", 2, 0.0f, 1.0f),
+        SNORM8("snorm8x", 1, -1.0f, 1.0f),
+        UNORM8("unorm8x", 1, 0.0f, 1.0f);
+
+        private final String mPrefix;
+        private final int mComponentSize;
+        final float mMin;
+        final float mMax;
+
+        Format(String prefix, int componentSize, float min, float max) {
+            mPrefix = prefix;
+            mComponentSize = componentSize;
+            mMin = min;
+            mMax = max;
+        }
+
+        /**
+         * Get the descriptor type for this format.
+         * @param components number of components (1 - 4)
+         * @return type name like "snorm16x4" or "float3"
+         */
+        public String getTypeName(int components) {
+            if ((this == FLOAT) && (components == 1)) {
+                return mPrefix;
+            }
+            return mPrefix + components;
+        }
+
+        /**
+         * Get the number of bytes an attribute takes in a vertex.
+         * @param components number of components (1 - 4)
+         * @return size in bytes including padding
+         */
+        public int getByteSize(int components) {
+            return (components * mComponentSize + 3) & ~3;
+        }
+    }
+
+    /*
+     * Formats tried by chooseFormat, smallest first
+     */
+    private static final Format[] sCandidates = {
+        Format.UNORM8, Format.SNORM8, Format.UNORM16, Format.SNORM16, Format.HALF
+    };
+
+    private static final Pattern sTypePattern =
+        Pattern.compile("([a-zA-Z]+)([0-9]*)(x([0-9]))?");
+
+    /**
+     * Convert a float to 16 bit float bits, rounding to nearest even.
+     */
+    public static short floatToHalf(float f) {
+        int x = Float.floatToRawIntBits(f);
+        int sign = (x >>> 16) & 0x8000;
+        int biased = (x >>> 23) & 0xFF;
+        int exp = biased - 127 + 15;
+        int mant = x & 0x7FFFFF;
+
+        if (biased == 0xFF) {                   // infinity or NaN
+            return (short) (sign | 0x7C00 | ((mant != 0) ? 0x200 : 0));
+        }
+        if (exp >= 31) {                        // overflow
+            return (short) (sign | 0x7C00);
+        }
+        if (exp <= 0) {                         // denormal or zero
+            if (exp < -10) {
+                return (short) sign;
+            }
+            mant |= 0x800000;
+            int shift = 14 - exp;
+            int half = mant >>> shift;
+            int rem = mant & ((1 << shift) - 1);
+            int mid = 1 << (shift - 1);
+            if ((rem > mid) || ((rem == mid) && ((half & 1) != 0))) {
+                ++half;
+            }
+            return (short) (sign | half);
+        }
+        int half = (exp << 10) | (mant >>> 13);
+        int rem = mant & 0x1FFF;
+        if ((rem > 0x1000) || ((rem == 0x1000) && ((half & 1) != 0))) {
+            ++half;                             // may carry into exponent, which is correct
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Convert 16 bit float bits to a float.
+     */
+    public static float halfToFloat(short h) {
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1F;
+        int mant = h & 0x3FF;
+        int x;
+
+        if (exp == 0) {
+            if (mant == 0) {
+                x = sign;
+            } else {                            // denormal, renormalize
+                exp = 127 - 15 + 1;
+                while ((mant & 0x400) == 0) {
+                    mant <<= 1;
+                    --exp;
+                }
+                x = sign | (exp << 23) | ((mant & 0x3FF) << 13);
+            }
+        } else if (exp == 31) {
+            x = sign | 0x7F800000 | (mant << 13);
+        } else {
+            x = sign | ((exp - 15 + 127) << 23) | (mant << 13);
+        }
+        return Float.intBitsToFloat(x);
+    }
+
+    /**
+     * Encode a float the way the vertex buffer stores it.
+     * @param v      value to encode
+     * @param format storage format, must not be FLOAT
+     * @return stored integer value (sign extended for signed formats)
+     */
+    public static int encode(float v, Format format) {
+        switch (format) {
+            case HALF: return floatToHalf(v) & 0xFFFF;
+            case SNORM16: return round(clamp(v, -1.0f, 1.0f) * 32767.0f);
+            case UNORM16: return round(clamp(v, 0.0f, 1.0f) * 65535.0f);
+            case SNORM8: return round(clamp(v, -1.0f, 1.0f) * 127.0f);
+            case UNORM8: return round(clamp(v, 0.0f, 1.0f) * 255.0f);
+            default:
+                throw new IllegalArgumentException("Cannot encode " + format);
+        }
+    }
+
+    /**
+     * Decode a value made by {@link #encode(float, Format)}.
+     */
+    public static float decode(int v, Format format) {
+        switch (format) {
+            case HALF: return halfToFloat((short) v);
+            case SNORM16: return Math.max(v / 32767.0f, -1.0f);
+            case UNORM16: return v / 65535.0f;
+            case SNORM8: return Math.max(v / 127.0f, -1.0f);
+            case UNORM8: return v / 255.0f;
+            default:
+                throw new IllegalArgumentException("Cannot decode " + format);
+        }
+    }
+
+    /**
+     * Get the value a float will have after it is stored in a format.
+     */
+    public static float quantize(float v, Format format) {
+        if (format == Format.FLOAT) {
+            return v;
+        }
+        return decode(encode(v, format), format);
+    }
+
+    /**
+     * Compute the largest absolute error storing an array in a format causes.
+     * Values outside the range of the format are clamped and count
+     * towards the error.
+     * @param data   values to check
+     * @param format storage format
+     * @return maximum absolute error
+     */
+    public static float maxError(float[] data, Format format) {
+        float err = 0.0f;
+
+        if (format == Format.FLOAT) {
+            return err;
+        }
+        for (float v : data) {
+            float e = Math.abs(quantize(v, format) - v);
+            if (!(e <= err)) {                  // also catches NaN
+                err = e;
+            }
+        }
+        return err;
+    }
+
+    /**
+     * Pick the smallest format which stores an array within an error bound.
+     * Normalized formats are only considered if all the values are in their range.
+     * @param data     values to store
+     * @param maxError largest absolute error allowed
+     * @return smallest suitable format, FLOAT if none of the quantized ones are
+     */
+    public static Format chooseFormat(float[] data, float maxError) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+
+        for (float v : data) {
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        if (data.length == 0) {
+            return Format.UNORM8;
+        }
+        for (Format f : sCandidates) {
+            if ((min >= f.mMin) && (max <= f.mMax) && (maxError(data, f) <= maxError)) {
+                return f;
+            }
+        }
+        return Format.FLOAT;
+    }
+
+    /**
+     * Encode a unit vector with octahedral mapping (Meyer et al. 2010).
+     * The result is two values in [-1, 1] which can be stored in a
+     * "snorm16x2" or "snorm8x2" attribute. At 16 bits the angular error
+     * is about 0.03 degrees.
+     * @param x      X component
+     * @param y      Y component
+     * @param z      Z component
+     * @param dest   array to get the two encoded values
+     * @param offset index in dest to store them at
+     */
+    public static void encodeOctahedral(float x, float y, float z, float[] dest, int offset) {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+
+        if (l1 == 0.0f) {
+            dest[offset] = 0.0f;
+            dest[offset + 1] = 0.0f;
+            return;
+        }
+        float u = x / l1;
+        float v = y / l1;
+        if (z < 0.0f) {
+            float ou = u;
+            u = (1.0f - Math.abs(v)) * Math.signum(ou == 0 ? 1 : ou);
+            v = (1.0f - Math.abs(ou)) * Math.signum(v == 0 ? 1 : v);
+        }
+        dest[offset] = u;
+        dest[offset + 1] = v;
+    }
+
+    /**
+     * Decode an octahedral encoded unit vector.
+     * @param u      first encoded value
+     * @param v      second encoded value
+     * @param dest   array to get the normalized X, Y, Z
+     * @param offset index in dest to store them at
+     */
+    public static void decodeOctahedral(float u, float v, float[] dest, int offset) {
+        float z = 1.0f - Math.abs(u) - Math.abs(v);
+        float x = u;
+        float y = v;
+
+        if (z < 0.0f) {
+            x = (1.0f - Math.abs(v)) * Math.signum(u == 0 ? 1 : u);
+            y = (1.0f - Math.abs(u)) * Math.signum(v == 0 ? 1 : v);
+        }
+        float len = (float) Math.sqrt(x * x + y * y + z * z);
+        dest[offset] = x / len;
+        dest[offset + 1] = y / len;
+        dest[offset + 2] = z / len;
+    }
+
+    /**
+     * Octahedral encode an array of 3 component unit vectors.
+     * @param vectors X, Y, Z for each vector
+     * @return U, V for each vector
+     */
+    public static float[] encodeOctahedral(float[] vectors) {
+        float[] result = new float[vectors.length / 3 * 2];
+
+        for (int i = 0, j = 0; i + 2 < vectors.length; i += 3, j += 2) {
+            encodeOctahedral(vectors[i], vectors[i + 1], vectors[i + 2], result, j);
+        }
+        return result;
+    }
+
+    /**
+     * Decode an array of octahedral encoded unit vectors.
+     * @param encoded U, V for each vector
+     * @return X, Y, Z for each vector
+     */
+    public static float[] decodeOctahedral(float[] encoded) {
+        float[] result = new float[encoded.length / 2 * 3];
+
+        for (int i = 0, j = 0; i + 1 < encoded.length; i += 2, j += 3) {
+            decodeOctahedral(encoded[i], encoded[i + 1], result, j);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the number of bytes one vertex takes for a descriptor,
+     * using the same padding rules as the vertex buffer.
+     * @param descriptor vertex descriptor like "float3 a_position snorm8x4 a_normal"
+     * @return vertex size in bytes
+     */
+    public static int getVertexSize(String descriptor) {
+        String[] tokens = descriptor.trim().split("[ \t,]+");
+        int size = 0;
+
+        for (int i = 0; i + 1 < tokens.length; i += 2) {
+            Matcher m = sTypePattern.matcher(tokens[i]);
+            if (!m.matches()) {
+                throw new IllegalArgumentException("Bad vertex type " + tokens[i]);
+            }
+            String type = m.group(1);
+            String count = m.group(2);
+            String quantCount = m.group(4);
+            Format format = null;
+
+            for (Format f : Format.values()) {
+                if (f.mPrefix.equals(type + ((quantCount != null) ? count + "x" : ""))) {
+                    format = f;
+                    break;
+                }
+            }
+            if (format == null) {
+                if (!type.equals("int")) {
+                    throw new IllegalArgumentException("Bad vertex type " + tokens[i]);
+                }
+                format = Format.FLOAT;          // same size as int
+            }
+            String n = (quantCount != null) ? quantCount : count;
+            size += format.getByteSize(n.isEmpty() ? 1 : Integer.parseInt(n));
+        }
+        return size;
+    }
+
+    /*
+     * Round half away from zero like lroundf in the native code
+     */
+    private static int round(float v) {
+        return (v < 0.0f) ? -(int) (0.5f - v) : (int) (v + 0.5f);
+    }
+
+    private static float clamp(float v, float lo, float hi) {
+        return (v < lo) ? lo : ((v > hi) ? hi : v);
+    }
+}
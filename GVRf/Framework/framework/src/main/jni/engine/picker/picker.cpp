@@ -19,6 +19,7 @@
 
 #include "picker.h"
 
+#include <algorithm>
 #include <limits>
 #include "glm/glm.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
@@ -32,12 +33,23 @@
 
 namespace gvr {
 
+/*
+ * The layer counters are updated by any thread that picks
+ * and read by the thread asking for statistics.
+ */
+std::atomic<bool> Picker::layer_stats_enabled_(false);
+std::atomic<int> Picker::layer_tests_[Picker::MAX_LAYERS];
+std::atomic<int> Picker::layer_hits_[Picker::MAX_LAYERS];
+
 /*
  * Intersects all the colliders in the scene with the input ray
  * and returns the list of collisions.
+ * Only colliders whose layer mask shares a bit with the
+ * input mask are tested.
  */
 void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transform* t,
-                       float ox, float oy, float oz, float dx, float dy, float dz)
+                       float ox, float oy, float oz, float dx, float dy, float dz,
+                       unsigned int mask)
 {
     glm::vec3 ray_start(ox, oy, oz);
     glm::vec3 ray_dir(dx, dy, dz);
@@ -49,13 +61,23 @@ void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transf
     {
         Collider* collider = static_cast<Collider*>(*it);
         SceneObject* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled())
+        unsigned int layers = collider->layer_mask() & mask;
+
+        if (layers && collider->enabled() && (owner != NULL) && owner->enabled())
         {
             ColliderData data = collider->isHit(owner, ray_start, ray_dir);
             if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
             {
                 data.IsHit = false;
             }
+            if (layer_stats_enabled_)
+            {
+                countLayers(layers, layer_tests_);
+                if (data.IsHit)
+                {
+                    countLayers(layers, layer_hits_);
+                }
+            }
             if (data.IsHit) {
                 picklist.push_back(data);
             }
@@ -68,12 +90,15 @@ void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transf
 /*
  * Intersects all the colliders in the scene with the input ray
  * and returns the one closest to the camera.
+ * Only colliders whose layer mask shares a bit with the
+ * input mask are tested.
  */
 void Picker::pickClosest(Scene* scene,
                          ColliderData& closest,
                          Transform* t,
                          float ox, float oy, float oz,
-                         float dx, float dy, float dz)
+                         float dx, float dy, float dz,
+                         unsigned int mask)
 {
     glm::vec3 ray_start(ox, oy, oz);
     glm::vec3 ray_dir(dx, dy, dz);
@@ -86,13 +111,23 @@ void Picker::pickClosest(Scene* scene,
     {
         Collider* collider = static_cast<Collider*>(*it);
         SceneObject* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled())
+        unsigned int layers = collider->layer_mask() & mask;
+
+        if (layers && collider->enabled() && (owner != NULL) && owner->enabled())
         {
             ColliderData data = collider->isHit(owner, ray_start, ray_dir);
             if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
             {
                 data.IsHit = false;
             }
+            if (layer_stats_enabled_)
+            {
+                countLayers(layers, layer_tests_);
+                if (data.IsHit)
+                {
+                    countLayers(layers, layer_hits_);
+                }
+            }
             if (data.IsHit && (data.Distance < closest.Distance))
             {
                 closest = data;
@@ -102,6 +137,72 @@ void Picker::pickClosest(Scene* scene,
     scene->unlockColliders();
 }
 
+/*
+ * Intersects all the colliders in the scene with several rays
+ * and finds the closest hit for each ray.
+ * The rays are in world coordinates, 6 floats for each
+ * (origin followed by direction). A ray is only tested against
+ * colliders whose layer mask intersects the mask for that ray.
+ * The colliders are locked and visited once for all the rays,
+ * so this is cheaper than picking with each ray separately.
+ */
+void Picker::pickClosest(Scene* scene,
+                         int numRays,
+                         const float* rays,
+                         const unsigned int* masks,
+                         ColliderData* closest)
+{
+    const std::vector<Component*>& colliders = scene->lockColliders();
+
+    for (int r = 0; r < numRays; ++r)
+    {
+        closest[r] = ColliderData();
+    }
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        Collider* collider = static_cast<Collider*>(*it);
+        SceneObject* owner = collider->owner_object();
+        float pickDistance = collider->pick_distance();
+        unsigned int layers = collider->layer_mask();
+
+        if (!collider->enabled() || (owner == NULL) || !owner->enabled())
+        {
+            continue;
+        }
+        for (int r = 0; r < numRays; ++r)
+        {
+            unsigned int rayLayers = masks[r] & layers;
+
+            if (rayLayers == 0)
+            {
+                continue;
+            }
+            const float* ray = rays + r * 6;
+            glm::vec3 ray_start(ray[0], ray[1], ray[2]);
+            glm::vec3 ray_dir(ray[3], ray[4], ray[5]);
+            ColliderData data = collider->isHit(owner, ray_start, ray_dir);
+
+            if ((pickDistance > 0) && (pickDistance < data.Distance))
+            {
+                data.IsHit = false;
+            }
+            if (layer_stats_enabled_)
+            {
+                countLayers(rayLayers, layer_tests_);
+                if (data.IsHit)
+                {
+                    countLayers(rayLayers, layer_hits_);
+                }
+            }
+            if (data.IsHit && (data.Distance < closest[r].Distance))
+            {
+                closest[r] = data;
+            }
+        }
+    }
+    scene->unlockColliders();
+}
+
 /*
  * Intersects all the colliders in the scene with the set of
  * input scene objects (collidables) and returns the list of collisions.
@@ -203,12 +304,14 @@ glm::vec3 Picker::pickSceneObjectAgainstBoundingBox(SceneObject* scene_object, f
 }
 
 /*
- * Returns the list of all visible colliders.
+ * Returns the list of all visible colliders
+ * whose layer mask shares a bit with the input mask.
  *
  * This function is not thread-safe because it relies on a static
  * array of colliders which could be updated by a different thread.
  */
-void Picker::pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>& picklist)
+void Picker::pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>& picklist,
+                         unsigned int mask)
 {
     const std::vector<Component*>& colliders = scene->lockColliders();
 
@@ -216,7 +319,7 @@ void Picker::pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>&
     {
         Collider* collider = static_cast<Collider*>(*it);
         SceneObject* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled())
+        if ((collider->layer_mask() & mask) && collider->enabled() && (owner != NULL) && owner->enabled())
         {
             ColliderData data(collider);
             Transform* trans = owner->transform();
@@ -230,4 +333,77 @@ void Picker::pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>&
     std::sort(picklist.begin(), picklist.end(), compareColliderData);
     scene->unlockColliders();
 }
+
+/*
+ * Turn the per-layer pick counters on or off.
+ * Counting is off by default so picking does not pay for it.
+ */
+void Picker::enableLayerStats(bool enable)
+{
+    layer_stats_enabled_ = enable;
+}
+
+/*
+ * Get statistics for each of the 32 collider layers and
+ * reset the pick counters.
+ * @param colliders gets the number of enabled colliders in each layer
+ * @param tested    gets the number of ray tests against colliders in each
+ *                  layer since the last call
+ * @param hits      gets the number of those tests which hit
+ * Any of the arrays may be NULL.
+ */
+void Picker::getLayerStats(Scene* scene, int* colliders, int* tested, int* hits)
+{
+    if (colliders)
+    {
+        const std::vector<Component*>& list = scene->lockColliders();
+
+        std::fill(colliders, colliders + MAX_LAYERS, 0);
+        for (auto it = list.begin(); it != list.end(); ++it)
+        {
+            Collider* collider = static_cast<Collider*>(*it);
+
+            if (collider->enabled())
+            {
+                countLayers(collider->layer_mask(), colliders);
+            }
+        }
+        scene->unlockColliders();
+    }
+    for (int i = 0; i < MAX_LAYERS; ++i)
+    {
+        int numTests = layer_tests_[i].exchange(0, std::memory_order_relaxed);
+        int numHits = layer_hits_[i].exchange(0, std::memory_order_relaxed);
+
+        if (tested)
+        {
+            tested[i] = numTests;
+        }
+        if (hits)
+        {
+            hits[i] = numHits;
+        }
+    }
+}
+
+/*
+ * Add one to the count for each bit set in the layer mask.
+ */
+void Picker::countLayers(unsigned int layers, int* counts)
+{
+    while (layers)
+    {
+        ++counts[__builtin_ctz(layers)];
+        layers &= layers - 1;
+    }
+}
+
+void Picker::countLayers(unsigned int layers, std::atomic<int>* counts)
+{
+    while (layers)
+    {
+        counts[__builtin_ctz(layers)].fetch_add(1, std::memory_order_relaxed);
+        layers &= layers - 1;
+    }
+}
 }
@@ -23,6 +23,7 @@
 
 #include <vector>
 #include <memory>
+#include <atomic>
 #include "objects/components/collider.h"
 #include "glm/glm.hpp"
 
@@ -40,18 +41,29 @@ private:
     ~Picker();
 
 public:
-    static void pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>& pickList);
+    static const int MAX_LAYERS = 32;
+
+    static void pickVisible(Scene* scene, Transform* t, std::vector<ColliderData>& pickList,
+            unsigned int mask = 0xFFFFFFFF);
     static void pickScene(
             Scene* scene, std::vector<ColliderData>& pickList,
             Transform* t,
             float ox, float oy, float oz,
-            float dx, float dy, float dz);
+            float dx, float dy, float dz,
+            unsigned int mask = 0xFFFFFFFF);
     static void pickClosest(
             Scene* scene,
             ColliderData& closest,
             Transform* t,
             float ox, float oy, float oz,
-            float dx, float dy, float dz);
+            float dx, float dy, float dz,
+            unsigned int mask = 0xFFFFFFFF);
+    static void pickClosest(
+            Scene* scene,
+            int numRays,
+            const float* rays,
+            const unsigned int* masks,
+            ColliderData* closest);
     static void pickBounds(
             Scene* scene,
             std::vector<ColliderData>& picklist,
@@ -64,6 +76,16 @@ public:
     static glm::vec3 pickSceneObjectAgainstBoundingBox(
             SceneObject* scene_object, float ox, float oy, float oz,
             float dx, float dy, float dz);
+    static void enableLayerStats(bool enable);
+    static void getLayerStats(Scene* scene, int* colliders, int* tested, int* hits);
+
+private:
+    static void countLayers(unsigned int layers, int* counts);
+    static void countLayers(unsigned int layers, std::atomic<int>* counts);
+
+    static std::atomic<bool> layer_stats_enabled_;
+    static std::atomic<int> layer_tests_[MAX_LAYERS];
+    static std::atomic<int> layer_hits_[MAX_LAYERS];
 };
 
 }
@@ -36,7 +36,7 @@ extern "C" {
                                             jobject obj, jlong jscene,
                                             jlong jtransform,
                                             jfloat ox, jfloat oy, jfloat oz,
-                                            jfloat dx, jfloat dy, jfloat dz);
+                                            jfloat dx, jfloat dy, jfloat dz, jint mask);
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env,
                                           jobject obj, jlong jscene,
@@ -45,7 +45,7 @@ extern "C" {
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
             jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
-            jfloat dy, jfloat dz);
+            jfloat dy, jfloat dz, jint mask);
     JNIEXPORT jobject JNICALL
     Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
             jobject obj, jlong jscene_object, jfloat ox, jfloat oy, jfloat oz,
@@ -56,7 +56,25 @@ extern "C" {
             jfloat dy, jfloat dz, jobject jreadback_buffer);
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickVisible(JNIEnv * env,
-            jobject obj, jlong jscene);
+            jobject obj, jlong jscene, jint mask);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_pickResults(JNIEnv * env,
+            jobject obj, jlong jscene, jlong jtransform,
+            jfloat ox, jfloat oy, jfloat oz,
+            jfloat dx, jfloat dy, jfloat dz, jboolean closest, jint mask,
+            jlongArray jcolliders, jfloatArray jhitdata, jintArray jfacedata);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_pickClosestBatch(JNIEnv * env,
+            jobject obj, jlong jscene, jint numRays,
+            jfloatArray jrays, jintArray jmasks,
+            jlongArray jcolliders, jfloatArray jhitdata, jintArray jfacedata);
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativePicker_enableLayerStats(JNIEnv * env,
+            jobject obj, jboolean enable);
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativePicker_getLayerStats(JNIEnv * env,
+            jobject obj, jlong jscene,
+            jintArray jcolliders, jintArray jtested, jintArray jhits);
 }
 
 JNIEXPORT jlongArray JNICALL
@@ -87,7 +105,7 @@ Java_org_gearvrf_NativePicker_pickScene(JNIEnv * env,
 JNIEXPORT jobjectArray JNICALL
 Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
         jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
-        jfloat dy, jfloat dz)
+        jfloat dy, jfloat dz, jint mask)
 {
     jclass pickerClass = env->FindClass("org/gearvrf/GVRPicker");
     jclass hitClass = env->FindClass("org/gearvrf/GVRPicker$GVRPickedObject");
@@ -104,7 +122,7 @@ Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
             return nullptr;
         }
     }
-    Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz);
+    Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz, static_cast<unsigned int>(mask));
 
     int i = 0;
     int size = colliders.size();
@@ -145,7 +163,7 @@ JNIEXPORT jobject JNICALL
 Java_org_gearvrf_NativePicker_pickClosest(JNIEnv * env,
                                           jobject obj, jlong jscene, jlong jtransform,
                                           jfloat ox, jfloat oy, jfloat oz,
-                                          jfloat dx,  jfloat dy, jfloat dz)
+                                          jfloat dx,  jfloat dy, jfloat dz, jint mask)
 {
     Scene* scene = reinterpret_cast<Scene*>(jscene);
     Transform* t = reinterpret_cast<Transform*>(jtransform);
@@ -158,7 +176,7 @@ Java_org_gearvrf_NativePicker_pickClosest(JNIEnv * env,
             return nullptr;
         }
     }
-    Picker::pickClosest(scene, data, t, ox, oy, oz, dx, dy, dz);
+    Picker::pickClosest(scene, data, t, ox, oy, oz, dx, dy, dz, static_cast<unsigned int>(mask));
     if (!data.IsHit)
     {
         return 0L;
@@ -332,7 +350,7 @@ Java_org_gearvrf_NativePicker_pickSceneObjectAgainstBoundingBox(JNIEnv * env,
 
 JNIEXPORT jobjectArray JNICALL
 Java_org_gearvrf_NativePicker_pickVisible(JNIEnv * env,
-        jobject obj, jlong jscene)
+        jobject obj, jlong jscene, jint mask)
 {
     jclass pickerClass = env->FindClass("org/gearvrf/GVRPicker");
     jclass hitClass = env->FindClass("org/gearvrf/GVRPicker$GVRPickedObject");
@@ -343,7 +361,7 @@ Java_org_gearvrf_NativePicker_pickVisible(JNIEnv * env,
     std::vector<ColliderData> colliders;
     Transform* t = scene->main_camera_rig()->getHeadTransform();
 
-    Picker::pickVisible(scene, t, colliders);
+    Picker::pickVisible(scene, t, colliders, static_cast<unsigned int>(mask));
 
     int i = 0;
     int size = colliders.size();
@@ -380,4 +398,175 @@ Java_org_gearvrf_NativePicker_pickVisible(JNIEnv * env,
     return pickList;
 }
 
+/*
+ * Store a hit at the given index in the arrays of a GVRPickResults
+ * or GVRPickBatch: the collider pointer, HIT_STRIDE floats (distance,
+ * hit position, barycentric coordinates, texture coordinates, normal)
+ * and two ints (face index, 1 if the mesh coordinates are valid).
+ */
+static const int HIT_STRIDE = 12;
+
+static void storeHit(JNIEnv* env, const ColliderData& data, int index,
+                     jlongArray jcolliders, jfloatArray jhitdata, jintArray jfacedata)
+{
+    MeshCollider* meshCollider = (MeshCollider*) data.ColliderHit;
+    bool hasCoords = (meshCollider != NULL) &&
+                     (meshCollider->shape_type() == COLLIDER_SHAPE_MESH) &&
+                     meshCollider->pickCoordinatesEnabled();
+    jlong pointerCollider = reinterpret_cast<jlong>(data.ColliderHit);
+    jfloat hit[HIT_STRIDE] =
+    {
+        data.Distance,
+        data.HitPosition.x, data.HitPosition.y, data.HitPosition.z,
+        data.BarycentricCoordinates.x, data.BarycentricCoordinates.y, data.BarycentricCoordinates.z,
+        data.TextureCoordinates.x, data.TextureCoordinates.y,
+        data.NormalCoordinates.x, data.NormalCoordinates.y, data.NormalCoordinates.z
+    };
+    jint face[2] = { hasCoords ? data.FaceIndex : -1, hasCoords ? 1 : 0 };
+
+    env->SetLongArrayRegion(jcolliders, index, 1, &pointerCollider);
+    env->SetFloatArrayRegion(jhitdata, index * HIT_STRIDE, HIT_STRIDE, hit);
+    env->SetIntArrayRegion(jfacedata, index * 2, 2, face);
+}
+
+/*
+ * Pick into the arrays of a GVRPickResults instead of making
+ * a GVRPickedObject for each hit. Only as many hits as fit in the arrays are stored but the total
+ * number of hits is returned so the caller can grow the arrays and retry.
+ * This is only called with GVRPicker.sFindObjectsLock held
+ * so the hit list can be reused.
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickResults(JNIEnv * env,
+        jobject obj, jlong jscene, jlong jtransform,
+        jfloat ox, jfloat oy, jfloat oz,
+        jfloat dx, jfloat dy, jfloat dz, jboolean closest, jint mask,
+        jlongArray jcolliders, jfloatArray jhitdata, jintArray jfacedata)
+{
+    static std::vector<ColliderData> colliders;
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+
+    if (t == NULL)
+    {
+        t = scene->main_camera_rig()->getHeadTransform();
+        if (nullptr == t)
+        {
+            return 0;
+        }
+    }
+    colliders.clear();
+    if (closest)
+    {
+        ColliderData data;
+
+        Picker::pickClosest(scene, data, t, ox, oy, oz, dx, dy, dz, static_cast<unsigned int>(mask));
+        if (data.IsHit)
+        {
+            colliders.push_back(data);
+        }
+    }
+    else
+    {
+        Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz, static_cast<unsigned int>(mask));
+    }
+
+    int capacity = env->GetArrayLength(jcolliders);
+    int n = 0;
+
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        const ColliderData& data = *it;
+
+        if (data.ColliderHit == NULL)
+        {
+            continue;
+        }
+        if (n < capacity)
+        {
+            storeHit(env, data, n, jcolliders, jhitdata, jfacedata);
+        }
+        ++n;
+    }
+    return n;
+}
+
+/*
+ * Find the closest hit for each ray in a GVRPickBatch with
+ * a single pass over the colliders. The rays are in world
+ * coordinates. Each ray gets an entry in the result arrays,
+ * the collider pointer is zero if the ray did not hit anything.
+ * Returns the number of rays which hit something.
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickClosestBatch(JNIEnv * env,
+        jobject obj, jlong jscene, jint numRays,
+        jfloatArray jrays, jintArray jmasks,
+        jlongArray jcolliders, jfloatArray jhitdata, jintArray jfacedata)
+{
+    static std::vector<ColliderData> hits;
+    static std::vector<float> rays;
+    static std::vector<unsigned int> masks;
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    int n = 0;
+
+    if (numRays <= 0)
+    {
+        return 0;
+    }
+    hits.resize(numRays);
+    rays.resize(numRays * 6);
+    masks.resize(numRays);
+    env->GetFloatArrayRegion(jrays, 0, numRays * 6, rays.data());
+    env->GetIntArrayRegion(jmasks, 0, numRays, reinterpret_cast<jint*>(masks.data()));
+    Picker::pickClosest(scene, numRays, rays.data(), masks.data(), hits.data());
+    for (int r = 0; r < numRays; ++r)
+    {
+        const ColliderData& data = hits[r];
+
+        if (data.IsHit && (data.ColliderHit != NULL))
+        {
+            ++n;
+        }
+        storeHit(env, data, r, jcolliders, jhitdata, jfacedata);
+    }
+    return n;
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePicker_enableLayerStats(JNIEnv * env,
+        jobject obj, jboolean enable)
+{
+    Picker::enableLayerStats(enable);
+}
+
+/*
+ * Copy the per-layer statistics into Java arrays of
+ * Picker::MAX_LAYERS ints. Null arrays are skipped.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativePicker_getLayerStats(JNIEnv * env,
+        jobject obj, jlong jscene,
+        jintArray jcolliders, jintArray jtested, jintArray jhits)
+{
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    jint colliders[Picker::MAX_LAYERS];
+    jint tested[Picker::MAX_LAYERS];
+    jint hits[Picker::MAX_LAYERS];
+
+    Picker::getLayerStats(scene, (jcolliders != NULL) ? colliders : NULL, tested, hits);
+    if (jcolliders != NULL)
+    {
+        env->SetIntArrayRegion(jcolliders, 0, Picker::MAX_LAYERS, colliders);
+    }
+    if (jtested != NULL)
+    {
+        env->SetIntArrayRegion(jtested, 0, Picker::MAX_LAYERS, tested);
+    }
+    if (jhits != NULL)
+    {
+        env->SetIntArrayRegion(jhits, 0, Picker::MAX_LAYERS, hits);
+    }
+}
+
 }
@@ -72,8 +72,8 @@ namespace gvr {
                     if (loc >= 0)                       // attribute found in shader?
                     {
                         GL(glEnableVertexAttribArray(loc)); // enable this attribute in GL
-                        GL(glVertexAttribPointer(loc, entry->Size / sizeof(float),
-                                              entry->IsInt ? GL_INT : GL_FLOAT, GL_FALSE,
+                        GL(glVertexAttribPointer(loc, entry->Components,
+                                              getGLType(*entry), entry->Format > HALF,
                                               getTotalSize(), reinterpret_cast<GLvoid*>(entry->Offset)));
                         LOGV("VertexBuffer: vertex attrib #%d %s loc %d ofs %d",
                              e.Index, e.Name, loc, entry->Offset);
@@ -93,6 +93,19 @@ namespace gvr {
         });
     }
 
+    GLenum GLVertexBuffer::getGLType(const DataEntry& entry)
+    {
+        switch (entry.Format)
+        {
+            case HALF: return GL_HALF_FLOAT;
+            case SNORM16: return GL_SHORT;
+            case UNORM16: return GL_UNSIGNED_SHORT;
+            case SNORM8: return GL_BYTE;
+            case UNORM8: return GL_UNSIGNED_BYTE;
+            default: return entry.IsInt ? GL_INT : GL_FLOAT;
+        }
+    }
+
     bool GLVertexBuffer::updateGPU(Renderer* renderer, IndexBuffer* ibuf, Shader* shader)
     {
         std::lock_guard<std::mutex> lock(mLock);
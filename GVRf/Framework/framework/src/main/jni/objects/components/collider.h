@@ -106,16 +106,30 @@ public:
     float pick_distance() const {
         return pick_distance_;
     }
+
+    /*
+     * Bit mask of the layers this collider is in.
+     * A pick query only considers colliders whose
+     * layer mask shares a bit with the query mask.
+     */
+    void set_layer_mask(unsigned int mask) {
+        layer_mask_ = mask;
+    }
+
+    unsigned int layer_mask() const {
+        return layer_mask_;
+    }
     static void transformRay(const glm::mat4& matrix, glm::vec3& rayStart, glm::vec3& rayDir);
     virtual void onAddedToScene(Scene* scene);
     virtual void onRemovedFromScene(Scene* scene);
     static void transformSphere(const glm::mat4& model_matrix, float* sphere);
 
 protected:
-    Collider() : Component(Collider::getComponentType()), pick_distance_(0) {}
-    explicit Collider(long long type) : Component(type), pick_distance_(0) {}
+    Collider() : Component(Collider::getComponentType()), pick_distance_(0), layer_mask_(0xFFFFFFFF) {}
+    explicit Collider(long long type) : Component(type), pick_distance_(0), layer_mask_(0xFFFFFFFF) {}
 
     float pick_distance_;
+    unsigned int layer_mask_;
 
     Collider(const Collider& collider) = delete;
     Collider(Collider&& collider) = delete;
@@ -25,6 +25,10 @@ namespace gvr {
 extern "C" {
     JNIEXPORT jlong JNICALL
     Java_org_gearvrf_NativeCollider_getComponentType(JNIEnv * env, jobject obj);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeCollider_setLayerMask(JNIEnv * env, jobject obj,
+            jlong jcollider, jint mask);
 }
 
 JNIEXPORT jlong JNICALL
@@ -32,4 +36,11 @@ Java_org_gearvrf_NativeCollider_getComponentType(JNIEnv * env, jobject obj) {
     return Collider::getComponentType();
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeCollider_setLayerMask(JNIEnv * env, jobject obj,
+        jlong jcollider, jint mask) {
+    Collider* collider = reinterpret_cast<Collider*>(jcollider);
+    collider->set_layer_mask(static_cast<unsigned int>(mask));
+}
+
 }
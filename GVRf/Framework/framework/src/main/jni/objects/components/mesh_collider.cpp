@@ -242,27 +242,29 @@ static void populateSurfaceCoords(const Mesh& mesh, ColliderData& colliderData)
     glm::vec3 v3(V3[offset], V3[offset+1], V3[offset+2]);
 
     calcBarycentric(colliderData.HitPosition, v1, v2, v3, colliderData.BarycentricCoordinates);
-    bool hasTexCoords = vBuffer->getInfo("a_texcoord", index, offset, size);
-    if(hasTexCoords){
-        offset /= sizeof(float);
-        glm::vec2 u1(V1[offset], V1[offset+1]);
-        glm::vec2 u2(V2[offset], V2[offset+1]);
-        glm::vec2 u3(V3[offset], V3[offset+1]);
-
-        colliderData.TextureCoordinates =   u1 * colliderData.BarycentricCoordinates.x
-                                            + u2 * colliderData.BarycentricCoordinates.y
-                                            + u3 * colliderData.BarycentricCoordinates.z;
+    const DataDescriptor::DataEntry* texcoords = vBuffer->find("a_texcoord");
+    if ((texcoords != nullptr) && texcoords->IsSet)
+    {
+        glm::vec4 u1, u2, u3;
+
+        vBuffer->getVertexValue(V1, *texcoords, &u1.x);
+        vBuffer->getVertexValue(V2, *texcoords, &u2.x);
+        vBuffer->getVertexValue(V3, *texcoords, &u3.x);
+        colliderData.TextureCoordinates =   glm::vec2(u1) * colliderData.BarycentricCoordinates.x
+                                            + glm::vec2(u2) * colliderData.BarycentricCoordinates.y
+                                            + glm::vec2(u3) * colliderData.BarycentricCoordinates.z;
     }
-    bool hasNormals = vBuffer->getInfo("a_normal", index, offset, size);
-    if(hasNormals){
-        offset /= sizeof(float);
-        glm::vec3 n1(V1[offset], V1[offset+1], V1[offset+2]);
-        glm::vec3 n2(V2[offset], V2[offset+1], V2[offset+2]);
-        glm::vec3 n3(V3[offset], V3[offset+1], V3[offset+2]);
-
-        colliderData.NormalCoordinates =   n1 * colliderData.BarycentricCoordinates.x
-                                            + n2 * colliderData.BarycentricCoordinates.y
-                                            + n3 * colliderData.BarycentricCoordinates.z;
+    const DataDescriptor::DataEntry* normals = vBuffer->find("a_normal");
+    if ((normals != nullptr) && normals->IsSet)
+    {
+        glm::vec4 n1, n2, n3;
+
+        vBuffer->getVertexValue(V1, *normals, &n1.x);
+        vBuffer->getVertexValue(V2, *normals, &n2.x);
+        vBuffer->getVertexValue(V3, *normals, &n3.x);
+        colliderData.NormalCoordinates =   glm::vec3(n1) * colliderData.BarycentricCoordinates.x
+                                            + glm::vec3(n2) * colliderData.BarycentricCoordinates.y
+                                            + glm::vec3(n3) * colliderData.BarycentricCoordinates.z;
     }
 }
 
@@ -225,6 +225,27 @@ public:
         invalidate(false);
     }
 
+    /*
+     * Set any of position, rotation and scale together
+     * so the model matrix is only invalidated once.
+     * The values passed as null are left as they are.
+     */
+    void set_local(const glm::vec3* position, const glm::quat* rotation, const glm::vec3* scale) {
+        {
+            std::lock_guard<std::mutex> lock(mutex_);
+            if (position) {
+                position_ = *position;
+            }
+            if (rotation) {
+                rotation_ = *rotation;
+            }
+            if (scale) {
+                scale_ = *scale;
+            }
+        }
+        invalidate(true);
+    }
+
     bool isModelMatrixValid() {
         std::lock_guard<std::mutex> lock(mutex_);
         return model_matrix_.isValid();
@@ -14,6 +14,8 @@
  */
 #define VERBOSE_LOGGING 0
 
+#include <cmath>
+#include <cstdlib>
 #include <cstring>
 #include <sstream>
 #include <istream>
@@ -183,6 +185,10 @@ namespace gvr
             DataEntry entry;
             short byteSize = calcSize(type);
 
+            int components = 0;
+
+            entry.Format = parseFormat(type, components);
+            entry.Components = (components > 0) ? components : (byteSize / sizeof(float));
             entry.Type = makeShaderType(type, byteSize);
             byteSize *= array_size;     // multiply by number of array elements
             entry.IsSet = false;
@@ -236,8 +242,20 @@ namespace gvr
     std::string DataDescriptor::makeShaderType(const char* type, int byteSize)
     {
         std::ostringstream stream;
+        int components = 0;
 
-        if ((byteSize > 4) && (byteSize <= 16))
+        if (parseFormat(type, components) != FLOAT)
+        {
+            if (components > 1)
+            {
+                stream << "vec" << components;
+            }
+            else
+            {
+                stream << "float";
+            }
+        }
+        else if ((byteSize > 4) && (byteSize <= 16))
         {
             if (type[0] == 'f')
             {
@@ -270,11 +288,245 @@ namespace gvr
         return stream.str();
     }
 
+    DataDescriptor::Format DataDescriptor::parseFormat(const char* type, int& components)
+    {
+        static const struct
+        {
+            const char* prefix;
+            Format      format;
+        } formats[] =
+        {
+            { "half", HALF },
+            { "snorm16x", SNORM16 },
+            { "unorm16x", UNORM16 },
+            { "snorm8x", SNORM8 },
+            { "unorm8x", UNORM8 }
+        };
+
+        components = 0;
+        for (int i = 0; i < sizeof(formats) / sizeof(formats[0]); ++i)
+        {
+            int len = strlen(formats[i].prefix);
+
+            if (strncmp(type, formats[i].prefix, len) == 0)
+            {
+                components = atoi(type + len);
+                if ((components < 1) || (components > 4))
+                {
+                    LOGE("DataDescriptor: %s must have 1 to 4 components", type);
+                    components = 0;
+                    return FLOAT;
+                }
+                return formats[i].format;
+            }
+        }
+        return FLOAT;
+    }
+
+    /*
+     * Convert a float to a 16-bit float, rounding to nearest even.
+     * Values too large become infinity, values too small become zero.
+     */
+    static unsigned short floatToHalf(float f)
+    {
+        unsigned int x;
+        memcpy(&x, &f, sizeof(x));
+        unsigned int sign = (x >> 16) & 0x8000;
+        int exp = ((x >> 23) & 0xFF) - 127 + 15;
+        unsigned int mant = x & 0x7FFFFF;
+
+        if (((x >> 23) & 0xFF) == 0xFF)             // infinity or NaN
+        {
+            return sign | 0x7C00 | (mant ? 0x200 : 0);
+        }
+        if (exp >= 31)                              // overflow
+        {
+            return sign | 0x7C00;
+        }
+        if (exp <= 0)                               // denormal or zero
+        {
+            if (exp < -10)
+            {
+                return sign;
+            }
+            mant |= 0x800000;
+            int shift = 14 - exp;
+            unsigned int half = mant >> shift;
+            unsigned int rem = mant & ((1 << shift) - 1);
+            unsigned int mid = 1 << (shift - 1);
+            if ((rem > mid) || ((rem == mid) && (half & 1)))
+            {
+                ++half;
+            }
+            return sign | half;
+        }
+        unsigned int half = (exp << 10) | (mant >> 13);
+        unsigned int rem = mant & 0x1FFF;
+        if ((rem > 0x1000) || ((rem == 0x1000) && (half & 1)))
+        {
+            ++half;                                 // may carry into exponent, which is correct
+        }
+        return sign | half;
+    }
+
+    static float halfToFloat(unsigned short h)
+    {
+        unsigned int sign = (h & 0x8000) << 16;
+        unsigned int exp = (h >> 10) & 0x1F;
+        unsigned int mant = h & 0x3FF;
+        unsigned int x;
+
+        if (exp == 0)
+        {
+            if (mant == 0)
+            {
+                x = sign;
+            }
+            else                                    // denormal, renormalize
+            {
+                exp = 127 - 15 + 1;
+                while ((mant & 0x400) == 0)
+                {
+                    mant <<= 1;
+                    --exp;
+                }
+                x = sign | (exp << 23) | ((mant & 0x3FF) << 13);
+            }
+        }
+        else if (exp == 31)
+        {
+            x = sign | 0x7F800000 | (mant << 13);
+        }
+        else
+        {
+            x = sign | ((exp - 15 + 127) << 23) | (mant << 13);
+        }
+        float f;
+        memcpy(&f, &x, sizeof(f));
+        return f;
+    }
+
+    static float clampf(float v, float lo, float hi)
+    {
+        return (v < lo) ? lo : ((v > hi) ? hi : v);
+    }
+
+    void DataDescriptor::encode(const DataEntry& entry, const float* src, void* dest)
+    {
+        int n = entry.Components;
+
+        switch (entry.Format)
+        {
+            case HALF:
+                for (int i = 0; i < n; ++i)
+                {
+                    static_cast<unsigned short*>(dest)[i] = floatToHalf(src[i]);
+                }
+                break;
+
+            case SNORM16:
+                for (int i = 0; i < n; ++i)
+                {
+                    static_cast<short*>(dest)[i] = (short) lroundf(clampf(src[i], -1.0f, 1.0f) * 32767.0f);
+                }
+                break;
+
+            case UNORM16:
+                for (int i = 0; i < n; ++i)
+                {
+                    static_cast<unsigned short*>(dest)[i] = (unsigned short) lroundf(clampf(src[i], 0.0f, 1.0f) * 65535.0f);
+                }
+                break;
+
+            case SNORM8:
+                for (int i = 0; i < n; ++i)
+                {
+                    static_cast<signed char*>(dest)[i] = (signed char) lroundf(clampf(src[i], -1.0f, 1.0f) * 127.0f);
+                }
+                break;
+
+            case UNORM8:
+                for (int i = 0; i < n; ++i)
+                {
+                    static_cast<unsigned char*>(dest)[i] = (unsigned char) lroundf(clampf(src[i], 0.0f, 1.0f) * 255.0f);
+                }
+                break;
+
+            default:
+                memcpy(dest, src, n * sizeof(float));
+                break;
+        }
+    }
+
+    void DataDescriptor::decode(const DataEntry& entry, const void* src, float* dest)
+    {
+        int n = entry.Components;
+
+        switch (entry.Format)
+        {
+            case HALF:
+                for (int i = 0; i < n; ++i)
+                {
+                    dest[i] = halfToFloat(static_cast<const unsigned short*>(src)[i]);
+                }
+                break;
+
+            case SNORM16:
+                for (int i = 0; i < n; ++i)
+                {
+                    float v = static_cast<const short*>(src)[i] / 32767.0f;
+                    dest[i] = (v < -1.0f) ? -1.0f : v;
+                }
+                break;
+
+            case UNORM16:
+                for (int i = 0; i < n; ++i)
+                {
+                    dest[i] = static_cast<const unsigned short*>(src)[i] / 65535.0f;
+                }
+                break;
+
+            case SNORM8:
+                for (int i = 0; i < n; ++i)
+                {
+                    float v = static_cast<const signed char*>(src)[i] / 127.0f;
+                    dest[i] = (v < -1.0f) ? -1.0f : v;
+                }
+                break;
+
+            case UNORM8:
+                for (int i = 0; i < n; ++i)
+                {
+                    dest[i] = static_cast<const unsigned char*>(src)[i] / 255.0f;
+                }
+                break;
+
+            default:
+                memcpy(dest, src, n * sizeof(float));
+                break;
+        }
+    }
+
     short DataDescriptor::calcSize(const char* type)
     {
         int size = 1;
         int n = strlen(type);
+        int components;
+
+        switch (parseFormat(type, components))
+        {
+            case HALF:
+            case SNORM16:
+            case UNORM16:
+                return ((components * 2) + 3) & ~3;
 
+            case SNORM8:
+            case UNORM8:
+                return 4;
+
+            default:
+                break;
+        }
         if (strncmp(type, "float", 5) == 0)
         {
             std::istringstream is(type + 5);
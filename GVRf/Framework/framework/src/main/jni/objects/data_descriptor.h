@@ -33,6 +33,21 @@ namespace gvr {
     class DataDescriptor
     {
     public:
+        /*
+         * Storage format of the components of an entry.
+         * Quantized formats are only used for vertex attributes,
+         * the GPU converts them to floats for the shader.
+         */
+        enum Format
+        {
+            FLOAT = 0,                  // 32-bit float or integer
+            HALF,                       // 16-bit float ("half3")
+            SNORM16,                    // 16-bit signed normalized ("snorm16x4")
+            UNORM16,                    // 16-bit unsigned normalized ("unorm16x2")
+            SNORM8,                     // 8-bit signed normalized ("snorm8x4")
+            UNORM8                      // 8-bit unsigned normalized ("unorm8x4")
+        };
+
         /*
          * Information kept for each uniform in the block.
          */
@@ -40,6 +55,8 @@ namespace gvr {
         {
             char Index;                 // 0-based index in descriptor order
             char Count;                 // number of elements
+            char Components;            // number of components in one element
+            char Format;                // storage format of the components
             short Offset;               // offset in bytes from the top of the uniform block
             short Size;                 // total byte size of uniform entry
             unsigned int IsSet : 1;     // true if the entry has been set, else false
@@ -153,9 +170,35 @@ namespace gvr {
 
         /**
          * Calculate the byte size of the given type.
+         * Quantized types are padded to a multiple of 4 bytes.
          */
         static short calcSize(const char* type);
 
+        /**
+         * Determine the storage format of the given type.
+         * @param type       type from a vertex or uniform descriptor
+         * @param components set to the number of components for quantized
+         *                   types, 0 for float and integer types
+         * @return Format of the type
+         */
+        static Format parseFormat(const char* type, int& components);
+
+        /**
+         * Convert one element of an entry from floats to its storage format.
+         * @param entry entry describing the format
+         * @param src   Components floats to convert
+         * @param dest  where to store the converted element
+         */
+        static void encode(const DataEntry& entry, const float* src, void* dest);
+
+        /**
+         * Convert one element of an entry from its storage format to floats.
+         * @param entry entry describing the format
+         * @param src   converted element
+         * @param dest  where to store Components floats
+         */
+        static void decode(const DataEntry& entry, const void* src, float* dest);
+
     protected:
         void removePunctuations(const char*);
         /**
@@ -0,0 +1,124 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Table of transforms shared with Java through a direct buffer.
+ ***************************************************************************/
+
+#include <algorithm>
+#include <cstring>
+#include "glm/gtc/type_ptr.hpp"
+
+#include "transform_table.h"
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+/*
+ * Put a transform into a slot of the table, or empty the slot
+ * if the transform is null. The slot is filled in right away so
+ * Java can read it before the next sync.
+ */
+void TransformTable::setTransform(int index, Transform* transform, float* data)
+{
+    std::lock_guard<std::mutex> lock(lock_);
+
+    if (index >= static_cast<int>(transforms_.size()))
+    {
+        transforms_.resize(index + 1, nullptr);
+    }
+    transforms_[index] = transform;
+    if (transform && data)
+    {
+        float* slot = data + index * STRIDE;
+
+        reinterpret_cast<int*>(slot)[FLAGS] = 0;
+        readTransform(transform, slot);
+    }
+}
+
+/*
+ * Apply the changes Java made to the local values and
+ * copy the world matrix and local values of all the
+ * transforms into the table.
+ * The flag is cleared before the values are read so a
+ * change made by Java while this runs is applied next time.
+ */
+void TransformTable::sync(float* data, int capacity)
+{
+    std::lock_guard<std::mutex> lock(lock_);
+    int n = std::min(static_cast<int>(transforms_.size()), capacity);
+
+    for (int i = 0; i < n; ++i)
+    {
+        Transform* t = transforms_[i];
+        float* slot = data + i * STRIDE;
+        int* flags = reinterpret_cast<int*>(slot) + FLAGS;
+        int changed = *flags;
+
+        if ((t != nullptr) && (changed != 0))
+        {
+            *flags = 0;
+            writeTransform(t, slot, changed);
+        }
+    }
+    /*
+     * The world matrices are computed after all the local
+     * changes so each dirty parent is only updated once.
+     */
+    for (int i = 0; i < n; ++i)
+    {
+        Transform* t = transforms_[i];
+
+        if (t != nullptr)
+        {
+            readTransform(t, data + i * STRIDE);
+        }
+    }
+}
+
+void TransformTable::readTransform(Transform* t, float* slot)
+{
+    glm::mat4 world = t->getModelMatrix();
+    const glm::vec3& pos = t->position();
+    const glm::quat& rot = t->rotation();
+    const glm::vec3& scale = t->scale();
+
+    memcpy(slot + MATRIX, glm::value_ptr(world), 16 * sizeof(float));
+    slot[POSITION] = pos.x;
+    slot[POSITION + 1] = pos.y;
+    slot[POSITION + 2] = pos.z;
+    slot[ROTATION] = rot.w;
+    slot[ROTATION + 1] = rot.x;
+    slot[ROTATION + 2] = rot.y;
+    slot[ROTATION + 3] = rot.z;
+    slot[SCALE] = scale.x;
+    slot[SCALE + 1] = scale.y;
+    slot[SCALE + 2] = scale.z;
+}
+
+void TransformTable::writeTransform(Transform* t, const float* slot, int flags)
+{
+    glm::vec3 pos(slot[POSITION], slot[POSITION + 1], slot[POSITION + 2]);
+    glm::quat rot(slot[ROTATION], slot[ROTATION + 1], slot[ROTATION + 2], slot[ROTATION + 3]);
+    glm::vec3 scale(slot[SCALE], slot[SCALE + 1], slot[SCALE + 2]);
+
+    t->set_local((flags & POSITION_CHANGED) ? &pos : nullptr,
+                 (flags & ROTATION_CHANGED) ? &rot : nullptr,
+                 (flags & SCALE_CHANGED) ? &scale : nullptr);
+}
+
+}
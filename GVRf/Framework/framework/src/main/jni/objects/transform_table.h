@@ -0,0 +1,82 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Table of transforms shared with Java through a direct buffer.
+ ***************************************************************************/
+
+#ifndef TRANSFORM_TABLE_H_
+#define TRANSFORM_TABLE_H_
+
+#include <mutex>
+#include <vector>
+
+#include "objects/hybrid_object.h"
+
+namespace gvr {
+class Transform;
+
+/*
+ * Mirrors a set of transforms in a float array which
+ * is a direct buffer owned by the Java GVRTransformTable.
+ * Each transform has a slot of STRIDE floats:
+ *    0 - 15   world matrix (column major)
+ *   16 - 18   local position
+ *   19 - 22   local rotation quaternion (W, X, Y, Z)
+ *   23 - 25   local scale
+ *   26        flags (int), which of the local values Java changed
+ *
+ * Once a frame sync() copies the local values Java changed
+ * into the transforms and then writes back the current local
+ * values and world matrix of every transform so Java can read
+ * them without calling into native code. Only the values
+ * Java changed are copied, so a change made to another value
+ * of the transform since the last sync is kept.
+ */
+class TransformTable : public HybridObject
+{
+public:
+    static const int STRIDE = 32;
+    static const int MATRIX = 0;
+    static const int POSITION = 16;
+    static const int ROTATION = 19;
+    static const int SCALE = 23;
+    static const int FLAGS = 26;
+    static const int POSITION_CHANGED = 1;
+    static const int ROTATION_CHANGED = 2;
+    static const int SCALE_CHANGED = 4;
+
+    TransformTable() { }
+    virtual ~TransformTable() { }
+
+    void setTransform(int index, Transform* transform, float* data);
+    void sync(float* data, int capacity);
+
+private:
+    TransformTable(const TransformTable&) = delete;
+    TransformTable(TransformTable&&) = delete;
+    TransformTable& operator=(const TransformTable&) = delete;
+    TransformTable& operator=(TransformTable&&) = delete;
+
+    static void readTransform(Transform* transform, float* slot);
+    static void writeTransform(Transform* transform, const float* slot, int flags);
+
+    std::mutex lock_;
+    std::vector<Transform*> transforms_;
+};
+
+}
+#endif
@@ -0,0 +1,71 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "transform_table.h"
+#include "objects/components/transform.h"
+
+#include "util/gvr_jni.h"
+
+namespace gvr {
+extern "C" {
+    JNIEXPORT jlong JNICALL
+    Java_org_gearvrf_NativeTransformTable_ctor(JNIEnv* env, jobject obj);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeTransformTable_setTransform(JNIEnv* env, jobject obj,
+            jlong jtable, jint index, jlong jtransform, jobject jdata);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeTransformTable_sync(JNIEnv* env, jobject obj,
+            jlong jtable, jobject jdata);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeTransformTable_ctor(JNIEnv* env, jobject obj)
+{
+    return reinterpret_cast<jlong>(new TransformTable());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformTable_setTransform(JNIEnv* env, jobject obj,
+        jlong jtable, jint index, jlong jtransform, jobject jdata)
+{
+    TransformTable* table = reinterpret_cast<TransformTable*>(jtable);
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    float* data = static_cast<float*>(env->GetDirectBufferAddress(jdata));
+
+    table->setTransform(index, transform, data);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformTable_sync(JNIEnv* env, jobject obj,
+        jlong jtable, jobject jdata)
+{
+    TransformTable* table = reinterpret_cast<TransformTable*>(jtable);
+    float* data = static_cast<float*>(env->GetDirectBufferAddress(jdata));
+    int capacity = static_cast<int>(env->GetDirectBufferCapacity(jdata) / (TransformTable::STRIDE * sizeof(float)));
+
+    if (data != nullptr)
+    {
+        table->sync(data, capacity);
+    }
+}
+
+}
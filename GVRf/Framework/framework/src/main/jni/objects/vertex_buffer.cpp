@@ -18,6 +18,13 @@ namespace gvr {
         mVertexData = NULL;
         setVertexCount(vertexCount);
         removePunctuations(layout_desc);
+
+        const DataEntry* pos = find("a_position");
+        if ((pos != nullptr) && (pos->Format != FLOAT))
+        {
+            LOGE("VertexBuffer: a_position must be a float attribute");
+            mValid = false;
+        }
     }
 
     VertexBuffer::~VertexBuffer()
@@ -105,7 +112,7 @@ namespace gvr {
             LOGE("VertexBuffer: cannot set attribute %s, source array not found", attributeName);
             return false;
         }
-        attrStride = attr->Size / sizeof(float);    // # of floats in vertex attribute
+        attrStride = attr->Components;              // # of floats in vertex attribute
         if (srcStride == 0)
         {
             srcStride = attrStride;
@@ -137,9 +144,16 @@ namespace gvr {
 
         for (int i = 0; i < mVertexCount; ++i)
         {
-            for (int j = 0; j < attrStride; ++j)
+            if (attr->Format == FLOAT)
             {
-                dest[j] = src[j];
+                for (int j = 0; j < attrStride; ++j)
+                {
+                    dest[j] = src[j];
+                }
+            }
+            else
+            {
+                encode(*attr, src, dest);
             }
             dest += dstStride;
             if (src >= srcend)
@@ -161,7 +175,7 @@ namespace gvr {
         const DataEntry* attr = find(attributeName);
         const float*    dstend;
         const float*    src = reinterpret_cast<float*>(mVertexData);
-        int             attrSize = attr->Size / sizeof(float);
+        int             attrSize;
         int             srcStride = getVertexSize();
 
         if ((attr == NULL) || !attr->IsSet)
@@ -169,6 +183,7 @@ namespace gvr {
             LOGE("VertexBuffer: ERROR attribute %s not found in vertex buffer", attributeName);
             return false;
         }
+        attrSize = attr->Components;
         if (src == NULL)
         {
             LOGD("VertexBuffer: cannot set attribute %s", attributeName);
@@ -182,9 +197,16 @@ namespace gvr {
         }
         for (int i = 0; i < mVertexCount; ++i)
         {
-            for (int j = 0; j < attrSize; ++j)
+            if (attr->Format == FLOAT)
             {
-                dest[j] = src[j];
+                for (int j = 0; j < attrSize; ++j)
+                {
+                    dest[j] = src[j];
+                }
+            }
+            else
+            {
+                decode(*attr, src, dest);
             }
             src += srcStride;
             dest += destStride;
@@ -397,6 +419,18 @@ namespace gvr {
             return false;
         }
         ofs = attr->Offset / sizeof(float);
+        if (attr->Format != FLOAT)              // quantized, convert to floats
+        {
+            float value[4];
+
+            for (int i = 0; i < mVertexCount; ++i)
+            {
+                decode(*attr, data + ofs, value);
+                func(i, value);
+                data += stride;
+            }
+            return true;
+        }
         for (int i = 0; i < mVertexCount; ++i)
         {
             func(i, data + ofs);
@@ -436,7 +470,7 @@ namespace gvr {
         {
             std::ostringstream os;
             os.precision(3);
-            int asize = attr->Size / sizeof(float);
+            int asize = attr->Components;
             if (attr->IsInt)
             {
                 const int* iv = (const int*) vertex;
@@ -22,6 +22,12 @@ namespace gvr {
  * Typical vertex components include location (Vec3), normal (Vec3),
  * color (Color) and texture coordinates (Vec2).
  *
+ * Float attributes other than the position may also be stored
+ * in quantized formats (half, snorm16x, unorm16x, snorm8x, unorm8x).
+ * They are converted when set and read back as floats, the GPU
+ * converts them for the shader. Each attribute occupies a multiple
+ * of 4 bytes so the vertex is still addressable as floats.
+ *
  * The format of the vertex data in the array maps directly to
  * what is required by the underlying renderer so that vertices
  * may be quickly copied without reformatting.
@@ -53,6 +59,13 @@ namespace gvr {
          */
         int getVertexCount() const  { return mVertexCount; }
 
+        /**
+         * Return false if the layout descriptor was rejected.
+         * a_position must be a float attribute because bounds
+         * and picking read the positions as floats.
+         */
+        bool isValid() const        { return mValid; }
+
         /**
          * Return the number of bytes in the vertex data buffer.
          */
@@ -128,6 +141,18 @@ namespace gvr {
          */
         bool            getIntVec(const char* attributeName, int* data, int dataByteSize, int dataStride) const;
 
+        /**
+         * Get the value of a float vertex attribute for one vertex,
+         * converting quantized attributes to floats.
+         * @param vertex    pointer to the start of the vertex
+         * @param attr      attribute to get
+         * @param dest      where to store the attribute components
+         */
+        void getVertexValue(const float* vertex, const DataEntry& attr, float* dest) const
+        {
+            decode(attr, reinterpret_cast<const char*>(vertex) + attr.Offset, dest);
+        }
+
         bool            forAllVertices(const char* attrName, std::function<void (int iter, const float* vertex)> func) const;
         bool            forAllVertices(std::function<void (int iter, const float* vertex)> func) const;
         bool            getInfo(const char* attributeName, int& index, int& offset, int& size) const;
@@ -146,6 +171,7 @@ namespace gvr {
         int             mVertexCount;       // current number of vertices
         char*           mVertexData;        // vertex data buffer
         int             mBoneFlags = 0;     // indicates which vertex attributes are bones
+        bool            mValid = true;      // false if the layout descriptor was rejected
     };
 
 } // end gvrf
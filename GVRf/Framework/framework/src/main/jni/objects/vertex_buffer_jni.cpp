@@ -90,6 +90,13 @@ Java_org_gearvrf_NativeVertexBuffer_ctor(JNIEnv* env, jobject obj, jstring descr
     const char* char_desc = env->GetStringUTFChars(descriptor, 0);
     VertexBuffer* vbuf = Renderer::getInstance()->createVertexBuffer(char_desc, vertexCount);
     env->ReleaseStringUTFChars(descriptor, char_desc);
+    if (!vbuf->isValid())
+    {
+        delete vbuf;
+        jclass exception = env->FindClass("java/lang/IllegalArgumentException");
+        env->ThrowNew(exception, "a_position must be a float attribute");
+        return 0;
+    }
     return reinterpret_cast<jlong>(vbuf);
 }
 
@@ -122,7 +129,7 @@ Java_org_gearvrf_NativeVertexBuffer_getFloatArray(JNIEnv * env, jobject obj,
 
     if (entry != NULL)
     {
-        int n = (vbuf->getVertexCount() * entry->Size) / sizeof(float);
+        int n = vbuf->getVertexCount() * entry->Components;
         jdata = env->NewFloatArray(n);
         float *data = env->GetFloatArrayElements(jdata, 0);
         vbuf->getFloatVec(char_key, data, n, 0);
@@ -260,7 +267,8 @@ Java_org_gearvrf_NativeVertexBuffer_getAttributeSize(JNIEnv* env, jobject obj,
 {
     VertexBuffer* vbuf = reinterpret_cast<VertexBuffer*>(jvbuf);
     const char* char_key = env->GetStringUTFChars(attribName, 0);
-    int size = vbuf->getByteSize(char_key) / sizeof(float);
+    const VertexBuffer::DataEntry* entry = vbuf->find(char_key);
+    int size = ((entry != NULL) && entry->IsSet) ? entry->Components : 0;
     env->ReleaseStringUTFChars(attribName, char_key);
     return size;
 }
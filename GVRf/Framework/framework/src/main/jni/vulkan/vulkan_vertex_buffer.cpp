@@ -91,7 +91,7 @@ namespace gvr {
                                                                binding.binding = GVR_VK_VERTEX_BUFFER_BIND_ID;
                                                                binding.location = e.Index;
                                                                LOGV("location %d attrMapping[i].offset %d , name %s", entry->Index, entry->Offset, entry->Name);
-                                                               binding.format = getDataType(entry->Type); //float3
+                                                               binding.format = getDataType(*entry); //float3
                                                                binding.offset = entry->Offset;
                                                                stride+= entry->Size;
                                                                vertices->vi_attrs.push_back(binding);
@@ -210,6 +210,29 @@ namespace gvr {
         mIsDirty = false;
     }
 
+    VkFormat VulkanVertexBuffer::getDataType(const DataEntry& entry)
+    {
+        static const VkFormat formats[][4] =
+        {
+            { VK_FORMAT_R16_SFLOAT, VK_FORMAT_R16G16_SFLOAT, VK_FORMAT_R16G16B16A16_SFLOAT, VK_FORMAT_R16G16B16A16_SFLOAT },
+            { VK_FORMAT_R16_SNORM, VK_FORMAT_R16G16_SNORM, VK_FORMAT_R16G16B16A16_SNORM, VK_FORMAT_R16G16B16A16_SNORM },
+            { VK_FORMAT_R16_UNORM, VK_FORMAT_R16G16_UNORM, VK_FORMAT_R16G16B16A16_UNORM, VK_FORMAT_R16G16B16A16_UNORM },
+            { VK_FORMAT_R8G8B8A8_SNORM, VK_FORMAT_R8G8B8A8_SNORM, VK_FORMAT_R8G8B8A8_SNORM, VK_FORMAT_R8G8B8A8_SNORM },
+            { VK_FORMAT_R8G8B8A8_UNORM, VK_FORMAT_R8G8B8A8_UNORM, VK_FORMAT_R8G8B8A8_UNORM, VK_FORMAT_R8G8B8A8_UNORM }
+        };
+
+        /*
+         * Three component formats are widely unsupported for vertex
+         * fetch, the padded four component format is used instead.
+         * The shader ignores the extra component.
+         */
+        if (entry.Format != FLOAT)
+        {
+            return formats[entry.Format - HALF][entry.Components - 1];
+        }
+        return getDataType(entry.Type);
+    }
+
     VkFormat VulkanVertexBuffer::getDataType(const std::string& type)
     {
         if(type.compare("float")==0)
@@ -43,6 +43,7 @@ namespace gvr {
     protected:
         void    freeGPUResources();
         VkFormat getDataType(const std::string& type);
+        VkFormat getDataType(const DataEntry& entry);
         std::unordered_map<Shader*,std::shared_ptr<GVR_VK_Vertices>> mVerticesMap;
     };
 
@@ -0,0 +1,255 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.utility;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Host tests for {@link MeshSimplifier}. The meshes are spheres, so every
+ * triangle of a correct result faces away from the origin.
+ */
+public class MeshSimplifierTest {
+    /*
+     * Unit sphere made by subdividing an octahedron, with a normal,
+     * a texture coordinate and a bone index per vertex.
+     */
+    private static class Sphere {
+        final List<float[]> verts = new ArrayList<float[]>();
+        final List<Integer> tris = new ArrayList<Integer>();
+        final Map<Long, Integer> midpoints = new HashMap<Long, Integer>();
+        float[] positions;
+        int[] indices;
+
+        Sphere(int levels, float noise) {
+            add(1, 0, 0); add(-1, 0, 0); add(0, 1, 0);
+            add(0, -1, 0); add(0, 0, 1); add(0, 0, -1);
+            int[] faces = { 0, 2, 4,  2, 1, 4,  1, 3, 4,  3, 0, 4,
+                            2, 0, 5,  1, 2, 5,  3, 1, 5,  0, 3, 5 };
+            for (int f : faces) {
+                tris.add(f);
+            }
+            for (int l = 0; l < levels; ++l) {
+                List<Integer> old = new ArrayList<Integer>(tris);
+                tris.clear();
+                for (int i = 0; i < old.size(); i += 3) {
+                    int a = old.get(i), b = old.get(i + 1), c = old.get(i + 2);
+                    int ab = midpoint(a, b), bc = midpoint(b, c), ca = midpoint(c, a);
+                    int[] split = { a, ab, ca,  ab, b, bc,  ca, bc, c,  ab, bc, ca };
+                    for (int v : split) {
+                        tris.add(v);
+                    }
+                }
+            }
+            positions = new float[verts.size() * 3];
+            for (int v = 0; v < verts.size(); ++v) {
+                float scale = 1.0f + noise * (float) Math.sin(v * 12.9898);
+                for (int c = 0; c < 3; ++c) {
+                    positions[v * 3 + c] = verts.get(v)[c] * scale;
+                }
+            }
+            indices = new int[tris.size()];
+            for (int i = 0; i < indices.length; ++i) {
+                indices[i] = tris.get(i);
+            }
+        }
+
+        private int add(float x, float y, float z) {
+            float len = (float) Math.sqrt(x * x + y * y + z * z);
+            verts.add(new float[] { x / len, y / len, z / len });
+            return verts.size() - 1;
+        }
+
+        private int midpoint(int a, int b) {
+            long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+            Integer m = midpoints.get(key);
+            if (m == null) {
+                float[] p = verts.get(a);
+                float[] q = verts.get(b);
+                m = add(p[0] + q[0], p[1] + q[1], p[2] + q[2]);
+                midpoints.put(key, m);
+            }
+            return m;
+        }
+
+        int vertexCount() {
+            return positions.length / 3;
+        }
+
+        Map<String, float[]> floats() {
+            int n = vertexCount();
+            float[] normals = new float[n * 3];
+            float[] uvs = new float[n * 2];
+            for (int v = 0; v < n; ++v) {
+                System.arraycopy(verts.get(v), 0, normals, v * 3, 3);
+                uvs[v * 2] = v;
+                uvs[v * 2 + 1] = -v;
+            }
+            Map<String, float[]> floats = new HashMap<String, float[]>();
+            floats.put("a_position", positions.clone());
+            floats.put("a_normal", normals);
+            floats.put("a_texcoord", uvs);
+            return floats;
+        }
+
+        Map<String, int[]> ints() {
+            int n = vertexCount();
+            int[] bones = new int[n];
+            for (int v = 0; v < n; ++v) {
+                bones[v] = v * 7;
+            }
+            Map<String, int[]> ints = new HashMap<String, int[]>();
+            ints.put("a_bone_indices", bones);
+            return ints;
+        }
+    }
+
+    /*
+     * Assert that no triangle is degenerate or faces the origin.
+     */
+    private static void assertWellFormed(float[] pos, int[] tris) {
+        for (int i = 0; i < tris.length; i += 3) {
+            float[] a = vertex(pos, tris[i]);
+            float[] b = vertex(pos, tris[i + 1]);
+            float[] c = vertex(pos, tris[i + 2]);
+            float[] e = { b[0] - a[0], b[1] - a[1], b[2] - a[2] };
+            float[] f = { c[0] - a[0], c[1] - a[1], c[2] - a[2] };
+            double nx = e[1] * f[2] - e[2] * f[1];
+            double ny = e[2] * f[0] - e[0] * f[2];
+            double nz = e[0] * f[1] - e[1] * f[0];
+            double area = 0.5 * Math.sqrt(nx * nx + ny * ny + nz * nz);
+            double outward = nx * (a[0] + b[0] + c[0]) + ny * (a[1] + b[1] + c[1]) + nz * (a[2] + b[2] + c[2]);
+
+            assertTrue("triangle " + i / 3 + " has no area", area > 1e-7);
+            assertTrue("triangle " + i / 3 + " is flipped", outward > 0);
+        }
+    }
+
+    private static float[] vertex(float[] pos, int v) {
+        return new float[] { pos[v * 3], pos[v * 3 + 1], pos[v * 3 + 2] };
+    }
+
+    @Test
+    public void reachesTargetRatio() {
+        Sphere sphere = new Sphere(5, 0.0f);
+        Map<String, float[]> floats = sphere.floats();
+        int target = sphere.indices.length / 3 / 10;
+        int[] tris = new MeshSimplifier().simplify(sphere.indices, sphere.vertexCount(),
+                                                   floats, null, target);
+
+        assertTrue("too many triangles: " + tris.length / 3, tris.length / 3 <= target);
+        assertTrue("too few triangles: " + tris.length / 3, tris.length / 3 >= target * 9 / 10);
+        assertWellFormed(floats.get("a_position"), tris);
+    }
+
+    @Test
+    public void noDegenerateOrFlippedTriangles() {
+        float[] ratios = { 0.5f, 0.1f, 0.03f, 0.01f, 0.0f };
+
+        for (float noise : new float[] { 0.0f, 0.02f }) {
+            Sphere sphere = new Sphere(4, noise);
+            for (float ratio : ratios) {
+                Map<String, float[]> floats = sphere.floats();
+                int target = (int) (sphere.indices.length / 3 * ratio);
+                int[] tris = new MeshSimplifier().simplify(sphere.indices, sphere.vertexCount(),
+                                                           floats, null, target);
+                float[] pos = floats.get("a_position");
+
+                // a closed mesh never gets simpler than a tetrahedron
+                assertTrue("ratio " + ratio + " opened the sphere", tris.length / 3 >= 4);
+                assertWellFormed(pos, tris);
+                float distance = MeshSimplifier.measureDistance(sphere.positions, sphere.indices, pos, tris);
+                assertFalse("distance is NaN", Float.isNaN(distance));
+                if (ratio > 0) {
+                    assertTrue("ratio " + ratio + " collapsed the sphere, distance " + distance,
+                               distance < 0.75f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stopsAtMaxError() {
+        Sphere sphere = new Sphere(5, 0.0f);
+        Map<String, float[]> floats = sphere.floats();
+        MeshSimplifier simplifier = new MeshSimplifier().setMaxError(0.01f);
+        int[] tris = simplifier.simplify(sphere.indices, sphere.vertexCount(), floats, null, 0);
+        float distance = MeshSimplifier.measureDistance(sphere.positions, sphere.indices,
+                                                        floats.get("a_position"), tris);
+
+        assertTrue("nothing was simplified", tris.length < sphere.indices.length);
+        assertTrue("quadric error " + simplifier.getError(), simplifier.getError() <= 0.01f);
+        assertTrue("distance " + distance, distance > 0 && distance < 0.05f);
+        assertWellFormed(floats.get("a_position"), tris);
+    }
+
+    @Test
+    public void measuresDegenerateTriangles() {
+        float[] pos = { 0, 0, 0,  1, 0, 0,  2, 0, 0,  1, 1, 0 };
+        int[] line = { 0, 1, 2 };
+        int[] point = { 3, 3, 3 };
+        int[] triangle = { 0, 2, 3 };
+
+        assertEquals(1.0f, MeshSimplifier.measureDistance(pos, triangle, pos, line), 1e-6f);
+        assertEquals(Math.sqrt(2), MeshSimplifier.measureDistance(pos, triangle, pos, point), 1e-6f);
+    }
+
+    @Test
+    public void keepsAuthoredAttributes() {
+        Sphere sphere = new Sphere(4, 0.0f);
+        Map<String, float[]> original = sphere.floats();
+        Map<String, int[]> originalInts = sphere.ints();
+        Map<String, float[]> floats = sphere.floats();
+        Map<String, int[]> ints = sphere.ints();
+        MeshSimplifier simplifier = new MeshSimplifier();
+        int[] tris = simplifier.simplify(sphere.indices, sphere.vertexCount(),
+                                         floats, ints, sphere.indices.length / 30);
+        int n = simplifier.getVertexCount();
+        Set<String> authored = new HashSet<String>();
+
+        for (int v = 0; v < sphere.vertexCount(); ++v) {
+            authored.add(key(original, originalInts, v));
+        }
+        assertEquals(n * 3, floats.get("a_position").length);
+        assertEquals(n * 2, floats.get("a_texcoord").length);
+        assertEquals(n, ints.get("a_bone_indices").length);
+        for (int i : tris) {
+            assertTrue("index out of range", i < n);
+        }
+        for (int v = 0; v < n; ++v) {
+            assertTrue("vertex " + v + " was not in the input", authored.contains(key(floats, ints, v)));
+        }
+    }
+
+    private static String key(Map<String, float[]> floats, Map<String, int[]> ints, int v) {
+        float[] p = floats.get("a_position");
+        float[] nrm = floats.get("a_normal");
+        float[] uv = floats.get("a_texcoord");
+        return p[v * 3] + "," + p[v * 3 + 1] + "," + p[v * 3 + 2] + "/"
+                + nrm[v * 3] + "," + nrm[v * 3 + 1] + "," + nrm[v * 3 + 2] + "/"
+                + uv[v * 2] + "," + uv[v * 2 + 1] + "/" + ints.get("a_bone_indices")[v];
+    }
+}
@@ -13,7 +13,7 @@
 # limitations under the License.
 
 __version__ = '0.0.1'
-__all__ = ['gvrf_client', 'file_server', 'scene_exporter']
+__all__ = ['gvrf_client', 'file_server', 'scene_exporter', 'livelink_client']
 
 __author__ = 'Sidia'
 
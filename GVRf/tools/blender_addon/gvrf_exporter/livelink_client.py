@@ -0,0 +1,182 @@
+# Copyright 2015 Samsung Electronics Co., LTD
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Binary live link client for org.gearvrf.debug.LiveLinkServer.
+
+Changes are addressed by object id and sent as small binary messages.
+The device coalesces them until end_frame() and applies each editor
+frame in one batch on the GL thread, then acknowledges it.
+
+Run this module directly to measure throughput and latency against a
+device (for example through "adb forward tcp:1646 tcp:1646"):
+
+    python3 livelink_client.py 127.0.0.1 1646
+"""
+
+import socket
+import struct
+import time
+
+DEFAULT_PORT = 1646
+FIRST_CLIENT_ID = 0x10000000
+
+SNAPSHOT = 1
+CREATE = 2
+REMOVE = 3
+TRANSFORM = 4
+VISIBLE = 5
+COLOR = 6
+NAME = 7
+FRAME = 8
+FRAME_ACK = 9
+
+_transform = struct.Struct('>Bi10f')
+_visible = struct.Struct('>BiB')
+_color = struct.Struct('>Bi4f')
+_int = struct.Struct('>Bi')
+_create = struct.Struct('>Bii')
+_record = struct.Struct('>10f')
+
+
+def _utf(text):
+    data = text.encode('utf8')
+    return struct.pack('>H', len(data)) + data
+
+
+class LiveLinkClient:
+    def __init__(self, address, port=DEFAULT_PORT):
+        self._sock = socket.create_connection((address, port))
+        self._sock.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+        self._out = bytearray()
+        self._in = self._sock.makefile('rb')
+        self._next_id = FIRST_CLIENT_ID
+        self._sequence = 0
+        self._sent = {}
+
+    def close(self):
+        self._in.close()
+        self._sock.close()
+
+    def new_id(self):
+        obj_id = self._next_id
+        self._next_id += 1
+        return obj_id
+
+    def create(self, obj_id, name, parent_id=0):
+        self._out += _create.pack(CREATE, obj_id, parent_id) + _utf(name)
+
+    def remove(self, obj_id):
+        self._out += _int.pack(REMOVE, obj_id)
+
+    def set_transform(self, obj_id, position, rotation, scale=(1.0, 1.0, 1.0)):
+        """Rotation is a quaternion (w, x, y, z)."""
+        self._out += _transform.pack(TRANSFORM, obj_id, *(tuple(position) + tuple(rotation) + tuple(scale)))
+
+    def set_visible(self, obj_id, visible):
+        self._out += _visible.pack(VISIBLE, obj_id, 1 if visible else 0)
+
+    def set_color(self, obj_id, r, g, b, a=1.0):
+        self._out += _color.pack(COLOR, obj_id, r, g, b, a)
+
+    def set_name(self, obj_id, name):
+        self._out += _int.pack(NAME, obj_id) + _utf(name)
+
+    def end_frame(self):
+        """Send everything since the last frame. Returns the frame sequence number."""
+        self._sequence += 1
+        self._out += _int.pack(FRAME, self._sequence)
+        self._sent[self._sequence] = time.perf_counter()
+        self._sock.sendall(self._out)
+        self._out = bytearray()
+        return self._sequence
+
+    def wait_ack(self, sequence):
+        """Wait until the device applied a frame. Returns the round trip time in seconds."""
+        while True:
+            opcode = self._read(1)[0]
+            if opcode == FRAME_ACK:
+                acked = struct.unpack('>i', self._read(4))[0]
+                sent = self._sent.pop(acked, None)
+                if acked >= sequence:
+                    return time.perf_counter() - sent if sent is not None else 0.0
+            elif opcode == SNAPSHOT:
+                self._read_snapshot()
+            else:
+                raise IOError('Unexpected live link opcode %d' % opcode)
+
+    def snapshot(self):
+        """Request the device scene. Returns a list of
+        (id, parent_id, name, visible, position, rotation, scale), parents first."""
+        self._sock.sendall(bytes(self._out) + bytes([SNAPSHOT]))
+        self._out = bytearray()
+        while True:
+            opcode = self._read(1)[0]
+            if opcode == SNAPSHOT:
+                return self._read_snapshot()
+            elif opcode == FRAME_ACK:
+                self._sent.pop(struct.unpack('>i', self._read(4))[0], None)
+            else:
+                raise IOError('Unexpected live link opcode %d' % opcode)
+
+    def _read_snapshot(self):
+        count = struct.unpack('>i', self._read(4))[0]
+        objects = []
+        for i in range(count):
+            obj_id, parent_id, name_len = struct.unpack('>iiH', self._read(10))
+            name = self._read(name_len).decode('utf8')
+            visible = self._read(1)[0] != 0
+            t = _record.unpack(self._read(_record.size))
+            objects.append((obj_id, parent_id, name, visible, t[0:3], t[3:7], t[7:10]))
+        return objects
+
+    def _read(self, size):
+        data = self._in.read(size)
+        if len(data) < size:
+            raise EOFError('Live link closed')
+        return data
+
+
+def measure(client, num_objects=100, num_frames=300):
+    """Drag num_objects objects for num_frames frames.
+    Returns (deltas per second, mean latency, worst latency)."""
+    ids = [client.new_id() for i in range(num_objects)]
+    for obj_id in ids:
+        client.create(obj_id, 'livelink-%d' % obj_id)
+    client.wait_ack(client.end_frame())
+
+    latencies = []
+    start = time.perf_counter()
+    for frame in range(num_frames):
+        x = frame * 0.01
+        for obj_id in ids:
+            client.set_transform(obj_id, (x, 0.0, -5.0), (1.0, 0.0, 0.0, 0.0))
+        latencies.append(client.wait_ack(client.end_frame()))
+    elapsed = time.perf_counter() - start
+
+    for obj_id in ids:
+        client.remove(obj_id)
+    client.wait_ack(client.end_frame())
+    return (num_objects * num_frames / elapsed, sum(latencies) / len(latencies), max(latencies))
+
+
+if __name__ == '__main__':
+    import sys
+
+    addr = sys.argv[1] if len(sys.argv) > 1 else '127.0.0.1'
+    port = int(sys.argv[2]) if len(sys.argv) > 2 else DEFAULT_PORT
+    link = LiveLinkClient(addr, port)
+    print('%d objects on device' % len(link.snapshot()))
+    rate, mean, worst = measure(link)
+    print('%.0f deltas/sec, latency mean %.1f ms, worst %.1f ms' % (rate, mean * 1000, worst * 1000))
+    link.close()